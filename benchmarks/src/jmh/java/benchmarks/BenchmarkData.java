@@ -0,0 +1,99 @@
+package benchmarks;
+
+import commons.Event;
+import commons.Expense;
+import commons.ExpenseList;
+import commons.Involved;
+import commons.InvolvedList;
+import commons.Participant;
+import commons.ParticipantList;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import server.Main;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Events, participants and expenses the benchmarks run against, and the server they are seeded into.
+ * Every expense is paid by one participant and involves that participant and the next one,
+ * so an event of n expenses has 2n involveds whatever the number of participants.
+ */
+final class BenchmarkData {
+
+    private static final LocalDate FIRST_DATE = LocalDate.of(2024, 1, 1);
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Starts the server on a fresh in-memory database of its own, on a random port and without the h2 console
+     */
+    static ConfigurableApplicationContext startServer() {
+        return new SpringApplicationBuilder(Main.class)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "server.port=0",
+                        "spring.h2.console.enabled=false",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=warn")
+                .run();
+    }
+
+    /**
+     * Builds an event in the form the admin imports it, with references between the entities
+     */
+    static Event dump(UUID invitationCode, int participantCount, int expenseCount) {
+        LocalDateTime now = LocalDateTime.now();
+        Event event = new Event(invitationCode, "benchmark", now, now);
+        for (int index = 0; index < participantCount; index++)
+            event.getParticipants().add(new Participant(UUID.randomUUID(), "first" + index, "last" + index,
+                    "iban" + index, "bic" + index, invitationCode));
+        for (int index = 0; index < expenseCount; index++) {
+            Participant paidBy = event.getParticipants().get(index % participantCount);
+            Participant other = event.getParticipants().get((index + 1) % participantCount);
+            Expense expense = new Expense(paidBy, "expense" + index, 10 + index % 100,
+                    FIRST_DATE.plusDays(index % 365), new InvolvedList());
+            expense.getInvolveds().add(new Involved(true, expense, paidBy));
+            expense.getInvolveds().add(new Involved(false, expense, other));
+            paidBy.addExpense(expense);
+        }
+        return event;
+    }
+
+    /**
+     * Builds participants in the form they are sent to clients
+     */
+    static ParticipantList participants(UUID invitationCode, int participantCount) {
+        ParticipantList participants = new ParticipantList();
+        for (int index = 0; index < participantCount; index++)
+            participants.add(new Participant(UUID.randomUUID(), "first" + index, "last" + index,
+                    "iban" + index, "bic" + index, invitationCode));
+        return participants;
+    }
+
+    /**
+     * Builds expenses between the given participants in the form they are sent to clients
+     */
+    static ExpenseList expenses(UUID invitationCode, ParticipantList participants, int expenseCount) {
+        ExpenseList expenses = new ExpenseList();
+        for (int index = 0; index < expenseCount; index++)
+            expenses.add(expense(invitationCode, participants, index, UUID.randomUUID()));
+        return expenses;
+    }
+
+    /**
+     * Builds the expense with the given index between the given participants in the form it is sent to clients
+     */
+    static Expense expense(UUID invitationCode, ParticipantList participants, int index, UUID id) {
+        UUID paidById = participants.get(index % participants.size()).getId();
+        UUID otherId = participants.get((index + 1) % participants.size()).getId();
+        InvolvedList involveds = new InvolvedList();
+        involveds.add(new Involved(UUID.randomUUID(), true, id, paidById, invitationCode));
+        involveds.add(new Involved(UUID.randomUUID(), false, id, otherId, invitationCode));
+        Expense expense = new Expense(id, "expense" + index, 10 + index % 100, paidById, invitationCode,
+                FIRST_DATE.plusDays(index % 365), involveds);
+        expense.setAmountOwed(expense.getAmount() / involveds.size());
+        return expense;
+    }
+}
@@ -0,0 +1,143 @@
+package benchmarks;
+
+import client.utils.EventDataHandler;
+import commons.Event;
+import commons.Expense;
+import commons.ExpenseList;
+import commons.Participant;
+import commons.ParticipantList;
+import javafx.application.Platform;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how the client keeps the expenses of an event up to date when the server broadcasts a change,
+ * and the lookups the views make while they render it.
+ * The JavaFX toolkit is never started, so every Platform.runLater of a change throws;
+ * the runLater benchmark measures that failed call, so it can be subtracted from the changes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EventDataHandlerBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int expenses;
+
+    @Param({"20"})
+    public int participants;
+
+    private EventDataHandler handler;
+    private ParticipantList participantList;
+    private Expense created;
+    private Expense updated;
+    private UUID lastExpenseId;
+    private UUID lastParticipantId;
+
+    /**
+     * Builds the handler of an event with the expenses
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        UUID invitationCode = UUID.randomUUID();
+        participantList = BenchmarkData.participants(invitationCode, participants);
+        ExpenseList expenseList = BenchmarkData.expenses(invitationCode, participantList, expenses);
+        handler = new EventDataHandler(new Event(invitationCode, "benchmark", null, null),
+                new ArrayList<>(participantList), new ArrayList<>(expenseList));
+        for (Expense expense : expenseList)
+            handler.assignParticipantsInExpense(expense);
+
+        created = BenchmarkData.expense(invitationCode, participantList, expenses, UUID.randomUUID());
+        Expense middle = expenseList.get(expenses / 2);
+        updated = BenchmarkData.expense(invitationCode, participantList, expenses / 2, middle.getId());
+        updated.setTitle("updated");
+        lastExpenseId = expenseList.getLast().getId();
+        lastParticipantId = participantList.getLast().getId();
+    }
+
+    /**
+     * Receives the creation of an expense and then its deletion, so the event keeps its size
+     * @return the handler, consumed by JMH
+     */
+    @Benchmark
+    public EventDataHandler createAndDeleteExpense() {
+        try {
+            handler.getCreateExpense(created);
+        } catch (IllegalStateException e) {
+            // the toolkit is not started
+        }
+        try {
+            handler.getDeleteExpense(created);
+        } catch (IllegalStateException e) {
+            // the toolkit is not started
+        }
+        return handler;
+    }
+
+    /**
+     * Receives the update of the expense in the middle of the event
+     * @return the handler, consumed by JMH
+     */
+    @Benchmark
+    public EventDataHandler updateExpense() {
+        try {
+            handler.getUpdateExpense(updated);
+        } catch (IllegalStateException e) {
+            // the toolkit is not started
+        }
+        return handler;
+    }
+
+    /**
+     * Calls Platform.runLater without a started toolkit, as every change above does
+     * @return whether the call threw, consumed by JMH
+     */
+    @Benchmark
+    public boolean runLater() {
+        try {
+            Platform.runLater(() -> { });
+            return false;
+        } catch (IllegalStateException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Looks up the expense added last
+     * @return the expense, consumed by JMH
+     */
+    @Benchmark
+    public Expense getExpenseById() {
+        return handler.getExpenseById(lastExpenseId);
+    }
+
+    /**
+     * Looks up the participant added last
+     * @return the participant, consumed by JMH
+     */
+    @Benchmark
+    public Participant getParticipantById() {
+        return handler.getParticipantById(lastParticipantId);
+    }
+
+    /**
+     * Filters the expenses paid by the first participant
+     * @return the expenses, consumed by JMH
+     */
+    @Benchmark
+    public List<Expense> getExpensesByParticipant() {
+        return handler.getExpensesByParticipant(participantList.getFirst());
+    }
+}
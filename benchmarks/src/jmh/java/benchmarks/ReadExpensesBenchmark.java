@@ -0,0 +1,67 @@
+package benchmarks;
+
+import commons.StatusEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import server.api.AdminController;
+import server.api.ExpenseController;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures expenses:read of one event, through the transactional controller of a running server
+ * seeded with the event through the admin import.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadExpensesBenchmark {
+
+    @Param({"1000", "10000"})
+    public int expenses;
+
+    @Param({"20"})
+    public int participants;
+
+    private ConfigurableApplicationContext context;
+    private ExpenseController expenseController;
+    private UUID invitationCode;
+
+    /**
+     * Starts the server and imports the event
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkData.startServer();
+        invitationCode = UUID.randomUUID();
+        context.getBean(AdminController.class).saveEvent(BenchmarkData.dump(invitationCode, participants, expenses));
+        expenseController = context.getBean(ExpenseController.class);
+    }
+
+    /**
+     * Stops the server
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Reads all expenses of the event
+     * @return the answer sent to the client, consumed by JMH
+     */
+    @Benchmark
+    public StatusEntity readExpenses() {
+        return expenseController.readExpenses(invitationCode);
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import commons.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import server.api.AdminController;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the admin import of an event. The same event is imported on every invocation,
+ * so after the first one every import replaces the participants, expenses and involveds it wrote before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SaveEventBenchmark {
+
+    @Param({"1000", "10000"})
+    public int expenses;
+
+    @Param({"20"})
+    public int participants;
+
+    private ConfigurableApplicationContext context;
+    private AdminController adminController;
+    private Event event;
+
+    /**
+     * Starts the server and builds the event
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkData.startServer();
+        adminController = context.getBean(AdminController.class);
+        event = BenchmarkData.dump(UUID.randomUUID(), participants, expenses);
+    }
+
+    /**
+     * Stops the server
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Imports the event, replacing the one imported by the previous invocation
+     * @return the imported event, consumed by JMH
+     */
+    @Benchmark
+    public Event saveEvent() {
+        return adminController.saveEvent(event);
+    }
+}
@@ -0,0 +1,94 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.ExpenseList;
+import commons.ParticipantList;
+import commons.StatusEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures writing and reading the JSON of the expenses:read and participants:read answers,
+ * with the object mapper set up the way the server and the client set up theirs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StatusEntityJsonBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private StatusEntity expenses;
+    private StatusEntity participants;
+    private byte[] expensesJson;
+    private byte[] participantsJson;
+
+    /**
+     * Builds the answers and their JSON
+     * @throws IOException if an answer cannot be written
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        UUID invitationCode = UUID.randomUUID();
+        ParticipantList participantList = BenchmarkData.participants(invitationCode, size);
+        ExpenseList expenseList = BenchmarkData.expenses(invitationCode, participantList, size);
+        expenses = StatusEntity.ok(expenseList);
+        participants = StatusEntity.ok(participantList);
+        expensesJson = objectMapper.writeValueAsBytes(expenses);
+        participantsJson = objectMapper.writeValueAsBytes(participants);
+    }
+
+    /**
+     * Writes the expenses answer
+     * @return the JSON, consumed by JMH
+     * @throws IOException if the answer cannot be written
+     */
+    @Benchmark
+    public byte[] writeExpenses() throws IOException {
+        return objectMapper.writeValueAsBytes(expenses);
+    }
+
+    /**
+     * Reads the expenses answer
+     * @return the answer, consumed by JMH
+     * @throws IOException if the answer cannot be read
+     */
+    @Benchmark
+    public StatusEntity readExpenses() throws IOException {
+        return objectMapper.readValue(expensesJson, StatusEntity.class);
+    }
+
+    /**
+     * Writes the participants answer
+     * @return the JSON, consumed by JMH
+     * @throws IOException if the answer cannot be written
+     */
+    @Benchmark
+    public byte[] writeParticipants() throws IOException {
+        return objectMapper.writeValueAsBytes(participants);
+    }
+
+    /**
+     * Reads the participants answer
+     * @return the answer, consumed by JMH
+     * @throws IOException if the answer cannot be read
+     */
+    @Benchmark
+    public StatusEntity readParticipants() throws IOException {
+        return objectMapper.readValue(participantsJson, StatusEntity.class);
+    }
+}
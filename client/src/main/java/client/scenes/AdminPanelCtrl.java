@@ -1,12 +1,14 @@
 package client.scenes;
 
 import client.interfaces.Translatable;
+import client.utils.AdminDataHandler;
 import client.utils.FileSystemUtils;
 import client.utils.ServerUtils;
 import client.utils.TranslationSupplier;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Inject;
 import commons.Event;
+import commons.EventPage;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -19,6 +21,7 @@ import javafx.stage.Modality;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -50,6 +53,8 @@ public class AdminPanelCtrl implements Translatable {
     private TableView<Event> eventTableView;
     @FXML
     private Button jsonImport;
+    @FXML
+    private TextField titleFilter;
 
     private MainCtrl mainCtrl;
     private FileSystemUtils fileSystemUtils;
@@ -103,12 +108,56 @@ public class AdminPanelCtrl implements Translatable {
         languageSwitchPlaceHolder.getChildren().clear();
         languageSwitchPlaceHolder.getChildren().add(mainCtrl.getLanguageSwitchButton());
 
+        setUpPaging();
+
         if (mainCtrl.getAdminDataHandler().getJsonDumpDir() == null)
             mainCtrl.getAdminDataHandler().setJsonDumpDir(fileSystemUtils.setBackupsDirectory());
 
         refreshData();
     }
 
+    /**
+     * The events are filtered and sorted by the server, the next page is read when the last event read is shown
+     */
+    private void setUpPaging() {
+        AdminDataHandler dataHandler = mainCtrl.getAdminDataHandler();
+        invitationCode.setSortable(false);
+        deleteEvent.setSortable(false);
+        jsonDump.setSortable(false);
+        eventTableView.setSortPolicy(table -> {
+            readFirstPage();
+            return true;
+        });
+        titleFilter.setOnKeyReleased(event -> readFirstPage());
+        eventTableView.setRowFactory(table -> new TableRow<>() {
+            @Override
+            protected void updateItem(Event item, boolean empty) {
+                super.updateItem(item, empty);
+                if (!empty && getIndex() == getTableView().getItems().size() - 1)
+                    dataHandler.readNextPage();
+            }
+        });
+    }
+
+    private void readFirstPage() {
+        AdminDataHandler dataHandler = mainCtrl.getAdminDataHandler();
+        EventPage.Sort sort = EventPage.Sort.LAST_ACTIVITY;
+        boolean descending = true;
+        if (!eventTableView.getSortOrder().isEmpty()) {
+            TableColumn<Event, ?> column = eventTableView.getSortOrder().getFirst();
+            sort = column == title ? EventPage.Sort.TITLE
+                    : column == creationDate ? EventPage.Sort.CREATION_DATE : EventPage.Sort.LAST_ACTIVITY;
+            descending = column.getSortType() == TableColumn.SortType.DESCENDING;
+        }
+        String prefix = titleFilter.getText();
+        if (prefix != null && prefix.isEmpty())
+            prefix = null;
+        EventPage query = AdminDataHandler.firstPage(prefix, sort, descending);
+        // The sort policy is also applied when the events shown change, the same query is not read again
+        if (!query.equals(dataHandler.getQuery()))
+            dataHandler.setQuery(query);
+    }
+
     /**
      * methods that refreshes data on the scene
      */
@@ -119,7 +168,9 @@ public class AdminPanelCtrl implements Translatable {
     }
 
     /**
-     * method for json dump
+     * method for json dump.
+     * The dump is streamed over http and written to disk while it arrives,
+     * if that fails it is requested over the websocket instead.
      * @param event
      */
     public void jsonDump(Event event) {
@@ -127,11 +178,24 @@ public class AdminPanelCtrl implements Translatable {
         directoryChooser.setTitle("Select directory");
         directoryChooser.setInitialDirectory(mainCtrl.getAdminDataHandler().getJsonDumpDir());
         File chosenDirectory = directoryChooser.showDialog(null);
-        if (chosenDirectory != null) {
-            mainCtrl.getAdminDataHandler().setJsonDumpDir(chosenDirectory);
-            mainCtrl.getSessionHandler().sendAdminEvent(mainCtrl.getAdminDataHandler().getPasscode(),
-                    event, "dump");
-        }
+        if (chosenDirectory == null)
+            return;
+        mainCtrl.getAdminDataHandler().setJsonDumpDir(chosenDirectory);
+        String passcode = mainCtrl.getAdminDataHandler().getPasscode();
+        String server = "http://" + mainCtrl.getServerIp();
+
+        Thread download = new Thread(() -> {
+            InputStream dump;
+            try {
+                dump = serverUtils.getEventDump(event.getId(), passcode, server);
+            } catch (IOException | InterruptedException e) {
+                mainCtrl.getSessionHandler().sendAdminEvent(event, "dump");
+                return;
+            }
+            fileSystemUtils.jsonDump(chosenDirectory, event.getId(), dump);
+        });
+        download.setDaemon(true);
+        download.start();
     }
 
     /**
@@ -139,8 +203,7 @@ public class AdminPanelCtrl implements Translatable {
      * @param event
      */
     public void deleteEvent(Event event) {
-        mainCtrl.getSessionHandler().sendAdminEvent(mainCtrl.getAdminDataHandler().getPasscode(),
-                event, "delete");
+        mainCtrl.getSessionHandler().sendAdminEvent(event, "delete");
     }
 
     /**
@@ -158,8 +221,7 @@ public class AdminPanelCtrl implements Translatable {
                 ObjectMapper mapper = new ObjectMapper();
                 mapper.findAndRegisterModules();
                 event = mapper.readValue(selectedFile, Event.class);
-                mainCtrl.getSessionHandler().sendAdminEvent(mainCtrl.getAdminDataHandler().getPasscode(),
-                        event, "import");
+                mainCtrl.getSessionHandler().sendAdminEvent(event, "import");
             } catch (IOException e) {
                 //TODO: Add a pop-up
             }
@@ -186,6 +248,7 @@ public class AdminPanelCtrl implements Translatable {
         Map<Control, String> labels = new HashMap<>();
 
         labels.put(this.jsonImport, "JSONImport");
+        labels.put(this.titleFilter, "TitleFilter");
         labels.put(this.changeLanguageLabel, "ChangeLanguageLabel");
         labels.put(this.goToStartScreenLabel, "GoToStartScreenLabel");
 
@@ -1,6 +1,7 @@
 package client.scenes;
 
 import client.interfaces.Translatable;
+import client.utils.ExpensePager;
 import client.utils.FileSystemUtils;
 import client.utils.ServerUtils;
 import client.utils.TranslationSupplier;
@@ -207,10 +208,21 @@ public class EventOverviewCtrl implements Translatable {
             });
             return new SimpleObjectProperty<>(button);
         });
-        expensesList.setItems(FXCollections.observableList(mainCtrl.getDataHandler().getExpenses()));
+        ExpensePager expensePager = mainCtrl.getDataHandler().getExpensePager();
+        expensesList.setItems(expensePager.getItems());
+        expensePager.readFirstPage();
 
         expensesList.setRowFactory(expense -> {
-            TableRow<Expense> row = new TableRow<>();
+            TableRow<Expense> row = new TableRow<>() {
+                @Override
+                protected void updateItem(Expense item, boolean empty) {
+                    super.updateItem(item, empty);
+                    // The last expense read so far is shown, so the next page is read
+                    if (!empty && getTableView().getItems() == expensePager.getItems()
+                            && getIndex() == expensePager.getItems().size() - 1)
+                        expensePager.readNextPage();
+                }
+            };
             row.setOnMouseClicked(triggeredEvent -> {
                 if(triggeredEvent.getClickCount() == 2 && !row.isEmpty()){
                     System.out.println("Check");
@@ -288,7 +300,7 @@ public class EventOverviewCtrl implements Translatable {
         allExpenses.setOnSelectionChanged(thisEvent -> {
             if (allExpenses.isSelected()){
                 allExpenses.setContent(expensesList);
-                expensesList.setItems(FXCollections.observableList(mainCtrl.getDataHandler().getExpenses()));
+                expensesList.setItems(mainCtrl.getDataHandler().getExpensePager().getItems());
             } else {
                 allExpenses.setContent(null);
             }
@@ -302,7 +314,7 @@ public class EventOverviewCtrl implements Translatable {
                     ));
                 }else {
                     myExpensesTab.setContent(expensesList);
-                    expensesList.setItems(FXCollections.observableList(mainCtrl.getDataHandler().getExpenses()));
+                    expensesList.setItems(mainCtrl.getDataHandler().getExpensePager().getItems());
                 }
             } else {
                 myExpensesTab.setContent(null);
@@ -316,7 +328,7 @@ public class EventOverviewCtrl implements Translatable {
                             mainCtrl.getDataHandler().getExpensesByInvolvedParticipant(userChoiceBox.getValue())));
                 }else {
                     involvingMeTab.setContent(expensesList);
-                    expensesList.setItems(FXCollections.observableList(mainCtrl.getDataHandler().getExpenses()));
+                    expensesList.setItems(mainCtrl.getDataHandler().getExpensePager().getItems());
                 }
             } else {
                 involvingMeTab.setContent(null);
@@ -359,7 +371,8 @@ public class EventOverviewCtrl implements Translatable {
     public void refreshExpensesData(){
         expensesList.getColumns().getFirst().setVisible(false);
         expensesList.getColumns().getFirst().setVisible(true);
-        expensesList.setItems(FXCollections.observableList(mainCtrl.getDataHandler().getExpenses()));
+        expensesList.setItems(mainCtrl.getDataHandler().getExpensePager().getItems());
+        mainCtrl.getDataHandler().getExpensePager().reload();
         tabPaneExpenses.getSelectionModel().select(allExpenses);
         expenseSum.setText(String.valueOf(mainCtrl.getDataHandler().sumOfAllExpenses()));
     }
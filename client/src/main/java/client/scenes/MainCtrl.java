@@ -23,6 +23,8 @@ import client.utils.WebsocketSessionHandler;
 import commons.Event;
 import commons.Expense;
 import commons.Participant;
+import commons.SmileMessageConverter;
+import commons.WireSchemaMessageConverter;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.MenuButton;
@@ -34,7 +36,10 @@ import javafx.scene.input.KeyEvent;
 import javafx.stage.DirectoryChooser;
 import javafx.stage.Stage;
 import javafx.util.Pair;
+import org.springframework.messaging.converter.CompositeMessageConverter;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.web.socket.WebSocketHttpHeaders;
 import org.springframework.web.socket.client.WebSocketClient;
 import org.springframework.web.socket.client.standard.StandardWebSocketClient;
 import org.springframework.web.socket.messaging.WebSocketStompClient;
@@ -549,11 +554,21 @@ public class MainCtrl {
         stompClient = new WebSocketStompClient(client);
         MappingJackson2MessageConverter jackson2MessageConverter = new MappingJackson2MessageConverter();
         jackson2MessageConverter.getObjectMapper().findAndRegisterModules();
-        stompClient.setMessageConverter(jackson2MessageConverter);
-
+        // Frames are read in the encoding of their content type, JSON unless the server sends Smile
+        CompositeMessageConverter payloadConverter = new CompositeMessageConverter(
+                List.of(new SmileMessageConverter(), jackson2MessageConverter));
+        stompClient.setMessageConverter(new CompositeMessageConverter(
+                List.of(new WireSchemaMessageConverter(payloadConverter), payloadConverter)));
 
         sessionHandler = new WebsocketSessionHandler(dataHandler, adminDataHandler, this);
-        stompClient.connectAsync("ws://" + this.serverIp + "/v1", sessionHandler);
+        if (Boolean.getBoolean("splitty.stomp.smile"))
+            sessionHandler.setContentType(SmileMessageConverter.SMILE);
+        // The answers are read in both schemas, the v2 schema is asked for unless splitty.stomp.schema=1
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add(WireSchemaMessageConverter.SCHEMA_HEADER,
+                System.getProperty("splitty.stomp.schema", WireSchemaMessageConverter.V2));
+        stompClient.connectAsync("ws://" + this.serverIp + "/v1", new WebSocketHttpHeaders(), connectHeaders,
+                sessionHandler);
     }
 
     /**
@@ -313,7 +313,10 @@ public class StartScreenCtrl implements Initializable, Translatable {
         System.out.println("ONADMIN");
         String password = adminPassword.getText();
         mainCtrl.getAdminDataHandler().setPasscode(password);
-        mainCtrl.getSessionHandler().sendReadEvents(password);
+        // an empty password is not sent, the events read is then answered with "Incorrect Password!"
+        if (password != null && !password.isEmpty())
+            mainCtrl.getSessionHandler().loginAsAdmin(password);
+        mainCtrl.getSessionHandler().sendReadEvents();
     }
 
     private void serverErrorAlert(Exception exception) {
@@ -372,6 +375,14 @@ public class StartScreenCtrl implements Initializable, Translatable {
                     if(prevStatusCode != response.getStatus()) System.out.println(response.getStatus());
                     prevStatusCode = response.getStatus();
 
+                    if (response.getStatus() == 429) {
+                        // the server has too many requests of this client waiting, back off before polling again
+                        try {
+                            Thread.sleep(1000);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
                     if (response.getStatus() == 200) {
                         System.out.println("Got updated events");
                         Map<UUID, String> updatedEvents = response.readEntity(new GenericType<Map<UUID, String>>() {});
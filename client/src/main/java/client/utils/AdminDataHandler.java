@@ -1,16 +1,31 @@
 package client.utils;
 
 import commons.Event;
+import commons.EventPage;
 import javafx.application.Platform;
 
 import java.io.File;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
- * Class that handles the messages from server and adjust data on client
+ * Class that handles the messages from server and adjust data on client.
+ * The events are read a page at a time with the filters and sort of the current query,
+ * the pages read so far are kept in their order, and by invitation code for the changes broadcast to admins.
  */
 public class AdminDataHandler {
+    /**
+     * The number of events read in one page
+     */
+    public static final int PAGE_SIZE = 100;
+
     private List<Event> events;
+    private final Map<UUID, Event> eventsById = new HashMap<>();
+    private EventPage query = firstPage(null, EventPage.Sort.LAST_ACTIVITY, true);
+    private EventPage lastPage;
+    private boolean reading;
     private WebsocketSessionHandler sessionHandler;
     private String passcode;
     private File jsonDumpDir;
@@ -34,6 +49,18 @@ public class AdminDataHandler {
         this.sessionHandler = sessionHandler;
         this.passcode = passcode;
         this.jsonDumpDir = jsonDumpDir;
+        indexEvents();
+    }
+
+    /**
+     * Builds the request for the first page of events
+     * @param titlePrefix the start of the titles of the events, null for all titles
+     * @param sort the column the events are sorted on
+     * @param descending whether the events are sorted from the largest to the smallest value
+     * @return the request for the first page
+     */
+    public static EventPage firstPage(String titlePrefix, EventPage.Sort sort, boolean descending) {
+        return new EventPage(titlePrefix, null, null, null, null, sort, descending, 0, PAGE_SIZE, false);
     }
 
     /**
@@ -85,10 +112,11 @@ public class AdminDataHandler {
     public void setEvents(List<Event> events) {
         boolean refresh = this.events != null;
         this.events = events;
+        indexEvents();
         if (refresh)
             Platform.runLater(() -> sessionHandler.getMainCtrl().refreshAdminData());
         else {
-            sessionHandler.subscribeToAdmin(passcode);
+            sessionHandler.subscribeToAdmin();
             Platform.runLater(() -> sessionHandler.getMainCtrl().showAdminPanel());
         }
     }
@@ -98,9 +126,73 @@ public class AdminDataHandler {
      */
     public void setDataToNull() {
         events = null;
+        eventsById.clear();
+        lastPage = null;
+        reading = false;
         passcode = null;
     }
 
+    private void indexEvents() {
+        eventsById.clear();
+        if (events == null)
+            return;
+        for (Event event : events)
+            eventsById.put(event.getId(), event);
+    }
+
+    /**
+     * std getter
+     * @return the request for the first page of the events shown
+     */
+    public synchronized EventPage getQuery() {
+        return query;
+    }
+
+    /**
+     * Shows the events passing other filters or in another order, the first page is read again
+     * @param query the request for the first page with the new filters and sort
+     */
+    public synchronized void setQuery(EventPage query) {
+        this.query = query.withNumber(0);
+        lastPage = null;
+        reading = true;
+        sessionHandler.readEventPage(this.query);
+    }
+
+    /**
+     * Reads the page after the last page read, unless all pages are read or a page is being read
+     */
+    public synchronized void readNextPage() {
+        if (lastPage == null || lastPage.isLast() || reading)
+            return;
+        reading = true;
+        sessionHandler.readEventPage(query.withNumber(lastPage.getNumber() + 1));
+    }
+
+    /**
+     * Handles a page of events read from the server.
+     * The first page replaces the events shown, the other pages are added after them.
+     * Pages of a query that was replaced in the meantime are ignored.
+     * @param received the events of the page
+     * @param page the request of the page, telling whether it is the last page
+     */
+    public synchronized void addEventPage(List<Event> received, EventPage page) {
+        if (!page.withNumber(0).equals(query))
+            return;
+        reading = false;
+        lastPage = page;
+        if (page.getNumber() == 0 || events == null) {
+            setEvents(received);
+            return;
+        }
+        // Events created after the previous page was read shift the pages, so they can be read twice
+        for (Event event : received) {
+            if (eventsById.putIfAbsent(event.getId(), event) == null)
+                events.add(event);
+        }
+        Platform.runLater(() -> sessionHandler.getMainCtrl().refreshAdminData());
+    }
+
     /**
      * std getter
      * @return websocket session handler
@@ -117,61 +209,38 @@ public class AdminDataHandler {
         this.sessionHandler = sessionHandler;
     }
 
-    /**
-     * checks if event is in the list of events on the client-side by the id
-     * @param receivedEvent
-     * @return
-     */
-    private boolean containsById(Event receivedEvent) {
-        for (var event : events) {
-            if (event.getId().equals(receivedEvent.getId())) {
-                return true;
-            }
-        }
-        return false;
-    }
-
     /**
      * handles the creation of the event
      * @param receivedEvent
      */
     public void getCreateEvent(Event receivedEvent) {
-        if (containsById(receivedEvent)) {
-            sessionHandler.sendReadEvents(passcode);
+        if (eventsById.containsKey(receivedEvent.getId())) {
+            sessionHandler.sendReadEvents();
             return;
         }
+        if (!query.matches(receivedEvent))
+            return;
+        eventsById.put(receivedEvent.getId(), receivedEvent);
         events.add(receivedEvent);
         Platform.runLater(() -> sessionHandler.getMainCtrl().refreshAdminData());
     }
 
-    /**
-     * gets event by id from list of events on the client side
-     * @param receivedEvent
-     * @return
-     */
-    private Event getEventById(Event receivedEvent) {
-        for (var event : events) {
-            if (event.getId().equals(receivedEvent.getId())) {
-                return event;
-            }
-        }
-        return null;
-    }
-
-
     private static void updateEvent(Event toUpdate, Event fromUpdate) {
         toUpdate.setTitle(fromUpdate.getTitle());
         toUpdate.setLastActivity(fromUpdate.getLastActivity());
         toUpdate.setCreationDate(fromUpdate.getCreationDate());
     }
     /**
-     * handles the update of the event
+     * handles the update of the event.
+     * Events not read yet are left to the page they are on, events no longer passing the filters are removed.
      * @param receivedEvent
      */
     public void getUpdateEvent(Event receivedEvent) {
-        Event localEvent = getEventById(receivedEvent);
-        if (localEvent == null) {
-            sessionHandler.sendReadEvents(passcode);
+        Event localEvent = eventsById.get(receivedEvent.getId());
+        if (localEvent == null)
+            return;
+        if (!query.matches(receivedEvent)) {
+            getDeleteEvent(localEvent);
             return;
         }
         updateEvent(localEvent, receivedEvent);
@@ -183,11 +252,9 @@ public class AdminDataHandler {
      * @param receivedEvent
      */
     public void getDeleteEvent(Event receivedEvent) {
-        Event localEvent = getEventById(receivedEvent);
-        if (localEvent == null) {
-            sessionHandler.sendReadEvents(passcode);
+        Event localEvent = eventsById.remove(receivedEvent.getId());
+        if (localEvent == null)
             return;
-        }
         events.remove(localEvent);
         Platform.runLater(() -> sessionHandler.getMainCtrl().refreshAdminData());
     }
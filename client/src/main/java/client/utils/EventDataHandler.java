@@ -4,7 +4,9 @@ import commons.*;
 import javafx.application.Platform;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -16,6 +18,11 @@ public class EventDataHandler {
     private List<Participant> participants;
     private List<Expense> expenses;
     private WebsocketSessionHandler sessionHandler;
+    private UUID changeEpoch;
+    private long changeSequence = -1;
+    private UUID pendingEpoch;
+    private long pendingSequence = -1;
+    private final ExpensePager expensePager = new ExpensePager(this);
 
     /***
      * default constructor
@@ -63,6 +70,43 @@ public class EventDataHandler {
             Platform.runLater(() -> sessionHandler.getMainCtrl().refreshEventData());
     }
 
+    /**
+     * Sets the whole event at once, as read when joining the event or when missed changes could not be read.
+     * Changes broadcast after the snapshot was read, but received before it, are read again afterwards.
+     *
+     * @param event the event
+     * @param participants list of participants of the event
+     * @param expenses list of expenses of the event
+     * @param changes epoch and sequence number of the last change contained in the snapshot
+     */
+    public void setSnapshot(Event event, List<Participant> participants, List<Expense> expenses,
+                            EventChanges changes) {
+        boolean refresh = this.event != null;
+        this.event = event;
+        this.participants = participants;
+        this.expenses = expenses;
+        for (Expense expense : expenses)
+            assignParticipantsInExpense(expense);
+
+        long seen = changes.getEpoch().equals(pendingEpoch) ? pendingSequence : -1;
+        if (changes.getEpoch().equals(changeEpoch))
+            seen = Math.max(seen, changeSequence);
+        changeEpoch = changes.getEpoch();
+        changeSequence = changes.getSequence();
+        pendingEpoch = null;
+        pendingSequence = -1;
+        if (seen > changeSequence)
+            sessionHandler.readChanges(changeEpoch, changeSequence);
+
+        if (refresh) {
+            Platform.runLater(() -> sessionHandler.getMainCtrl().refreshEventData());
+            Platform.runLater(() -> sessionHandler.getMainCtrl().refreshParticipantsData());
+            Platform.runLater(() -> sessionHandler.getMainCtrl().refreshExpensesData());
+        } else {
+            Platform.runLater(() -> sessionHandler.getMainCtrl().showEventOverview());
+        }
+    }
+
     /**
      * Setter for participants. Used during initial read requests
      *
@@ -303,6 +347,31 @@ public class EventDataHandler {
         Platform.runLater(() -> sessionHandler.getMainCtrl().refreshEventData());
     }
 
+    /**
+     * Getter for the pager reading the expenses of the expense table
+     * @return the expensePager
+     */
+    public ExpensePager getExpensePager() {
+        return expensePager;
+    }
+
+    /**
+     * Adds a page of expenses read from the server to the expense table
+     *
+     * @param expenses the expenses of the page
+     * @param page the cursor of the last expense of the page
+     */
+    public void addExpensePage(List<Expense> expenses, ExpensePage page) {
+        Platform.runLater(() -> expensePager.addPage(expenses, page));
+    }
+
+    /**
+     * Handles a page of expenses that could not be read
+     */
+    public void expensePageFailed() {
+        Platform.runLater(expensePager::pageFailed);
+    }
+
     /**
      * Sets all data related to current event to null
      */
@@ -310,6 +379,10 @@ public class EventDataHandler {
         event = null;
         participants = null;
         expenses = null;
+        changeEpoch = null;
+        changeSequence = -1;
+        pendingEpoch = null;
+        pendingSequence = -1;
     }
 
     /**
@@ -488,9 +561,11 @@ public class EventDataHandler {
     }
 
     /**
-     * Handle updates of Involved object
+     * Handle updates of Involved objects. The involveds are looked up by their expense and id,
+     * so an update may hold some involveds of many expenses, e.g. when debts are settled at once.
+     * Either all of them are updated, or the expenses are read again if one of them is not known.
      *
-     * @param receivedInvolveds received involved object with updated data
+     * @param receivedInvolveds received involved objects with updated data
      */
     public void getUpdateInvolved(InvolvedList receivedInvolveds) {
         // Error checking from the server
@@ -499,22 +574,118 @@ public class EventDataHandler {
             return;
         }
 
-        Expense localExpense = getExpenseById(receivedInvolveds.getFirst().getExpenseId());
-        if (localExpense == null || localExpense.getInvolveds().size() != receivedInvolveds.size()) {
-            sessionHandler.refreshExpenses();
-            return;
-        }
-
-        for (Involved inv : receivedInvolveds) {
-            if (!localExpense.getInvolveds().contains(inv)) {
+        Map<UUID, Expense> localExpenses = new HashMap<>();
+        for (Expense expense : expenses)
+            localExpenses.put(expense.getId(), expense);
+        List<Involved> localInvolveds = new ArrayList<>();
+        for (Involved received : receivedInvolveds) {
+            Expense localExpense = localExpenses.get(received.getExpenseId());
+            Involved localInvolved = localExpense == null ? null : getInvolvedById(localExpense, received.getId());
+            if (localInvolved == null) {
                 sessionHandler.refreshExpenses();
                 return;
             }
+            localInvolveds.add(localInvolved);
         }
 
-        // Updating of involved list (sorry for this loop, seems like java doesn't have zip function (method...)...)
         for (int cnt = 0; cnt < receivedInvolveds.size(); ++cnt) {
-            localExpense.getInvolveds().get(cnt).setIsSettled(receivedInvolveds.get(cnt).getIsSettled());
+            localInvolveds.get(cnt).setIsSettled(receivedInvolveds.get(cnt).getIsSettled());
+        }
+    }
+
+    /**
+     * Checks whether a broadcast change is the next change of the event.
+     * A change that was already applied is dropped, and if changes were missed
+     * they are requested from the server instead of applying this one out of order.
+     *
+     * @param epoch epoch of the sequence number of the change
+     * @param sequence sequence number of the change
+     * @return true if the change should be applied
+     */
+    public boolean trackChange(UUID epoch, long sequence) {
+        if (event == null) {
+            // The snapshot was not read yet, the changes it does not contain are read after it
+            pendingSequence = epoch.equals(pendingEpoch) ? Math.max(pendingSequence, sequence) : sequence;
+            pendingEpoch = epoch;
+            return false;
+        }
+        if (epoch.equals(changeEpoch) && changeSequence >= 0) {
+            if (sequence <= changeSequence)
+                return false;
+            if (sequence > changeSequence + 1) {
+                sessionHandler.readChanges(changeEpoch, changeSequence);
+                return false;
+            }
+        } else if (changeEpoch != null) {
+            // The log of the event was started again, the missed changes are not known anymore
+            changeEpoch = epoch;
+            changeSequence = sequence;
+            sessionHandler.readSnapshot();
+            return false;
+        }
+        changeEpoch = epoch;
+        changeSequence = sequence;
+        return true;
+    }
+
+    /**
+     * Applies the changes read from the server after the last applied change,
+     * or reads the whole event again if the server does not know them anymore
+     *
+     * @param changes the changes since the last sequence number that was requested
+     */
+    public void applyChanges(EventChanges changes) {
+        if (event == null)
+            return;
+        if (changes.isSnapshotRequired() || !changes.getEpoch().equals(changeEpoch)) {
+            sessionHandler.readSnapshot();
+            return;
         }
+        for (EventChange change : changes.getChanges()) {
+            if (change.getSequence() <= changeSequence)
+                continue;
+            changeSequence = change.getSequence();
+            applyChange(change);
+            if (event == null)
+                return; // the event was deleted
+        }
+    }
+
+    /**
+     * Applies a single change the same way as its broadcast
+     *
+     * @param change the change to apply
+     */
+    private void applyChange(EventChange change) {
+        switch (change.getType()) {
+            case "event:update" -> getUpdateEvent(change.getEvent());
+            case "event:delete" -> getDeleteEvent();
+            case "participant:create" -> getCreateParticipant(change.getParticipant());
+            case "participant:update" -> getUpdateParticipant(change.getParticipant());
+            case "participant:delete" -> getDeleteParticipant(change.getParticipant());
+            case "expense:create" -> getCreateExpense(change.getExpense());
+            case "expense:update" -> getUpdateExpense(change.getExpense());
+            case "expense:delete" -> getDeleteExpense(change.getExpense());
+            case "involved:update" -> getUpdateInvolved(change.getInvolveds());
+            default -> System.err.println("Unknown change " + change.getType());
+        }
+    }
+
+    /**
+     * std getter
+     *
+     * @return epoch of the last applied change, null if it is not known
+     */
+    public UUID getChangeEpoch() {
+        return changeEpoch;
+    }
+
+    /**
+     * std getter
+     *
+     * @return sequence number of the last applied change, -1 if it is not known
+     */
+    public long getChangeSequence() {
+        return changeSequence;
     }
 }
@@ -0,0 +1,131 @@
+package client.utils;
+
+import commons.Expense;
+import commons.ExpensePage;
+import commons.Involved;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Reads the expenses of the current event for the expense table page by page, in (date, id) order.
+ * A page is only read once the user scrolled to the end of the pages read before.
+ * When the expenses change, the expenses shown are read again from the first page on,
+ * so the table keeps its length. Used from the JavaFX application thread only.
+ */
+public class ExpensePager {
+    /**
+     * Number of expenses read when scrolling to the end of the table
+     */
+    public static final int PAGE_SIZE = 50;
+
+    private final EventDataHandler dataHandler;
+    private final ObservableList<Expense> items = FXCollections.observableArrayList();
+    private ExpensePage cursor;
+    private int pending;
+    private int discarded;
+
+    /**
+     * Constructor for the ExpensePager
+     *
+     * @param dataHandler reference to the dataHandler, with the participants of the event
+     */
+    public ExpensePager(EventDataHandler dataHandler) {
+        this.dataHandler = dataHandler;
+    }
+
+    /**
+     * Getter for the expenses read so far, shown by the expense table
+     *
+     * @return the expenses read so far
+     */
+    public ObservableList<Expense> getItems() {
+        return items;
+    }
+
+    /**
+     * Removes the expenses of the previous event and reads the first page
+     */
+    public void readFirstPage() {
+        items.clear();
+        restart(PAGE_SIZE);
+    }
+
+    /**
+     * Reads the expenses shown again, after the expenses of the event changed
+     */
+    public void reload() {
+        restart(Math.min(Math.max(items.size(), PAGE_SIZE), ExpensePage.MAX_SIZE));
+    }
+
+    private void restart(int size) {
+        // the answers to the requests sent before are ignored
+        discarded = pending;
+        cursor = null;
+        request(null, null, size);
+    }
+
+    /**
+     * Reads the next page, unless a page is being read or the last page was read
+     */
+    public void readNextPage() {
+        if (pending > discarded || cursor == null || cursor.isLast())
+            return;
+        request(cursor.getAfterDate(), cursor.getAfterId(), PAGE_SIZE);
+    }
+
+    private void request(LocalDate afterDate, UUID afterId, int size) {
+        pending++;
+        dataHandler.getSessionHandler().readExpensePage(afterDate, afterId, size);
+    }
+
+    /**
+     * Adds a page read from the server, the answers arrive in the order the pages were requested
+     *
+     * @param expenses the expenses of the page
+     * @param page the cursor of the last expense of the page
+     */
+    public void addPage(List<Expense> expenses, ExpensePage page) {
+        if (answered())
+            return;
+        for (Expense expense : expenses)
+            assignParticipants(expense);
+        if (cursor == null)
+            items.setAll(expenses);
+        else
+            items.addAll(expenses);
+        cursor = page;
+    }
+
+    /**
+     * Handles a page that could not be read, so later pages can be requested again
+     */
+    public void pageFailed() {
+        answered();
+    }
+
+    /**
+     * Counts an answer
+     *
+     * @return true if the answer is to a request sent before the last restart and has to be ignored
+     */
+    private boolean answered() {
+        if (pending > 0)
+            pending--;
+        if (discarded == 0)
+            return false;
+        discarded--;
+        return true;
+    }
+
+    private void assignParticipants(Expense expense) {
+        expense.setPaidBy(dataHandler.getParticipantById(expense.getPaidById()));
+        if (expense.getInvolveds() == null)
+            return;
+        for (Involved involved : expense.getInvolveds())
+            involved.setParticipant(dataHandler.getParticipantById(involved.getParticipantId()));
+    }
+}
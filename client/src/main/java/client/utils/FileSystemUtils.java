@@ -62,29 +62,55 @@ public class FileSystemUtils {
             file.write(fileData);
             file.flush();
             file.close();
-            Platform.runLater(() -> {
-                var alert = new Alert(Alert.AlertType.INFORMATION);
-                alert.initModality(Modality.APPLICATION_MODAL);
-                alert.setContentText(translationSupplier.getTranslation("SuccessfullyJsonDump")
-                        .replaceAll("\"", ""));
-                alert.setHeaderText(translationSupplier.getTranslation("Success")
-                        .replaceAll("\"", ""));
-                alert.showAndWait();
-            });
+            showJsonDumpSuccess();
         } catch (IOException e) {
-            Platform.runLater(() -> {
-                var alert = new Alert(Alert.AlertType.ERROR);
-                alert.initModality(Modality.APPLICATION_MODAL);
-                var message = translationSupplier.getTranslation(e.getMessage()) != null ?
-                        translationSupplier.getTranslation(e.getMessage()).replaceAll("\"","") :
-                        e.getMessage();
-                alert.setContentText(translationSupplier.getTranslation("Error")
-                        .replaceAll("\"", "") + message);
-                alert.showAndWait();
-            });
+            showJsonDumpError(e);
         }
     }
 
+    /**
+     * Method that performs a json dump of a streamed event,
+     * writing every chunk of the dump to the file as soon as it arrives
+     * @param jsonDumpDir directory to save the dump in
+     * @param invitationCode invitation code of the dumped event
+     * @param dump stream of the json dump, closed when it is written
+     */
+    public void jsonDump(File jsonDumpDir, UUID invitationCode, InputStream dump) {
+        File fileDir = new File(jsonDumpDir.getPath() + File.separator + "event-" + invitationCode);
+        try (dump; OutputStream file = new FileOutputStream(fileDir)) {
+            dump.transferTo(file);
+        } catch (IOException e) {
+            showJsonDumpError(e);
+            return;
+        }
+        showJsonDumpSuccess();
+    }
+
+    private void showJsonDumpSuccess() {
+        Platform.runLater(() -> {
+            var alert = new Alert(Alert.AlertType.INFORMATION);
+            alert.initModality(Modality.APPLICATION_MODAL);
+            alert.setContentText(translationSupplier.getTranslation("SuccessfullyJsonDump")
+                    .replaceAll("\"", ""));
+            alert.setHeaderText(translationSupplier.getTranslation("Success")
+                    .replaceAll("\"", ""));
+            alert.showAndWait();
+        });
+    }
+
+    private void showJsonDumpError(IOException exception) {
+        Platform.runLater(() -> {
+            var alert = new Alert(Alert.AlertType.ERROR);
+            alert.initModality(Modality.APPLICATION_MODAL);
+            var message = translationSupplier.getTranslation(exception.getMessage()) != null ?
+                    translationSupplier.getTranslation(exception.getMessage()).replaceAll("\"","") :
+                    exception.getMessage();
+            alert.setContentText(translationSupplier.getTranslation("Error")
+                    .replaceAll("\"", "") + message);
+            alert.showAndWait();
+        });
+    }
+
     /**
      * Method that reads the invitation codes from the config file
      *
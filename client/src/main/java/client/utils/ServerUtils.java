@@ -18,6 +18,7 @@ package client.utils;
 import javax.json.Json;
 import javax.json.JsonObject;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
@@ -25,6 +26,7 @@ import java.net.http.HttpResponse;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -240,6 +242,38 @@ public class ServerUtils {
         return responseParticipantId;
     }
 
+    /**
+     * Method that sends a get request to the server to stream the json dump of an event.
+     * The dump is requested gzip compressed and decompressed while it is read.
+     * @param invitationCode invitation code of the event
+     * @param passcode the admin password
+     * @param server server url
+     * @return stream of the json dump, has to be closed by the caller
+     * @throws IOException if something goes wrong or the server does not return the dump
+     * @throws InterruptedException if something goes wrong with the request
+     */
+    public InputStream getEventDump(UUID invitationCode, String passcode, String server)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(server + "/admin/events/" + invitationCode + "/dump"))
+                .header("passcode", passcode)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Event dump failed with status code " + response.statusCode());
+        }
+        if ("gzip".equals(response.headers().firstValue("Content-Encoding").orElse(null)))
+            return new GZIPInputStream(response.body());
+        return response.body();
+    }
+
 //	public void getQuotesTheHardWay() throws IOException, URISyntaxException {
 //		var url = new URI("http://localhost:8080/api/quotes").toURL();
 //		var is = url.openConnection().getInputStream();
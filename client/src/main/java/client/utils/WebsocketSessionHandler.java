@@ -3,14 +3,21 @@ package client.utils;
 import client.scenes.MainCtrl;
 import client.utils.frameHandlers.*;
 import commons.Event;
+import commons.EventChanges;
+import commons.EventPage;
 import commons.Expense;
+import commons.ExpensePage;
 import commons.Involved;
 import commons.Participant;
+import commons.SettleRequest;
 import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
 import org.springframework.messaging.simp.stomp.StompHeaders;
 import org.springframework.messaging.simp.stomp.StompSession;
 import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.util.MimeType;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -27,6 +34,7 @@ public class WebsocketSessionHandler extends StompSessionHandlerAdapter {
     private final AdminDataHandler adminDataHandler;
     private final MainCtrl mainCtrl;
     private StompSession session;
+    private MimeType contentType;
 
     /**
      * Custom constructor for WebsocketSessionHandler
@@ -57,17 +65,23 @@ public class WebsocketSessionHandler extends StompSessionHandlerAdapter {
         //Subscribe to receive status codes
         session.subscribe("/user/queue/reply", new StatusCodeHandler(mainCtrl));
         //Subscribe to user specific endpoints
+        session.subscribe("/user/queue/event:snapshot",
+                new ReadSnapshotHandler(dataHandler, mainCtrl));
         session.subscribe("/user/queue/event:read",
                 new ReadEventHandler(dataHandler, mainCtrl));
         session.subscribe("/user/queue/participants:read",
                 new ReadParticipantsHandler(dataHandler, mainCtrl));
         session.subscribe("/user/queue/expenses:read",
                 new ReadExpensesHandler(dataHandler, mainCtrl));
+        session.subscribe("/user/queue/expenses:page",
+                new ReadExpensePageHandler(dataHandler));
 
         session.subscribe("/user/queue/admin/events:read",
                 new AdminReadEventsHandler(adminDataHandler, mainCtrl));
         session.subscribe("/user/queue/admin/event:dump",
                 new AdminDumpEventHandler(adminDataHandler, mainCtrl));
+        session.subscribe("/user/queue/event:changes",
+                new ReadChangesHandler(dataHandler));
     }
 
     @Override
@@ -96,7 +110,8 @@ public class WebsocketSessionHandler extends StompSessionHandlerAdapter {
     }
 
     /**
-     * Subscribe to event specific endpoints
+     * Subscribe to event specific endpoints and read the whole event in a single request.
+     * The topics are subscribed first, changes arriving before the snapshot are caught up on afterwards.
      *
      * @param invitationCode invitationCode of the event to subscribe to
      */
@@ -105,89 +120,71 @@ public class WebsocketSessionHandler extends StompSessionHandlerAdapter {
             throw new IllegalStateException("User did not unsubscribe before subscribing to a new event.");
         this.invitationCode = invitationCode;
 
-        //Send request for initial event read
-        refreshEvent();
-    }
-
-    /**
-     * Subscribes to changes to event's expenses
-     */
-    public void afterInitialExpenseRead() {
+        //Track event updates
+        subscribeToEventTopic("event:delete", new DeleteEventHandler(dataHandler));
+        subscribeToEventTopic("event:update", new UpdateEventHandler(dataHandler));
+        //Track participants updates
+        subscribeToEventTopic("participant:delete", new DeleteParticipantHandler(dataHandler));
+        subscribeToEventTopic("participant:update", new UpdateParticipantHandler(dataHandler));
+        subscribeToEventTopic("participant:create", new CreateParticipantHandler(dataHandler));
         //Track expenses updates
-        eventSubscriptions.add(session.subscribe("/topic/" + invitationCode + "/expense:delete",
-                new DeleteExpenseHandler(dataHandler)));
-        eventSubscriptions.add(session.subscribe("/topic/" + invitationCode + "/expense:update",
-                new UpdateExpenseHandler(dataHandler)));
-        eventSubscriptions.add(session.subscribe("/topic/" + invitationCode + "/expense:create",
-                new CreateExpenseHandler(dataHandler)));
-        eventSubscriptions.add(session.subscribe("/topic/" + invitationCode + "/involved:update",
-                new UpdateInvolvedHandler(dataHandler)));
-    }
+        subscribeToEventTopic("expense:delete", new DeleteExpenseHandler(dataHandler));
+        subscribeToEventTopic("expense:update", new UpdateExpenseHandler(dataHandler));
+        subscribeToEventTopic("expense:create", new CreateExpenseHandler(dataHandler));
+        subscribeToEventTopic("involved:update", new UpdateInvolvedHandler(dataHandler));
 
-    /**
-     * Subscribes to changes to event's participants and requests for initial expenses read
-     */
-    public void afterInitialParticipantsRead() {
-        //Track participants updates
-        eventSubscriptions.add(session.subscribe("/topic/" + invitationCode + "/participant:delete",
-                new DeleteParticipantHandler(dataHandler)));
-        eventSubscriptions.add(session.subscribe("/topic/" + invitationCode + "/participant:update",
-                new UpdateParticipantHandler(dataHandler)));
-        eventSubscriptions.add(session.subscribe("/topic/" + invitationCode + "/participant:create",
-                new CreateParticipantHandler(dataHandler)));
-        //Send request for initial expenses list read
-        refreshExpenses();
+        //Send request for the initial read of the whole event
+        readSnapshot();
     }
 
-    /**
-     * Subscribes to changes to event and requests for initial participants read
-     */
-    public void afterInitialEventRead() {
-        //Track event updates
-        eventSubscriptions.add(session.subscribe("/topic/" + invitationCode + "/event:delete",
-                new DeleteEventHandler(dataHandler)));
-        eventSubscriptions.add(session.subscribe("/topic/" + invitationCode + "/event:update",
-                new UpdateEventHandler(dataHandler)));
-        //Send request for initial participant list read
-        refreshParticipants();
+    private void subscribeToEventTopic(String type, StompFrameHandler handler) {
+        eventSubscriptions.add(session.subscribe("/topic/" + invitationCode + "/" + type,
+                new ChangeTrackingHandler(dataHandler, handler)));
     }
 
     /**
-     * Subscribe to admin specific endpoints
+     * Authenticates the session as admin, once for all following admin requests
      *
      * @param passcode admin passcode given by the user
      */
-    public void subscribeToAdmin(String passcode) {
-        if (!adminSubscriptions.isEmpty()) {
-            System.err.println("User did not unsubscribe before subscribing to admin again.");
-            return;
-        }
+    public void loginAsAdmin(String passcode) {
         if(passcode == null || passcode.isEmpty())
             throw new IllegalArgumentException();
 
         StompHeaders headers = new StompHeaders();
-        headers.setDestination("/topic/admin/event:create");
+        headers.setDestination("/app/admin:login");
         headers.setPasscode(passcode);
-        adminSubscriptions.add(session.subscribe(headers, new AdminCreateEventHandler(adminDataHandler)));
+        if (contentType != null)
+            headers.setContentType(contentType);
+        session.send(headers, "");
+    }
 
-        headers = new StompHeaders();
-        headers.setDestination("/topic/admin/event:delete");
-        headers.setPasscode(passcode);
-        adminSubscriptions.add(session.subscribe(headers, new AdminDeleteEventHandler(adminDataHandler)));
+    /**
+     * Subscribe to admin specific endpoints, the session has to be logged in as admin
+     */
+    public void subscribeToAdmin() {
+        if (!adminSubscriptions.isEmpty()) {
+            System.err.println("User did not unsubscribe before subscribing to admin again.");
+            return;
+        }
 
-        headers = new StompHeaders();
-        headers.setDestination("/topic/admin/event:update");
-        headers.setPasscode(passcode);
-        adminSubscriptions.add(session.subscribe(headers, new AdminUpdateEventHandler(adminDataHandler)));
+        adminSubscriptions.add(session.subscribe("/topic/admin/event:create",
+                new AdminCreateEventHandler(adminDataHandler)));
+        adminSubscriptions.add(session.subscribe("/topic/admin/event:delete",
+                new AdminDeleteEventHandler(adminDataHandler)));
+        adminSubscriptions.add(session.subscribe("/topic/admin/event:update",
+                new AdminUpdateEventHandler(adminDataHandler)));
     }
 
     /**
-     * Unsubscribes from admin's specific topics
+     * Unsubscribes from admin's specific topics and ends the admin mode of the session
      */
     public void unsubscribeFromAdmin() throws IllegalStateException {
         for (var subscription : adminSubscriptions)
             subscription.unsubscribe();
         adminSubscriptions.clear();
+        if (session != null)
+            send("/app/admin:logout", "");
     }
 
     /**
@@ -207,7 +204,7 @@ public class WebsocketSessionHandler extends StompSessionHandlerAdapter {
      * @param methodType  supports {"create", "update", "delete"}
      */
     public void sendParticipant(Participant participant, String methodType) {
-        session.send("/app/participant:" + methodType, participant);
+        send("/app/participant:" + methodType, participant);
     }
 
     /**
@@ -217,7 +214,7 @@ public class WebsocketSessionHandler extends StompSessionHandlerAdapter {
      * @param methodType supports {"create", "update", "delete"}
      */
     public void sendEvent(Event event, String methodType) {
-        session.send("/app/event:" + methodType, event);
+        send("/app/event:" + methodType, event);
     }
 
     /**
@@ -227,7 +224,7 @@ public class WebsocketSessionHandler extends StompSessionHandlerAdapter {
      * @param methodType supports {"create", "update", "delete"}
      */
     public void sendExpense(Expense expense, String methodType) {
-        session.send("/app/expense:" + methodType, expense);
+        send("/app/expense:" + methodType, expense);
     }
 
     /**
@@ -237,50 +234,113 @@ public class WebsocketSessionHandler extends StompSessionHandlerAdapter {
      * @param methodType supports {"update"}
      */
     public void sendInvolveds(List<Involved> involveds, String methodType) {
-        session.send("/app/involved:" + methodType, involveds);
+        send("/app/involved:" + methodType, involveds);
+    }
+
+    /**
+     * Sends a message to the server to settle all debts of the event, of an expense
+     * or between two participants at once
+     *
+     * @param request the SettleRequest selecting the debts
+     */
+    public void sendSettleRequest(SettleRequest request) {
+        send("/app/involved:settle", request);
     }
 
     /**
      * Used for refreshing the Event object
      */
     public void refreshEvent() {
-        session.send("/app/event:read", invitationCode);
+        send("/app/event:read", invitationCode);
     }
 
     /**
      * Used for refreshing the Participants list
      */
     public void refreshParticipants() {
-        session.send("/app/participants:read", invitationCode);
+        send("/app/participants:read", invitationCode);
     }
 
     /**
      * Used for refreshing the Expenses list
      */
     public void refreshExpenses() {
-        session.send("/app/expenses:read", invitationCode);
+        send("/app/expenses:read", invitationCode);
+    }
+
+    /**
+     * Requests a page of the expenses of the current event, in (date, id) order
+     *
+     * @param afterDate date of the last expense read, null for the first page
+     * @param afterId id of the last expense read, null for the first page
+     * @param size the maximum number of expenses of the page
+     */
+    public void readExpensePage(LocalDate afterDate, UUID afterId, int size) {
+        send("/app/expenses:page", new ExpensePage(invitationCode, afterDate, afterId, size, false));
+    }
+
+    /**
+     * Requests the changes of the current event after the provided sequence number
+     *
+     * @param epoch epoch of the sequence number, null if it is not known yet
+     * @param since the last sequence number that was applied
+     */
+    public void readChanges(UUID epoch, long since) {
+        send("/app/event:changes", new EventChanges(invitationCode, epoch, since, false, new ArrayList<>()));
+    }
+
+    /**
+     * Used for reading the whole event with its participants and expenses,
+     * when joining the event or when missed changes cannot be read
+     */
+    public void readSnapshot() {
+        send("/app/event:snapshot", invitationCode);
     }
 
     /**
-     * Sends a message to the server with a request to read all events
-     * @param passcode admin passcode
+     * Sends a message to the server with a request to read the first page of events again,
+     * with the filters and sort of the admin data handler
      */
-    public void sendReadEvents(String passcode) {
-        session.send("/app/admin/events:read", passcode);
+    public void sendReadEvents() {
+        readEventPage(adminDataHandler.getQuery());
+    }
+
+    /**
+     * Sends a message to the server with a request to read a page of events
+     * @param page filters, sort, number and size of the page
+     */
+    public void readEventPage(EventPage page) {
+        send("/app/admin/events:page", page);
     }
 
     /**
      * Sends a message to the server with delete/import/dump request
-     * @param passcode admin passcode
      * @param receivedEvent event we are concerned about
      * @param methodType type of the method (delete/import/dump)
      */
-    public void sendAdminEvent(String passcode, Event receivedEvent, String methodType)
+    public void sendAdminEvent(Event receivedEvent, String methodType)
     {
+        send("/app/admin/event:" + methodType, receivedEvent); //delete/import/dump
+    }
+
+    /**
+     * Sets the content type the payloads are encoded in, the server answers in the same encoding
+     *
+     * @param contentType the content type, e.g. SmileMessageConverter.SMILE, or null for the default JSON
+     */
+    public void setContentType(MimeType contentType) {
+        this.contentType = contentType;
+    }
+
+    private void send(String destination, Object payload) {
+        if (contentType == null) {
+            session.send(destination, payload);
+            return;
+        }
         StompHeaders headers = new StompHeaders();
-        headers.setDestination("/app/admin/event:"+methodType); //delete/import/dump
-        headers.setPasscode(passcode);
-        session.send(headers, receivedEvent);
+        headers.setDestination(destination);
+        headers.setContentType(contentType);
+        session.send(headers, payload);
     }
 
     /**
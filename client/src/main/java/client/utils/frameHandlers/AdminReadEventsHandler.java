@@ -12,7 +12,7 @@ import org.springframework.messaging.simp.stomp.StompHeaders;
 import java.lang.reflect.Type;
 
 /**
- * Frame handler for user/queue/admin/events:read endpoint
+ * Frame handler for user/queue/admin/events:read endpoint, which answers reading a page of events
  */
 public class AdminReadEventsHandler implements StompFrameHandler {
     private final AdminDataHandler dataHandler;
@@ -39,7 +39,10 @@ public class AdminReadEventsHandler implements StompFrameHandler {
         StatusEntity status = (StatusEntity) payload;
         switch (status.getStatusCode()) {
             case OK -> {
-                dataHandler.setEvents(status.getEventList());
+                if (status.getEventPage() != null)
+                    dataHandler.addEventPage(status.getEventList(), status.getEventPage());
+                else
+                    dataHandler.setEvents(status.getEventList());
             }
             case BAD_REQUEST, NOT_FOUND -> {
                 if(status.isUnsolvable()){
@@ -0,0 +1,42 @@
+package client.utils.frameHandlers;
+
+import client.utils.EventDataHandler;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+
+import java.lang.reflect.Type;
+import java.util.UUID;
+
+/**
+ * Frame handler wrapping the handler of an event topic, it passes a change on only if it is
+ * the next change of the event according to its change-epoch and change-seq headers
+ */
+public class ChangeTrackingHandler implements StompFrameHandler {
+    private final EventDataHandler dataHandler;
+    private final StompFrameHandler delegate;
+
+    /**
+     * Constructor for the ChangeTrackingHandler
+     *
+     * @param dataHandler reference to the dataHandler
+     * @param delegate handler of the topic the changes are passed on to
+     */
+    public ChangeTrackingHandler(EventDataHandler dataHandler, StompFrameHandler delegate) {
+        this.dataHandler = dataHandler;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Type getPayloadType(StompHeaders headers) {
+        return delegate.getPayloadType(headers);
+    }
+
+    @Override
+    public void handleFrame(StompHeaders headers, Object payload) {
+        String epoch = headers.getFirst("change-epoch");
+        String sequence = headers.getFirst("change-seq");
+        if (epoch == null || sequence == null
+                || dataHandler.trackChange(UUID.fromString(epoch), Long.parseLong(sequence)))
+            delegate.handleFrame(headers, payload);
+    }
+}
@@ -0,0 +1,39 @@
+package client.utils.frameHandlers;
+
+import client.utils.EventDataHandler;
+import commons.StatusEntity;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+
+import java.lang.reflect.Type;
+
+/**
+ * Frame handler for /user/queue/event:changes endpoint
+ */
+public class ReadChangesHandler implements StompFrameHandler {
+    private final EventDataHandler dataHandler;
+
+    /**
+     * Constructor for the ReadChangesHandler
+     *
+     * @param dataHandler reference to the dataHandler
+     */
+    public ReadChangesHandler(EventDataHandler dataHandler) {
+        this.dataHandler = dataHandler;
+    }
+
+    @Override
+    public Type getPayloadType(StompHeaders headers) {
+        return StatusEntity.class;
+    }
+
+    @Override
+    public void handleFrame(StompHeaders headers, Object payload) {
+        StatusEntity status = (StatusEntity) payload;
+        switch (status.getStatusCode()) {
+            case OK -> dataHandler.applyChanges(status.getChanges());
+            // A missing event is reported by the event read, which is sent with every join
+            case BAD_REQUEST, NOT_FOUND -> System.err.println("Reading changes failed: " + status.getMessage());
+        }
+    }
+}
@@ -38,12 +38,7 @@ public class ReadEventHandler implements StompFrameHandler {
     public void handleFrame(StompHeaders headers, Object payload) {
         StatusEntity status = (StatusEntity) payload;
         switch (status.getStatusCode()) {
-            case OK -> {
-                boolean init = dataHandler.getEvent() == null;
-                dataHandler.setEvent(status.getEvent());
-                if (init)
-                    mainCtrl.getSessionHandler().afterInitialEventRead();
-            }
+            case OK -> dataHandler.setEvent(status.getEvent());
             case BAD_REQUEST -> {
                 if(status.isUnsolvable()) {
                     Platform.runLater(() -> {
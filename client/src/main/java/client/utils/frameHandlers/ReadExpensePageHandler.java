@@ -0,0 +1,42 @@
+package client.utils.frameHandlers;
+
+import client.utils.EventDataHandler;
+import commons.StatusEntity;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+
+import java.lang.reflect.Type;
+
+/**
+ * Frame handler for /user/queue/expenses:page endpoint
+ */
+public class ReadExpensePageHandler implements StompFrameHandler {
+    private final EventDataHandler dataHandler;
+
+    /**
+     * Constructor for the ReadExpensePageHandler
+     *
+     * @param dataHandler reference to the dataHandler
+     */
+    public ReadExpensePageHandler(EventDataHandler dataHandler) {
+        this.dataHandler = dataHandler;
+    }
+
+    @Override
+    public Type getPayloadType(StompHeaders headers) {
+        return StatusEntity.class;
+    }
+
+    @Override
+    public void handleFrame(StompHeaders headers, Object payload) {
+        StatusEntity status = (StatusEntity) payload;
+        switch (status.getStatusCode()) {
+            case OK -> dataHandler.addExpensePage(status.getExpenseList(), status.getPage());
+            // A missing event is reported by the snapshot read, which is sent with every join
+            case BAD_REQUEST, NOT_FOUND -> {
+                System.err.println("Reading a page of expenses failed: " + status.getStatusCode());
+                dataHandler.expensePageFailed();
+            }
+        }
+    }
+}
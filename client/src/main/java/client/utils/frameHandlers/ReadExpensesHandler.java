@@ -38,12 +38,7 @@ public class ReadExpensesHandler implements StompFrameHandler {
     public void handleFrame(StompHeaders headers, Object payload) {
         StatusEntity status = (StatusEntity) payload;
         switch (status.getStatusCode()) {
-            case OK -> {
-                boolean init = dataHandler.getExpenses() == null;
-                dataHandler.setExpenses(status.getExpenseList());
-                if (init)
-                    mainCtrl.getSessionHandler().afterInitialExpenseRead();
-            }
+            case OK -> dataHandler.setExpenses(status.getExpenseList());
             case BAD_REQUEST -> {
                 if(status.isUnsolvable()) {
                     Platform.runLater(() -> {
@@ -38,12 +38,7 @@ public class ReadParticipantsHandler implements StompFrameHandler {
     public void handleFrame(StompHeaders headers, Object payload) {
         StatusEntity status = (StatusEntity) payload;
         switch (status.getStatusCode()) {
-            case OK -> {
-                boolean init = dataHandler.getParticipants() == null;
-                dataHandler.setParticipants(status.getParticipantList());
-                if (init)
-                    mainCtrl.getSessionHandler().afterInitialParticipantsRead();
-            }
+            case OK -> dataHandler.setParticipants(status.getParticipantList());
             case BAD_REQUEST -> {
                 if(status.isUnsolvable()) {
                     Platform.runLater(() -> {
@@ -0,0 +1,44 @@
+package client.utils.frameHandlers;
+
+import client.scenes.MainCtrl;
+import client.utils.EventDataHandler;
+import commons.StatusEntity;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+
+import java.lang.reflect.Type;
+
+/**
+ * Frame handler for /user/queue/event:snapshot endpoint
+ */
+public class ReadSnapshotHandler implements StompFrameHandler {
+    private final EventDataHandler dataHandler;
+    private final ReadEventHandler readEventHandler;
+
+    /**
+     * Constructor for the ReadSnapshotHandler
+     *
+     * @param dataHandler reference to the dataHandler
+     * @param mainCtrl reference to mainCtrl
+     */
+    public ReadSnapshotHandler(EventDataHandler dataHandler, MainCtrl mainCtrl) {
+        this.dataHandler = dataHandler;
+        this.readEventHandler = new ReadEventHandler(dataHandler, mainCtrl);
+    }
+
+    @Override
+    public Type getPayloadType(StompHeaders headers) {
+        return StatusEntity.class;
+    }
+
+    @Override
+    public void handleFrame(StompHeaders headers, Object payload) {
+        StatusEntity status = (StatusEntity) payload;
+        switch (status.getStatusCode()) {
+            case OK -> dataHandler.setSnapshot(status.getEvent(), status.getParticipantList(),
+                    status.getExpenseList(), status.getChanges());
+            // Errors are reported the same way as for a read of the event alone
+            case BAD_REQUEST, NOT_FOUND -> readEventHandler.handleFrame(headers, status);
+        }
+    }
+}
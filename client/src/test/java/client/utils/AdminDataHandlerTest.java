@@ -1,6 +1,7 @@
 package client.utils;
 
 import commons.Event;
+import commons.EventPage;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,6 +13,7 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 class AdminDataHandlerTest {
@@ -76,7 +78,7 @@ class AdminDataHandlerTest {
             newHandler.setEvents(List.of(new Event(), new Event()));
         } catch (IllegalStateException ignored) {}
         assertEquals(List.of(new Event(), new Event()), newHandler.getEvents());
-        verify(session).subscribeToAdmin("42");
+        verify(session).subscribeToAdmin();
     }
 
     @Test
@@ -112,7 +114,7 @@ class AdminDataHandlerTest {
     @Test
     void getCreateEventExists() {
         handler.getCreateEvent(event1);
-        verify(session).sendReadEvents(handler.getPasscode());
+        verify(session).sendReadEvents();
     }
 
     @Test
@@ -122,7 +124,9 @@ class AdminDataHandlerTest {
             setId(event2, UUID.randomUUID());
         } catch (IllegalAccessException ignored) {}
         handler.getUpdateEvent(event2);
-        verify(session).sendReadEvents(handler.getPasscode());
+        // an event that is not read yet is updated when its page is read
+        verify(session, never()).sendReadEvents();
+        assertEquals(List.of(event1), handler.getEvents());
     }
 
     @Test
@@ -132,6 +136,76 @@ class AdminDataHandlerTest {
             setId(event2, UUID.randomUUID());
         } catch (IllegalAccessException ignored) {}
         handler.getDeleteEvent(event2);
-        verify(session).sendReadEvents(handler.getPasscode());
+        verify(session, never()).sendReadEvents();
+        assertEquals(List.of(event1), handler.getEvents());
+    }
+
+    @Test
+    void readNextPage() {
+        EventPage query = handler.getQuery();
+        try {
+            handler.addEventPage(new ArrayList<>(List.of(event1)), query);
+        } catch (IllegalStateException ignored) {}
+
+        handler.readNextPage();
+        handler.readNextPage();
+        verify(session).readEventPage(query.withNumber(1));
+    }
+
+    @Test
+    void readNextPageAfterLastPage() {
+        try {
+            handler.addEventPage(new ArrayList<>(List.of(event1)), handler.getQuery().withLast(true));
+        } catch (IllegalStateException ignored) {}
+
+        handler.readNextPage();
+        verify(session, never()).readEventPage(handler.getQuery().withNumber(1));
+    }
+
+    @Test
+    void addEventPageSkipsEventsAlreadyRead() throws IllegalAccessException {
+        Event event2 = new Event("Antihype2");
+        setId(event2, UUID.randomUUID());
+        EventPage query = handler.getQuery();
+        try {
+            handler.addEventPage(new ArrayList<>(List.of(event1)), query);
+        } catch (IllegalStateException ignored) {}
+        try {
+            handler.addEventPage(List.of(event1, event2), query.withNumber(1).withLast(true));
+        } catch (IllegalStateException ignored) {}
+
+        assertEquals(List.of(event1, event2), handler.getEvents());
+    }
+
+    @Test
+    void addEventPageOfReplacedQuery() {
+        EventPage oldQuery = handler.getQuery();
+        handler.setQuery(AdminDataHandler.firstPage("Anti", EventPage.Sort.TITLE, false));
+        verify(session).readEventPage(AdminDataHandler.firstPage("Anti", EventPage.Sort.TITLE, false));
+
+        handler.addEventPage(List.of(new Event("late")), oldQuery.withLast(true));
+        assertEquals(List.of(event1), handler.getEvents());
+    }
+
+    @Test
+    void getCreateEventNotMatchingQuery() throws IllegalAccessException {
+        handler.setQuery(AdminDataHandler.firstPage("Anti", EventPage.Sort.TITLE, false));
+        Event event2 = new Event("Other");
+        setId(event2, UUID.randomUUID());
+
+        handler.getCreateEvent(event2);
+        assertEquals(List.of(event1), handler.getEvents());
+    }
+
+    @Test
+    void getUpdateEventNoLongerMatchingQuery() throws IllegalAccessException {
+        handler.setQuery(AdminDataHandler.firstPage("Anti", EventPage.Sort.TITLE, false));
+        Event updating = new Event("Renamed");
+        setId(updating, event1.getId());
+        try {
+            handler.getUpdateEvent(updating);
+        } catch (IllegalStateException ignored) {}
+
+        assertEquals(0, handler.getEvents().size());
     }
-}
\ No newline at end of file
+}
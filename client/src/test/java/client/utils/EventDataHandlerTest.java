@@ -349,6 +349,29 @@ class EventDataHandlerTest {
     }
 
 
+    @Test
+    void getUpdateInvolvedOfManyExpenses() {
+        var list = new InvolvedList();
+        list.add(new Involved(i2.getId(), true, e1.getId(), p2.getId(), event.getId()));
+        list.add(new Involved(i3.getId(), true, e2.getId(), p1.getId(), event.getId()));
+        handler.getUpdateInvolved(list);
+        verify(sessionMock, never()).refreshExpenses();
+        assertTrue(i1.getIsSettled());
+        assertTrue(i2.getIsSettled());
+        assertTrue(i3.getIsSettled());
+        assertTrue(i4.getIsSettled());
+    }
+
+    @Test
+    void getUpdateInvolvedPartlyNotFound() {
+        var list = new InvolvedList();
+        list.add(new Involved(i2.getId(), true, e1.getId(), p2.getId(), event.getId()));
+        list.add(new Involved(UUID.randomUUID(), true, e2.getId(), p1.getId(), event.getId()));
+        handler.getUpdateInvolved(list);
+        verify(sessionMock).refreshExpenses();
+        assertFalse(i2.getIsSettled());
+    }
+
     @Test
     void getUpdateInvolvedNotFoundWithNull() {
         handler.getUpdateInvolved(null);
@@ -366,4 +389,95 @@ class EventDataHandlerTest {
     void sumOfAllExpenses() {
         assertEquals(e1.getAmount() + e2.getAmount(), handler.sumOfAllExpenses());
     }
+
+    @Test
+    void trackChangeInSequence() {
+        UUID epoch = UUID.randomUUID();
+        assertTrue(handler.trackChange(epoch, 1));
+        assertTrue(handler.trackChange(epoch, 2));
+        assertFalse(handler.trackChange(epoch, 2));
+        assertEquals(epoch, handler.getChangeEpoch());
+        assertEquals(2, handler.getChangeSequence());
+    }
+
+    @Test
+    void trackChangeWithGap() {
+        UUID epoch = UUID.randomUUID();
+        handler.trackChange(epoch, 1);
+        assertFalse(handler.trackChange(epoch, 4));
+        verify(sessionMock).readChanges(epoch, 1);
+        assertEquals(1, handler.getChangeSequence());
+    }
+
+    @Test
+    void trackChangeNewEpoch() {
+        handler.trackChange(UUID.randomUUID(), 1);
+        UUID epoch = UUID.randomUUID();
+        assertFalse(handler.trackChange(epoch, 1));
+        verify(sessionMock).readSnapshot();
+        assertEquals(epoch, handler.getChangeEpoch());
+    }
+
+    @Test
+    void trackChangeBeforeSnapshot() {
+        EventDataHandler empty = new EventDataHandler();
+        empty.setSessionHandler(sessionMock);
+        UUID epoch = UUID.randomUUID();
+        assertFalse(empty.trackChange(epoch, 4));
+        assertFalse(empty.trackChange(epoch, 5));
+
+        try {
+            empty.setSnapshot(event, participants, expenses, new EventChanges(event.getId(), epoch, 3, false,
+                    new ArrayList<>()));
+        } catch (IllegalStateException ignored) {}
+
+        verify(sessionMock).readChanges(epoch, 3);
+        assertEquals(event, empty.getEvent());
+        assertEquals(3, empty.getChangeSequence());
+        assertEquals(p1, e1.getPaidBy());
+    }
+
+    @Test
+    void setSnapshotUpToDate() {
+        UUID epoch = UUID.randomUUID();
+        handler.trackChange(epoch, 2);
+        try {
+            handler.setSnapshot(event, participants, expenses, new EventChanges(event.getId(), epoch, 2, false,
+                    new ArrayList<>()));
+        } catch (IllegalStateException ignored) {}
+
+        verify(sessionMock, never()).readChanges(any(), anyLong());
+        assertEquals(2, handler.getChangeSequence());
+    }
+
+    @Test
+    void applyChangesSnapshotRequired() {
+        handler.trackChange(UUID.randomUUID(), 1);
+        handler.applyChanges(new EventChanges(event.getId(), UUID.randomUUID(), 5, true, new ArrayList<>()));
+        verify(sessionMock).readSnapshot();
+    }
+
+    @Test
+    void applyChangesWithoutEvent() {
+        handler.setAllToNull();
+        handler.applyChanges(new EventChanges(event.getId(), UUID.randomUUID(), 5, true, new ArrayList<>()));
+        verify(sessionMock, never()).readSnapshot();
+    }
+
+    @Test
+    void applyChanges() {
+        UUID epoch = UUID.randomUUID();
+        handler.trackChange(epoch, 1);
+        InvolvedList involveds = new InvolvedList();
+        involveds.add(i1);
+        involveds.add(i2);
+        EventChange old = new EventChange(1, "involved:update");
+        old.setInvolveds(new InvolvedList());
+        EventChange change = new EventChange(2, "involved:update");
+        change.setInvolveds(involveds);
+
+        handler.applyChanges(new EventChanges(event.getId(), epoch, 2, false, List.of(old, change)));
+        assertEquals(2, handler.getChangeSequence());
+        verify(sessionMock, never()).refreshExpenses();
+    }
 }
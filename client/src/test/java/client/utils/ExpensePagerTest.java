@@ -0,0 +1,117 @@
+package client.utils;
+
+import commons.Event;
+import commons.Expense;
+import commons.ExpensePage;
+import commons.Involved;
+import commons.InvolvedList;
+import commons.Participant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ExpensePagerTest {
+    private UUID invitationCode;
+    private Participant participant;
+    private WebsocketSessionHandler sessionHandler;
+    private ExpensePager pager;
+
+    @BeforeEach
+    void setUp() {
+        invitationCode = UUID.randomUUID();
+        participant = new Participant(UUID.randomUUID(), "Ana", "Smith", null, null, invitationCode);
+        EventDataHandler dataHandler = new EventDataHandler(new Event("event"), List.of(participant),
+                new ArrayList<>());
+        sessionHandler = Mockito.mock(WebsocketSessionHandler.class);
+        dataHandler.setSessionHandler(sessionHandler);
+        pager = new ExpensePager(dataHandler);
+    }
+
+    private List<Expense> page(int size) {
+        List<Expense> expenses = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            UUID expenseId = UUID.randomUUID();
+            InvolvedList involveds = new InvolvedList();
+            involveds.add(new Involved(UUID.randomUUID(), false, expenseId, participant.getId(), invitationCode));
+            expenses.add(new Expense(expenseId, "expense" + i, 10, participant.getId(), invitationCode,
+                    LocalDate.of(2024, 1, 1), involveds));
+        }
+        return expenses;
+    }
+
+    private ExpensePage cursor(List<Expense> expenses, boolean last) {
+        Expense lastExpense = expenses.getLast();
+        return new ExpensePage(invitationCode, lastExpense.getDate(), lastExpense.getId(), ExpensePager.PAGE_SIZE,
+                last);
+    }
+
+    @Test
+    void readFirstPage() {
+        pager.readFirstPage();
+        verify(sessionHandler).readExpensePage(null, null, ExpensePager.PAGE_SIZE);
+
+        List<Expense> expenses = page(3);
+        pager.addPage(expenses, cursor(expenses, false));
+        assertEquals(expenses, pager.getItems());
+        assertEquals(participant, pager.getItems().getFirst().getPaidBy());
+        assertEquals(participant, pager.getItems().getFirst().getInvolveds().getFirst().getParticipant());
+    }
+
+    @Test
+    void readNextPageAfterCursor() {
+        pager.readFirstPage();
+        List<Expense> first = page(3);
+        ExpensePage cursor = cursor(first, false);
+        pager.addPage(first, cursor);
+
+        pager.readNextPage();
+        // a page is being read already
+        pager.readNextPage();
+        verify(sessionHandler, times(1)).readExpensePage(cursor.getAfterDate(), cursor.getAfterId(),
+                ExpensePager.PAGE_SIZE);
+
+        List<Expense> second = page(2);
+        pager.addPage(second, cursor(second, true));
+        assertEquals(5, pager.getItems().size());
+        // the last page was read
+        pager.readNextPage();
+        verify(sessionHandler, times(2)).readExpensePage(any(), any(), anyInt());
+    }
+
+    @Test
+    void reloadIgnoresEarlierAnswers() {
+        pager.readFirstPage();
+        List<Expense> first = page(3);
+        pager.addPage(first, cursor(first, false));
+        pager.readNextPage();
+
+        pager.reload();
+        List<Expense> stale = page(2);
+        pager.addPage(stale, cursor(stale, true));
+        assertEquals(first, pager.getItems());
+
+        List<Expense> reloaded = page(4);
+        pager.addPage(reloaded, cursor(reloaded, true));
+        assertEquals(reloaded, pager.getItems());
+    }
+
+    @Test
+    void pageFailedAllowsNextPage() {
+        pager.readFirstPage();
+        List<Expense> first = page(3);
+        pager.addPage(first, cursor(first, false));
+        pager.readNextPage();
+        pager.pageFailed();
+
+        pager.readNextPage();
+        verify(sessionHandler, times(3)).readExpensePage(any(), any(), anyInt());
+    }
+}
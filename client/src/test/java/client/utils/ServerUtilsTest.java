@@ -16,7 +16,9 @@ import javax.json.JsonObject;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -199,6 +201,46 @@ class ServerUtilsTest {
     }
 
 
+    @Test
+    void getEventDumpWireMock() throws IOException, InterruptedException {
+        WireMockServer wireMockServer = new WireMockServer(WireMockConfiguration
+                .options()
+                .port(9093));
+        wireMockServer.start();
+
+        UUID randomCode = UUID.randomUUID();
+        String dump = "{\"id\":\"" + randomCode + "\",\"title\":\"TEST\",\"participants\":[]}";
+        wireMockServer.stubFor(get(urlEqualTo("/admin/events/" + randomCode + "/dump"))
+                .withHeader("passcode", equalTo("secret"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(dump)));
+
+        ServerUtils serverUtils = new ServerUtils();
+        try (InputStream stream = serverUtils.getEventDump(randomCode, "secret", "http://localhost:9093")) {
+            assertEquals(dump, new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        wireMockServer.stop();
+    }
+
+    @Test
+    void getEventDumpWrongPasscode() {
+        WireMockServer wireMockServer = new WireMockServer(WireMockConfiguration
+                .options()
+                .port(9094));
+        wireMockServer.start();
+
+        UUID randomCode = UUID.randomUUID();
+        wireMockServer.stubFor(get(urlEqualTo("/admin/events/" + randomCode + "/dump"))
+                .willReturn(aResponse().withStatus(401)));
+
+        ServerUtils serverUtils = new ServerUtils();
+        assertThrows(IOException.class,
+                () -> serverUtils.getEventDump(randomCode, "wrong", "http://localhost:9094"));
+        wireMockServer.stop();
+    }
+
     private static void setId(Event toSet, UUID newId) throws IllegalAccessException {
         FieldUtils.writeField(toSet, "id", newId, true);
     }
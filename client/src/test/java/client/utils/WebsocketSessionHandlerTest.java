@@ -2,10 +2,15 @@ package client.utils;
 
 
 import client.scenes.MainCtrl;
+import client.utils.frameHandlers.ChangeTrackingHandler;
 import commons.Event;
+import commons.EventChanges;
+import commons.EventPage;
 import commons.Expense;
+import commons.ExpensePage;
 import commons.Participant;
 import commons.Involved;
+import commons.SmileMessageConverter;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -62,126 +67,81 @@ class WebsocketSessionHandlerTest {
         ArgumentCaptor<String> destinationCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<StompFrameHandler> stompFrameHandlerCaptor = ArgumentCaptor.forClass(StompFrameHandler.class);
 
-        verify(session, times(6)).subscribe(destinationCaptor.capture(),
+        verify(session, times(9)).subscribe(destinationCaptor.capture(),
                 stompFrameHandlerCaptor.capture());
 
         List<String> destinations = destinationCaptor.getAllValues();
 
         assertEquals("/user/queue/reply", destinations.get(0));
-        assertEquals("/user/queue/event:read", destinations.get(1));
-        assertEquals("/user/queue/participants:read", destinations.get(2));
-        assertEquals("/user/queue/expenses:read", destinations.get(3));
-        assertEquals("/user/queue/admin/events:read", destinations.get(4));
-        assertEquals("/user/queue/admin/event:dump", destinations.get(5));
+        assertEquals("/user/queue/event:snapshot", destinations.get(1));
+        assertEquals("/user/queue/event:read", destinations.get(2));
+        assertEquals("/user/queue/participants:read", destinations.get(3));
+        assertEquals("/user/queue/expenses:read", destinations.get(4));
+        assertEquals("/user/queue/expenses:page", destinations.get(5));
+        assertEquals("/user/queue/admin/events:read", destinations.get(6));
+        assertEquals("/user/queue/admin/event:dump", destinations.get(7));
+        assertEquals("/user/queue/event:changes", destinations.get(8));
     }
 
     @Test
-    void afterInitialEventRead() {
+    void subscribeToEvent() {
         handler.afterConnected(session, headers);
         handler.subscribeToEvent(invitationCode);
-        handler.afterInitialEventRead();
 
         ArgumentCaptor<String> destinationCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<StompFrameHandler> stompFrameHandlerCaptor = ArgumentCaptor.forClass(StompFrameHandler.class);
         ArgumentCaptor<UUID> idCaptor = ArgumentCaptor.forClass(UUID.class);
-        verify(session, times(8)).subscribe(destinationCaptor.capture(),
-                stompFrameHandlerCaptor.capture());
-        verify(session, times(2)).send(destinationCaptor.capture(), idCaptor.capture());
-
-        List<String> destinations = destinationCaptor.getAllValues();
-        assertEquals("/topic/" + invitationCode + "/event:delete", destinations.get(6));
-        assertEquals("/topic/" + invitationCode + "/event:update", destinations.get(7));
-
-        assertEquals(invitationCode, idCaptor.getValue());
-        assertEquals("/app/participants:read", destinations.get(9));
-    }
 
-    @Test
-    void afterInitialParticipantsRead() {
-        handler.afterConnected(session, headers);
-        handler.subscribeToEvent(invitationCode);
-        handler.afterInitialParticipantsRead();
-
-        ArgumentCaptor<String> destinationCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<StompFrameHandler> stompFrameHandlerCaptor = ArgumentCaptor.forClass(StompFrameHandler.class);
-        ArgumentCaptor<UUID> idCaptor = ArgumentCaptor.forClass(UUID.class);
-        verify(session, times(9)).subscribe(destinationCaptor.capture(),
-                stompFrameHandlerCaptor.capture());
-        verify(session, times(2)).send(destinationCaptor.capture(), idCaptor.capture());
-
-        List<String> destinations = destinationCaptor.getAllValues();
-        assertEquals("/topic/" + invitationCode + "/participant:delete", destinations.get(6));
-        assertEquals("/topic/" + invitationCode + "/participant:update", destinations.get(7));
-        assertEquals("/topic/" + invitationCode + "/participant:create", destinations.get(8));
-
-        assertEquals(invitationCode, idCaptor.getValue());
-        assertEquals("/app/expenses:read", destinations.get(10));
-    }
-
-    @Test
-    void afterInitialExpenseRead() {
-        handler.afterConnected(session, headers);
-        handler.subscribeToEvent(invitationCode);
-        handler.afterInitialExpenseRead();
-
-        ArgumentCaptor<String> destinationCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<StompFrameHandler> stompFrameHandlerCaptor = ArgumentCaptor.forClass(StompFrameHandler.class);
-        ArgumentCaptor<UUID> idCaptor = ArgumentCaptor.forClass(UUID.class);
-        verify(session, times(10)).subscribe(destinationCaptor.capture(),
+        verify(session, times(18)).subscribe(destinationCaptor.capture(),
                 stompFrameHandlerCaptor.capture());
         verify(session, times(1)).send(destinationCaptor.capture(), idCaptor.capture());
 
         List<String> destinations = destinationCaptor.getAllValues();
-        assertEquals("/topic/" + invitationCode + "/expense:delete", destinations.get(6));
-        assertEquals("/topic/" + invitationCode + "/expense:update", destinations.get(7));
-        assertEquals("/topic/" + invitationCode + "/expense:create", destinations.get(8));
-        assertEquals("/topic/" + invitationCode + "/involved:update", destinations.get(9));
+        assertEquals("/topic/" + invitationCode + "/event:delete", destinations.get(9));
+        assertEquals("/topic/" + invitationCode + "/event:update", destinations.get(10));
+        assertEquals("/topic/" + invitationCode + "/participant:delete", destinations.get(11));
+        assertEquals("/topic/" + invitationCode + "/participant:update", destinations.get(12));
+        assertEquals("/topic/" + invitationCode + "/participant:create", destinations.get(13));
+        assertEquals("/topic/" + invitationCode + "/expense:delete", destinations.get(14));
+        assertEquals("/topic/" + invitationCode + "/expense:update", destinations.get(15));
+        assertEquals("/topic/" + invitationCode + "/expense:create", destinations.get(16));
+        assertEquals("/topic/" + invitationCode + "/involved:update", destinations.get(17));
+        for (StompFrameHandler frameHandler : stompFrameHandlerCaptor.getAllValues().subList(9, 18))
+            assertInstanceOf(ChangeTrackingHandler.class, frameHandler);
+
+        assertEquals("/app/event:snapshot", destinations.get(18));
+        assertEquals(invitationCode, idCaptor.getValue());
     }
 
     @Test
-    void subscribeToEvent() {
+    void subscribeToAdmin() {
         handler.afterConnected(session, headers);
-        handler.subscribeToEvent(invitationCode);
+        handler.subscribeToAdmin();
 
         ArgumentCaptor<String> destinationCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<StompFrameHandler> stompFrameHandlerCaptor = ArgumentCaptor.forClass(StompFrameHandler.class);
-        ArgumentCaptor<UUID> idCaptor = ArgumentCaptor.forClass(UUID.class);
 
-        verify(session, times(6)).subscribe(destinationCaptor.capture(),
+        verify(session, times(12)).subscribe(destinationCaptor.capture(),
                 stompFrameHandlerCaptor.capture());
-        verify(session, times(1)).send(destinationCaptor.capture(), idCaptor.capture());
 
-        List<UUID> uuids = idCaptor.getAllValues();
         List<String> destinations = destinationCaptor.getAllValues();
-
-        assertEquals(invitationCode, uuids.getFirst());
-        assertEquals("/app/event:read", destinations.get(6));
+        assertEquals("/topic/admin/event:create", destinations.get(9));
+        assertEquals("/topic/admin/event:delete", destinations.get(10));
+        assertEquals("/topic/admin/event:update", destinations.get(11));
     }
 
     @Test
-    void subscribeToAdmin() {
+    void loginAsAdmin() {
         handler.afterConnected(session, headers);
-        handler.subscribeToAdmin("42");
+        handler.loginAsAdmin("42");
 
-        ArgumentCaptor<String> destinationCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<StompHeaders> headerCaptor = ArgumentCaptor.forClass(StompHeaders.class);
-        ArgumentCaptor<StompFrameHandler> stompFrameHandlerCaptor = ArgumentCaptor.forClass(StompFrameHandler.class);
-
-        verify(session, times(6)).subscribe(destinationCaptor.capture(),
-                stompFrameHandlerCaptor.capture());
-        verify(session, times(3)).subscribe(headerCaptor.capture(),
-                stompFrameHandlerCaptor.capture());
-
-        List<StompHeaders> headers = headerCaptor.getAllValues();
-        StompHeaders header = new StompHeaders();
-        header.setPasscode("42");
+        ArgumentCaptor<StompHeaders> headersCaptor = ArgumentCaptor.forClass(StompHeaders.class);
+        verify(session, times(1)).send(headersCaptor.capture(), any());
 
-        header.setDestination("/topic/admin/event:create");
-        assertEquals(header, headers.get(0));
-        header.setDestination("/topic/admin/event:delete");
-        assertEquals(header, headers.get(1));
-        header.setDestination("/topic/admin/event:update");
-        assertEquals(header, headers.get(2));
+        StompHeaders expectedHeaders = new StompHeaders();
+        expectedHeaders.setDestination("/app/admin:login");
+        expectedHeaders.setPasscode("42");
+        assertEquals(expectedHeaders, headersCaptor.getValue());
     }
 
     @Test
@@ -212,39 +172,21 @@ class WebsocketSessionHandlerTest {
         try {
             setAdminSubscriptions(handler, subscriptions);
         } catch (IllegalAccessException ignored) {}
-        try {
-            handler.subscribeToAdmin("");
-        } catch (IllegalArgumentException exception) {
-            fail();
-        }
-        assertTrue(true);
+        handler.afterConnected(session, headers);
+        handler.subscribeToAdmin();
+        verify(session, times(9)).subscribe(anyString(), any());
     }
 
     @Test
-    void testNullPasscodeSubscribeToAdmin() {
-        StompSession.Subscription subscription1 = Mockito.mock(StompSession.Subscription.class);
-        StompSession.Subscription subscription2 = Mockito.mock(StompSession.Subscription.class);
-
-        try {
-            handler.subscribeToAdmin(null);
-        } catch (IllegalArgumentException exception) {
-            assertTrue(true);
-        }
+    void testEmptyPasscodeLoginAsAdmin() {
+        handler.afterConnected(session, headers);
+        assertThrows(IllegalArgumentException.class, () -> handler.loginAsAdmin(""));
     }
 
     @Test
-    void unsubscribeFromEvent() {
-        StompSession.Subscription subscription1 = Mockito.mock(StompSession.Subscription.class);
-        StompSession.Subscription subscription2 = Mockito.mock(StompSession.Subscription.class);
-        List<StompSession.Subscription> subscriptions = new ArrayList<>();
-        subscriptions.add(subscription1);
-        subscriptions.add(subscription2);
-        try {
-            setSubscriptions(handler, subscriptions);
-        } catch (IllegalAccessException ignored) {}
-        handler.unsubscribeFromCurrentEvent();
-        verify(subscription1).unsubscribe();
-        verify(subscription2).unsubscribe();
+    void testNullPasscodeLoginAsAdmin() {
+        handler.afterConnected(session, headers);
+        assertThrows(IllegalArgumentException.class, () -> handler.loginAsAdmin(null));
     }
 
     @Test
@@ -257,9 +199,11 @@ class WebsocketSessionHandlerTest {
         try {
             setAdminSubscriptions(handler, subscriptions);
         } catch (IllegalAccessException ignored) {}
+        handler.afterConnected(session, headers);
         handler.unsubscribeFromAdmin();
         verify(subscription1).unsubscribe();
         verify(subscription2).unsubscribe();
+        verify(session).send("/app/admin:logout", "");
     }
 
     @Test
@@ -294,6 +238,23 @@ class WebsocketSessionHandlerTest {
         assertEquals(event1, payloadCaptor.getValue());
     }
 
+    @Test
+    void sendEventWithContentType() {
+        handler.afterConnected(session, headers);
+        handler.setContentType(SmileMessageConverter.SMILE);
+        Event event1 = new Event("updatedTitle");
+
+        ArgumentCaptor<StompHeaders> headersCaptor = ArgumentCaptor.forClass(StompHeaders.class);
+        ArgumentCaptor<Object> payloadCaptor = ArgumentCaptor.forClass(Object.class);
+
+        handler.sendEvent(event1, "update");
+        verify(session).send(headersCaptor.capture(), payloadCaptor.capture());
+
+        assertEquals("/app/event:update", headersCaptor.getValue().getDestination());
+        assertEquals(SmileMessageConverter.SMILE, headersCaptor.getValue().getContentType());
+        assertEquals(event1, payloadCaptor.getValue());
+    }
+
     @Test
     void sendParticipant() {
         handler.afterConnected(session, headers);
@@ -407,43 +368,76 @@ class WebsocketSessionHandlerTest {
         assertEquals(invitationCode, payloadCaptor.getValue());
     }
 
+    @Test
+    void readChanges() {
+        handler.afterConnected(session, headers);
+        handler.subscribeToEvent(invitationCode);
+        UUID epoch = UUID.randomUUID();
+
+        handler.readChanges(epoch, 4);
+        verify(session).send("/app/event:changes",
+                new EventChanges(invitationCode, epoch, 4, false, new ArrayList<>()));
+    }
+
+    @Test
+    void readExpensePage() {
+        handler.afterConnected(session, headers);
+        handler.subscribeToEvent(invitationCode);
+        UUID afterId = UUID.randomUUID();
+
+        handler.readExpensePage(LocalDate.of(2024, 1, 1), afterId, 50);
+        verify(session).send("/app/expenses:page",
+                new ExpensePage(invitationCode, LocalDate.of(2024, 1, 1), afterId, 50, false));
+    }
+
+    @Test
+    void readSnapshot() {
+        handler.afterConnected(session, headers);
+        handler.subscribeToEvent(invitationCode);
+
+        handler.readSnapshot();
+        verify(session, times(2)).send("/app/event:snapshot", invitationCode);
+    }
+
     @Test
     void sendReadEvents() {
         handler.afterConnected(session, headers);
-        handler.subscribeToAdmin("42");
+        handler.subscribeToAdmin();
 
         ArgumentCaptor<String> destinationCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<Object> payloadCaptor = ArgumentCaptor.forClass(Object.class);
 
-        handler.sendReadEvents("42");
+        handler.sendReadEvents();
         verify(session, times(1)).send(destinationCaptor.capture(), payloadCaptor.capture());
 
         String capturedDestination = destinationCaptor.getValue();
-        assertEquals("/app/admin/events:read", capturedDestination);
+        assertEquals("/app/admin/events:page", capturedDestination);
+        assertEquals(AdminDataHandler.firstPage(null, EventPage.Sort.LAST_ACTIVITY, true), payloadCaptor.getValue());
+    }
 
-        assertEquals("42", payloadCaptor.getValue());
+    @Test
+    void readEventPage() {
+        handler.afterConnected(session, headers);
+        EventPage page = AdminDataHandler.firstPage("trip", EventPage.Sort.TITLE, false).withNumber(2);
+
+        handler.readEventPage(page);
+        verify(session).send("/app/admin/events:page", page);
     }
 
     @Test
     void sendAdminEvent() {
         handler.afterConnected(session, headers);
-        handler.subscribeToAdmin("42");
+        handler.subscribeToAdmin();
 
-        ArgumentCaptor<StompHeaders> headersCaptor = ArgumentCaptor.forClass(StompHeaders.class);
+        ArgumentCaptor<String> destinationCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<Object> payloadCaptor = ArgumentCaptor.forClass(Object.class);
 
         Event event = new Event();
 
-        handler.sendAdminEvent("42", event, "delete");
-        verify(session, times(1)).send(headersCaptor.capture(), payloadCaptor.capture());
-
-        StompHeaders expectedHeaders = new StompHeaders();
-        expectedHeaders.setDestination("/app/admin/event:delete");
-        expectedHeaders.setPasscode("42");
-
-        StompHeaders capturedHeaders = headersCaptor.getValue();
-        assertEquals(expectedHeaders, capturedHeaders);
+        handler.sendAdminEvent(event, "delete");
+        verify(session, times(1)).send(destinationCaptor.capture(), payloadCaptor.capture());
 
+        assertEquals("/app/admin/event:delete", destinationCaptor.getValue());
         assertEquals(event, payloadCaptor.getValue());
     }
 
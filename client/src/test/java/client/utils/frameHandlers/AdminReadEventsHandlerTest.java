@@ -4,6 +4,7 @@ import client.scenes.MainCtrl;
 import client.utils.AdminDataHandler;
 import commons.Event;
 import commons.EventList;
+import commons.EventPage;
 import commons.StatusEntity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -11,6 +12,7 @@ import org.mockito.Mockito;
 import org.springframework.messaging.simp.stomp.StompHeaders;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 class AdminReadEventsHandlerTest {
@@ -44,4 +46,14 @@ class AdminReadEventsHandlerTest {
         handler.handleFrame(headers, status);
         verify(dataHandler).setEvents(events);
     }
-}
\ No newline at end of file
+
+    @Test
+    void handleFramePage() {
+        EventList events = new EventList();
+        events.add(new Event("testEvent"));
+        EventPage page = AdminDataHandler.firstPage(null, EventPage.Sort.TITLE, false).withLast(true);
+        handler.handleFrame(headers, StatusEntity.ok(events, page));
+        verify(dataHandler).addEventPage(events, page);
+        verify(dataHandler, never()).setEvents(events);
+    }
+}
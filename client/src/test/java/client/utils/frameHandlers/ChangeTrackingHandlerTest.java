@@ -0,0 +1,59 @@
+package client.utils.frameHandlers;
+
+import client.utils.EventDataHandler;
+import commons.Event;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class ChangeTrackingHandlerTest {
+    private EventDataHandler dataHandler;
+    private ChangeTrackingHandler handler;
+    private StompHeaders headers;
+
+    @BeforeEach
+    void setUp() {
+        dataHandler = Mockito.mock(EventDataHandler.class);
+        handler = new ChangeTrackingHandler(dataHandler, new UpdateEventHandler(dataHandler));
+        headers = new StompHeaders();
+    }
+
+    @Test
+    void getPayloadType() {
+        assertEquals(Event.class, handler.getPayloadType(headers));
+    }
+
+    @Test
+    void handleFrameWithoutHeaders() {
+        Event event = new Event("testEvent");
+        handler.handleFrame(headers, event);
+        verify(dataHandler).getUpdateEvent(event);
+    }
+
+    @Test
+    void handleFrameNextChange() {
+        UUID epoch = UUID.randomUUID();
+        headers.add("change-epoch", epoch.toString());
+        headers.add("change-seq", "3");
+        when(dataHandler.trackChange(epoch, 3)).thenReturn(true);
+        Event event = new Event("testEvent");
+        handler.handleFrame(headers, event);
+        verify(dataHandler).getUpdateEvent(event);
+    }
+
+    @Test
+    void handleFrameDroppedChange() {
+        UUID epoch = UUID.randomUUID();
+        headers.add("change-epoch", epoch.toString());
+        headers.add("change-seq", "3");
+        when(dataHandler.trackChange(epoch, 3)).thenReturn(false);
+        handler.handleFrame(headers, new Event("testEvent"));
+        verify(dataHandler, never()).getUpdateEvent(any());
+    }
+}
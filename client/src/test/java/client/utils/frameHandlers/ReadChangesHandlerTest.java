@@ -0,0 +1,46 @@
+package client.utils.frameHandlers;
+
+import client.utils.EventDataHandler;
+import commons.EventChanges;
+import commons.StatusEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class ReadChangesHandlerTest {
+    private EventDataHandler dataHandler;
+    private ReadChangesHandler handler;
+    private StompHeaders headers;
+
+    @BeforeEach
+    void setUp() {
+        dataHandler = Mockito.mock(EventDataHandler.class);
+        handler = new ReadChangesHandler(dataHandler);
+        headers = new StompHeaders();
+    }
+
+    @Test
+    void getPayloadType() {
+        assertEquals(StatusEntity.class, handler.getPayloadType(headers));
+    }
+
+    @Test
+    void handleFrameOK() {
+        EventChanges changes = new EventChanges(UUID.randomUUID(), UUID.randomUUID(), 2, false, new ArrayList<>());
+        handler.handleFrame(headers, StatusEntity.ok(changes));
+        verify(dataHandler).applyChanges(changes);
+    }
+
+    @Test
+    void handleFrameNotFound() {
+        handler.handleFrame(headers, StatusEntity.notFound(true, "Event with provided Invitation code does not exist"));
+        verify(dataHandler, never()).applyChanges(any());
+    }
+}
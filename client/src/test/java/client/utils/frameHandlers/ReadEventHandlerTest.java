@@ -42,6 +42,5 @@ class ReadEventHandlerTest {
         StatusEntity status = StatusEntity.ok(event);
         handler.handleFrame(headers, status);
         verify(dataHandler).setEvent(event);
-        verify(sessionHandler).afterInitialEventRead();
     }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package client.utils.frameHandlers;
+
+import client.utils.EventDataHandler;
+import commons.ExpenseList;
+import commons.ExpensePage;
+import commons.StatusEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class ReadExpensePageHandlerTest {
+    private EventDataHandler dataHandler;
+    private ReadExpensePageHandler handler;
+    private StompHeaders headers;
+
+    @BeforeEach
+    void setUp() {
+        dataHandler = Mockito.mock(EventDataHandler.class);
+        handler = new ReadExpensePageHandler(dataHandler);
+        headers = new StompHeaders();
+    }
+
+    @Test
+    void getPayloadType() {
+        assertEquals(StatusEntity.class, handler.getPayloadType(headers));
+    }
+
+    @Test
+    void handleFrameOK() {
+        ExpenseList expenses = new ExpenseList();
+        ExpensePage page = new ExpensePage(UUID.randomUUID(), null, null, 50, true);
+        handler.handleFrame(headers, StatusEntity.ok(expenses, page));
+        verify(dataHandler).addExpensePage(expenses, page);
+    }
+
+    @Test
+    void handleFrameNotFound() {
+        handler.handleFrame(headers, StatusEntity.notFound(true, (ExpenseList) null));
+        verify(dataHandler, never()).addExpensePage(any(), any());
+        verify(dataHandler).expensePageFailed();
+    }
+}
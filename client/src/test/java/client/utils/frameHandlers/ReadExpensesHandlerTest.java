@@ -13,7 +13,6 @@ import org.springframework.messaging.simp.stomp.StompHeaders;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
 class ReadExpensesHandlerTest {
     private EventDataHandler dataHandler;
@@ -42,10 +41,8 @@ class ReadExpensesHandlerTest {
         ExpenseList expenses = new ExpenseList();
         expenses.add(new Expense());
         expenses.add(new Expense());
-        when(dataHandler.getExpenses()).thenReturn(null);
         StatusEntity status = StatusEntity.ok(expenses);
         handler.handleFrame(headers, status);
         verify(dataHandler).setExpenses(expenses);
-        verify(sessionHandler).afterInitialExpenseRead();
     }
 }
\ No newline at end of file
@@ -13,7 +13,6 @@ import org.springframework.messaging.simp.stomp.StompHeaders;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
 class ReadParticipantsHandlerTest {
     private EventDataHandler dataHandler;
@@ -43,9 +42,7 @@ class ReadParticipantsHandlerTest {
         participants.add(new Participant());
         participants.add(new Participant());
         StatusEntity status = StatusEntity.ok(participants);
-        when(dataHandler.getParticipants()).thenReturn(null);
         handler.handleFrame(headers, status);
         verify(dataHandler).setParticipants(participants);
-        verify(sessionHandler).afterInitialParticipantsRead();
     }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package client.utils.frameHandlers;
+
+import client.scenes.MainCtrl;
+import client.utils.EventDataHandler;
+import commons.Event;
+import commons.EventChanges;
+import commons.ExpenseList;
+import commons.ParticipantList;
+import commons.StatusEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+
+class ReadSnapshotHandlerTest {
+    private EventDataHandler dataHandler;
+    private ReadSnapshotHandler handler;
+    private StompHeaders headers;
+
+    @BeforeEach
+    void setUp() {
+        dataHandler = Mockito.mock(EventDataHandler.class);
+        handler = new ReadSnapshotHandler(dataHandler, new MainCtrl());
+        headers = new StompHeaders();
+    }
+
+    @Test
+    void getPayloadType() {
+        assertEquals(StatusEntity.class, handler.getPayloadType(headers));
+    }
+
+    @Test
+    void handleFrameOK() {
+        Event event = new Event("testEvent");
+        ParticipantList participants = new ParticipantList();
+        ExpenseList expenses = new ExpenseList();
+        EventChanges changes = new EventChanges(event.getId(), UUID.randomUUID(), 7, false, new ArrayList<>());
+        handler.handleFrame(headers, StatusEntity.ok(event, participants, expenses, changes));
+        verify(dataHandler).setSnapshot(event, participants, expenses, changes);
+    }
+}
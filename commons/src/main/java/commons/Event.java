@@ -19,6 +19,10 @@ import java.util.UUID;
  */
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
+@Table(indexes = {
+    @Index(name = "idx_event_title", columnList = "title"),
+    @Index(name = "idx_event_last_activity", columnList = "lastActivity")
+})
 public class Event {
 
     @JsonView(Views.UpdateInvitationsCodes.class)
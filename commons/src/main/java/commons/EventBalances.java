@@ -0,0 +1,105 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Net balances of all participants of an event together with a set of transfers that settles them.
+ * A positive balance means the participant should receive money, a negative one that they owe money.
+ * Participants without any open debts are left out of the balances map.
+ */
+public class EventBalances {
+    private UUID invitationCode;
+    private Map<UUID, Double> balances;
+    private List<Transfer> transfers;
+
+    /**
+     * Empty constructor for deserialization
+     */
+    public EventBalances() {
+        this.balances = new HashMap<>();
+        this.transfers = new ArrayList<>();
+    }
+
+    /**
+     * Constructor for sending the balances of an event to the client
+     *
+     * @param invitationCode invitationCode of the Event
+     * @param balances net balance of every participant with open debts, keyed by participant id
+     * @param transfers transfers that settle all open debts
+     */
+    public EventBalances(UUID invitationCode, Map<UUID, Double> balances, List<Transfer> transfers) {
+        this.invitationCode = invitationCode;
+        this.balances = balances;
+        this.transfers = transfers;
+    }
+
+    /**
+     * std getter
+     *
+     * @return invitationCode of the Event
+     */
+    public UUID getInvitationCode() {
+        return invitationCode;
+    }
+
+    /**
+     * std getter
+     *
+     * @return net balances keyed by participant id
+     */
+    public Map<UUID, Double> getBalances() {
+        return balances;
+    }
+
+    /**
+     * Returns the net balance of a single participant
+     *
+     * @param participantId id of the Participant
+     * @return the net balance, 0 if the participant has no open debts
+     */
+    public double getBalance(UUID participantId) {
+        return balances.getOrDefault(participantId, 0.0);
+    }
+
+    /**
+     * std getter
+     *
+     * @return transfers that settle all open debts
+     */
+    public List<Transfer> getTransfers() {
+        return transfers;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+
+        if (!(obj instanceof EventBalances that)) return false;
+
+        return new EqualsBuilder().append(invitationCode, that.invitationCode).append(balances, that.balances)
+                .append(transfers, that.transfers).isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37).append(invitationCode).append(balances).append(transfers)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("invitationCode", invitationCode)
+                .append("balances", balances)
+                .append("transfers", transfers)
+                .toString();
+    }
+}
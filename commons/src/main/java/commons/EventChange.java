@@ -0,0 +1,154 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+/**
+ * A single change of an event, as it was broadcast on /topic/{invitationCode}/{type}.
+ * Depending on the type, exactly one of event, participant, expense or involveds is set.
+ */
+public class EventChange {
+    private long sequence;
+    private String type;
+    private Event event;
+    private Participant participant;
+    private Expense expense;
+    private InvolvedList involveds;
+
+    /**
+     * Empty constructor for deserialization
+     */
+    public EventChange() {
+    }
+
+    /**
+     * Constructor for a change without its payload
+     *
+     * @param sequence change sequence number of the change within its event
+     * @param type type of the change, e.g. expense:create
+     */
+    public EventChange(long sequence, String type) {
+        this.sequence = sequence;
+        this.type = type;
+    }
+
+    /**
+     * std getter
+     *
+     * @return change sequence number of the change within its event
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * std getter
+     *
+     * @return type of the change, e.g. expense:create
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * std getter
+     *
+     * @return the event, for event:update and event:delete changes
+     */
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * std setter
+     *
+     * @param event the event, for event:update and event:delete changes
+     */
+    public void setEvent(Event event) {
+        this.event = event;
+    }
+
+    /**
+     * std getter
+     *
+     * @return the participant, for participant changes
+     */
+    public Participant getParticipant() {
+        return participant;
+    }
+
+    /**
+     * std setter
+     *
+     * @param participant the participant, for participant changes
+     */
+    public void setParticipant(Participant participant) {
+        this.participant = participant;
+    }
+
+    /**
+     * std getter
+     *
+     * @return the expense, for expense changes
+     */
+    public Expense getExpense() {
+        return expense;
+    }
+
+    /**
+     * std setter
+     *
+     * @param expense the expense, for expense changes
+     */
+    public void setExpense(Expense expense) {
+        this.expense = expense;
+    }
+
+    /**
+     * std getter
+     *
+     * @return the involveds, for involved:update changes
+     */
+    public InvolvedList getInvolveds() {
+        return involveds;
+    }
+
+    /**
+     * std setter
+     *
+     * @param involveds the involveds, for involved:update changes
+     */
+    public void setInvolveds(InvolvedList involveds) {
+        this.involveds = involveds;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+
+        if (!(obj instanceof EventChange that)) return false;
+
+        return new EqualsBuilder().append(sequence, that.sequence).append(type, that.type)
+                .append(event, that.event).append(participant, that.participant)
+                .append(expense, that.expense).append(involveds, that.involveds).isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37).append(sequence).append(type).append(event).append(participant)
+                .append(expense).append(involveds).toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("sequence", sequence)
+                .append("type", type)
+                .append("event", event)
+                .append("participant", participant)
+                .append("expense", expense)
+                .append("involveds", involveds)
+                .toString();
+    }
+}
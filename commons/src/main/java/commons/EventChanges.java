@@ -0,0 +1,123 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Request for and answer with the changes of an event since a change sequence number.
+ * The client sends the epoch and the last sequence number it has seen,
+ * the server answers with every later change, or with snapshotRequired set
+ * if those changes are not known anymore and the client has to read the whole event again.
+ * Sequence numbers are only comparable within the same epoch.
+ */
+public class EventChanges {
+    private UUID invitationCode;
+    private UUID epoch;
+    private long sequence;
+    private boolean snapshotRequired;
+    private List<EventChange> changes;
+
+    /**
+     * Empty constructor for deserialization
+     */
+    public EventChanges() {
+        this.changes = new ArrayList<>();
+    }
+
+    /**
+     * Constructor for the request and the answer
+     *
+     * @param invitationCode invitationCode of the Event
+     * @param epoch epoch of the sequence numbers, null if the client does not know it yet
+     * @param sequence in a request the last sequence number seen by the client,
+     *                 in an answer the sequence number of the last change of the event
+     * @param snapshotRequired whether the client has to read the whole event again
+     * @param changes the changes after the requested sequence number, in order
+     */
+    public EventChanges(UUID invitationCode, UUID epoch, long sequence, boolean snapshotRequired,
+                        List<EventChange> changes) {
+        this.invitationCode = invitationCode;
+        this.epoch = epoch;
+        this.sequence = sequence;
+        this.snapshotRequired = snapshotRequired;
+        this.changes = changes;
+    }
+
+    /**
+     * std getter
+     *
+     * @return invitationCode of the Event
+     */
+    public UUID getInvitationCode() {
+        return invitationCode;
+    }
+
+    /**
+     * std getter
+     *
+     * @return epoch of the sequence numbers
+     */
+    public UUID getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * std getter
+     *
+     * @return the requested or the latest sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * std getter
+     *
+     * @return whether the client has to read the whole event again
+     */
+    public boolean isSnapshotRequired() {
+        return snapshotRequired;
+    }
+
+    /**
+     * std getter
+     *
+     * @return the changes after the requested sequence number, in order
+     */
+    public List<EventChange> getChanges() {
+        return changes;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+
+        if (!(obj instanceof EventChanges that)) return false;
+
+        return new EqualsBuilder().append(invitationCode, that.invitationCode).append(epoch, that.epoch)
+                .append(sequence, that.sequence).append(snapshotRequired, that.snapshotRequired)
+                .append(changes, that.changes).isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37).append(invitationCode).append(epoch).append(sequence)
+                .append(snapshotRequired).append(changes).toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("invitationCode", invitationCode)
+                .append("epoch", epoch)
+                .append("sequence", sequence)
+                .append("snapshotRequired", snapshotRequired)
+                .append("changes", changes)
+                .toString();
+    }
+}
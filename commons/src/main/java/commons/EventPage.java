@@ -0,0 +1,240 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Request for and answer with a page of the events listed on the admin panel.
+ * The request holds the filters, the sort and the number of the page, the answer repeats them
+ * and tells whether there are no events after this page, so the client sends the next page number to read on.
+ * Null filters match every event, the creation and last activity ranges include both ends.
+ */
+public class EventPage {
+    /**
+     * The largest number of events sent in one page
+     */
+    public static final int MAX_SIZE = 500;
+
+    /**
+     * Columns the events can be sorted on, events with the same value are sorted on their invitation code
+     */
+    public enum Sort {
+        TITLE,
+        CREATION_DATE,
+        LAST_ACTIVITY
+    }
+
+    private String titlePrefix;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+    private LocalDateTime activeFrom;
+    private LocalDateTime activeTo;
+    private Sort sort;
+    private boolean descending;
+    private int number;
+    private int size;
+    private boolean last;
+
+    /**
+     * Empty constructor for deserialization
+     */
+    public EventPage() {
+    }
+
+    /**
+     * Constructor for the request and the answer
+     *
+     * @param titlePrefix the start of the titles of the events, null for all titles
+     * @param createdFrom earliest creation date of the events, null for no bound
+     * @param createdTo latest creation date of the events, null for no bound
+     * @param activeFrom earliest last activity of the events, null for no bound
+     * @param activeTo latest last activity of the events, null for no bound
+     * @param sort the column the events are sorted on, null for the last activity
+     * @param descending whether the events are sorted from the largest to the smallest value
+     * @param number the number of the page, starting at 0
+     * @param size the maximum number of events of the page
+     * @param last in an answer, whether there are no events after this page
+     */
+    public EventPage(String titlePrefix, LocalDateTime createdFrom, LocalDateTime createdTo,
+                     LocalDateTime activeFrom, LocalDateTime activeTo, Sort sort, boolean descending,
+                     int number, int size, boolean last) {
+        this.titlePrefix = titlePrefix;
+        this.createdFrom = createdFrom;
+        this.createdTo = createdTo;
+        this.activeFrom = activeFrom;
+        this.activeTo = activeTo;
+        this.sort = sort;
+        this.descending = descending;
+        this.number = number;
+        this.size = size;
+        this.last = last;
+    }
+
+    /**
+     * Builds the request for another page with the same filters and sort
+     *
+     * @param number the number of the page, starting at 0
+     * @return the request for the page
+     */
+    public EventPage withNumber(int number) {
+        return new EventPage(titlePrefix, createdFrom, createdTo, activeFrom, activeTo, sort, descending,
+                number, size, false);
+    }
+
+    /**
+     * Builds the answer for this request
+     *
+     * @param last whether there are no events after this page
+     * @return the answer for this request
+     */
+    public EventPage withLast(boolean last) {
+        return new EventPage(titlePrefix, createdFrom, createdTo, activeFrom, activeTo, sort, descending,
+                number, size, last);
+    }
+
+    /**
+     * Checks whether an event passes the filters of this page, regardless of the page it is on
+     *
+     * @param event the event to check
+     * @return true if the event passes the title, creation date and last activity filters
+     */
+    public boolean matches(Event event) {
+        return (titlePrefix == null || event.getTitle() != null && event.getTitle().startsWith(titlePrefix))
+                && within(event.getCreationDate(), createdFrom, createdTo)
+                && within(event.getLastActivity(), activeFrom, activeTo);
+    }
+
+    private static boolean within(LocalDateTime value, LocalDateTime from, LocalDateTime to) {
+        if (value == null)
+            return from == null && to == null;
+        return (from == null || !value.isBefore(from)) && (to == null || !value.isAfter(to));
+    }
+
+    /**
+     * std getter
+     *
+     * @return the start of the titles of the events, null for all titles
+     */
+    public String getTitlePrefix() {
+        return titlePrefix;
+    }
+
+    /**
+     * std getter
+     *
+     * @return earliest creation date of the events, null for no bound
+     */
+    public LocalDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+
+    /**
+     * std getter
+     *
+     * @return latest creation date of the events, null for no bound
+     */
+    public LocalDateTime getCreatedTo() {
+        return createdTo;
+    }
+
+    /**
+     * std getter
+     *
+     * @return earliest last activity of the events, null for no bound
+     */
+    public LocalDateTime getActiveFrom() {
+        return activeFrom;
+    }
+
+    /**
+     * std getter
+     *
+     * @return latest last activity of the events, null for no bound
+     */
+    public LocalDateTime getActiveTo() {
+        return activeTo;
+    }
+
+    /**
+     * std getter
+     *
+     * @return the column the events are sorted on, null for the last activity
+     */
+    public Sort getSort() {
+        return sort;
+    }
+
+    /**
+     * std getter
+     *
+     * @return whether the events are sorted from the largest to the smallest value
+     */
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * std getter
+     *
+     * @return the number of the page, starting at 0
+     */
+    public int getNumber() {
+        return number;
+    }
+
+    /**
+     * std getter
+     *
+     * @return the maximum number of events of the page
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * std getter
+     *
+     * @return whether there are no events after this page
+     */
+    public boolean isLast() {
+        return last;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+
+        if (!(obj instanceof EventPage that)) return false;
+
+        return new EqualsBuilder().append(titlePrefix, that.titlePrefix).append(createdFrom, that.createdFrom)
+                .append(createdTo, that.createdTo).append(activeFrom, that.activeFrom)
+                .append(activeTo, that.activeTo).append(sort, that.sort).append(descending, that.descending)
+                .append(number, that.number).append(size, that.size).append(last, that.last).isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37).append(titlePrefix).append(createdFrom).append(createdTo)
+                .append(activeFrom).append(activeTo).append(sort).append(descending).append(number)
+                .append(size).append(last).toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("titlePrefix", titlePrefix)
+                .append("createdFrom", createdFrom)
+                .append("createdTo", createdTo)
+                .append("activeFrom", activeFrom)
+                .append("activeTo", activeTo)
+                .append("sort", sort)
+                .append("descending", descending)
+                .append("number", number)
+                .append("size", size)
+                .append("last", last)
+                .toString();
+    }
+}
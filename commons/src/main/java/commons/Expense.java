@@ -22,6 +22,7 @@ import java.util.UUID;
  */
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 @Entity
+@Table(indexes = @Index(name = "idx_expense_participant_date", columnList = "PARTICIPANT_ID, date, id"))
 public class Expense {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
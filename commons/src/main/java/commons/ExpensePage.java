@@ -0,0 +1,131 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Request for and answer with a page of the expenses of an event, in (date, id) order.
+ * The client sends the date and id of the last expense it has read, or nulls for the first page,
+ * and the server answers with the expenses after it and the date and id of the last expense of the page,
+ * which the client sends to read the next page. Expenses added or deleted in between do not shift the pages.
+ */
+public class ExpensePage {
+    /**
+     * The largest number of expenses sent in one page
+     */
+    public static final int MAX_SIZE = 500;
+
+    private UUID invitationCode;
+    private LocalDate afterDate;
+    private UUID afterId;
+    private int size;
+    private boolean last;
+
+    /**
+     * Empty constructor for deserialization
+     */
+    public ExpensePage() {
+    }
+
+    /**
+     * Constructor for the request and the answer
+     *
+     * @param invitationCode invitationCode of the Event
+     * @param afterDate date of the last expense read, null for the first page
+     * @param afterId id of the last expense read, null for the first page
+     * @param size the maximum number of expenses of the page
+     * @param last in an answer, whether there are no expenses after this page
+     */
+    public ExpensePage(UUID invitationCode, LocalDate afterDate, UUID afterId, int size, boolean last) {
+        this.invitationCode = invitationCode;
+        this.afterDate = afterDate;
+        this.afterId = afterId;
+        this.size = size;
+        this.last = last;
+    }
+
+    /**
+     * std getter
+     *
+     * @return invitationCode of the Event
+     */
+    public UUID getInvitationCode() {
+        return invitationCode;
+    }
+
+    /**
+     * std getter
+     *
+     * @return date of the last expense read, null for the first page
+     */
+    public LocalDate getAfterDate() {
+        return afterDate;
+    }
+
+    /**
+     * std getter
+     *
+     * @return id of the last expense read, null for the first page
+     */
+    public UUID getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * std getter
+     *
+     * @return the maximum number of expenses of the page
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * std getter
+     *
+     * @return whether there are no expenses after this page
+     */
+    public boolean isLast() {
+        return last;
+    }
+
+    /**
+     * Checks whether this is a request for the first page
+     *
+     * @return true if no expense was read yet
+     */
+    public boolean isFirst() {
+        return afterDate == null || afterId == null;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+
+        if (!(obj instanceof ExpensePage that)) return false;
+
+        return new EqualsBuilder().append(invitationCode, that.invitationCode).append(afterDate, that.afterDate)
+                .append(afterId, that.afterId).append(size, that.size).append(last, that.last).isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37).append(invitationCode).append(afterDate).append(afterId)
+                .append(size).append(last).toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("invitationCode", invitationCode)
+                .append("afterDate", afterDate)
+                .append("afterId", afterId)
+                .append("size", size)
+                .append("last", last)
+                .toString();
+    }
+}
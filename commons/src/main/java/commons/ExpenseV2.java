@@ -0,0 +1,24 @@
+package commons;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Expense in the v2 wire schema. The payer is referred to by its index in the participants
+ * of the enclosing ExpensesV2, the invitation code is sent once in the StatusV2
+ * and the amount owed is not sent, it is derived from the amount and the involveds.
+ *
+ * @param id id of the expense
+ * @param title title of the expense
+ * @param amount amount of the expense
+ * @param paidBy index of the participant who paid
+ * @param date date of the expense
+ * @param involveds the involveds of the expense
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ExpenseV2(UUID id, String title, double amount, int paidBy, LocalDate date,
+                        List<InvolvedV2> involveds) {
+}
@@ -0,0 +1,75 @@
+package commons;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Expenses in the v2 wire schema, with the ids of the participants they refer to.
+ * Every participant id is sent once and the expenses and involveds refer to it by its index.
+ *
+ * @param participants ids of the participants referred to
+ * @param expenses the expenses
+ */
+public record ExpensesV2(List<UUID> participants, List<ExpenseV2> expenses) {
+
+    /**
+     * Creates the v2 form of a list of expenses
+     *
+     * @param expenseList the expenses
+     * @return the ExpensesV2
+     */
+    public static ExpensesV2 of(List<Expense> expenseList) {
+        List<UUID> participants = new ArrayList<>();
+        Map<UUID, Integer> indexes = new HashMap<>();
+        List<ExpenseV2> expenses = new ArrayList<>(expenseList.size());
+        for (Expense expense : expenseList) {
+            List<InvolvedV2> involveds = null;
+            if (expense.getInvolveds() != null) {
+                involveds = new ArrayList<>(expense.getInvolveds().size());
+                for (Involved involved : expense.getInvolveds()) {
+                    involveds.add(new InvolvedV2(involved.getId(),
+                            index(involved.getParticipantId(), participants, indexes), involved.getIsSettled()));
+                }
+            }
+            expenses.add(new ExpenseV2(expense.getId(), expense.getTitle(), expense.getAmount(),
+                    index(expense.getPaidById(), participants, indexes), expense.getDate(), involveds));
+        }
+        return new ExpensesV2(participants, expenses);
+    }
+
+    private static int index(UUID participantId, List<UUID> participants, Map<UUID, Integer> indexes) {
+        return indexes.computeIfAbsent(participantId, id -> {
+            participants.add(id);
+            return participants.size() - 1;
+        });
+    }
+
+    /**
+     * Creates the expenses this ExpensesV2 stands for, with the amount owed of every expense derived again
+     *
+     * @param invitationCode invitation code of the event of the expenses
+     * @return the ExpenseList
+     */
+    public ExpenseList toExpenseList(UUID invitationCode) {
+        ExpenseList expenseList = new ExpenseList();
+        for (ExpenseV2 sent : expenses) {
+            InvolvedList involveds = null;
+            if (sent.involveds() != null) {
+                involveds = new InvolvedList();
+                for (InvolvedV2 involved : sent.involveds()) {
+                    involveds.add(new Involved(involved.id(), involved.settled(), sent.id(),
+                            participants.get(involved.participant()), invitationCode));
+                }
+            }
+            Expense expense = new Expense(sent.id(), sent.title(), sent.amount(), participants.get(sent.paidBy()),
+                    invitationCode, sent.date(), involveds);
+            if (involveds != null)
+                expense.setAmountOwed(expense.getAmount() / involveds.size());
+            expenseList.add(expense);
+        }
+        return expenseList;
+    }
+}
@@ -11,6 +11,9 @@ import java.util.UUID;
  * model for involved entity
  */
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_involved_expense_participant",
+        columnNames = {"EXPENSE_ID", "PARTICIPANT_ID"}),
+        indexes = @Index(name = "idx_involved_participant", columnList = "PARTICIPANT_ID"))
 public class Involved {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -0,0 +1,14 @@
+package commons;
+
+import java.util.UUID;
+
+/**
+ * Involved in the v2 wire schema. The expense and the invitation code are those of the enclosing ExpenseV2
+ * and the participant is referred to by its index in the participants of the enclosing ExpensesV2.
+ *
+ * @param id id of the involved
+ * @param participant index of the participant
+ * @param settled whether the participant settled the debt
+ */
+public record InvolvedV2(UUID id, int participant, boolean settled) {
+}
@@ -21,6 +21,7 @@ import java.util.UUID;
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 
 @Entity
+@Table(indexes = @Index(name = "idx_participant_event", columnList = "EVENT_ID"))
 public class Participant {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
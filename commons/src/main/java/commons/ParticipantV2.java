@@ -0,0 +1,39 @@
+package commons;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * Participant in the v2 wire schema, without the invitation code, which is sent once in the StatusV2
+ *
+ * @param id id of the participant
+ * @param firstName first name of the participant
+ * @param lastName last name of the participant
+ * @param iban iban of the participant
+ * @param bic bic of the participant
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ParticipantV2(UUID id, String firstName, String lastName, String iban, String bic) {
+
+    /**
+     * Creates the v2 form of a participant
+     *
+     * @param participant the participant
+     * @return the ParticipantV2
+     */
+    public static ParticipantV2 of(Participant participant) {
+        return new ParticipantV2(participant.getId(), participant.getFirstName(), participant.getLastName(),
+                participant.getIban(), participant.getBic());
+    }
+
+    /**
+     * Creates the participant this ParticipantV2 stands for
+     *
+     * @param invitationCode invitation code of the event of the participant
+     * @return the Participant
+     */
+    public Participant toParticipant(UUID invitationCode) {
+        return new Participant(id, firstName, lastName, iban, bic, invitationCode);
+    }
+}
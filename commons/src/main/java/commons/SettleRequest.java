@@ -0,0 +1,135 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.UUID;
+
+/**
+ * Request to settle many debts of an event at once: all debts in the event, all debts in one expense,
+ * or all debts one participant owes to another one, i.e. their shares of the expenses the other one paid for.
+ * The server settles them in a single update and broadcasts the settled involveds as one involved:update.
+ */
+public class SettleRequest {
+    private UUID invitationCode;
+    private UUID expenseId;
+    private UUID fromId;
+    private UUID toId;
+
+    /**
+     * Empty constructor for deserialization
+     */
+    public SettleRequest() {
+    }
+
+    /**
+     * Constructor for a request, use the factory methods for the supported kinds of requests
+     *
+     * @param invitationCode invitationCode of the Event
+     * @param expenseId id of the Expense whose debts are settled, null if not limited to one expense
+     * @param fromId id of the Participant whose debts are settled, null if not limited to two participants
+     * @param toId id of the Participant the debts are owed to, null if not limited to two participants
+     */
+    public SettleRequest(UUID invitationCode, UUID expenseId, UUID fromId, UUID toId) {
+        this.invitationCode = invitationCode;
+        this.expenseId = expenseId;
+        this.fromId = fromId;
+        this.toId = toId;
+    }
+
+    /**
+     * Creates a request settling all debts of an event
+     *
+     * @param invitationCode invitationCode of the Event
+     * @return the request
+     */
+    public static SettleRequest event(UUID invitationCode) {
+        return new SettleRequest(invitationCode, null, null, null);
+    }
+
+    /**
+     * Creates a request settling all debts of an expense
+     *
+     * @param invitationCode invitationCode of the Event
+     * @param expenseId id of the Expense
+     * @return the request
+     */
+    public static SettleRequest expense(UUID invitationCode, UUID expenseId) {
+        return new SettleRequest(invitationCode, expenseId, null, null);
+    }
+
+    /**
+     * Creates a request settling all debts one participant owes to another one
+     *
+     * @param invitationCode invitationCode of the Event
+     * @param fromId id of the Participant who owes the debts
+     * @param toId id of the Participant who paid the expenses
+     * @return the request
+     */
+    public static SettleRequest between(UUID invitationCode, UUID fromId, UUID toId) {
+        return new SettleRequest(invitationCode, null, fromId, toId);
+    }
+
+    /**
+     * std getter
+     *
+     * @return invitationCode of the Event
+     */
+    public UUID getInvitationCode() {
+        return invitationCode;
+    }
+
+    /**
+     * std getter
+     *
+     * @return id of the Expense whose debts are settled, null if not limited to one expense
+     */
+    public UUID getExpenseId() {
+        return expenseId;
+    }
+
+    /**
+     * std getter
+     *
+     * @return id of the Participant whose debts are settled, null if not limited to two participants
+     */
+    public UUID getFromId() {
+        return fromId;
+    }
+
+    /**
+     * std getter
+     *
+     * @return id of the Participant the debts are owed to, null if not limited to two participants
+     */
+    public UUID getToId() {
+        return toId;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+
+        if (!(obj instanceof SettleRequest that)) return false;
+
+        return new EqualsBuilder().append(invitationCode, that.invitationCode).append(expenseId, that.expenseId)
+                .append(fromId, that.fromId).append(toId, that.toId).isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37).append(invitationCode).append(expenseId).append(fromId).append(toId)
+                .toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("invitationCode", invitationCode)
+                .append("expenseId", expenseId)
+                .append("fromId", fromId)
+                .append("toId", toId)
+                .toString();
+    }
+}
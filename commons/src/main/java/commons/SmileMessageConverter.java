@@ -0,0 +1,65 @@
+package commons;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.util.MimeType;
+
+import java.util.Map;
+
+/**
+ * Message converter for STOMP payloads encoded in Smile, the binary form of JSON.
+ * Property names and short strings such as the ids of participants and expenses are written once per frame
+ * and referred to afterwards, which makes large reads like expenses:read considerably smaller.
+ * The content type is application/octet-stream;codec=smile, as only octet-stream frames are sent
+ * as binary websocket messages. The converter only handles frames with exactly that content type,
+ * so it can be used next to the JSON converter, which stays the default.
+ */
+public class SmileMessageConverter extends MappingJackson2MessageConverter {
+
+    /**
+     * Content type of frames encoded in Smile
+     */
+    public static final MimeType SMILE = new MimeType("application", "octet-stream", Map.of("codec", "smile"));
+
+    /**
+     * Constructor for SmileMessageConverter
+     */
+    public SmileMessageConverter() {
+        super(SMILE);
+        setObjectMapper(createObjectMapper());
+        setStrictContentTypeMatch(true);
+    }
+
+    /**
+     * Creates an ObjectMapper reading and writing Smile, with the modules on the classpath, e.g. for java.time
+     *
+     * @return the ObjectMapper
+     */
+    public static ObjectMapper createObjectMapper() {
+        SmileFactory factory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        ObjectMapper objectMapper = new ObjectMapper(factory);
+        objectMapper.findAndRegisterModules();
+        return objectMapper;
+    }
+
+    /**
+     * Checks whether a content type is the Smile content type, including its codec parameter
+     *
+     * @param mimeType the content type, may be null
+     * @return true if frames of the content type are encoded in Smile
+     */
+    public static boolean isSmile(MimeType mimeType) {
+        return mimeType != null && SMILE.equalsTypeAndSubtype(mimeType)
+                && SMILE.getParameter("codec").equals(mimeType.getParameter("codec"));
+    }
+
+    @Override
+    protected boolean supportsMimeType(MessageHeaders headers) {
+        return isSmile(getMimeType(headers));
+    }
+}
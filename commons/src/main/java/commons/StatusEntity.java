@@ -29,9 +29,14 @@ public class StatusEntity {
     private EventList eventList;
     private ParticipantList participantList;
     private ExpenseList expenseList;
-
-    private StatusEntity(StatusCode statusCode, boolean unsolvable, String message, Event event,
-                         EventList eventList, ParticipantList participantList, ExpenseList expenseList) {
+    private EventBalances balances;
+    private EventChanges changes;
+    private ExpensePage page;
+    private EventPage eventPage;
+
+    StatusEntity(StatusCode statusCode, boolean unsolvable, String message, Event event,
+                         EventList eventList, ParticipantList participantList, ExpenseList expenseList,
+                         EventBalances balances, EventChanges changes, ExpensePage page) {
         this.statusCode = statusCode;
         this.unsolvable = unsolvable;
         this.message = message;
@@ -39,6 +44,9 @@ public class StatusEntity {
         this.eventList = eventList;
         this.participantList = participantList;
         this.expenseList = expenseList;
+        this.balances = balances;
+        this.changes = changes;
+        this.page = page;
     }
 
     /**
@@ -70,7 +78,7 @@ public class StatusEntity {
      */
     public static StatusEntity ok(String message)
     {
-        return new StatusEntity(OK, false, message, null, null, null, null);
+        return new StatusEntity(OK, false, message, null, null, null, null, null, null, null);
     }
 
     /**
@@ -80,7 +88,7 @@ public class StatusEntity {
      */
     public static StatusEntity ok(Event event)
     {
-        return new StatusEntity(OK, false, null, event, null, null, null);
+        return new StatusEntity(OK, false, null, event, null, null, null, null, null, null);
     }
 
     /**
@@ -90,7 +98,20 @@ public class StatusEntity {
      */
     public static StatusEntity ok(EventList eventList)
     {
-        return new StatusEntity(OK, false, null, null, eventList, null, null);
+        return new StatusEntity(OK, false, null, null, eventList, null, null, null, null, null);
+    }
+
+    /**
+     * Static method that builds a status entity with the OK status code.
+     * @param eventList the events of a page of the admin panel, in the order of the page
+     * @param eventPage the request of the page, telling whether it is the last page
+     * @return Status entity holding status code, models, and boolean unsolvable
+     */
+    public static StatusEntity ok(EventList eventList, EventPage eventPage)
+    {
+        StatusEntity status = ok(eventList);
+        status.eventPage = eventPage;
+        return status;
     }
 
     /**
@@ -100,7 +121,7 @@ public class StatusEntity {
      */
     public static StatusEntity ok(ParticipantList participantList)
     {
-        return new StatusEntity(OK, false, null, null, null, participantList, null);
+        return new StatusEntity(OK, false, null, null, null, participantList, null, null, null, null);
     }
 
     /**
@@ -110,7 +131,52 @@ public class StatusEntity {
      */
     public static StatusEntity ok(ExpenseList expenseList)
     {
-        return new StatusEntity(OK, false, null, null, null, null, expenseList);
+        return new StatusEntity(OK, false, null, null, null, null, expenseList, null, null, null);
+    }
+
+    /**
+     * Static method that builds a status entity with the OK status code.
+     * @param balances EventBalances for balances:read endpoint
+     * @return Status entity holding status code, models, and boolean unsolvable
+     */
+    public static StatusEntity ok(EventBalances balances)
+    {
+        return new StatusEntity(OK, false, null, null, null, null, null, balances, null, null);
+    }
+
+    /**
+     * Static method that builds a status entity with the OK status code.
+     * @param changes EventChanges for event:changes endpoint
+     * @return Status entity holding status code, models, and boolean unsolvable
+     */
+    public static StatusEntity ok(EventChanges changes)
+    {
+        return new StatusEntity(OK, false, null, null, null, null, null, null, changes, null);
+    }
+
+    /**
+     * Static method that builds a status entity with the OK status code.
+     * @param event Event for event:snapshot endpoint
+     * @param participantList participants of the event
+     * @param expenseList expenses of the event
+     * @param changes epoch and sequence number of the last change contained in the snapshot
+     * @return Status entity holding status code, models, and boolean unsolvable
+     */
+    public static StatusEntity ok(Event event, ParticipantList participantList, ExpenseList expenseList,
+                                  EventChanges changes)
+    {
+        return new StatusEntity(OK, false, null, event, null, participantList, expenseList, null, changes, null);
+    }
+
+    /**
+     * Static method that builds a status entity with the OK status code.
+     * @param expenseList the expenses of a page, in (date, id) order
+     * @param page cursor of the last expense of the page, to read the next page from
+     * @return Status entity holding status code, models, and boolean unsolvable
+     */
+    public static StatusEntity ok(ExpenseList expenseList, ExpensePage page)
+    {
+        return new StatusEntity(OK, false, null, null, null, null, expenseList, null, null, page);
     }
 
     /**
@@ -121,7 +187,7 @@ public class StatusEntity {
      */
     public static StatusEntity badRequest(boolean unsolvable, String message)
     {
-        return new StatusEntity(BAD_REQUEST, unsolvable, message, null, null, null, null);
+        return new StatusEntity(BAD_REQUEST, unsolvable, message, null, null, null, null, null, null, null);
     }
 
     /**
@@ -132,7 +198,7 @@ public class StatusEntity {
      */
     public static StatusEntity badRequest(boolean unsolvable, Event event)
     {
-        return new StatusEntity(BAD_REQUEST, unsolvable, null, event, null, null, null);
+        return new StatusEntity(BAD_REQUEST, unsolvable, null, event, null, null, null, null, null, null);
     }
 
     /**
@@ -143,7 +209,7 @@ public class StatusEntity {
      */
     public static StatusEntity badRequest(boolean unsolvable, EventList eventList)
     {
-        return new StatusEntity(BAD_REQUEST, unsolvable, null, null, eventList, null, null);
+        return new StatusEntity(BAD_REQUEST, unsolvable, null, null, eventList, null, null, null, null, null);
     }
 
     /**
@@ -154,7 +220,7 @@ public class StatusEntity {
      */
     public static StatusEntity badRequest(boolean unsolvable, ParticipantList participantList)
     {
-        return new StatusEntity(BAD_REQUEST, unsolvable, null, null, null, participantList, null);
+        return new StatusEntity(BAD_REQUEST, unsolvable, null, null, null, participantList, null, null, null, null);
     }
 
     /**
@@ -165,7 +231,18 @@ public class StatusEntity {
      */
     public static StatusEntity badRequest(boolean unsolvable, ExpenseList expenseList)
     {
-        return new StatusEntity(BAD_REQUEST, unsolvable, null, null, null, null, expenseList);
+        return new StatusEntity(BAD_REQUEST, unsolvable, null, null, null, null, expenseList, null, null, null);
+    }
+
+    /**
+     * Static method that builds a status entity with the BAD_REQUEST status code.
+     * @param unsolvable Boolean that indicates whether the conflict is unsolvable (info might be needed by the client)
+     * @param balances EventBalances for balances:read endpoint
+     * @return Status entity holding status code, models, and boolean unsolvable
+     */
+    public static StatusEntity badRequest(boolean unsolvable, EventBalances balances)
+    {
+        return new StatusEntity(BAD_REQUEST, unsolvable, null, null, null, null, null, balances, null, null);
     }
 
     /**
@@ -176,7 +253,7 @@ public class StatusEntity {
      */
     public static StatusEntity notFound(boolean unsolvable, String message)
     {
-        return new StatusEntity(NOT_FOUND, unsolvable, message, null, null, null, null);
+        return new StatusEntity(NOT_FOUND, unsolvable, message, null, null, null, null, null, null, null);
     }
 
     /**
@@ -187,7 +264,7 @@ public class StatusEntity {
      */
     public static StatusEntity notFound(boolean unsolvable, Event event)
     {
-        return new StatusEntity(NOT_FOUND, unsolvable, null, event, null, null, null);
+        return new StatusEntity(NOT_FOUND, unsolvable, null, event, null, null, null, null, null, null);
     }
 
     /**
@@ -198,7 +275,7 @@ public class StatusEntity {
      */
     public static StatusEntity notFound(boolean unsolvable, EventList eventList)
     {
-        return new StatusEntity(NOT_FOUND, unsolvable, null, null, eventList, null, null);
+        return new StatusEntity(NOT_FOUND, unsolvable, null, null, eventList, null, null, null, null, null);
     }
 
     /**
@@ -209,7 +286,7 @@ public class StatusEntity {
      */
     public static StatusEntity notFound(boolean unsolvable, ParticipantList participantList)
     {
-        return new StatusEntity(NOT_FOUND, unsolvable, null, null, null, participantList, null);
+        return new StatusEntity(NOT_FOUND, unsolvable, null, null, null, participantList, null, null, null, null);
     }
 
     /**
@@ -220,7 +297,18 @@ public class StatusEntity {
      */
     public static StatusEntity notFound(boolean unsolvable, ExpenseList expenseList)
     {
-        return new StatusEntity(NOT_FOUND, unsolvable, null, null, null, null, expenseList);
+        return new StatusEntity(NOT_FOUND, unsolvable, null, null, null, null, expenseList, null, null, null);
+    }
+
+    /**
+     * Static method that builds a status entity with the NOT_FOUND status code.
+     * @param unsolvable Boolean that indicates whether the conflict is unsolvable (info might be needed by the client)
+     * @param balances EventBalances for balances:read endpoint
+     * @return Status entity holding status code, models, and boolean unsolvable
+     */
+    public static StatusEntity notFound(boolean unsolvable, EventBalances balances)
+    {
+        return new StatusEntity(NOT_FOUND, unsolvable, null, null, null, null, null, balances, null, null);
     }
 
     /**
@@ -263,6 +351,38 @@ public class StatusEntity {
         return expenseList;
     }
 
+    /**
+     * Getter for balances
+     * @return balances
+     */
+    public EventBalances getBalances() {
+        return balances;
+    }
+
+    /**
+     * Getter for changes
+     * @return changes
+     */
+    public EventChanges getChanges() {
+        return changes;
+    }
+
+    /**
+     * Getter for page
+     * @return page
+     */
+    public ExpensePage getPage() {
+        return page;
+    }
+
+    /**
+     * Getter for eventPage
+     * @return eventPage
+     */
+    public EventPage getEventPage() {
+        return eventPage;
+    }
+
     /**
      * Equals method for StatusEntity
      * @param obj Object that we compare the StatusEntity to
@@ -276,7 +396,9 @@ public class StatusEntity {
 
         return new EqualsBuilder().append(unsolvable, that.unsolvable).append(statusCode, that.statusCode)
                 .append(message, that.message).append(event, that.event).append(eventList, that.eventList)
-                .append(participantList, that.participantList).append(expenseList, that.expenseList).isEquals();
+                .append(participantList, that.participantList).append(expenseList, that.expenseList)
+                .append(balances, that.balances).append(changes, that.changes).append(page, that.page)
+                .append(eventPage, that.eventPage).isEquals();
     }
 
     /**
@@ -287,7 +409,7 @@ public class StatusEntity {
     public int hashCode() {
         return new HashCodeBuilder(17, 37).append(statusCode).append(unsolvable)
                 .append(message).append(event).append(eventList).append(participantList)
-                .append(expenseList).toHashCode();
+                .append(expenseList).append(balances).append(changes).append(page).append(eventPage).toHashCode();
     }
 
     /**
@@ -304,6 +426,10 @@ public class StatusEntity {
                 .append("eventList", eventList)
                 .append("participantList", participantList)
                 .append("expenseList", expenseList)
+                .append("balances", balances)
+                .append("changes", changes)
+                .append("page", page)
+                .append("eventPage", eventPage)
                 .toString();
     }
 }
@@ -0,0 +1,80 @@
+package commons;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * StatusEntity in the v2 wire schema. Empty payloads are left out, and the invitation code the participants,
+ * expenses and involveds share is sent once instead of in every one of them.
+ * All participants and expenses of a status belong to the same event.
+ *
+ * @param statusCode the status code
+ * @param unsolvable whether the conflict is unsolvable
+ * @param message the message
+ * @param invitationCode invitation code of the participants and expenses
+ * @param event the event
+ * @param eventList the events
+ * @param participants the participants
+ * @param expenses the expenses
+ * @param balances the balances
+ * @param changes the changes
+ * @param page the cursor of a page of expenses
+ * @param eventPage the request of a page of the admin panel's events
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record StatusV2(StatusEntity.StatusCode statusCode, boolean unsolvable, String message, UUID invitationCode,
+                       Event event, EventList eventList, List<ParticipantV2> participants, ExpensesV2 expenses,
+                       EventBalances balances, EventChanges changes, ExpensePage page,
+                       EventPage eventPage) {
+
+    /**
+     * Creates the v2 form of a StatusEntity
+     *
+     * @param status the StatusEntity
+     * @return the StatusV2
+     */
+    public static StatusV2 of(StatusEntity status) {
+        ParticipantList participantList = status.getParticipantList();
+        ExpenseList expenseList = status.getExpenseList();
+        List<ParticipantV2> participants = null;
+        if (participantList != null) {
+            participants = new ArrayList<>(participantList.size());
+            for (Participant participant : participantList)
+                participants.add(ParticipantV2.of(participant));
+        }
+        return new StatusV2(status.getStatusCode(), status.isUnsolvable(), status.getMessage(),
+                invitationCode(participantList, expenseList), status.getEvent(), status.getEventList(),
+                participants, expenseList == null ? null : ExpensesV2.of(expenseList),
+                status.getBalances(), status.getChanges(), status.getPage(), status.getEventPage());
+    }
+
+    private static UUID invitationCode(ParticipantList participantList, ExpenseList expenseList) {
+        if (participantList != null && !participantList.isEmpty())
+            return participantList.get(0).getEventId();
+        if (expenseList != null && !expenseList.isEmpty())
+            return expenseList.get(0).getInvitationCode();
+        return null;
+    }
+
+    /**
+     * Creates the StatusEntity this StatusV2 stands for
+     *
+     * @return the StatusEntity
+     */
+    public StatusEntity toStatusEntity() {
+        // Only the answer to a page request of the admin panel holds a page of events
+        if (eventPage != null)
+            return StatusEntity.ok(eventList, eventPage);
+        ParticipantList participantList = null;
+        if (participants != null) {
+            participantList = new ParticipantList();
+            for (ParticipantV2 participant : participants)
+                participantList.add(participant.toParticipant(invitationCode));
+        }
+        return new StatusEntity(statusCode, unsolvable, message, event, eventList, participantList,
+                expenses == null ? null : expenses.toExpenseList(invitationCode), balances, changes, page);
+    }
+}
@@ -0,0 +1,86 @@
+package commons;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.builder.ToStringBuilder;
+
+import java.util.UUID;
+
+/**
+ * A single suggested payment that settles (part of) a debt between two participants of an event.
+ */
+public class Transfer {
+    private UUID fromId;
+    private UUID toId;
+    private double amount;
+
+    /**
+     * Empty constructor for deserialization
+     */
+    public Transfer() {
+    }
+
+    /**
+     * Constructor for sending a Transfer to the client
+     *
+     * @param fromId id of the Participant who should pay
+     * @param toId id of the Participant who should receive the money
+     * @param amount amount that should be transferred
+     */
+    public Transfer(UUID fromId, UUID toId, double amount) {
+        this.fromId = fromId;
+        this.toId = toId;
+        this.amount = amount;
+    }
+
+    /**
+     * std getter
+     *
+     * @return id of the Participant who should pay
+     */
+    public UUID getFromId() {
+        return fromId;
+    }
+
+    /**
+     * std getter
+     *
+     * @return id of the Participant who should receive the money
+     */
+    public UUID getToId() {
+        return toId;
+    }
+
+    /**
+     * std getter
+     *
+     * @return amount that should be transferred
+     */
+    public double getAmount() {
+        return amount;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+
+        if (!(obj instanceof Transfer that)) return false;
+
+        return new EqualsBuilder().append(amount, that.amount).append(fromId, that.fromId)
+                .append(toId, that.toId).isEquals();
+    }
+
+    @Override
+    public int hashCode() {
+        return new HashCodeBuilder(17, 37).append(fromId).append(toId).append(amount).toHashCode();
+    }
+
+    @Override
+    public String toString() {
+        return new ToStringBuilder(this)
+                .append("fromId", fromId)
+                .append("toId", toId)
+                .append("amount", amount)
+                .toString();
+    }
+}
@@ -0,0 +1,82 @@
+package commons;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+
+import java.util.function.Predicate;
+
+/**
+ * Message converter for StatusEntities in the v2 wire schema, see StatusV2.
+ * A client asks for the v2 schema with a schema-version:2 header, frames in the v2 schema carry the same header.
+ * The converter only handles StatusEntities of the v2 schema and returns null for everything else,
+ * so it is put in front of the converters of the v1 schema. The payloads themselves are written and read
+ * by the delegate, in JSON or Smile depending on their content type.
+ */
+public class WireSchemaMessageConverter implements MessageConverter {
+
+    /**
+     * Header naming the wire schema a client reads, or the schema of a frame
+     */
+    public static final String SCHEMA_HEADER = "schema-version";
+    /**
+     * Value of the schema header for the v2 schema
+     */
+    public static final String V2 = "2";
+
+    private final MessageConverter delegate;
+    private final Predicate<MessageHeaders> writeV2;
+
+    /**
+     * Constructor for a converter that reads StatusEntities in the v2 schema and writes nothing
+     *
+     * @param delegate the converter reading the payloads
+     */
+    public WireSchemaMessageConverter(MessageConverter delegate) {
+        this(delegate, headers -> false);
+    }
+
+    /**
+     * Constructor for WireSchemaMessageConverter
+     *
+     * @param delegate the converter reading and writing the payloads
+     * @param writeV2 tells from the headers of a message whether its StatusEntity is written in the v2 schema
+     */
+    public WireSchemaMessageConverter(MessageConverter delegate, Predicate<MessageHeaders> writeV2) {
+        this.delegate = delegate;
+        this.writeV2 = writeV2;
+    }
+
+    /**
+     * Checks whether a message is in the v2 schema, or whether the client sending it asks for the v2 schema
+     *
+     * @param headers headers of the message
+     * @return true if the schema header is 2
+     */
+    public static boolean isV2(MessageHeaders headers) {
+        return V2.equals(NativeMessageHeaderAccessor.getFirstNativeHeader(SCHEMA_HEADER, headers));
+    }
+
+    @Override
+    public Object fromMessage(Message<?> message, Class<?> targetClass) {
+        if (targetClass != StatusEntity.class || !isV2(message.getHeaders()))
+            return null;
+        StatusV2 status = (StatusV2) delegate.fromMessage(message, StatusV2.class);
+        return status == null ? null : status.toStatusEntity();
+    }
+
+    @Override
+    public Message<?> toMessage(Object payload, MessageHeaders headers) {
+        if (!(payload instanceof StatusEntity status) || headers == null || !writeV2.test(headers))
+            return null;
+        Message<?> message = delegate.toMessage(StatusV2.of(status), headers);
+        if (message == null)
+            return null;
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setNativeHeader(SCHEMA_HEADER, V2);
+        return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+    }
+}
@@ -3,6 +3,8 @@ package commons;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.UUID;
+
 import static commons.StatusEntity.StatusCode.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -127,4 +129,14 @@ public class StatusEntityTest {
                 true, new ExpenseList());
         assertEquals(new ExpenseList(), statusEntity.getExpenseList());
     }
+
+    @Test
+    void getPage()
+    {
+        ExpensePage page = new ExpensePage(UUID.randomUUID(), null, null, 50, true);
+        StatusEntity statusEntity = StatusEntity.ok(new ExpenseList(), page);
+        assertEquals(new ExpenseList(), statusEntity.getExpenseList());
+        assertEquals(page, statusEntity.getPage());
+        assertTrue(page.isFirst());
+    }
 }
@@ -0,0 +1,82 @@
+package commons;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StatusV2Test {
+    UUID invitationCode;
+    Participant ana;
+    Participant bob;
+    Expense expense;
+
+    @BeforeEach
+    void setUp() {
+        invitationCode = UUID.randomUUID();
+        ana = new Participant(UUID.randomUUID(), "Ana", "Smith", "NL91ABNA0417164300", "ABNANL2A", invitationCode);
+        bob = new Participant(UUID.randomUUID(), "Bob", "Smith", null, null, invitationCode);
+        UUID expenseId = UUID.randomUUID();
+        InvolvedList involveds = new InvolvedList();
+        involveds.add(new Involved(UUID.randomUUID(), true, expenseId, ana.getId(), invitationCode));
+        involveds.add(new Involved(UUID.randomUUID(), false, expenseId, bob.getId(), invitationCode));
+        expense = new Expense(expenseId, "Dinner", 30, ana.getId(), invitationCode, LocalDate.of(2024, 3, 1),
+                involveds);
+        expense.setAmountOwed(15);
+    }
+
+    @Test
+    void checkParticipantsRoundTrip() {
+        ParticipantList participants = new ParticipantList();
+        participants.add(ana);
+        participants.add(bob);
+        StatusEntity status = StatusEntity.ok(participants);
+
+        StatusV2 sent = StatusV2.of(status);
+
+        assertEquals(invitationCode, sent.invitationCode());
+        assertEquals(new ParticipantV2(bob.getId(), "Bob", "Smith", null, null), sent.participants().get(1));
+        assertNull(sent.expenses());
+        assertEquals(status, sent.toStatusEntity());
+    }
+
+    @Test
+    void checkExpensesReferParticipantsByIndex() {
+        ExpenseList expenses = new ExpenseList();
+        expenses.add(expense);
+
+        ExpensesV2 sent = StatusV2.of(StatusEntity.ok(expenses)).expenses();
+
+        assertEquals(List.of(ana.getId(), bob.getId()), sent.participants());
+        ExpenseV2 sentExpense = sent.expenses().get(0);
+        assertEquals(0, sentExpense.paidBy());
+        assertEquals(0, sentExpense.involveds().get(0).participant());
+        assertEquals(1, sentExpense.involveds().get(1).participant());
+    }
+
+    @Test
+    void checkExpensesRoundTrip() {
+        ExpenseList expenses = new ExpenseList();
+        expenses.add(expense);
+        StatusEntity status = StatusEntity.ok(expenses);
+
+        StatusEntity received = StatusV2.of(status).toStatusEntity();
+
+        assertEquals(status, received);
+        assertEquals(15, received.getExpenseList().get(0).getAmountOwed());
+    }
+
+    @Test
+    void checkMessageRoundTrip() {
+        StatusEntity status = StatusEntity.notFound(true, "Event with provided Invitation code does not exist");
+
+        StatusV2 sent = StatusV2.of(status);
+
+        assertNull(sent.invitationCode());
+        assertEquals(status, sent.toStatusEntity());
+    }
+}
@@ -0,0 +1,52 @@
+package loadgen;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the broadcasts the changes of the virtual users cause, to measure how long they take
+ * to reach every session joined to the event. A change is identified by a token it carries,
+ * e.g. the title of an expense, and is forgotten once all sessions of the event received it.
+ */
+public class BroadcastTracker {
+
+    private final Map<String, Expected> expected = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a change before it is sent
+     * @param token the token the broadcast of the change carries
+     * @param receivers the number of sessions that receive the broadcast
+     * @param sentAt System.nanoTime() at which the change is sent
+     */
+    public void expect(String token, int receivers, long sentAt) {
+        expected.put(token, new Expected(sentAt, new AtomicInteger(receivers)));
+    }
+
+    /**
+     * Records that a session received the broadcast of a change
+     * @param token the token the broadcast carries
+     * @param receivedAt System.nanoTime() at which the broadcast was received
+     * @return the time from sending the change to receiving the broadcast in nanoseconds,
+     *         or -1 if the change is not tracked, e.g. because another tool made it
+     */
+    public long received(String token, long receivedAt) {
+        Expected change = expected.get(token);
+        if (change == null)
+            return -1;
+        if (change.remaining().decrementAndGet() <= 0)
+            expected.remove(token, change);
+        return receivedAt - change.sentAt();
+    }
+
+    /**
+     * Getter for the number of changes some session has not received the broadcast of yet
+     * @return the number of changes
+     */
+    public int getPendingCount() {
+        return expected.size();
+    }
+
+    private record Expected(long sentAt, AtomicInteger remaining) {
+    }
+}
@@ -0,0 +1,56 @@
+package loadgen;
+
+import java.util.Arrays;
+
+/**
+ * Latencies recorded for one kind of request or broadcast, in nanoseconds.
+ * Every value is kept, so the percentiles are exact; recording is thread safe.
+ */
+public class LatencyStats {
+
+    private long[] values = new long[1024];
+    private int count;
+
+    /**
+     * Records a latency
+     * @param nanos the latency in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        if (count == values.length)
+            values = Arrays.copyOf(values, count * 2);
+        values[count++] = nanos;
+    }
+
+    /**
+     * Getter for the number of recorded latencies
+     * @return the number of latencies
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Computes a percentile of the recorded latencies, by the nearest rank
+     * @param percentile the percentile, between 0 and 100
+     * @return the latency in milliseconds, 0 if nothing was recorded
+     */
+    public synchronized double percentileMillis(double percentile) {
+        if (count == 0)
+            return 0;
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100 * count);
+        return sorted[Math.max(rank, 1) - 1] / 1e6;
+    }
+
+    /**
+     * Computes the highest recorded latency
+     * @return the latency in milliseconds, 0 if nothing was recorded
+     */
+    public synchronized double maxMillis() {
+        long max = 0;
+        for (int index = 0; index < count; index++)
+            max = Math.max(max, values[index]);
+        return max / 1e6;
+    }
+}
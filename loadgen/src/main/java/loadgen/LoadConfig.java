@@ -0,0 +1,113 @@
+package loadgen;
+
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Settings of a load run, read from --name=value arguments.
+ *
+ * @param host host and port of the server, e.g. localhost:8080
+ * @param sessions number of STOMP sessions, every session is one virtual user
+ * @param events number of events the sessions are spread over
+ * @param participants number of participants created in every event before the sessions join it
+ * @param durationSeconds how long the mix of changes runs, warmup included
+ * @param warmupSeconds how long the mix runs before latencies are recorded
+ * @param thinkTimeMillis pause of a virtual user after every answer
+ * @param timeoutMillis how long a virtual user waits for an answer before it gives up
+ * @param mix relative weights of the changes in the mix
+ * @param report file the JSON report is written to
+ * @param maxP99Millis the run fails if the p99 latency of a change is higher, 0 to not check it
+ */
+public record LoadConfig(String host, int sessions, int events, int participants, int durationSeconds,
+                         int warmupSeconds, int thinkTimeMillis, int timeoutMillis, Map<Operation, Integer> mix,
+                         Path report, double maxP99Millis) {
+
+    /**
+     * Reads the settings from the arguments, every setting that is not given has a default
+     * @param args arguments of the form --name=value, e.g. --sessions=200 or
+     *             --mix=expense:create=4,expense:update=3,expense:delete=1,participant:create=1,involved:update=2
+     * @return the settings
+     * @throws IllegalArgumentException if an argument is malformed or unknown, or the settings are inconsistent
+     */
+    public static LoadConfig parse(String... args) throws IllegalArgumentException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0)
+                throw new IllegalArgumentException("Arguments have the form --name=value: " + arg);
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        LoadConfig config = new LoadConfig(stringOption(options, "host", "localhost:8080"),
+                intOption(options, "sessions", 50),
+                intOption(options, "events", 5),
+                intOption(options, "participants", 5),
+                intOption(options, "duration", 60),
+                intOption(options, "warmup", 10),
+                intOption(options, "think-time", 100),
+                intOption(options, "timeout", 5000),
+                parseMix(stringOption(options, "mix",
+                        "participant:create=1,expense:create=4,expense:update=3,expense:delete=1,involved:update=2")),
+                Path.of(stringOption(options, "report", "build/loadgen/report.json")),
+                Double.parseDouble(stringOption(options, "max-p99", "0")));
+        if (!options.isEmpty())
+            throw new IllegalArgumentException("Unknown options " + options.keySet());
+        config.validate();
+        return config;
+    }
+
+    private static String stringOption(Map<String, String> options, String name, String defaultValue) {
+        String value = options.remove(name);
+        return value == null ? defaultValue : value;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        return Integer.parseInt(stringOption(options, name, Integer.toString(defaultValue)));
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            int separator = entry.lastIndexOf('=');
+            if (separator < 0)
+                throw new IllegalArgumentException("Mix entries have the form operation=weight: " + entry);
+            Operation operation = Operation.byLabel(entry.substring(0, separator).trim());
+            if (!operation.isChange())
+                throw new IllegalArgumentException("Only changes can be part of the mix: " + entry);
+            weights.put(operation, Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+        return weights;
+    }
+
+    private void validate() throws IllegalArgumentException {
+        if (events < 1 || sessions < events)
+            throw new IllegalArgumentException("Every event needs at least one session");
+        if (participants < 2)
+            throw new IllegalArgumentException("Expenses involve two participants, at least two are needed");
+        if (warmupSeconds < 0 || durationSeconds <= warmupSeconds)
+            throw new IllegalArgumentException("The duration should be longer than the warmup");
+        if (mix.values().stream().anyMatch(weight -> weight < 0) || totalWeight() == 0)
+            throw new IllegalArgumentException("The weights of the mix should be positive");
+    }
+
+    private int totalWeight() {
+        return mix.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    /**
+     * Picks the next change of a virtual user, with the probability of its weight in the mix
+     * @param random the random generator of the virtual user
+     * @return the change
+     */
+    public Operation pickChange(Random random) {
+        int pick = random.nextInt(totalWeight());
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            pick -= entry.getValue();
+            if (pick < 0)
+                return entry.getKey();
+        }
+        throw new IllegalStateException("The weights of the mix do not add up");
+    }
+}
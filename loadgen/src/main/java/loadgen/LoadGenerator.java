@@ -0,0 +1,162 @@
+package loadgen;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.Event;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a load test against a server: creates the events over REST, opens the sessions,
+ * creates the participants of every event, lets all sessions join their event,
+ * runs the mix of changes for the configured duration and reports the latencies.
+ */
+public class LoadGenerator {
+
+    private static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+
+    private final LoadConfig config;
+    private final ObjectMapper objectMapper;
+    private final LoadReport report = new LoadReport();
+    private final BroadcastTracker tracker = new BroadcastTracker();
+
+    /**
+     * Constructor for LoadGenerator
+     * @param config the settings of the run
+     */
+    public LoadGenerator(LoadConfig config) {
+        this.config = config;
+        this.objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Runs the load test, prints the report and writes it as JSON
+     * @return true if the run passes the gate, i.e. every request was answered in time
+     *         and the p99 latencies are within the configured limit
+     * @throws IOException if the events could not be created or the report could not be written
+     * @throws InterruptedException if interrupted while running
+     */
+    public boolean run() throws IOException, InterruptedException {
+        List<UUID> events = createEvents();
+        List<VirtualUser> users = new ArrayList<>();
+        for (int session = 0; session < config.sessions(); session++) {
+            int event = session % events.size();
+            users.add(new VirtualUser(session, events.get(event), receivers(event), config, report, tracker));
+        }
+
+        WebSocketStompClient client = stompClient();
+        forAll(users, user -> user.connect(client));
+        forAll(users.subList(0, events.size()), user -> user.seedParticipants(config.participants()));
+        forAll(users, VirtualUser::join);
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(config.durationSeconds());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (VirtualUser user : users)
+                executor.submit(() -> runUser(user, deadline));
+            Thread.sleep(TimeUnit.SECONDS.toMillis(config.warmupSeconds()));
+            report.startRecording();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9 - config.warmupSeconds();
+        // the last broadcasts may still be underway
+        Thread.sleep(Math.min(config.timeoutMillis(), 1000));
+        report.stopRecording();
+        users.forEach(VirtualUser::disconnect);
+        client.stop();
+
+        return report(seconds);
+    }
+
+    private boolean report(double seconds) throws IOException {
+        report.print(System.out, seconds);
+        Files.createDirectories(config.report().toAbsolutePath().getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(config.report().toFile(), report.summary(seconds));
+        System.out.println("Report written to " + config.report().toAbsolutePath());
+        List<String> violations = report.violations(config.maxP99Millis());
+        violations.forEach(violation -> System.out.println("FAILED: " + violation));
+        return violations.isEmpty();
+    }
+
+    private int receivers(int event) {
+        return config.sessions() / config.events() + (event < config.sessions() % config.events() ? 1 : 0);
+    }
+
+    private List<UUID> createEvents() throws IOException, InterruptedException {
+        HttpClient http = HttpClient.newHttpClient();
+        List<UUID> events = new ArrayList<>();
+        for (int created = 0; created < config.events(); created++) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://" + config.host() + "/events"))
+                    .header("Content-Type", "text/plain")
+                    .POST(HttpRequest.BodyPublishers.ofString("load " + created))
+                    .build();
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200)
+                throw new IOException("Creating an event failed with status " + response.statusCode());
+            events.add(objectMapper.readValue(response.body(), Event.class).getId());
+        }
+        return events;
+    }
+
+    private WebSocketStompClient stompClient() {
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+        converter.setObjectMapper(objectMapper);
+        client.setMessageConverter(converter);
+        // expenses:read answers of large events are far larger than the default limit of 64 KB
+        client.setInboundMessageSizeLimit(MAX_FRAME_SIZE);
+        return client;
+    }
+
+    private void runUser(VirtualUser user, long deadline) {
+        try {
+            user.run(deadline);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs a step for all users that did not fail yet, each on a virtual thread of its own,
+     * and waits until all are done
+     */
+    private void forAll(List<VirtualUser> users, Step step) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (VirtualUser user : users) {
+                if (!user.isFailed())
+                    executor.submit(() -> runStep(user, step));
+            }
+        }
+    }
+
+    private void runStep(VirtualUser user, Step step) {
+        try {
+            step.run(user);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Session failed: " + e);
+            report.recordFailure();
+            user.fail();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void run(VirtualUser user) throws Exception;
+    }
+}
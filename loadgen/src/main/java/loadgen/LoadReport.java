@@ -0,0 +1,170 @@
+package loadgen;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Results of a load run: the latency from sending a request to receiving its answer, by operation,
+ * the lag from sending a change to receiving its broadcast in every session of the event,
+ * the answers that were not OK, and the requests that were never answered.
+ * Latencies are only recorded once the warmup is over.
+ */
+public class LoadReport {
+
+    private final Map<Operation, LatencyStats> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, AtomicLong> rejected = new EnumMap<>(Operation.class);
+    private final LatencyStats broadcastLag = new LatencyStats();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile boolean recording;
+
+    /**
+     * Constructor for LoadReport
+     */
+    public LoadReport() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyStats());
+            rejected.put(operation, new AtomicLong());
+        }
+    }
+
+    /**
+     * Starts recording latencies, at the end of the warmup
+     */
+    public void startRecording() {
+        recording = true;
+    }
+
+    /**
+     * Stops recording latencies, at the end of the run
+     */
+    public void stopRecording() {
+        recording = false;
+    }
+
+    /**
+     * Records the answer to a request
+     * @param operation the operation of the request
+     * @param nanos time from sending the request to receiving the answer
+     * @param ok whether the answer had the OK status
+     */
+    public void recordAnswer(Operation operation, long nanos, boolean ok) {
+        if (!recording)
+            return;
+        latencies.get(operation).record(nanos);
+        if (!ok)
+            rejected.get(operation).incrementAndGet();
+    }
+
+    /**
+     * Records the broadcast of a change received by a session
+     * @param nanos time from sending the change to receiving the broadcast
+     */
+    public void recordBroadcast(long nanos) {
+        if (recording)
+            broadcastLag.record(nanos);
+    }
+
+    /**
+     * Records a request that was not answered in time, also during the warmup
+     */
+    public void recordTimeout() {
+        timeouts.incrementAndGet();
+    }
+
+    /**
+     * Records a session that could not connect or lost its connection, also during the warmup
+     */
+    public void recordFailure() {
+        failures.incrementAndGet();
+    }
+
+    /**
+     * Summarizes the run
+     * @param seconds length of the measured part of the run, the throughput is computed over it
+     * @return the summary, by operation and for the broadcasts, as it is written to the JSON report
+     */
+    public Map<String, Object> summary(double seconds) {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        long changes = 0;
+        for (Operation operation : Operation.values()) {
+            LatencyStats stats = latencies.get(operation);
+            if (stats.getCount() == 0)
+                continue;
+            Map<String, Object> summary = summary(stats, seconds);
+            summary.put("rejected", rejected.get(operation).get());
+            operations.put(operation.getLabel(), summary);
+            if (operation.isChange())
+                changes += stats.getCount();
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("seconds", seconds);
+        summary.put("changesPerSecond", changes / seconds);
+        summary.put("timeouts", timeouts.get());
+        summary.put("failures", failures.get());
+        summary.put("operations", operations);
+        summary.put("broadcasts", summary(broadcastLag, seconds));
+        return summary;
+    }
+
+    private static Map<String, Object> summary(LatencyStats stats, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", stats.getCount());
+        summary.put("perSecond", stats.getCount() / seconds);
+        summary.put("p50", stats.percentileMillis(50));
+        summary.put("p95", stats.percentileMillis(95));
+        summary.put("p99", stats.percentileMillis(99));
+        summary.put("max", stats.maxMillis());
+        return summary;
+    }
+
+    /**
+     * Prints the latencies and throughput as a table
+     * @param out the stream to print to
+     * @param seconds length of the measured part of the run
+     */
+    public void print(PrintStream out, double seconds) {
+        out.printf(Locale.ROOT, "%-20s %8s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "rejected", "per second", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Operation operation : Operation.values()) {
+            LatencyStats stats = latencies.get(operation);
+            if (stats.getCount() > 0)
+                printRow(out, operation.getLabel(), stats, rejected.get(operation).get(), seconds);
+        }
+        printRow(out, "broadcast lag", broadcastLag, 0, seconds);
+        out.printf(Locale.ROOT, "timeouts: %d, failed sessions: %d%n", timeouts.get(), failures.get());
+    }
+
+    private static void printRow(PrintStream out, String label, LatencyStats stats, long rejected, double seconds) {
+        out.printf(Locale.ROOT, "%-20s %8d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n", label, stats.getCount(),
+                rejected, stats.getCount() / seconds, stats.percentileMillis(50), stats.percentileMillis(95),
+                stats.percentileMillis(99), stats.maxMillis());
+    }
+
+    /**
+     * Checks the run against the release gate: every request answered, every session connected
+     * and, if a limit is set, the p99 latency of every change within it
+     * @param maxP99Millis the limit of the p99 latencies in milliseconds, 0 for no limit
+     * @return the reasons the run fails the gate, empty if it passes
+     */
+    public List<String> violations(double maxP99Millis) {
+        List<String> violations = new ArrayList<>();
+        if (timeouts.get() > 0)
+            violations.add(timeouts.get() + " requests were not answered in time");
+        if (failures.get() > 0)
+            violations.add(failures.get() + " sessions failed");
+        for (Operation operation : Operation.values()) {
+            double p99 = latencies.get(operation).percentileMillis(99);
+            if (maxP99Millis > 0 && operation.isChange() && p99 > maxP99Millis)
+                violations.add(String.format(Locale.ROOT, "p99 of %s is %.2f ms, more than %.2f ms",
+                        operation.getLabel(), p99, maxP99Millis));
+        }
+        return violations;
+    }
+}
@@ -0,0 +1,25 @@
+package loadgen;
+
+/**
+ * Entry point of the load generator, see LoadConfig for the arguments.
+ * Exits with 0 if the run passes the gate, 1 if it does not and 2 if the arguments are wrong.
+ */
+public class Main {
+
+    /**
+     * Runs the load generator
+     * @param args the settings, e.g. --sessions=200 --events=20 --duration=60 --max-p99=250
+     * @throws Exception if the run could not be completed
+     */
+    public static void main(String[] args) throws Exception {
+        LoadConfig config;
+        try {
+            config = LoadConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        System.exit(new LoadGenerator(config).run() ? 0 : 1);
+    }
+}
@@ -0,0 +1,70 @@
+package loadgen;
+
+/**
+ * Requests the virtual users send, with the destination they are sent to and the queue they are answered on.
+ * The reads are sent once per user when it joins its event, the changes make up the mix that follows.
+ */
+public enum Operation {
+    EVENT_READ("event:read", "/user/queue/event:read"),
+    PARTICIPANTS_READ("participants:read", "/user/queue/participants:read"),
+    EXPENSES_READ("expenses:read", "/user/queue/expenses:read"),
+    PARTICIPANT_CREATE("participant:create", "/user/queue/reply"),
+    EXPENSE_CREATE("expense:create", "/user/queue/reply"),
+    EXPENSE_UPDATE("expense:update", "/user/queue/reply"),
+    EXPENSE_DELETE("expense:delete", "/user/queue/reply"),
+    INVOLVED_UPDATE("involved:update", "/user/queue/reply");
+
+    private final String label;
+    private final String replyQueue;
+
+    Operation(String label, String replyQueue) {
+        this.label = label;
+        this.replyQueue = replyQueue;
+    }
+
+    /**
+     * Getter for the label of the operation, as used in the configuration and the report
+     * @return the label, e.g. expense:create
+     */
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Getter for the destination the request is sent to
+     * @return the destination, e.g. /app/expense:create
+     */
+    public String getDestination() {
+        return "/app/" + label;
+    }
+
+    /**
+     * Getter for the queue the answer of the request is sent to
+     * @return the queue, e.g. /user/queue/reply
+     */
+    public String getReplyQueue() {
+        return replyQueue;
+    }
+
+    /**
+     * Checks whether the operation changes the event, so it is part of the mix
+     * @return true for the changes, false for the reads
+     */
+    public boolean isChange() {
+        return replyQueue.equals("/user/queue/reply");
+    }
+
+    /**
+     * Finds the operation with a label
+     * @param label the label, e.g. expense:create
+     * @return the operation
+     * @throws IllegalArgumentException if no operation has the label
+     */
+    public static Operation byLabel(String label) throws IllegalArgumentException {
+        for (Operation operation : values()) {
+            if (operation.label.equals(label))
+                return operation;
+        }
+        throw new IllegalArgumentException("Unknown operation " + label);
+    }
+}
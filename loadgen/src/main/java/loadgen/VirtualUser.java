@@ -0,0 +1,343 @@
+package loadgen;
+
+import commons.Expense;
+import commons.Involved;
+import commons.InvolvedList;
+import commons.Participant;
+import commons.StatusEntity;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * One STOMP session acting like a client joined to an event. It joins the way the client used to,
+ * with event:read, participants:read and expenses:read, keeps the participants and expenses of the event
+ * up to date from the broadcasts, and then sends changes from the mix until the run is over.
+ * It waits for the answer to every request before it sends the next one, so the answers need no correlation.
+ * Every change carries a token, e.g. the title of an expense, by which its broadcast is recognized.
+ */
+public class VirtualUser extends StompSessionHandlerAdapter {
+
+    private final int index;
+    private final UUID invitationCode;
+    private final int receivers;
+    private final LoadConfig config;
+    private final LoadReport report;
+    private final BroadcastTracker tracker;
+    private final Random random;
+    private final CopyOnWriteArrayList<UUID> participantIds = new CopyOnWriteArrayList<>();
+    private final Map<UUID, Expense> expenses = new ConcurrentHashMap<>();
+    private final AtomicReference<CompletableFuture<StatusEntity>> pending = new AtomicReference<>();
+    private StompSession session;
+    private long sequence;
+    private volatile boolean failed;
+
+    /**
+     * Constructor for VirtualUser
+     * @param index number of the user, part of the tokens of its changes
+     * @param invitationCode the event the user joins
+     * @param receivers number of sessions joined to the event, which all receive the broadcasts of its changes
+     * @param config the settings of the run
+     * @param report the report the latencies are recorded in
+     * @param tracker the tracker of the broadcasts of all users
+     */
+    public VirtualUser(int index, UUID invitationCode, int receivers, LoadConfig config, LoadReport report,
+                       BroadcastTracker tracker) {
+        this.index = index;
+        this.invitationCode = invitationCode;
+        this.receivers = receivers;
+        this.config = config;
+        this.report = report;
+        this.tracker = tracker;
+        this.random = new Random(index);
+    }
+
+    /**
+     * Opens the session and subscribes to the queues of the answers
+     * @param client the STOMP client
+     * @throws ExecutionException if the session could not be opened
+     * @throws InterruptedException if interrupted while connecting
+     * @throws TimeoutException if the session was not opened in time
+     */
+    public void connect(WebSocketStompClient client) throws ExecutionException, InterruptedException,
+            TimeoutException {
+        session = client.connectAsync("ws://" + config.host() + "/v1", this)
+                .get(config.timeoutMillis(), TimeUnit.MILLISECONDS);
+        Set<String> replyQueues = new HashSet<>();
+        for (Operation operation : Operation.values())
+            replyQueues.add(operation.getReplyQueue());
+        for (String replyQueue : replyQueues)
+            session.subscribe(replyQueue, handler(StatusEntity.class, this::answered));
+    }
+
+    /**
+     * Creates participants in the event, before any user joins it
+     * @param count number of participants to create
+     * @throws InterruptedException if interrupted while waiting for an answer
+     */
+    public void seedParticipants(int count) throws InterruptedException {
+        for (int seeded = 0; seeded < count && !failed; seeded++)
+            request(Operation.PARTICIPANT_CREATE, new Participant(null, "seed" + seeded, "load", null, null,
+                    invitationCode), null);
+    }
+
+    /**
+     * Subscribes to the topics of the event and reads the event, its participants and its expenses
+     * @throws InterruptedException if interrupted while waiting for an answer
+     */
+    public void join() throws InterruptedException {
+        String topic = "/topic/" + invitationCode + "/";
+        session.subscribe(topic + "participant:create", handler(Participant.class, this::participantCreated));
+        session.subscribe(topic + "expense:create", handler(Expense.class, this::expenseSaved));
+        session.subscribe(topic + "expense:update", handler(Expense.class, this::expenseSaved));
+        session.subscribe(topic + "expense:delete", handler(Expense.class, this::expenseDeleted));
+        session.subscribe(topic + "involved:update", handler(InvolvedList.class, this::involvedsUpdated));
+
+        request(Operation.EVENT_READ, invitationCode, null);
+        StatusEntity participants = request(Operation.PARTICIPANTS_READ, invitationCode, null);
+        if (participants != null && participants.getParticipantList() != null) {
+            for (Participant participant : participants.getParticipantList())
+                participantIds.addIfAbsent(participant.getId());
+        }
+        StatusEntity read = request(Operation.EXPENSES_READ, invitationCode, null);
+        if (read != null && read.getExpenseList() != null) {
+            for (Expense expense : read.getExpenseList())
+                expenses.putIfAbsent(expense.getId(), expense);
+        }
+    }
+
+    /**
+     * Sends changes from the mix, pausing for the think time after every answer
+     * @param deadline System.nanoTime() at which the run ends
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void run(long deadline) throws InterruptedException {
+        while (!failed && System.nanoTime() < deadline) {
+            perform(config.pickChange(random));
+            if (config.thinkTimeMillis() > 0)
+                Thread.sleep(config.thinkTimeMillis());
+        }
+    }
+
+    /**
+     * Closes the session
+     */
+    public void disconnect() {
+        if (session != null && session.isConnected())
+            session.disconnect();
+    }
+
+    /**
+     * Checks whether the session failed or a request of it was not answered in time
+     * @return true if the user stopped sending requests
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Marks the user as failed, e.g. when it could not connect
+     */
+    public void fail() {
+        failed = true;
+    }
+
+    private void perform(Operation operation) throws InterruptedException {
+        Expense expense = randomExpense();
+        if (operation == Operation.PARTICIPANT_CREATE)
+            createParticipant();
+        else if (expense == null || operation == Operation.EXPENSE_CREATE)
+            createExpense();
+        else if (operation == Operation.EXPENSE_UPDATE)
+            updateExpense(expense);
+        else if (operation == Operation.EXPENSE_DELETE)
+            deleteExpense(expense);
+        else
+            updateInvolved(expense);
+    }
+
+    private void createParticipant() throws InterruptedException {
+        String token = nextToken();
+        request(Operation.PARTICIPANT_CREATE, new Participant(null, token, "load", null, null, invitationCode),
+                token);
+    }
+
+    private void createExpense() throws InterruptedException {
+        int first = random.nextInt(participantIds.size());
+        int second = (first + 1 + random.nextInt(participantIds.size() - 1)) % participantIds.size();
+        InvolvedList involveds = new InvolvedList();
+        involveds.add(new Involved(null, false, null, participantIds.get(first), invitationCode));
+        involveds.add(new Involved(null, false, null, participantIds.get(second), invitationCode));
+        String token = nextToken();
+        request(Operation.EXPENSE_CREATE, new Expense(null, token, 1 + random.nextInt(10000) / 100.0,
+                participantIds.get(first), invitationCode, LocalDate.now(), involveds), token);
+    }
+
+    private void updateExpense(Expense expense) throws InterruptedException {
+        String token = nextToken();
+        request(Operation.EXPENSE_UPDATE, new Expense(expense.getId(), token, expense.getAmount(),
+                expense.getPaidById(), invitationCode, expense.getDate(), expense.getInvolveds()), token);
+    }
+
+    private void deleteExpense(Expense expense) throws InterruptedException {
+        expenses.remove(expense.getId());
+        request(Operation.EXPENSE_DELETE, expense, "delete:" + expense.getId());
+    }
+
+    private void updateInvolved(Expense expense) throws InterruptedException {
+        Involved involved = expense.getInvolveds().getFirst();
+        List<Involved> update = List.of(new Involved(involved.getId(), !involved.getIsSettled(), expense.getId(),
+                involved.getParticipantId(), invitationCode));
+        request(Operation.INVOLVED_UPDATE, update, "involved:" + involved.getId());
+    }
+
+    private Expense randomExpense() {
+        Object[] ids = expenses.keySet().toArray();
+        if (ids.length == 0)
+            return null;
+        Expense expense = expenses.get((UUID) ids[random.nextInt(ids.length)]);
+        return expense == null || expense.getInvolveds() == null || expense.getInvolveds().isEmpty()
+                ? null : expense;
+    }
+
+    private String nextToken() {
+        return "load-" + index + "-" + ++sequence;
+    }
+
+    /**
+     * Sends a request and waits for its answer. A request that is not answered in time ends the user,
+     * since a late answer could not be told apart from the answer to its next request.
+     *
+     * @return the answer, or null if there was none
+     */
+    private StatusEntity request(Operation operation, Object payload, String token) throws InterruptedException {
+        CompletableFuture<StatusEntity> answer = new CompletableFuture<>();
+        pending.set(answer);
+        long start = System.nanoTime();
+        if (token != null)
+            tracker.expect(token, receivers, start);
+        session.send(operation.getDestination(), payload);
+        try {
+            StatusEntity status = answer.get(config.timeoutMillis(), TimeUnit.MILLISECONDS);
+            report.recordAnswer(operation, System.nanoTime() - start,
+                    status.getStatusCode() == StatusEntity.StatusCode.OK);
+            return status;
+        } catch (TimeoutException e) {
+            report.recordTimeout();
+        } catch (ExecutionException e) {
+            // the session failed, which was recorded already
+        }
+        failed = true;
+        return null;
+    }
+
+    private void answered(StatusEntity status) {
+        CompletableFuture<StatusEntity> answer = pending.getAndSet(null);
+        if (answer != null)
+            answer.complete(status);
+    }
+
+    private void participantCreated(Participant participant) {
+        participantIds.addIfAbsent(participant.getId());
+        broadcastReceived(participant.getFirstName());
+    }
+
+    private void expenseSaved(Expense expense) {
+        expenses.put(expense.getId(), expense);
+        broadcastReceived(expense.getTitle());
+    }
+
+    private void expenseDeleted(Expense expense) {
+        expenses.remove(expense.getId());
+        broadcastReceived("delete:" + expense.getId());
+    }
+
+    private void involvedsUpdated(InvolvedList involveds) {
+        for (Involved update : involveds) {
+            Expense expense = expenses.get(update.getExpenseId());
+            if (expense == null || expense.getInvolveds() == null)
+                continue;
+            for (Involved involved : expense.getInvolveds()) {
+                if (involved.getId().equals(update.getId()))
+                    involved.setIsSettled(update.getIsSettled());
+            }
+        }
+        if (!involveds.isEmpty())
+            broadcastReceived("involved:" + involveds.getFirst().getId());
+    }
+
+    private void broadcastReceived(String token) {
+        long lag = tracker.received(token, System.nanoTime());
+        if (lag >= 0)
+            report.recordBroadcast(lag);
+    }
+
+    private <T> StompFrameHandler handler(Class<T> payloadType, Consumer<T> consumer) {
+        return new StompFrameHandler() {
+            @Override
+            @NonNull
+            public Type getPayloadType(@NonNull StompHeaders headers) {
+                return payloadType;
+            }
+
+            @Override
+            public void handleFrame(@NonNull StompHeaders headers, Object payload) {
+                consumer.accept(payloadType.cast(payload));
+            }
+        };
+    }
+
+    /**
+     * Ends the user when its connection fails, the request it waits for is not answered
+     * @param session the session
+     * @param exception the failure
+     */
+    @Override
+    public void handleTransportError(@NonNull StompSession session, @NonNull Throwable exception) {
+        fail(exception);
+    }
+
+    /**
+     * Ends the user when a frame cannot be handled, e.g. because its payload cannot be read
+     * @param session the session
+     * @param command the command of the frame
+     * @param headers the headers of the frame
+     * @param payload the payload of the frame
+     * @param exception the failure
+     */
+    @Override
+    public void handleException(@NonNull StompSession session, StompCommand command, @NonNull StompHeaders headers,
+                                @NonNull byte[] payload, @NonNull Throwable exception) {
+        fail(exception);
+    }
+
+    private void fail(Throwable exception) {
+        if (!failed)
+            report.recordFailure();
+        failed = true;
+        CompletableFuture<StatusEntity> answer = pending.getAndSet(null);
+        if (answer != null)
+            answer.completeExceptionally(exception);
+    }
+}
@@ -0,0 +1,20 @@
+package loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BroadcastTrackerTest {
+
+    @Test
+    public void testChangeIsForgottenOnceEverySessionReceivedIt() {
+        BroadcastTracker tracker = new BroadcastTracker();
+        tracker.expect("token", 2, 100);
+
+        assertEquals(50, tracker.received("token", 150));
+        assertEquals(1, tracker.getPendingCount());
+        assertEquals(80, tracker.received("token", 180));
+        assertEquals(0, tracker.getPendingCount());
+        assertEquals(-1, tracker.received("token", 200));
+    }
+}
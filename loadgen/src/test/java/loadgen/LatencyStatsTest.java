@@ -0,0 +1,29 @@
+package loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class LatencyStatsTest {
+
+    @Test
+    public void testPercentiles() {
+        LatencyStats stats = new LatencyStats();
+        for (int i = 100; i >= 1; i--)
+            stats.record(i * 1_000_000L);
+
+        assertEquals(100, stats.getCount());
+        assertEquals(50, stats.percentileMillis(50));
+        assertEquals(95, stats.percentileMillis(95));
+        assertEquals(99, stats.percentileMillis(99));
+        assertEquals(100, stats.maxMillis());
+    }
+
+    @Test
+    public void testEmpty() {
+        LatencyStats stats = new LatencyStats();
+
+        assertEquals(0, stats.percentileMillis(99));
+        assertEquals(0, stats.maxMillis());
+    }
+}
@@ -0,0 +1,57 @@
+package loadgen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LoadConfigTest {
+
+    @Test
+    public void testDefaults() {
+        LoadConfig config = LoadConfig.parse();
+
+        assertEquals("localhost:8080", config.host());
+        assertEquals(50, config.sessions());
+        assertEquals(4, config.mix().get(Operation.EXPENSE_CREATE));
+        assertEquals(0, config.maxP99Millis());
+    }
+
+    @Test
+    public void testOptions() {
+        LoadConfig config = LoadConfig.parse("--sessions=200", "--events=20", "--duration=30",
+                "--mix=expense:create=1", "--max-p99=250");
+
+        assertEquals(200, config.sessions());
+        assertEquals(20, config.events());
+        assertEquals(30, config.durationSeconds());
+        assertEquals(Map.of(Operation.EXPENSE_CREATE, 1), config.mix());
+        assertEquals(250, config.maxP99Millis());
+        assertEquals(Operation.EXPENSE_CREATE, config.pickChange(new Random(1)));
+    }
+
+    @Test
+    public void testInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--unknown=1"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("sessions=1"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--sessions=2", "--events=3"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--mix=expenses:read=1"));
+        assertThrows(IllegalArgumentException.class, () -> LoadConfig.parse("--duration=10", "--warmup=10"));
+    }
+
+    @Test
+    public void testChangesArePickedByWeight() {
+        LoadConfig config = LoadConfig.parse("--mix=expense:create=3,expense:delete=1");
+        Random random = new Random(7);
+        int creates = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (config.pickChange(random) == Operation.EXPENSE_CREATE)
+                creates++;
+        }
+
+        assertEquals(0.75, creates / 10000.0, 0.02);
+    }
+}
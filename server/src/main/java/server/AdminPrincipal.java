@@ -0,0 +1,20 @@
+package server;
+
+import java.security.Principal;
+import java.time.Instant;
+
+/**
+ * Principal stored in the attributes of a STOMP session once it authenticated as admin
+ * @param authenticatedAt time the session authenticated
+ */
+public record AdminPrincipal(Instant authenticatedAt) implements Principal {
+
+    /**
+     * Getter for the name of the principal
+     * @return always "admin"
+     */
+    @Override
+    public String getName() {
+        return "admin";
+    }
+}
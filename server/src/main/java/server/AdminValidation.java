@@ -3,15 +3,37 @@ package server;
 import org.springframework.lang.NonNull;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.MessagingException;
-import org.springframework.messaging.simp.stomp.StompCommand;
-import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+
+import java.time.Instant;
+import java.util.Map;
 
 /**
- * Custom ChannelInterceptor for Admin topic subscription validation
+ * Custom ChannelInterceptor for admin authentication.
+ * A session authenticates once, with a correct passcode header on its CONNECT frame
+ * or on a frame sent to /app/admin:login, and an AdminPrincipal is stored in its session attributes.
+ * Subscriptions to /topic/admin and messages to /app/admin are then authorized by that attribute,
+ * all other frames are passed on without looking at their native headers.
  */
 public class AdminValidation implements ChannelInterceptor {
+    /**
+     * Session attribute holding the AdminPrincipal of an authenticated session
+     */
+    public static final String ADMIN_ATTRIBUTE = "splitty.admin";
+    /**
+     * Destination of the frames that authenticate a session
+     */
+    public static final String LOGIN_DESTINATION = "/app/admin:login";
+    /**
+     * Destination of the frames that end the admin mode of a session
+     */
+    public static final String LOGOUT_DESTINATION = "/app/admin:logout";
+
     private final PasswordService passwordService;
 
     /**
@@ -21,16 +43,57 @@ public class AdminValidation implements ChannelInterceptor {
     public AdminValidation(PasswordService passwordService) {
         this.passwordService = passwordService;
     }
+
+    /**
+     * Checks whether a session authenticated as admin
+     * @param headerAccessor headers of a message of the session
+     * @return true if the session is an admin session
+     */
+    public static boolean isAdmin(SimpMessageHeaderAccessor headerAccessor) {
+        return headerAccessor != null && isAdmin(headerAccessor.getSessionAttributes());
+    }
+
+    private static boolean isAdmin(Map<String, Object> sessionAttributes) {
+        return sessionAttributes != null && sessionAttributes.get(ADMIN_ATTRIBUTE) instanceof AdminPrincipal;
+    }
+
     @Override
     public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
-        StompHeaderAccessor headerAccessor = StompHeaderAccessor.wrap(message);
-        if (StompCommand.SUBSCRIBE.equals(headerAccessor.getCommand())
-                && headerAccessor.getDestination().startsWith("/topic/admin")
-                && !passwordService.getAdminPassword()
-                .equals(headerAccessor.getFirstNativeHeader("passcode"))) {
-            throw new
-                    MessagingException("This user tried to subscribe to an admin channel with an incorrect password.");
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        if (type == SimpMessageType.CONNECT) {
+            login(headers);
+            return message;
         }
-        return message;
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (destination == null || !isAdminDestination(destination))
+            return message;
+
+        Map<String, Object> sessionAttributes = SimpMessageHeaderAccessor.getSessionAttributes(headers);
+        if (LOGOUT_DESTINATION.equals(destination)) {
+            if (sessionAttributes != null)
+                sessionAttributes.remove(ADMIN_ATTRIBUTE);
+            return message;
+        }
+        if (isAdmin(sessionAttributes) || login(headers) || type != SimpMessageType.SUBSCRIBE)
+            return message;
+        throw new MessagingException("This user tried to subscribe to an admin channel with an incorrect password.");
+    }
+
+    private static boolean isAdminDestination(String destination) {
+        return destination.startsWith("/topic/admin") || destination.startsWith("/app/admin");
+    }
+
+    /**
+     * Authenticates the session of a frame, if the frame carries the admin password in its passcode header
+     * @return true if the session was authenticated
+     */
+    private boolean login(MessageHeaders headers) {
+        Map<String, Object> sessionAttributes = SimpMessageHeaderAccessor.getSessionAttributes(headers);
+        String passcode = NativeMessageHeaderAccessor.getFirstNativeHeader("passcode", headers);
+        if (sessionAttributes == null || !passwordService.isAdminPassword(passcode))
+            return false;
+        sessionAttributes.put(ADMIN_ATTRIBUTE, new AdminPrincipal(Instant.now()));
+        return true;
     }
 }
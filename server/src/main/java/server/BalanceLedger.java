@@ -0,0 +1,134 @@
+package server;
+
+import commons.EventBalances;
+import commons.Transfer;
+
+import java.util.*;
+
+/**
+ * In-memory net balances of a single event.
+ * Remembers the contribution of every expense, so that creating, updating or deleting an expense
+ * or settling a debt only touches the involveds of that expense.
+ */
+class BalanceLedger {
+    private static final double EPSILON = 0.005;
+
+    private final Map<UUID, ExpenseShare> expenses = new HashMap<>();
+    private final Map<UUID, Double> balances = new HashMap<>();
+
+    /**
+     * Adds an expense to the ledger, replacing its previous contribution if it was already known
+     * @param expenseId id of the expense
+     * @param paidById id of the participant who paid
+     * @param amount amount of the expense
+     * @param settledByParticipant whether each involved participant has settled their debt
+     */
+    synchronized void putExpense(UUID expenseId, UUID paidById, double amount,
+                                 Map<UUID, Boolean> settledByParticipant) {
+        removeExpense(expenseId);
+        if (settledByParticipant.isEmpty())
+            return;
+        ExpenseShare share = new ExpenseShare(paidById, amount / settledByParticipant.size(),
+                new HashMap<>(settledByParticipant));
+        expenses.put(expenseId, share);
+        share.settled().forEach((participantId, settled) -> {
+            if (!settled)
+                addDebt(share, participantId, 1);
+        });
+    }
+
+    /**
+     * Removes the contribution of an expense from the ledger
+     * @param expenseId id of the expense
+     */
+    synchronized void removeExpense(UUID expenseId) {
+        ExpenseShare share = expenses.remove(expenseId);
+        if (share == null)
+            return;
+        share.settled().forEach((participantId, settled) -> {
+            if (!settled)
+                addDebt(share, participantId, -1);
+        });
+    }
+
+    /**
+     * Marks a single debt of an expense as settled or unsettled
+     * @param expenseId id of the expense
+     * @param participantId id of the involved participant
+     * @param settled new settled state
+     */
+    synchronized void setSettled(UUID expenseId, UUID participantId, boolean settled) {
+        ExpenseShare share = expenses.get(expenseId);
+        if (share == null)
+            return;
+        Boolean previous = share.settled().put(participantId, settled);
+        if (previous == null || previous == settled)
+            return;
+        addDebt(share, participantId, settled ? -1 : 1);
+    }
+
+    private void addDebt(ExpenseShare share, UUID participantId, int sign) {
+        if (participantId.equals(share.paidById()))
+            return;
+        balances.merge(share.paidById(), sign * share.amountOwed(), Double::sum);
+        balances.merge(participantId, -sign * share.amountOwed(), Double::sum);
+    }
+
+    /**
+     * Builds the balances of the event and a set of transfers that settles them.
+     * Transfers are found greedily by matching the largest creditor with the largest debtor,
+     * which results in at most one transfer less than there are participants with open debts.
+     * @param invitationCode invitationCode of the event
+     * @return balances and transfers of the event
+     */
+    synchronized EventBalances snapshot(UUID invitationCode) {
+        Map<UUID, Double> rounded = new HashMap<>();
+        balances.forEach((participantId, balance) -> {
+            if (Math.abs(balance) >= EPSILON)
+                rounded.put(participantId, round(balance));
+        });
+        return new EventBalances(invitationCode, rounded, settleUp(rounded));
+    }
+
+    private static List<Transfer> settleUp(Map<UUID, Double> balances) {
+        PriorityQueue<Map.Entry<UUID, Double>> creditors =
+                new PriorityQueue<>((first, second) -> Double.compare(second.getValue(), first.getValue()));
+        PriorityQueue<Map.Entry<UUID, Double>> debtors =
+                new PriorityQueue<>(Comparator.comparingDouble(Map.Entry::getValue));
+        for (var entry : balances.entrySet()) {
+            if (entry.getValue() > 0)
+                creditors.add(new AbstractMap.SimpleEntry<>(entry));
+            else
+                debtors.add(new AbstractMap.SimpleEntry<>(entry));
+        }
+
+        List<Transfer> transfers = new ArrayList<>();
+        while (!creditors.isEmpty() && !debtors.isEmpty()) {
+            var creditor = creditors.poll();
+            var debtor = debtors.poll();
+            double amount = round(Math.min(creditor.getValue(), -debtor.getValue()));
+            if (amount >= EPSILON)
+                transfers.add(new Transfer(debtor.getKey(), creditor.getKey(), amount));
+            creditor.setValue(creditor.getValue() - amount);
+            debtor.setValue(debtor.getValue() + amount);
+            if (creditor.getValue() >= EPSILON)
+                creditors.add(creditor);
+            if (debtor.getValue() <= -EPSILON)
+                debtors.add(debtor);
+        }
+        return transfers;
+    }
+
+    private static double round(double value) {
+        return (double) Math.round(value * 100) / 100;
+    }
+
+    /**
+     * Contribution of a single expense to the balances of its event
+     * @param paidById id of the participant who paid
+     * @param amountOwed amount every involved participant owes
+     * @param settled settled state of every involved participant
+     */
+    private record ExpenseShare(UUID paidById, double amountOwed, Map<UUID, Boolean> settled) {
+    }
+}
@@ -0,0 +1,184 @@
+package server;
+
+import commons.EventBalances;
+import commons.Expense;
+import commons.Involved;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import server.database.InvolvedRepository;
+import server.database.InvolvedShare;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Service keeping the net balances and settle-up transfers of every active event up to date.
+ * The balances of an event are read from the database once, on first access, or from the EventAggregateStore
+ * if it keeps events in memory, and from then on only adjusted by the expenses and involveds that change.
+ * Every change is broadcast on /topic/{invitationCode}/balances.
+ * Inside a transaction changes are only applied after it commits, so a rollback does not leave the balances wrong.
+ */
+@Service
+public class BalanceService {
+
+    private final InvolvedRepository involvedRepository;
+    private final EventAggregateStore aggregates;
+    private final SimpMessagingTemplate template;
+    private final Map<UUID, BalanceLedger> ledgers;
+
+    /**
+     * Constructor for BalanceService
+     * @param involvedRepository the involved repository
+     * @param template the messaging template
+     * @param aggregates the store the balances are read from instead of the database, if it is enabled
+     * @param maxEvents number of events balances are kept for, the least recently used ones are evicted first
+     */
+    @Autowired
+    public BalanceService(InvolvedRepository involvedRepository, SimpMessagingTemplate template,
+                          EventAggregateStore aggregates,
+                          @Value("${splitty.balances.max-events:1000}") int maxEvents) {
+        this.involvedRepository = involvedRepository;
+        this.aggregates = aggregates;
+        this.template = template;
+        this.ledgers = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, BalanceLedger> eldest) {
+                return size() > maxEvents;
+            }
+        });
+    }
+
+    /**
+     * Returns the current balances of an event, reading them from the database if they are not known yet
+     * @param invitationCode the invitation code of the event
+     * @return balances and transfers of the event
+     */
+    public EventBalances getBalances(UUID invitationCode) {
+        return ledger(invitationCode).snapshot(invitationCode);
+    }
+
+    /**
+     * Updates the balances after an expense was created or updated
+     * @param invitationCode the invitation code of the event
+     * @param expense the saved expense, with the ids of its payer and involved participants
+     */
+    public void expenseSaved(UUID invitationCode, Expense expense) {
+        Map<UUID, Boolean> settledByParticipant = new HashMap<>();
+        for (Involved involved : expense.getInvolveds())
+            settledByParticipant.put(involved.getParticipantId(), involved.getIsSettled());
+        change(invitationCode, ledger -> ledger.putExpense(expense.getId(), expense.getPaidById(),
+                expense.getAmount(), settledByParticipant));
+    }
+
+    /**
+     * Updates the balances after an expense was deleted
+     * @param invitationCode the invitation code of the event
+     * @param expenseId id of the deleted expense
+     */
+    public void expenseDeleted(UUID invitationCode, UUID expenseId) {
+        change(invitationCode, ledger -> ledger.removeExpense(expenseId));
+    }
+
+    /**
+     * Updates the balances after debts were settled or unsettled
+     * @param invitationCode the invitation code of the event
+     * @param involveds the updated involveds, with the ids of their expense and participant
+     */
+    public void involvedsUpdated(UUID invitationCode, List<Involved> involveds) {
+        change(invitationCode, ledger -> {
+            for (Involved involved : involveds)
+                ledger.setSettled(involved.getExpenseId(), involved.getParticipantId(), involved.getIsSettled());
+        });
+    }
+
+    /**
+     * Forgets the balances of an event and reads them again from the database.
+     * Used when a change touches too many expenses to be applied incrementally, e.g. deleting a participant.
+     * @param invitationCode the invitation code of the event
+     */
+    public void reload(UUID invitationCode) {
+        afterCommit(() -> {
+            ledgers.remove(invitationCode);
+            apply(invitationCode, ledger -> { });
+        });
+    }
+
+    /**
+     * Forgets the balances of an event without broadcasting them, e.g. after the event was deleted
+     * @param invitationCode the invitation code of the event
+     */
+    public void evict(UUID invitationCode) {
+        afterCommit(() -> ledgers.remove(invitationCode));
+    }
+
+    private void change(UUID invitationCode, Consumer<BalanceLedger> update) {
+        afterCommit(() -> apply(invitationCode, update));
+    }
+
+    private void apply(UUID invitationCode, Consumer<BalanceLedger> update) {
+        // Ledger operations replace state instead of adding to it,
+        // so applying a change already contained in a freshly loaded ledger is harmless.
+        BalanceLedger ledger = ledger(invitationCode);
+        update.accept(ledger);
+        template.convertAndSend("/topic/" + invitationCode + "/balances", ledger.snapshot(invitationCode));
+    }
+
+    private BalanceLedger ledger(UUID invitationCode) {
+        BalanceLedger ledger = ledgers.get(invitationCode);
+        if (ledger != null)
+            return ledger;
+        // Loaded outside the map, so the query does not block other events; the first loaded ledger wins
+        BalanceLedger loaded = loadLedger(invitationCode);
+        BalanceLedger existing = ledgers.putIfAbsent(invitationCode, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private BalanceLedger loadLedger(UUID invitationCode) {
+        if (aggregates.isEnabled())
+            return loadLedgerFromMemory(invitationCode);
+        Map<UUID, List<InvolvedShare>> sharesByExpense = new HashMap<>();
+        for (InvolvedShare share : involvedRepository.findSharesByInvitationCode(invitationCode))
+            sharesByExpense.computeIfAbsent(share.getExpenseId(), key -> new ArrayList<>()).add(share);
+
+        BalanceLedger ledger = new BalanceLedger();
+        sharesByExpense.forEach((expenseId, shares) -> {
+            Map<UUID, Boolean> settledByParticipant = new HashMap<>();
+            for (InvolvedShare share : shares)
+                settledByParticipant.put(share.getParticipantId(), share.getSettled());
+            InvolvedShare first = shares.getFirst();
+            ledger.putExpense(expenseId, first.getPaidById(), first.getAmount(), settledByParticipant);
+        });
+        return ledger;
+    }
+
+    private BalanceLedger loadLedgerFromMemory(UUID invitationCode) {
+        BalanceLedger ledger = new BalanceLedger();
+        List<Expense> expenses = aggregates.readExpenses(invitationCode);
+        if (expenses == null)
+            return ledger;
+        for (Expense expense : expenses) {
+            Map<UUID, Boolean> settledByParticipant = new HashMap<>();
+            for (Involved involved : expense.getInvolveds())
+                settledByParticipant.put(involved.getParticipantId(), involved.getIsSettled());
+            ledger.putExpense(expense.getId(), expense.getPaidById(), expense.getAmount(), settledByParticipant);
+        }
+        return ledger;
+    }
+}
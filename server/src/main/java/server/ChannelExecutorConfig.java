@@ -0,0 +1,144 @@
+package server;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+
+import java.util.Map;
+
+/**
+ * Configuration of the executors of the STOMP channels: the inbound channel, which runs the
+ * message handlers of the controllers, the outbound channel, which writes to the sessions,
+ * and the broker channel. Every channel is set with splitty.stomp.{inbound,outbound,broker}.*
+ * properties. The executors are bounded pools of platform threads, unless splitty.stomp.virtual-threads=true:
+ * then every message runs on a new virtual thread, up to a concurrency limit per channel,
+ * so a handler blocked on the database does not hold on to a platform thread.
+ * Messages of a single session are handled in the order they were received and sent in the order
+ * they were published, unless splitty.stomp.preserve-order=false.
+ */
+@Configuration
+public class ChannelExecutorConfig implements WebSocketMessageBrokerConfigurer {
+
+    private static final String PREFIX = "splitty.stomp.";
+    private static final Map<String, String> CHANNEL_EXECUTOR_BEANS = Map.of(
+            "clientInboundChannelExecutor", "inbound",
+            "clientOutboundChannelExecutor", "outbound",
+            "brokerChannelExecutor", "broker");
+
+    private final Environment environment;
+    private final boolean virtualThreads;
+    private final boolean preserveOrder;
+
+    /**
+     * Constructor for ChannelExecutorConfig
+     * @param environment environment the executor settings are read from
+     */
+    @Autowired
+    public ChannelExecutorConfig(Environment environment) {
+        this.environment = environment;
+        this.virtualThreads = environment.getProperty(PREFIX + "virtual-threads", Boolean.class, false);
+        this.preserveOrder = environment.getProperty(PREFIX + "preserve-order", Boolean.class, true);
+    }
+
+    /**
+     * Replaces the executors of the STOMP channels by virtual thread executors if virtual threads are enabled.
+     * The channel registrations only accept thread pools, so the pools are swapped before they are initialized.
+     * @param environment environment the executor settings are read from
+     * @return the post processor
+     */
+    @Bean
+    public static BeanPostProcessor virtualThreadChannelExecutors(Environment environment) {
+        ChannelExecutorConfig config = new ChannelExecutorConfig(environment);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                String channel = CHANNEL_EXECUTOR_BEANS.get(beanName);
+                if (!config.virtualThreads || channel == null)
+                    return bean;
+                return config.createVirtualThreadExecutor(channel);
+            }
+        };
+    }
+
+    /**
+     * Creates the pool of platform threads of a channel from its properties
+     * @param channel name of the channel: inbound, outbound or broker
+     * @return the executor, not yet initialized
+     */
+    public ThreadPoolTaskExecutor createExecutor(String channel) {
+        int corePoolSize = property(channel, "core-pool-size", Runtime.getRuntime().availableProcessors() * 2);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("stomp-" + channel + "-");
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(Math.max(corePoolSize, property(channel, "max-pool-size", Integer.MAX_VALUE)));
+        executor.setQueueCapacity(property(channel, "queue-capacity", Integer.MAX_VALUE));
+        executor.setKeepAliveSeconds(property(channel, "keep-alive-seconds", 60));
+        executor.setAllowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates the executor of a channel that runs every task on a new virtual thread.
+     * Once concurrency-limit tasks are running, the sender of the next message waits for one of them to finish.
+     * @param channel name of the channel: inbound, outbound or broker
+     * @return the executor
+     */
+    public SimpleAsyncTaskExecutor createVirtualThreadExecutor(String channel) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("stomp-" + channel + "-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(property(channel, "concurrency-limit", 1024));
+        return executor;
+    }
+
+    private int property(String channel, String name, int defaultValue) {
+        return environment.getProperty(PREFIX + channel + "." + name, Integer.class, defaultValue);
+    }
+
+    /**
+     * Sets the executor of the inbound channel, replaced by virtualThreadChannelExecutors with virtual threads
+     * @param registration registration of the inbound channel
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(createExecutor("inbound"));
+    }
+
+    /**
+     * Sets the executor of the outbound channel
+     * @param registration registration of the outbound channel
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(createExecutor("outbound"));
+    }
+
+    /**
+     * Sets the executor of the broker channel, which by default sends on the calling thread,
+     * only if its pool size is configured or virtual threads are used
+     * @param registry registry of the message broker
+     */
+    @Override
+    public void configureMessageBroker(MessageBrokerRegistry registry) {
+        if (virtualThreads || environment.containsProperty(PREFIX + "broker.core-pool-size"))
+            registry.configureBrokerChannel().taskExecutor(createExecutor("broker"));
+        registry.setPreservePublishOrder(preserveOrder);
+    }
+
+    /**
+     * Keeps the order of the messages received on every session
+     * @param registry registry of websocket endpoints
+     */
+    @Override
+    public void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.setPreserveReceiveOrder(preserveOrder);
+    }
+}
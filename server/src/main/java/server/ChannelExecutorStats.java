@@ -0,0 +1,78 @@
+package server;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Pool and queue statistics of the executors of the STOMP channels.
+ * Virtual thread executors have no pool or queue, only their concurrency limit is reported as maxPoolSize.
+ */
+@Service
+public class ChannelExecutorStats {
+
+    private final Map<String, TaskExecutor> executors = new LinkedHashMap<>();
+
+    /**
+     * Constructor for ChannelExecutorStats
+     * @param inbound executor of the inbound channel
+     * @param outbound executor of the outbound channel
+     * @param broker executor of the broker channel
+     */
+    @Autowired
+    public ChannelExecutorStats(@Qualifier("clientInboundChannelExecutor") TaskExecutor inbound,
+                                @Qualifier("clientOutboundChannelExecutor") TaskExecutor outbound,
+                                @Qualifier("brokerChannelExecutor") TaskExecutor broker) {
+        executors.put("inbound", inbound);
+        executors.put("outbound", outbound);
+        executors.put("broker", broker);
+    }
+
+    /**
+     * Takes a snapshot of the statistics of every channel
+     * @return statistics by channel name
+     */
+    public Map<String, Stats> getStats() {
+        Map<String, Stats> stats = new LinkedHashMap<>();
+        executors.forEach((channel, executor) -> stats.put(channel, snapshot(executor)));
+        return stats;
+    }
+
+    private static Stats snapshot(TaskExecutor taskExecutor) {
+        if (!(taskExecutor instanceof ThreadPoolTaskExecutor executor)) {
+            int limit = taskExecutor instanceof SimpleAsyncTaskExecutor simple ? simple.getConcurrencyLimit() : 0;
+            return new Stats(0, 0, limit, 0, 0, 0, 0);
+        }
+        ThreadPoolExecutor pool;
+        try {
+            pool = executor.getThreadPoolExecutor();
+        } catch (IllegalStateException e) {
+            // not initialized, e.g. the broker channel that sends on the calling thread
+            return new Stats(0, 0, executor.getMaxPoolSize(), 0, 0, 0, 0);
+        }
+        return new Stats(pool.getPoolSize(), pool.getActiveCount(), pool.getMaximumPoolSize(),
+                pool.getLargestPoolSize(), pool.getQueue().size(), pool.getQueue().remainingCapacity(),
+                pool.getCompletedTaskCount());
+    }
+
+    /**
+     * Statistics of a single executor
+     * @param poolSize current number of threads
+     * @param activeCount number of threads running a task
+     * @param maxPoolSize maximum number of threads
+     * @param largestPoolSize largest number of threads there have been at the same time
+     * @param queueSize number of tasks waiting for a thread
+     * @param queueRemainingCapacity number of tasks that can still be queued
+     * @param completedTaskCount number of completed tasks
+     */
+    public record Stats(int poolSize, int activeCount, int maxPoolSize, int largestPoolSize,
+                        int queueSize, int queueRemainingCapacity, long completedTaskCount) {
+    }
+}
@@ -19,11 +19,13 @@ import java.util.Random;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /***
  * config class
  */
 @Configuration
+@EnableScheduling
 public class Config {
 
     /***
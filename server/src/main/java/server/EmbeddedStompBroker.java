@@ -0,0 +1,257 @@
+package server;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal in-process STOMP 1.2 broker, standing in for an external broker such as ActiveMQ,
+ * so that the broker relay and several server nodes can be run on a single machine, e.g. in tests.
+ * It only supports what the relay uses: CONNECT, SUBSCRIBE, UNSUBSCRIBE, SEND and DISCONNECT,
+ * with every SEND delivered to all subscriptions of exactly the same destination.
+ * Heartbeats are not sent and not required.
+ */
+public class EmbeddedStompBroker {
+
+    private final int requestedPort;
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong messageIds = new AtomicLong();
+    private ServerSocket serverSocket;
+
+    /**
+     * Constructor for EmbeddedStompBroker
+     * @param port port to listen on, 0 for any free port
+     */
+    public EmbeddedStompBroker(int port) {
+        this.requestedPort = port;
+    }
+
+    /**
+     * Starts accepting connections on the loopback address
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        if (serverSocket != null)
+            return;
+        serverSocket = new ServerSocket(requestedPort, 50, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().name("stomp-broker-accept").start(this::acceptConnections);
+    }
+
+    /**
+     * Stops the broker and closes all connections
+     */
+    public synchronized void stop() {
+        if (serverSocket == null)
+            return;
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+            // the broker is stopping anyway
+        }
+        serverSocket = null;
+        connections.forEach(Connection::close);
+        subscriptions.clear();
+    }
+
+    /**
+     * Getter for the port the broker listens on
+     * @return the bound port, or the requested port if the broker is not started
+     */
+    public synchronized int getPort() {
+        return serverSocket == null ? requestedPort : serverSocket.getLocalPort();
+    }
+
+    /**
+     * Getter for the number of open connections
+     * @return number of open connections
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    private void acceptConnections() {
+        ServerSocket socket = serverSocket;
+        while (socket != null && !socket.isClosed()) {
+            try {
+                Connection connection = new Connection(socket.accept());
+                connections.add(connection);
+                Thread.ofVirtual().name("stomp-broker-connection").start(connection::run);
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void subscribe(Connection connection, Map<String, String> headers) {
+        Subscription subscription = new Subscription(connection, headers.get("id"));
+        subscriptions.computeIfAbsent(headers.get("destination"), key -> ConcurrentHashMap.newKeySet())
+                .add(subscription);
+    }
+
+    private void unsubscribe(Connection connection, String id) {
+        subscriptions.values().forEach(set -> set.remove(new Subscription(connection, id)));
+    }
+
+    private void send(Map<String, String> headers, byte[] body) {
+        Set<Subscription> subscribers = subscriptions.get(headers.get("destination"));
+        if (subscribers == null)
+            return;
+        for (Subscription subscription : subscribers) {
+            Map<String, String> messageHeaders = new LinkedHashMap<>(headers);
+            messageHeaders.remove("receipt");
+            messageHeaders.put("subscription", subscription.id());
+            messageHeaders.put("message-id", String.valueOf(messageIds.incrementAndGet()));
+            messageHeaders.put("content-length", String.valueOf(body.length));
+            subscription.connection().write("MESSAGE", messageHeaders, body);
+        }
+    }
+
+    /**
+     * Reads the command of the next frame, skipping heartbeats
+     * @return the command, or null at the end of the stream
+     */
+    private static String readCommand(InputStream in) throws IOException {
+        String line;
+        do {
+            line = readLine(in);
+        } while (line != null && line.isEmpty());
+        return line;
+    }
+
+    private static Map<String, String> readHeaders(InputStream in) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        String line = readLine(in);
+        while (line != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon > 0)
+                headers.putIfAbsent(line.substring(0, colon), line.substring(colon + 1));
+            line = readLine(in);
+        }
+        return headers;
+    }
+
+    private static byte[] readBody(InputStream in, String contentLength) throws IOException {
+        if (contentLength != null) {
+            byte[] body = in.readNBytes(Integer.parseInt(contentLength.trim()));
+            in.read();
+            return body;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int next = in.read();
+        while (next > 0) {
+            body.write(next);
+            next = in.read();
+        }
+        return body.toByteArray();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int next = in.read();
+        if (next < 0)
+            return null;
+        while (next >= 0 && next != '\n') {
+            line.write(next);
+            next = in.read();
+        }
+        String result = line.toString(StandardCharsets.UTF_8);
+        return result.endsWith("\r") ? result.substring(0, result.length() - 1) : result;
+    }
+
+    /**
+     * A single connection to the broker, e.g. the system session or a client session of the relay
+     */
+    private final class Connection {
+        private final Socket socket;
+        private final OutputStream out;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.out = socket.getOutputStream();
+        }
+
+        private void run() {
+            try (socket) {
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                while (handle(in)) {
+                    // handle frames until the client disconnects
+                }
+            } catch (IOException ignored) {
+                // the connection was closed
+            } finally {
+                close();
+            }
+        }
+
+        private boolean handle(InputStream in) throws IOException {
+            String command = readCommand(in);
+            if (command == null)
+                return false;
+            Map<String, String> headers = readHeaders(in);
+            byte[] body = readBody(in, headers.get("content-length"));
+            switch (command) {
+                case "CONNECT", "STOMP" -> write("CONNECTED", Map.of("version", "1.2", "heart-beat", "0,0",
+                        "server", "splitty-embedded"), new byte[0]);
+                case "SUBSCRIBE" -> subscribe(this, headers);
+                case "UNSUBSCRIBE" -> unsubscribe(this, headers.get("id"));
+                case "SEND" -> send(headers, body);
+                case "DISCONNECT" -> {
+                    receipt(headers);
+                    return false;
+                }
+                default -> write("ERROR", Map.of("message", "Unsupported command " + command), new byte[0]);
+            }
+            receipt(headers);
+            return true;
+        }
+
+        private void receipt(Map<String, String> headers) {
+            if (headers.containsKey("receipt"))
+                write("RECEIPT", Map.of("receipt-id", headers.get("receipt")), new byte[0]);
+        }
+
+        private synchronized void write(String command, Map<String, String> headers, byte[] body) {
+            StringBuilder frame = new StringBuilder(command).append('\n');
+            headers.forEach((name, value) -> frame.append(name).append(':').append(value).append('\n'));
+            frame.append('\n');
+            try {
+                out.write(frame.toString().getBytes(StandardCharsets.UTF_8));
+                out.write(body);
+                out.write(0);
+                out.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private void close() {
+            connections.remove(this);
+            subscriptions.values().forEach(set -> set.removeIf(subscription -> subscription.connection() == this));
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // already closed
+            }
+        }
+    }
+
+    /**
+     * Subscription of a connection to a destination
+     * @param connection the subscribed connection
+     * @param id id of the subscription, unique within its connection
+     */
+    private record Subscription(Connection connection, String id) {
+    }
+}
@@ -0,0 +1,261 @@
+package server;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import server.database.EventRepository;
+import server.database.ParticipantRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Read-through cache of whether events exist and which event a participant belongs to,
+ * checked at the start of nearly every websocket handler.
+ * Both answers are kept, so repeatedly looking up an unknown invitation code does not hit the database either.
+ * Entries expire after a time to live and the least recently used ones are evicted beyond the maximum size.
+ * Handlers creating or deleting events and participants invalidate their entries, once right away and
+ * once after the transaction completes, so a lookup racing with the transaction cannot keep its stale answer.
+ * The time to live bounds how long changes made by other nodes, or outside the handlers, can go unnoticed.
+ */
+@Service
+public class EntityLookupCache {
+
+    private final EventRepository eventRepository;
+    private final ParticipantRepository participantRepository;
+    private final long timeToLive;
+    private final LongSupplier clock;
+    private final Map<UUID, Entry> events;
+    private final Map<UUID, Entry> participants;
+    // Bumped by every invalidation, a database read that overlaps one is not cached
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Constructor for EntityLookupCache
+     * @param eventRepository the event repository
+     * @param participantRepository the participant repository
+     * @param maxSize number of events, and separately of participants, kept in the cache
+     * @param timeToLive time in milliseconds an entry is used for, after it was read from the database
+     */
+    @Autowired
+    public EntityLookupCache(EventRepository eventRepository, ParticipantRepository participantRepository,
+                             @Value("${splitty.entity-cache.max-size:10000}") int maxSize,
+                             @Value("${splitty.entity-cache.ttl:60000}") long timeToLive) {
+        this(eventRepository, participantRepository, maxSize, timeToLive, System::nanoTime);
+    }
+
+    /**
+     * Constructor for EntityLookupCache with its own clock
+     * @param eventRepository the event repository
+     * @param participantRepository the participant repository
+     * @param maxSize number of events, and separately of participants, kept in the cache
+     * @param timeToLive time in milliseconds an entry is used for, after it was read from the database
+     * @param clock the current time in nanoseconds
+     */
+    public EntityLookupCache(EventRepository eventRepository, ParticipantRepository participantRepository,
+                             int maxSize, long timeToLive, LongSupplier clock) {
+        this.eventRepository = eventRepository;
+        this.participantRepository = participantRepository;
+        this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+        this.clock = clock;
+        this.events = lruMap(maxSize);
+        this.participants = lruMap(maxSize);
+    }
+
+    private Map<UUID, Entry> lruMap(int maxSize) {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                boolean evict = size() > maxSize;
+                if (evict)
+                    evictions.incrementAndGet();
+                return evict;
+            }
+        });
+    }
+
+    /**
+     * Checks whether an event exists
+     * @param invitationCode the invitation code of the event
+     * @return true if the event exists, false if it does not or the invitation code is null
+     */
+    public boolean eventExists(UUID invitationCode) {
+        if (invitationCode == null)
+            return false;
+        Entry entry = cached(events, invitationCode);
+        if (entry != null)
+            return entry.exists();
+
+        long readGeneration = generation.get();
+        boolean exists = eventRepository.existsById(invitationCode);
+        store(events, invitationCode, new Entry(exists, invitationCode, clock.getAsLong()), readGeneration);
+        return exists;
+    }
+
+    /**
+     * Looks up the event a participant belongs to
+     * @param participantId the id of the participant
+     * @return the invitation code of the event of the participant, empty if the participant does not exist
+     */
+    public Optional<UUID> participantEvent(UUID participantId) {
+        if (participantId == null)
+            return Optional.empty();
+        Entry entry = cached(participants, participantId);
+        if (entry != null)
+            return Optional.ofNullable(entry.eventId());
+
+        long readGeneration = generation.get();
+        Optional<UUID> eventId = participantRepository.findEventIdById(participantId);
+        store(participants, participantId, new Entry(eventId.isPresent(), eventId.orElse(null), clock.getAsLong()),
+                readGeneration);
+        return eventId;
+    }
+
+    /**
+     * Checks whether a participant exists
+     * @param participantId the id of the participant
+     * @return true if the participant exists, false if it does not or the id is null
+     */
+    public boolean participantExists(UUID participantId) {
+        return participantEvent(participantId).isPresent();
+    }
+
+    /**
+     * Finds which of the given participants do not exist or do not belong to the given event.
+     * The participants that are not cached are read in a single query, those found are cached.
+     * @param invitationCode the invitation code of the event the participants should belong to
+     * @param participantIds ids of the participants
+     * @return ids of the participants that were not found in the event
+     */
+    public Set<UUID> participantsMissingFrom(UUID invitationCode, Collection<UUID> participantIds) {
+        Set<UUID> missing = new HashSet<>();
+        List<UUID> uncached = new ArrayList<>();
+        for (UUID participantId : new HashSet<>(participantIds)) {
+            Entry entry = cached(participants, participantId);
+            if (entry == null)
+                uncached.add(participantId);
+            else if (!invitationCode.equals(entry.eventId()))
+                missing.add(participantId);
+        }
+        if (uncached.isEmpty())
+            return missing;
+
+        long readGeneration = generation.get();
+        Set<UUID> found = new HashSet<>(participantRepository.findIdsInEvent(invitationCode, uncached));
+        for (UUID participantId : uncached) {
+            // a participant that is not in this event may still exist in another one, so only hits are cached
+            if (found.contains(participantId))
+                store(participants, participantId, new Entry(true, invitationCode, clock.getAsLong()), readGeneration);
+            else
+                missing.add(participantId);
+        }
+        return missing;
+    }
+
+    private Entry cached(Map<UUID, Entry> map, UUID id) {
+        Entry entry = map.get(id);
+        if (entry != null && clock.getAsLong() - entry.loadedAt() >= timeToLive) {
+            if (map.remove(id, entry))
+                evictions.incrementAndGet();
+            entry = null;
+        }
+        if (entry == null)
+            misses.incrementAndGet();
+        else
+            hits.incrementAndGet();
+        return entry;
+    }
+
+    private void store(Map<UUID, Entry> map, UUID id, Entry entry, long readGeneration) {
+        synchronized (map) {
+            if (generation.get() == readGeneration)
+                map.put(id, entry);
+        }
+    }
+
+    /**
+     * Invalidates the cached event, e.g. after it was created, deleted or replaced by an import,
+     * together with the cached participants of the event
+     * @param invitationCode the invitation code of the event
+     */
+    public void invalidateEvent(UUID invitationCode) {
+        invalidateNowAndAfterCommit(() -> {
+            removeEvent(invitationCode);
+            synchronized (participants) {
+                participants.values().removeIf(entry -> invitationCode.equals(entry.eventId()));
+            }
+        });
+    }
+
+    /**
+     * Invalidates the cached participant, e.g. after it was created or deleted
+     * @param participantId the id of the participant
+     */
+    public void invalidateParticipant(UUID participantId) {
+        invalidateNowAndAfterCommit(() -> {
+            generation.incrementAndGet();
+            if (participants.remove(participantId) != null)
+                invalidations.incrementAndGet();
+        });
+    }
+
+    private void removeEvent(UUID invitationCode) {
+        generation.incrementAndGet();
+        if (events.remove(invitationCode) != null)
+            invalidations.incrementAndGet();
+    }
+
+    private static void invalidateNowAndAfterCommit(Runnable invalidation) {
+        invalidation.run();
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidation.run();
+            }
+        });
+    }
+
+    /**
+     * Returns the counters of the cache
+     * @return hits, misses, evictions, invalidations and the number of cached entries
+     */
+    public Stats stats() {
+        return new Stats(hits.get(), misses.get(), evictions.get(), invalidations.get(),
+                events.size(), participants.size());
+    }
+
+    /**
+     * Counters of the cache since it was created
+     *
+     * @param hits lookups answered from the cache
+     * @param misses lookups read from the database
+     * @param evictions entries evicted because the cache was full or they expired
+     * @param invalidations entries invalidated by changes
+     * @param events number of cached events
+     * @param participants number of cached participants
+     */
+    public record Stats(long hits, long misses, long evictions, long invalidations, int events, int participants) {
+    }
+
+    private record Entry(boolean exists, UUID eventId, long loadedAt) {
+    }
+}
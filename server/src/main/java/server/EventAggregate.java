@@ -0,0 +1,287 @@
+package server;
+
+import commons.Expense;
+import commons.ExpenseList;
+import commons.Involved;
+import commons.InvolvedList;
+import commons.Participant;
+import commons.ParticipantList;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Participants, expenses and involveds of one event, as the EventAggregateStore keeps them in memory.
+ * Everything is held in the form it is sent to clients, with ids instead of references,
+ * and copied on the way in and out. Not thread safe, the store synchronizes on the aggregate.
+ * The ids of the rows changed since the aggregate was last written are tracked, so only those are written.
+ */
+final class EventAggregate {
+
+    /**
+     * Order of the expenses of an event, by date and then by id as the database compares ids
+     */
+    static final Comparator<Expense> EXPENSE_ORDER = Comparator.comparing(Expense::getDate,
+            Comparator.nullsFirst(Comparator.naturalOrder())).thenComparing(Expense::getId, EventAggregate::compareIds);
+
+    private final UUID invitationCode;
+    private final Map<UUID, Participant> participants = new LinkedHashMap<>();
+    private final Map<UUID, Expense> expenses = new HashMap<>();
+    // ids of the participants and expenses saved or deleted, an expense is written with all its involveds
+    private final Set<UUID> changedParticipants = new HashSet<>();
+    private final Set<UUID> changedExpenses = new HashSet<>();
+    // ids of the involveds settled or unsettled, mapped to the id of their expense
+    private final Map<UUID, UUID> changedInvolveds = new HashMap<>();
+    private boolean evicted;
+    private long lastAccess;
+
+    EventAggregate(UUID invitationCode, List<Participant> participants, List<Expense> expenses) {
+        this.invitationCode = invitationCode;
+        for (Participant participant : participants)
+            this.participants.put(participant.getId(), copy(participant));
+        for (Expense expense : expenses)
+            this.expenses.put(expense.getId(), copy(expense));
+    }
+
+    /**
+     * Applies a change read from, or just written to, the journal and tracks the rows it changed.
+     * Expenses referencing participants that are not in the event are dropped, so a replayed journal
+     * cannot break the foreign keys of the rows written to the database.
+     */
+    void apply(EventJournal.Entry entry) {
+        switch (entry.type()) {
+            case PARTICIPANT_SAVED -> {
+                participants.put(entry.participant().getId(), copy(entry.participant()));
+                changedParticipants.add(entry.participant().getId());
+            }
+            case PARTICIPANT_DELETED -> removeParticipant(entry.id());
+            case EXPENSE_SAVED -> putExpense(entry.expense());
+            case EXPENSE_DELETED -> {
+                expenses.remove(entry.id());
+                changedExpenses.add(entry.id());
+            }
+            case INVOLVEDS_UPDATED -> entry.involveds().forEach(this::setSettled);
+        }
+    }
+
+    private void removeParticipant(UUID participantId) {
+        participants.remove(participantId);
+        changedParticipants.add(participantId);
+        for (Expense expense : expenses.values()) {
+            if (participantId.equals(expense.getPaidById())
+                    || expense.getInvolveds().removeIf(involved -> participantId.equals(involved.getParticipantId())))
+                changedExpenses.add(expense.getId());
+        }
+        expenses.values().removeIf(expense -> participantId.equals(expense.getPaidById())
+                || expense.getInvolveds().isEmpty());
+    }
+
+    private void putExpense(Expense expense) {
+        Expense kept = saved(expense);
+        if (kept != null)
+            expenses.put(kept.getId(), kept);
+        else
+            expenses.remove(expense.getId());
+        changedExpenses.add(expense.getId());
+    }
+
+    /**
+     * Returns a copy of an expense as saving it would keep it, without the involveds of participants
+     * that are not in the event, or null if saving it drops it
+     */
+    Expense saved(Expense expense) {
+        Expense kept = copy(expense);
+        kept.getInvolveds().removeIf(involved -> !participants.containsKey(involved.getParticipantId()));
+        if (!participants.containsKey(kept.getPaidById()) || kept.getInvolveds().isEmpty())
+            return null;
+        kept.setAmountOwed(kept.getAmount() / kept.getInvolveds().size());
+        return kept;
+    }
+
+    private void setSettled(Involved update) {
+        Expense expense = expenses.get(update.getExpenseId());
+        if (expense == null)
+            return;
+        for (Involved involved : expense.getInvolveds()) {
+            if (involved.getId().equals(update.getId())) {
+                involved.setIsSettled(update.getIsSettled());
+                changedInvolveds.put(involved.getId(), expense.getId());
+            }
+        }
+    }
+
+    UUID getInvitationCode() {
+        return invitationCode;
+    }
+
+    Participant participant(UUID participantId) {
+        Participant participant = participants.get(participantId);
+        return participant == null ? null : copy(participant);
+    }
+
+    Expense expense(UUID expenseId) {
+        Expense expense = expenses.get(expenseId);
+        return expense == null ? null : copy(expense);
+    }
+
+    Involved involved(UUID expenseId, UUID involvedId) {
+        Expense expense = expenses.get(expenseId);
+        if (expense == null)
+            return null;
+        for (Involved involved : expense.getInvolveds()) {
+            if (involved.getId().equals(involvedId))
+                return copy(involved);
+        }
+        return null;
+    }
+
+    /**
+     * Returns copies of the involveds that are not settled yet. They are limited to one expense,
+     * to one involved participant and to the expenses of one payer, for each of these ids that is not null.
+     */
+    List<Involved> unsettled(UUID expenseId, UUID participantId, UUID paidById) {
+        List<Involved> found = new ArrayList<>();
+        for (Expense expense : expenses.values()) {
+            if (!matches(expenseId, expense.getId()) || !matches(paidById, expense.getPaidById()))
+                continue;
+            for (Involved involved : expense.getInvolveds()) {
+                if (!involved.getIsSettled() && matches(participantId, involved.getParticipantId()))
+                    found.add(copy(involved));
+            }
+        }
+        return found;
+    }
+
+    private static boolean matches(UUID wanted, UUID id) {
+        return wanted == null || wanted.equals(id);
+    }
+
+    ParticipantList participants() {
+        ParticipantList copies = new ParticipantList();
+        for (Participant participant : participants.values())
+            copies.add(copy(participant));
+        return copies;
+    }
+
+    /**
+     * Returns copies of the expenses, in (date, id) order
+     */
+    ExpenseList expenses() {
+        ExpenseList copies = new ExpenseList();
+        for (Expense expense : expenses.values())
+            copies.add(copy(expense));
+        copies.sort(EXPENSE_ORDER);
+        return copies;
+    }
+
+    /**
+     * Tells whether rows changed since the aggregate was last written
+     */
+    boolean isDirty() {
+        return !changedParticipants.isEmpty() || !changedExpenses.isEmpty() || !changedInvolveds.isEmpty();
+    }
+
+    /**
+     * Returns the rows changed since the aggregate was last written, in their current state, and stops tracking
+     * them. Involveds of changed expenses are written with their expense, so they are not returned on their own.
+     */
+    EventAggregateWriter.Changes takeChanges() {
+        ParticipantList savedParticipants = new ParticipantList();
+        List<UUID> deletedParticipants = new ArrayList<>();
+        for (UUID participantId : changedParticipants) {
+            Participant participant = participants.get(participantId);
+            if (participant == null)
+                deletedParticipants.add(participantId);
+            else
+                savedParticipants.add(copy(participant));
+        }
+        ExpenseList savedExpenses = new ExpenseList();
+        List<UUID> deletedExpenses = new ArrayList<>();
+        for (UUID expenseId : changedExpenses) {
+            Expense expense = expenses.get(expenseId);
+            if (expense == null)
+                deletedExpenses.add(expenseId);
+            else
+                savedExpenses.add(copy(expense));
+        }
+        InvolvedList updatedInvolveds = new InvolvedList();
+        for (Map.Entry<UUID, UUID> changed : changedInvolveds.entrySet()) {
+            if (changedExpenses.contains(changed.getValue()))
+                continue;
+            Involved involved = involved(changed.getValue(), changed.getKey());
+            if (involved != null)
+                updatedInvolveds.add(involved);
+        }
+        changedParticipants.clear();
+        changedExpenses.clear();
+        changedInvolveds.clear();
+        return new EventAggregateWriter.Changes(savedParticipants, deletedParticipants, savedExpenses,
+                deletedExpenses, updatedInvolveds);
+    }
+
+    /**
+     * Tracks the rows of changes that could not be written again, so the next write retries them
+     * together with the rows changed since
+     */
+    void restoreChanges(EventAggregateWriter.Changes changes) {
+        changes.savedParticipants().forEach(participant -> changedParticipants.add(participant.getId()));
+        changedParticipants.addAll(changes.deletedParticipants());
+        changes.savedExpenses().forEach(expense -> changedExpenses.add(expense.getId()));
+        changedExpenses.addAll(changes.deletedExpenses());
+        changes.updatedInvolveds().forEach(involved -> changedInvolveds.put(involved.getId(),
+                involved.getExpenseId()));
+    }
+
+    boolean isEvicted() {
+        return evicted;
+    }
+
+    void evict() {
+        evicted = true;
+    }
+
+    long getLastAccess() {
+        return lastAccess;
+    }
+
+    void touch(long now) {
+        lastAccess = now;
+    }
+
+    private Participant copy(Participant participant) {
+        return new Participant(participant.getId(), participant.getFirstName(), participant.getLastName(),
+                participant.getIban(), participant.getBic(), invitationCode);
+    }
+
+    private Expense copy(Expense expense) {
+        InvolvedList involveds = new InvolvedList();
+        for (Involved involved : expense.getInvolveds())
+            involveds.add(copy(involved));
+        Expense copy = new Expense(expense.getId(), expense.getTitle(), expense.getAmount(), expense.getPaidById(),
+                invitationCode, expense.getDate(), involveds);
+        copy.setAmountOwed(involveds.isEmpty() ? 0 : copy.getAmount() / involveds.size());
+        return copy;
+    }
+
+    private Involved copy(Involved involved) {
+        return new Involved(involved.getId(), involved.getIsSettled(), involved.getExpenseId(),
+                involved.getParticipantId(), invitationCode);
+    }
+
+    /**
+     * Compares ids as unsigned 128 bit numbers, the way H2 orders uuid columns
+     */
+    static int compareIds(UUID first, UUID second) {
+        int compared = Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits());
+        if (compared != 0)
+            return compared;
+        return Long.compareUnsigned(first.getLeastSignificantBits(), second.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,630 @@
+package server;
+
+import commons.Event;
+import commons.EventChanges;
+import commons.Expense;
+import commons.ExpenseList;
+import commons.Involved;
+import commons.InvolvedList;
+import commons.Participant;
+import commons.ParticipantList;
+import commons.SettleRequest;
+import commons.StatusEntity;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import server.database.EventRepository;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Optional persistence mode keeping the participants, expenses and involveds of active events in memory.
+ * Enabled with splitty.persistence.mode=journal, the default mode "jpa" leaves every method but isEnabled unused.
+ * An event is read from the database on first access and evicted once it was idle for the idle timeout.
+ * Every change is answered without a database round trip, and appended to the EventJournal and applied in memory
+ * once the transaction of its handler commits, so a change that is rolled back is never applied;
+ * the journal is synced every sync interval and the rows changed in memory are written to the database
+ * every compaction interval, after which the journal segments they were in are deleted.
+ * On startup the journal left by a crash is replayed on top of the database and written back.
+ * Handlers reading or replacing an event in the database directly, e.g. the dump, the import or deleting it,
+ * release the event first.
+ * Events are kept in the memory of one node, so the mode cannot be combined with splitty.broker.mode=relay,
+ * where several nodes serve the same events; the store refuses to start with both.
+ */
+@Service
+public class EventAggregateStore {
+
+    private final boolean enabled;
+    private final EventSnapshotService snapshotService;
+    private final EventRepository eventRepository;
+    private final EventChangeLog changeLog;
+    private final EventJournal journal;
+    private final EventAggregateWriter writer;
+    private final long idleTimeout;
+    private final Map<UUID, EventAggregate> aggregates = new ConcurrentHashMap<>();
+    private final Object compactionLock = new Object();
+    private final Object removalLock = new Object();
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong removals = new AtomicLong();
+
+    /**
+     * Constructor for EventAggregateStore
+     * @param mode the persistence mode, "journal" keeps events in memory, anything else disables the store
+     * @param snapshotService the snapshot service events are read from the database with
+     * @param eventRepository the event repository
+     * @param changeLog the change log changes are marked pending in and snapshots are read consistently with
+     * @param journal the journal changes are appended to
+     * @param writer the writer changed events are written to the database with
+     * @param idleTimeout time in milliseconds after which an event that was not accessed is evicted
+     * @param brokerMode the STOMP broker mode, "relay" cannot be combined with the journal mode
+     * @throws IllegalStateException if the journal mode is combined with the relay broker mode
+     */
+    @Autowired
+    public EventAggregateStore(@Value("${splitty.persistence.mode:jpa}") String mode,
+                               EventSnapshotService snapshotService, EventRepository eventRepository,
+                               EventChangeLog changeLog, EventJournal journal, EventAggregateWriter writer,
+                               @Value("${splitty.persistence.idle-timeout:600000}") long idleTimeout,
+                               @Value("${splitty.broker.mode:simple}") String brokerMode)
+            throws IllegalStateException {
+        this.enabled = "journal".equals(mode);
+        if (enabled && "relay".equals(brokerMode))
+            throw new IllegalStateException("splitty.persistence.mode=journal keeps events in the memory of one node "
+                    + "and cannot be combined with splitty.broker.mode=relay");
+        this.snapshotService = snapshotService;
+        this.eventRepository = eventRepository;
+        this.changeLog = changeLog;
+        this.journal = journal;
+        this.writer = writer;
+        this.idleTimeout = TimeUnit.MILLISECONDS.toNanos(idleTimeout);
+    }
+
+    /**
+     * Tells whether events are kept in memory, if not the handlers use the repositories as before
+     * @return true if the persistence mode is journal
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Replays the journal left by the last run on top of the database and writes the changed events back
+     */
+    @PostConstruct
+    public void recover() {
+        if (!enabled)
+            return;
+        for (EventJournal.Entry entry : journal.read(journal.rotate()))
+            withAggregate(entry.invitationCode(), aggregate -> {
+                aggregate.apply(entry);
+                return null;
+            });
+        compact();
+    }
+
+    private <T> T withAggregate(UUID invitationCode, Function<EventAggregate, T> action) {
+        if (invitationCode == null)
+            return null;
+        while (true) {
+            EventAggregate aggregate = aggregates.get(invitationCode);
+            if (aggregate == null) {
+                aggregate = install(invitationCode);
+                if (aggregate == null)
+                    return null;
+            }
+            synchronized (aggregate) {
+                // an aggregate evicted after it was looked up is no longer in the map, look it up again
+                if (aggregate.isEvicted())
+                    continue;
+                aggregate.touch(System.nanoTime());
+                return action.apply(aggregate);
+            }
+        }
+    }
+
+    /**
+     * Runs a change of an event in the transaction of the caller. The change returns the journal entry it makes,
+     * which is appended and applied once the transaction commits and dropped if it rolls back,
+     * and the answer of the handler, computed without changing the aggregate.
+     */
+    private <T> T changeAggregate(UUID invitationCode, Function<EventAggregate, Change<T>> change) {
+        // Snapshots wait until the change is applied and numbered
+        if (invitationCode != null)
+            changeLog.beginChange(invitationCode);
+        Change<T> made = withAggregate(invitationCode, change);
+        if (made == null)
+            return null;
+        if (made.entry() != null)
+            afterCommit(() -> withAggregate(invitationCode, aggregate -> {
+                append(aggregate, made.entry());
+                return null;
+            }));
+        return made.result();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Reads an event from the database outside the map and puts it in, unless another thread put it in first.
+     * An event removed while it was read was written before, maybe after it was read, so it is read again.
+     */
+    private EventAggregate install(UUID invitationCode) {
+        while (true) {
+            long removedBefore = removals.get();
+            EventAggregate loaded = load(invitationCode);
+            if (loaded == null)
+                return null;
+            synchronized (removalLock) {
+                if (removals.get() != removedBefore)
+                    continue;
+                EventAggregate installed = aggregates.putIfAbsent(invitationCode, loaded);
+                return installed == null ? loaded : installed;
+            }
+        }
+    }
+
+    private EventAggregate load(UUID invitationCode) {
+        StatusEntity snapshot = snapshotService.readSnapshot(invitationCode);
+        if (snapshot.getStatusCode() != StatusEntity.StatusCode.OK)
+            return null;
+        loads.incrementAndGet();
+        return new EventAggregate(invitationCode, snapshot.getParticipantList(), snapshot.getExpenseList());
+    }
+
+    private void append(EventAggregate aggregate, EventJournal.Entry entry) {
+        journal.append(entry);
+        appended.incrementAndGet();
+        aggregate.apply(entry);
+    }
+
+    /**
+     * Reads the snapshot of an event, the event itself from the database and the rest from memory
+     * once the changes made in memory are numbered, so it contains exactly the changes up to its sequence number
+     * @param invitationCode the invitation code of the event
+     * @return a StatusEntity with the event, its participants, its expenses and the current change sequence number,
+     * or a not found StatusEntity if the event does not exist
+     */
+    public StatusEntity readSnapshot(UUID invitationCode) {
+        return changeLog.readConsistently(invitationCode, changes -> read(invitationCode, changes));
+    }
+
+    private StatusEntity read(UUID invitationCode, EventChanges changes) {
+        Optional<Event> found = eventRepository.findById(invitationCode);
+        Contents contents = found.isEmpty() ? null : withAggregate(invitationCode,
+                aggregate -> new Contents(aggregate.participants(), aggregate.expenses()));
+        if (contents == null)
+            return StatusEntity.notFound(true, "Event with provided Invitation code does not exist");
+        Event event = found.get();
+        return StatusEntity.ok(new Event(event.getId(), event.getTitle(), event.getCreationDate(),
+                event.getLastActivity()), contents.participants(), contents.expenses(), changes);
+    }
+
+    /**
+     * Reads the participants of an event
+     * @param invitationCode the invitation code of the event
+     * @return the participants, null if the event does not exist
+     */
+    public ParticipantList readParticipants(UUID invitationCode) {
+        return withAggregate(invitationCode, EventAggregate::participants);
+    }
+
+    /**
+     * Reads the expenses of an event with their involveds, in (date, id) order
+     * @param invitationCode the invitation code of the event
+     * @return the expenses, null if the event does not exist
+     */
+    public ExpenseList readExpenses(UUID invitationCode) {
+        return withAggregate(invitationCode, EventAggregate::expenses);
+    }
+
+    /**
+     * Reads the expenses of an event after a date and id, in (date, id) order
+     * @param invitationCode the invitation code of the event
+     * @param afterDate date of the last expense already read, null together with afterId for the first expenses
+     * @param afterId id of the last expense already read
+     * @param limit maximum number of expenses read
+     * @return the expenses, null if the event does not exist
+     */
+    public ExpenseList readExpensesAfter(UUID invitationCode, LocalDate afterDate, UUID afterId, int limit) {
+        ExpenseList expenses = readExpenses(invitationCode);
+        if (expenses == null)
+            return null;
+        if (afterId != null) {
+            Expense cursor = new Expense(afterId, null, 0, null, invitationCode, afterDate, new InvolvedList());
+            expenses.removeIf(expense -> EventAggregate.EXPENSE_ORDER.compare(expense, cursor) <= 0);
+        }
+        ExpenseList page = new ExpenseList();
+        page.addAll(expenses.subList(0, Math.min(limit, expenses.size())));
+        return page;
+    }
+
+    /**
+     * Checks whether a participant belongs to an event
+     * @param invitationCode the invitation code of the event
+     * @param participantId the id of the participant
+     * @return true if the participant is in the event
+     */
+    public boolean hasParticipant(UUID invitationCode, UUID participantId) {
+        return Boolean.TRUE.equals(withAggregate(invitationCode,
+                aggregate -> aggregate.participant(participantId) != null));
+    }
+
+    /**
+     * Finds which of the given participants do not belong to an event
+     * @param invitationCode the invitation code of the event
+     * @param participantIds ids of the participants
+     * @return ids of the participants that were not found in the event
+     */
+    public Set<UUID> participantsMissingFrom(UUID invitationCode, Collection<UUID> participantIds) {
+        Set<UUID> missing = withAggregate(invitationCode, aggregate -> {
+            Set<UUID> notFound = new HashSet<>();
+            for (UUID participantId : participantIds) {
+                if (aggregate.participant(participantId) == null)
+                    notFound.add(participantId);
+            }
+            return notFound;
+        });
+        return missing == null ? new HashSet<>(participantIds) : missing;
+    }
+
+    /**
+     * Checks whether an expense belongs to an event
+     * @param invitationCode the invitation code of the event
+     * @param expenseId the id of the expense
+     * @return true if the expense is in the event
+     */
+    public boolean hasExpense(UUID invitationCode, UUID expenseId) {
+        return Boolean.TRUE.equals(withAggregate(invitationCode, aggregate -> aggregate.expense(expenseId) != null));
+    }
+
+    /**
+     * Creates a participant with a new id
+     * @param receivedParticipant the participant with the invitation code of its event
+     * @return the created participant as it is broadcast, null if the event does not exist
+     */
+    public Participant createParticipant(Participant receivedParticipant) {
+        Participant participant = new Participant(UUID.randomUUID(), receivedParticipant.getFirstName(),
+                receivedParticipant.getLastName(), receivedParticipant.getIban(), receivedParticipant.getBic(),
+                receivedParticipant.getEventId());
+        return saveParticipant(participant, false);
+    }
+
+    /**
+     * Updates the names and bank details of a participant
+     * @param receivedParticipant the participant with its id and the invitation code of its event
+     * @return the updated participant as it is broadcast, null if it is not in the event
+     */
+    public Participant updateParticipant(Participant receivedParticipant) {
+        Participant participant = new Participant(receivedParticipant.getId(), receivedParticipant.getFirstName(),
+                receivedParticipant.getLastName(), receivedParticipant.getIban(), receivedParticipant.getBic(),
+                receivedParticipant.getEventId());
+        return saveParticipant(participant, true);
+    }
+
+    private Participant saveParticipant(Participant participant, boolean existing) {
+        return changeAggregate(participant.getEventId(), aggregate -> {
+            if (existing && aggregate.participant(participant.getId()) == null)
+                return new Change<>(null, null);
+            return new Change<>(new EventJournal.Entry(EventJournal.Type.PARTICIPANT_SAVED,
+                    participant.getEventId(), participant, null, null, null), participant);
+        });
+    }
+
+    /**
+     * Deletes a participant, the expenses it paid and the expenses only it was involved in
+     * @param invitationCode the invitation code of the event
+     * @param participantId the id of the participant
+     * @return the deleted participant as it is broadcast, null if it is not in the event
+     */
+    public Participant deleteParticipant(UUID invitationCode, UUID participantId) {
+        return changeAggregate(invitationCode, aggregate -> {
+            Participant participant = aggregate.participant(participantId);
+            if (participant == null)
+                return new Change<>(null, null);
+            return new Change<>(new EventJournal.Entry(EventJournal.Type.PARTICIPANT_DELETED, invitationCode,
+                    null, null, null, participantId), participant);
+        });
+    }
+
+    /**
+     * Creates an expense with a new id, involving the received participants with new involved ids
+     * @param receivedExpense the validated expense, with the invitation code of its event
+     * @return the created expense as it is broadcast, null if the event does not exist
+     */
+    public Expense createExpense(Expense receivedExpense) {
+        UUID invitationCode = receivedExpense.getInvitationCode();
+        UUID expenseId = UUID.randomUUID();
+        InvolvedList involveds = new InvolvedList();
+        for (Involved involved : receivedExpense.getInvolveds())
+            involveds.add(new Involved(UUID.randomUUID(), involved.getIsSettled(), expenseId,
+                    involved.getParticipantId(), invitationCode));
+        Expense expense = new Expense(expenseId, receivedExpense.getTitle(),
+                (double) Math.round(receivedExpense.getAmount() * 100) / 100, receivedExpense.getPaidById(),
+                invitationCode, receivedExpense.getDate(), involveds);
+        return changeAggregate(invitationCode, aggregate -> new Change<>(new EventJournal.Entry(
+                EventJournal.Type.EXPENSE_SAVED, invitationCode, null, expense, null, null),
+                aggregate.saved(expense)));
+    }
+
+    /**
+     * Updates an expense the way the database handler does: involveds of participants that stay involved
+     * are kept, and all of them become unsettled if the amount every participant owes changes
+     * @param receivedExpense the validated expense, with its id and the invitation code of its event
+     * @return the updated expense as it is broadcast, null if it is not in the event
+     */
+    public Expense updateExpense(Expense receivedExpense) {
+        UUID invitationCode = receivedExpense.getInvitationCode();
+        return changeAggregate(invitationCode, aggregate -> {
+            Expense old = aggregate.expense(receivedExpense.getId());
+            if (old == null)
+                return new Change<>(null, null);
+            double oldAmountOwed = (double) Math.round(old.getAmount() / old.getInvolveds().size() * 100) / 100;
+            double newAmountOwed = (double) Math.round(receivedExpense.getAmount()
+                    / receivedExpense.getInvolveds().size() * 100) / 100;
+            Map<UUID, Involved> oldInvolveds = new HashMap<>();
+            for (Involved involved : old.getInvolveds())
+                oldInvolveds.put(involved.getParticipantId(), involved);
+
+            InvolvedList involveds = new InvolvedList();
+            for (Involved received : receivedExpense.getInvolveds()) {
+                Involved kept = oldInvolveds.get(received.getParticipantId());
+                UUID involvedId = kept == null ? UUID.randomUUID() : kept.getId();
+                boolean settled = kept == null ? received.getIsSettled() : kept.getIsSettled();
+                involveds.add(new Involved(involvedId, settled && newAmountOwed == oldAmountOwed, old.getId(),
+                        received.getParticipantId(), invitationCode));
+            }
+            Expense expense = new Expense(old.getId(), receivedExpense.getTitle(),
+                    (double) Math.round(receivedExpense.getAmount() * 100) / 100, receivedExpense.getPaidById(),
+                    invitationCode, receivedExpense.getDate(), involveds);
+            Expense sentExpense = aggregate.saved(expense);
+            if (sentExpense != null)
+                sentExpense.setAmountOwed(newAmountOwed);
+            return new Change<>(new EventJournal.Entry(EventJournal.Type.EXPENSE_SAVED, invitationCode,
+                    null, expense, null, null), sentExpense);
+        });
+    }
+
+    /**
+     * Deletes an expense with its involveds
+     * @param invitationCode the invitation code of the event
+     * @param expenseId the id of the expense
+     * @return true if the expense was deleted, false if it is not in the event
+     */
+    public boolean deleteExpense(UUID invitationCode, UUID expenseId) {
+        return Boolean.TRUE.equals(changeAggregate(invitationCode, aggregate -> {
+            if (aggregate.expense(expenseId) == null)
+                return new Change<>(null, false);
+            return new Change<>(new EventJournal.Entry(EventJournal.Type.EXPENSE_DELETED, invitationCode,
+                    null, null, null, expenseId), true);
+        }));
+    }
+
+    /**
+     * Settles or unsettles involveds of an event, all or none of them
+     * @param invitationCode the invitation code of the event
+     * @param receivedInvolveds the involveds, with their id, expense id and whether they are settled
+     * @return the updated involveds as they are broadcast, null if one of them is not in the event
+     */
+    public InvolvedList updateInvolveds(UUID invitationCode, List<Involved> receivedInvolveds) {
+        return changeAggregate(invitationCode, aggregate -> {
+            List<Involved> updates = new ArrayList<>();
+            for (Involved received : receivedInvolveds) {
+                Involved involved = aggregate.involved(received.getExpenseId(), received.getId());
+                if (involved == null)
+                    return new Change<>(null, null);
+                updates.add(new Involved(involved.getId(), received.getIsSettled(), involved.getExpenseId(),
+                        involved.getParticipantId(), invitationCode));
+            }
+            InvolvedList sent = new InvolvedList();
+            sent.addAll(updates);
+            return new Change<>(new EventJournal.Entry(EventJournal.Type.INVOLVEDS_UPDATED, invitationCode,
+                    null, null, updates, null), sent);
+        });
+    }
+
+    /**
+     * Settles all debts of an event a settle request selects, as a single change
+     * @param request the request with the invitation code of the event
+     * @return the settled involveds as they are broadcast, empty if there was nothing to settle,
+     * null if the event does not exist
+     */
+    public InvolvedList settleInvolveds(SettleRequest request) {
+        UUID invitationCode = request.getInvitationCode();
+        return changeAggregate(invitationCode, aggregate -> {
+            InvolvedList settled = new InvolvedList();
+            for (Involved involved : aggregate.unsettled(request.getExpenseId(), request.getFromId(),
+                    request.getToId()))
+                settled.add(new Involved(involved.getId(), true, involved.getExpenseId(),
+                        involved.getParticipantId(), invitationCode));
+            if (settled.isEmpty())
+                return new Change<>(null, settled);
+            return new Change<>(new EventJournal.Entry(EventJournal.Type.INVOLVEDS_UPDATED, invitationCode,
+                    null, null, new ArrayList<>(settled), null), settled);
+        });
+    }
+
+    /**
+     * Forces the changes appended since the last sync to disk.
+     * Runs every sync interval, set with splitty.persistence.journal.sync-interval in milliseconds.
+     */
+    @Scheduled(fixedDelayString = "${splitty.persistence.journal.sync-interval:50}")
+    public void sync() {
+        if (enabled)
+            journal.sync();
+    }
+
+    /**
+     * Writes the changed rows of every event to the database and deletes the journal segments they were in.
+     * If an event cannot be written its rows stay changed, and the segments are kept until a later compaction
+     * writes it. Runs every compaction interval, set with splitty.persistence.compaction-interval
+     * in milliseconds, and at shutdown.
+     */
+    @Scheduled(fixedDelayString = "${splitty.persistence.compaction-interval:1000}")
+    @PreDestroy
+    public void compact() {
+        if (!enabled)
+            return;
+        synchronized (compactionLock) {
+            // Changes are appended and applied while holding their aggregate, so once an aggregate is held below
+            // it contains every change of the sealed segments; later changes mark it changed again
+            List<Path> segments = journal.rotate();
+            RuntimeException failure = null;
+            int writtenEvents = 0;
+            for (EventAggregate aggregate : aggregates.values()) {
+                try {
+                    if (write(aggregate))
+                        writtenEvents++;
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+            if (writtenEvents > 0)
+                compactions.incrementAndGet();
+            if (failure != null)
+                throw failure;
+            journal.delete(segments);
+        }
+    }
+
+    private boolean write(EventAggregate aggregate) {
+        EventAggregateWriter.Changes changes;
+        synchronized (aggregate) {
+            if (!aggregate.isDirty() || aggregate.isEvicted())
+                return false;
+            changes = aggregate.takeChanges();
+        }
+        boolean exists;
+        try {
+            exists = writer.write(aggregate.getInvitationCode(), changes);
+        } catch (RuntimeException e) {
+            synchronized (aggregate) {
+                aggregate.restoreChanges(changes);
+            }
+            throw e;
+        }
+        written.incrementAndGet();
+        if (!exists)
+            remove(aggregate);
+        return true;
+    }
+
+    /**
+     * Evicts the events that were not accessed for the idle timeout and have no changes left to write.
+     * Runs every eviction interval, set with splitty.persistence.eviction-interval in milliseconds.
+     */
+    @Scheduled(fixedDelayString = "${splitty.persistence.eviction-interval:60000}")
+    public void evictIdle() {
+        if (!enabled)
+            return;
+        long now = System.nanoTime();
+        for (EventAggregate aggregate : aggregates.values()) {
+            synchronized (aggregate) {
+                if (aggregate.isDirty() || now - aggregate.getLastAccess() < idleTimeout)
+                    continue;
+                remove(aggregate);
+            }
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Writes the changes of an event to the database and drops it from memory, so the database can be read
+     * or changed directly, e.g. before dumping, importing or deleting it. The next access reads it again.
+     * @param invitationCode the invitation code of the event
+     */
+    public void release(UUID invitationCode) {
+        if (!enabled)
+            return;
+        while (true) {
+            compact();
+            EventAggregate aggregate = aggregates.get(invitationCode);
+            if (aggregate == null)
+                return;
+            synchronized (aggregate) {
+                if (!aggregate.isDirty()) {
+                    remove(aggregate);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void remove(EventAggregate aggregate) {
+        synchronized (aggregate) {
+            aggregate.evict();
+            synchronized (removalLock) {
+                aggregates.remove(aggregate.getInvitationCode(), aggregate);
+                removals.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Returns the counters of the store
+     * @return number of events in memory, loads, evictions, appended changes, compactions and written events
+     */
+    public Stats stats() {
+        return new Stats(aggregates.size(), loads.get(), evictions.get(), appended.get(), compactions.get(),
+                written.get());
+    }
+
+    /**
+     * Counters of the store since it was created
+     *
+     * @param events number of events in memory
+     * @param loads events read from the database
+     * @param evictions events evicted because they were idle
+     * @param appended changes appended to the journal
+     * @param compactions compactions that wrote at least one event
+     * @param written events written to the database
+     */
+    public record Stats(int events, long loads, long evictions, long appended, long compactions, long written) {
+    }
+
+    private record Contents(ParticipantList participants, ExpenseList expenses) {
+    }
+
+    /**
+     * A change of an event, made once the transaction of the handler commits, and the answer of the handler
+     *
+     * @param entry the journal entry of the change, null if nothing changes
+     * @param result the answer of the handler
+     * @param <T> type of the answer
+     */
+    private record Change<T>(EventJournal.Entry entry, T result) {
+    }
+}
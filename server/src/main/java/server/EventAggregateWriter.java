@@ -0,0 +1,128 @@
+package server;
+
+import commons.Expense;
+import commons.Involved;
+import commons.Participant;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import server.database.EventRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service writing the rows of an event kept in memory that changed since it was last written to the database.
+ * The changes of an event are written in one transaction, keeping the ids the rows have in memory,
+ * in JDBC batches, since the entities generate their ids when they are persisted through JPA.
+ * Saved participants and expenses are merged by id, and a saved expense gets its involveds written again.
+ */
+@Service
+public class EventAggregateWriter {
+
+    private final EventRepository eventRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    /**
+     * Constructor for EventAggregateWriter
+     * @param eventRepository the event repository
+     * @param jdbcTemplate the jdbc template the rows are written with
+     * @param transactionManager the transaction manager, every event is written in a new transaction of its own
+     * @param batchSize number of rows written in one JDBC batch
+     */
+    @Autowired
+    public EventAggregateWriter(EventRepository eventRepository, JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}") int batchSize) {
+        this.eventRepository = eventRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // a handler releasing an event writes it before its own transaction, whether that commits or not
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Writes the changed rows of an event to the database
+     * @param invitationCode the invitation code of the event
+     * @param changes the rows changed since the event was last written
+     * @return true if the event was written, false if it no longer exists
+     */
+    public boolean write(UUID invitationCode, Changes changes) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            if (!eventRepository.existsById(invitationCode))
+                return false;
+            delete(changes);
+            save(invitationCode, changes);
+            return true;
+        }));
+    }
+
+    private void delete(Changes changes) {
+        // Involveds of deleted participants belong to changed expenses, so they are deleted with these first
+        List<UUID> changedExpenses = new ArrayList<>(changes.deletedExpenses());
+        changes.savedExpenses().forEach(expense -> changedExpenses.add(expense.getId()));
+        deleteAll("DELETE FROM involved WHERE expense_id = ?", changedExpenses);
+        deleteAll("DELETE FROM expense WHERE id = ?", changes.deletedExpenses());
+        deleteAll("DELETE FROM participant WHERE id = ?", changes.deletedParticipants());
+    }
+
+    private void deleteAll(String sql, List<UUID> ids) {
+        jdbcTemplate.batchUpdate(sql, ids, batchSize, (statement, id) -> statement.setObject(1, id));
+    }
+
+    private void save(UUID invitationCode, Changes changes) {
+        jdbcTemplate.batchUpdate("MERGE INTO participant (id, first_name, last_name, iban, bic, event_id) KEY (id) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", changes.savedParticipants(), batchSize, (statement, participant) -> {
+                    statement.setObject(1, participant.getId());
+                    statement.setString(2, participant.getFirstName());
+                    statement.setString(3, participant.getLastName());
+                    statement.setString(4, participant.getIban());
+                    statement.setString(5, participant.getBic());
+                    statement.setObject(6, invitationCode);
+                });
+        jdbcTemplate.batchUpdate("MERGE INTO expense (id, title, amount, date, participant_id) KEY (id) "
+                + "VALUES (?, ?, ?, ?, ?)", changes.savedExpenses(), batchSize, (statement, expense) -> {
+                    statement.setObject(1, expense.getId());
+                    statement.setString(2, expense.getTitle());
+                    statement.setDouble(3, expense.getAmount());
+                    statement.setObject(4, expense.getDate());
+                    statement.setObject(5, expense.getPaidById());
+                });
+        List<Involved> involveds = new ArrayList<>();
+        for (Expense expense : changes.savedExpenses())
+            involveds.addAll(expense.getInvolveds());
+        jdbcTemplate.batchUpdate("INSERT INTO involved (id, is_settled, expense_id, participant_id) "
+                + "VALUES (?, ?, ?, ?)", involveds, batchSize, (statement, involved) -> {
+                    statement.setObject(1, involved.getId());
+                    statement.setBoolean(2, involved.getIsSettled());
+                    statement.setObject(3, involved.getExpenseId());
+                    statement.setObject(4, involved.getParticipantId());
+                });
+        jdbcTemplate.batchUpdate("UPDATE involved SET is_settled = ? WHERE id = ?", changes.updatedInvolveds(),
+                batchSize, (statement, involved) -> {
+                    statement.setBoolean(1, involved.getIsSettled());
+                    statement.setObject(2, involved.getId());
+                });
+    }
+
+    /**
+     * Rows of an event changed since it was last written, in their current state
+     *
+     * @param savedParticipants participants created or updated
+     * @param deletedParticipants ids of the deleted participants
+     * @param savedExpenses expenses created or updated, with all their involveds
+     * @param deletedExpenses ids of the deleted expenses
+     * @param updatedInvolveds involveds settled or unsettled, of expenses that were not saved otherwise
+     */
+    public record Changes(List<Participant> savedParticipants, List<UUID> deletedParticipants,
+                          List<Expense> savedExpenses, List<UUID> deletedExpenses, List<Involved> updatedInvolveds) {
+    }
+}
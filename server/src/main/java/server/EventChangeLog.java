@@ -0,0 +1,272 @@
+package server;
+
+import commons.Event;
+import commons.EventChange;
+import commons.EventChanges;
+import commons.Expense;
+import commons.InvolvedList;
+import commons.Participant;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Service giving every change of an event a sequence number and broadcasting it.
+ * The last changes of every event are kept in a bounded log, so a client that missed some of them,
+ * e.g. while reconnecting, can ask for the changes since the last sequence number it has seen
+ * instead of reading the whole event again.
+ * Every broadcast carries the change-epoch and change-seq headers. The epoch changes whenever the log
+ * of an event is started again, e.g. after a restart or after the log was evicted, and sequence
+ * numbers of different epochs are not comparable.
+ * Inside a transaction changes are only numbered and broadcast after it commits, so every change
+ * up to the current sequence number is visible to a later read of the event.
+ * From just before the commit until they are numbered, changes are pending: readConsistently waits for them
+ * and keeps new ones from committing, so a snapshot contains exactly the changes up to its sequence number.
+ */
+@Service
+public class EventChangeLog {
+
+    /**
+     * Native header carrying the sequence number of a change
+     */
+    public static final String SEQUENCE_HEADER = "change-seq";
+    /**
+     * Native header carrying the epoch of the sequence number of a change
+     */
+    public static final String EPOCH_HEADER = "change-epoch";
+
+    private static final long PENDING_TIMEOUT_MILLIS = 1000;
+
+    private final SimpMessagingTemplate template;
+    private final int capacity;
+    private final Map<UUID, Log> logs;
+
+    /**
+     * Constructor for EventChangeLog
+     * @param template the messaging template
+     * @param capacity number of changes kept for every event
+     * @param maxEvents number of events a log is kept for, the least recently changed ones are evicted first
+     */
+    @Autowired
+    public EventChangeLog(SimpMessagingTemplate template,
+                          @Value("${splitty.changes.capacity:256}") int capacity,
+                          @Value("${splitty.changes.max-events:1000}") int maxEvents) {
+        this.template = template;
+        this.capacity = capacity;
+        this.logs = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Log> eldest) {
+                return size() > maxEvents;
+            }
+        });
+    }
+
+    /**
+     * Records a change of an event and broadcasts it on /topic/{invitationCode}/{type}
+     * @param invitationCode the invitation code of the event
+     * @param type type of the change, e.g. expense:create
+     * @param payload the changed Event, Participant, Expense or InvolvedList, as it is broadcast
+     */
+    public void publish(UUID invitationCode, String type, Object payload) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(invitationCode, type, payload);
+            return;
+        }
+        Log log = log(invitationCode);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean pending;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                enter(log);
+                pending = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                append(invitationCode, type, payload);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (pending)
+                    leave(log);
+            }
+        });
+    }
+
+    /**
+     * Marks a change of an event as pending until the transaction of the caller completes,
+     * for changes that are visible before their transaction commits, e.g. changes kept in memory.
+     * Waits while a snapshot of the event is read, call it before the change is made.
+     * @param invitationCode the invitation code of the event
+     */
+    public void beginChange(UUID invitationCode) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+        Log log = log(invitationCode);
+        enter(log);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                leave(log);
+            }
+        });
+    }
+
+    /**
+     * Reads a snapshot of an event together with the sequence number of the last change it contains.
+     * Waits until the pending changes of the event are numbered, for at most a second,
+     * and keeps new changes from committing while the snapshot is read.
+     * @param invitationCode the invitation code of the event
+     * @param read reads the snapshot, given the epoch and the sequence number of the last change
+     * @param <T> type of the snapshot
+     * @return the snapshot
+     */
+    public <T> T readConsistently(UUID invitationCode, Function<EventChanges, T> read) {
+        Log log = log(invitationCode);
+        // A nested read, e.g. loading an event into memory while reading its snapshot, already waited
+        boolean nested = Thread.holdsLock(log);
+        synchronized (log) {
+            if (!nested)
+                awaitPending(log);
+            return read.apply(new EventChanges(invitationCode, log.epoch, log.sequence, false, new ArrayList<>()));
+        }
+    }
+
+    private Log log(UUID invitationCode) {
+        return logs.computeIfAbsent(invitationCode, key -> new Log(UUID.randomUUID()));
+    }
+
+    private static void enter(Log log) {
+        synchronized (log) {
+            log.pending++;
+        }
+    }
+
+    private static void leave(Log log) {
+        synchronized (log) {
+            log.pending--;
+            log.notifyAll();
+        }
+    }
+
+    private static void awaitPending(Log log) {
+        long deadline = System.currentTimeMillis() + PENDING_TIMEOUT_MILLIS;
+        long remaining = PENDING_TIMEOUT_MILLIS;
+        try {
+            while (log.pending > 0 && remaining > 0) {
+                log.wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void append(UUID invitationCode, String type, Object payload) {
+        Log log = log(invitationCode);
+        // Broadcasting while holding the log keeps the broadcasts of an event in sequence order
+        synchronized (log) {
+            long sequence = ++log.sequence;
+            log.changes.addLast(change(sequence, type, payload));
+            if (log.changes.size() > capacity)
+                log.changes.removeFirst();
+            template.convertAndSend("/topic/" + invitationCode + "/" + type, payload,
+                    Map.of(EPOCH_HEADER, log.epoch.toString(), SEQUENCE_HEADER, String.valueOf(sequence)));
+        }
+    }
+
+    /**
+     * Returns the changes of an event after the provided sequence number
+     * @param invitationCode the invitation code of the event
+     * @param epoch the epoch of the sequence number, null if the client does not know it
+     * @param since the last sequence number seen by the client
+     * @return the later changes, or an answer with snapshotRequired set if they are not all known,
+     * in both cases with the current epoch and sequence number
+     */
+    public EventChanges changesSince(UUID invitationCode, UUID epoch, long since) {
+        Log log = log(invitationCode);
+        synchronized (log) {
+            long oldest = log.changes.isEmpty() ? log.sequence + 1 : log.changes.getFirst().getSequence();
+            if (!log.epoch.equals(epoch) || since > log.sequence || since < oldest - 1)
+                return new EventChanges(invitationCode, log.epoch, log.sequence, true, new ArrayList<>());
+
+            List<EventChange> changes = new ArrayList<>();
+            for (EventChange change : log.changes) {
+                if (change.getSequence() > since)
+                    changes.add(change);
+            }
+            return new EventChanges(invitationCode, log.epoch, log.sequence, false, changes);
+        }
+    }
+
+    /**
+     * Returns the current epoch and sequence number of an event, without any changes
+     * @param invitationCode the invitation code of the event
+     * @return the epoch and the sequence number of the last change
+     */
+    public EventChanges current(UUID invitationCode) {
+        Log log = log(invitationCode);
+        synchronized (log) {
+            return new EventChanges(invitationCode, log.epoch, log.sequence, false, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Forgets the changes of an event, e.g. after it was deleted or replaced by an import.
+     * Clients have to read the event again, as the next change starts a new epoch.
+     * @param invitationCode the invitation code of the event
+     */
+    public void forget(UUID invitationCode) {
+        afterCommit(() -> logs.remove(invitationCode));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static EventChange change(long sequence, String type, Object payload) {
+        EventChange change = new EventChange(sequence, type);
+        if (payload instanceof Event event)
+            change.setEvent(event);
+        else if (payload instanceof Participant participant)
+            change.setParticipant(participant);
+        else if (payload instanceof Expense expense)
+            change.setExpense(expense);
+        else if (payload instanceof InvolvedList involveds)
+            change.setInvolveds(involveds);
+        else
+            throw new IllegalArgumentException("Unsupported change payload " + payload);
+        return change;
+    }
+
+    /**
+     * The changes of a single event
+     */
+    private static final class Log {
+        private final UUID epoch;
+        private final Deque<EventChange> changes = new ArrayDeque<>();
+        private long sequence;
+        private int pending;
+
+        private Log(UUID epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package server;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.Event;
+import commons.Expense;
+import commons.Involved;
+import commons.Participant;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import server.database.EventRepository;
+import server.database.ExpenseDumpRow;
+import server.database.ExpenseRepository;
+import server.database.ParticipantDumpRow;
+import server.database.ParticipantRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Service for writing the json dump of a whole event to a stream.
+ * The dump has the same shape as a serialized Event with its participants, expenses and involveds,
+ * so it can be imported again, but it is written while two scrolling queries are read,
+ * so memory use does not depend on the size of the event.
+ */
+@Service
+public class EventDumpService {
+
+    private final EventRepository eventRepository;
+    private final ParticipantRepository participantRepository;
+    private final ExpenseRepository expenseRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Constructor for EventDumpService
+     * @param eventRepository the event repository
+     * @param participantRepository the participant repository
+     * @param expenseRepository the expense repository
+     * @param objectMapper the object mapper used to write dates and ids
+     * @param transactionManager the transaction manager, the dump is written in its own read-only transaction
+     */
+    @Autowired
+    public EventDumpService(EventRepository eventRepository, ParticipantRepository participantRepository,
+                            ExpenseRepository expenseRepository, ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager) {
+        this.eventRepository = eventRepository;
+        this.participantRepository = participantRepository;
+        this.expenseRepository = expenseRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Writes the dump of an event to the provided stream.
+     * Does not close the stream.
+     *
+     * @param invitationCode the invitation code of the event
+     * @param out the stream to write to
+     * @throws IOException if writing to the stream fails
+     * @throws NoSuchElementException if the event does not exist
+     */
+    public void writeEvent(UUID invitationCode, OutputStream out) throws IOException {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    write(invitationCode, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Reads an event with its participants, expenses and involveds, so it can be serialized
+     * after the transaction of the caller ended. Has to be called inside a transaction.
+     * The participants with the expenses they paid for and the expenses with their involveds are read
+     * in one statement each, so the number of statements does not depend on the size of the event.
+     *
+     * @param invitationCode the invitation code of the event
+     * @return the event with all its associations initialized
+     */
+    public Event readEvent(UUID invitationCode) {
+        participantRepository.findAllWithMadeExpensesByInvitationCode(invitationCode);
+        expenseRepository.findAllWithInvolvedsByInvitationCode(invitationCode);
+
+        Event event = eventRepository.getReferenceById(invitationCode);
+        // only expenses without involveds are still left to be initialized here
+        for (Participant participant : event.getParticipants()) {
+            for (Expense expense : participant.getMadeExpenses()) {
+                for (Involved involved : expense.getInvolveds())
+                    involved.getParticipant();
+            }
+        }
+        return event;
+    }
+
+    private void write(UUID invitationCode, OutputStream out) throws IOException {
+        Event event = eventRepository.findById(invitationCode).orElseThrow();
+        JsonGenerator generator = objectMapper.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        generator.writeStartObject();
+        generator.writeObjectField("id", event.getId());
+        generator.writeStringField("title", event.getTitle());
+        generator.writeObjectField("creationDate", event.getCreationDate());
+        generator.writeObjectField("lastActivity", event.getLastActivity());
+        generator.writeArrayFieldStart("participants");
+
+        // Both queries are ordered by participant, so the expenses of every participant
+        // are read right after the participant itself.
+        try (Stream<ParticipantDumpRow> participants = participantRepository
+                .streamDumpRowsByInvitationCode(invitationCode);
+             Stream<ExpenseDumpRow> expenseRows = expenseRepository
+                .streamDumpRowsByInvitationCode(invitationCode)) {
+            Iterator<ExpenseDumpRow> rows = expenseRows.iterator();
+            ExpenseDumpRow row = rows.hasNext() ? rows.next() : null;
+            for (Iterator<ParticipantDumpRow> it = participants.iterator(); it.hasNext();) {
+                ParticipantDumpRow participant = it.next();
+                writeParticipantStart(generator, participant, invitationCode);
+                while (row != null && row.getPaidById().equals(participant.getId()))
+                    row = writeExpense(generator, row, rows, invitationCode);
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        }
+
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    private static void writeParticipantStart(JsonGenerator generator, ParticipantDumpRow participant,
+                                              UUID invitationCode) throws IOException {
+        generator.writeStartObject();
+        generator.writeObjectField("id", participant.getId());
+        generator.writeStringField("firstName", participant.getFirstName());
+        generator.writeStringField("lastName", participant.getLastName());
+        generator.writeStringField("iban", participant.getIban());
+        generator.writeStringField("bic", participant.getBic());
+        generator.writeObjectField("eventId", invitationCode);
+        generator.writeArrayFieldStart("madeExpenses");
+    }
+
+    /**
+     * Writes an expense and all of its involveds, which are the rows following the provided one
+     * with the same expense id
+     * @return the first row of the next expense, or null if there are no rows left
+     */
+    private static ExpenseDumpRow writeExpense(JsonGenerator generator, ExpenseDumpRow first,
+                                               Iterator<ExpenseDumpRow> rows, UUID invitationCode)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeObjectField("id", first.getExpenseId());
+        generator.writeStringField("title", first.getTitle());
+        generator.writeNumberField("amount", first.getAmount());
+        generator.writeObjectField("date", first.getDate());
+        generator.writeObjectField("paidById", first.getPaidById());
+        generator.writeObjectField("invitationCode", invitationCode);
+        generator.writeArrayFieldStart("involveds");
+
+        ExpenseDumpRow row = first;
+        while (row != null && row.getExpenseId().equals(first.getExpenseId())) {
+            if (row.getInvolvedId() != null)
+                writeInvolved(generator, row, invitationCode);
+            row = rows.hasNext() ? rows.next() : null;
+        }
+
+        generator.writeEndArray();
+        generator.writeEndObject();
+        return row;
+    }
+
+    private static void writeInvolved(JsonGenerator generator, ExpenseDumpRow row, UUID invitationCode)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeObjectField("id", row.getInvolvedId());
+        generator.writeBooleanField("isSettled", row.getSettled());
+        generator.writeObjectField("expenseId", row.getExpenseId());
+        generator.writeObjectField("participantId", row.getParticipantId());
+        generator.writeObjectField("invitationCode", invitationCode);
+        generator.writeObjectFieldStart("participant");
+        generator.writeObjectField("id", row.getParticipantId());
+        generator.writeEndObject();
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,153 @@
+package server;
+
+import commons.Event;
+import commons.Expense;
+import commons.Involved;
+import commons.InvolvedList;
+import commons.Participant;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import server.database.ExpenseRepository;
+import server.database.InvolvedRepository;
+import server.database.ParticipantRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Service for importing a whole event (e.g. a json dump) into the database.
+ * Rows are persisted directly through the EntityManager, so that Hibernate can group them into
+ * JDBC batches, and the persistence context is flushed and cleared every batch,
+ * so that its size does not grow with the size of the event.
+ * Runs in the transaction of the caller.
+ */
+@Service
+public class EventImportService {
+
+    private final EntityManager entityManager;
+    private final ParticipantRepository participantRepository;
+    private final ExpenseRepository expenseRepository;
+    private final InvolvedRepository involvedRepository;
+    private final int batchSize;
+
+    /**
+     * Constructor for EventImportService
+     * @param entityManager the entity manager
+     * @param participantRepository the participant repository
+     * @param expenseRepository the expense repository
+     * @param involvedRepository the involved repository
+     * @param batchSize number of rows after which the persistence context is flushed and cleared
+     */
+    @Autowired
+    public EventImportService(EntityManager entityManager, ParticipantRepository participantRepository,
+                              ExpenseRepository expenseRepository, InvolvedRepository involvedRepository,
+                              @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}") int batchSize) {
+        this.entityManager = entityManager;
+        this.participantRepository = participantRepository;
+        this.expenseRepository = expenseRepository;
+        this.involvedRepository = involvedRepository;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports the provided event, replacing all participants, expenses and involveds
+     * if an event with the same invitation code already exists.
+     * Ids of participants, expenses and involveds are generated anew.
+     *
+     * @param receivedEvent the event to import, with its participants, their made expenses and their involveds
+     * @return a plain copy of the saved event, without participants
+     * @throws IllegalArgumentException if the event contains a null entity or references an unknown participant
+     */
+    public Event importEvent(Event receivedEvent) throws IllegalArgumentException {
+        validate(receivedEvent);
+        int pendingRows = 0;
+
+        Event event = entityManager.find(Event.class, receivedEvent.getId());
+        if (event == null) {
+            event = new Event(receivedEvent.getId(), receivedEvent.getTitle(), receivedEvent.getCreationDate(),
+                    receivedEvent.getLastActivity());
+            entityManager.persist(event);
+        } else {
+            involvedRepository.deleteAllByInvitationCode(event.getId());
+            expenseRepository.deleteAllByInvitationCode(event.getId());
+            participantRepository.deleteAllByInvitationCode(event.getId());
+            // Bulk deletes bypass the persistence context, drop whatever it still holds of the old event.
+            entityManager.clear();
+            event = entityManager.find(Event.class, receivedEvent.getId());
+            event.setTitle(receivedEvent.getTitle());
+            event.setCreationDate(receivedEvent.getCreationDate());
+            event.setLastActivity(receivedEvent.getLastActivity());
+        }
+        Event savedEvent = new Event(event.getId(), event.getTitle(), event.getCreationDate(),
+                event.getLastActivity());
+
+        // Participants stay referenced after the persistence context is cleared,
+        // Hibernate only needs their ids to write the foreign keys of expenses and involveds.
+        Map<UUID, Participant> participants = new HashMap<>();
+        for (Participant receivedParticipant : receivedEvent.getParticipants()) {
+            Participant participant = new Participant(event, receivedParticipant.getFirstName(),
+                    receivedParticipant.getLastName(), receivedParticipant.getIban(), receivedParticipant.getBic());
+            entityManager.persist(participant);
+            participants.put(receivedParticipant.getId(), participant);
+            pendingRows = rowsPersisted(pendingRows + 1);
+        }
+        for (Participant receivedParticipant : receivedEvent.getParticipants()) {
+            Participant paidBy = participants.get(receivedParticipant.getId());
+            for (Expense receivedExpense : receivedParticipant.getMadeExpenses())
+                pendingRows = rowsPersisted(pendingRows + persistExpense(receivedExpense, paidBy, participants));
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        return savedEvent;
+    }
+
+    private int persistExpense(Expense receivedExpense, Participant paidBy, Map<UUID, Participant> participants) {
+        Expense expense = new Expense(paidBy, receivedExpense.getTitle(), receivedExpense.getAmount(),
+                receivedExpense.getDate(), new InvolvedList());
+        for (Involved receivedInvolved : receivedExpense.getInvolveds()) {
+            Participant participant = participants.get(receivedInvolved.getParticipant().getId());
+            expense.getInvolveds().add(new Involved(receivedInvolved.getIsSettled(), expense, participant));
+        }
+        entityManager.persist(expense);
+        return 1 + expense.getInvolveds().size();
+    }
+
+    // Flushes and clears the persistence context once a batch of rows is pending, returns the rows still pending
+    private int rowsPersisted(int pendingRows) {
+        if (pendingRows < batchSize)
+            return pendingRows;
+        entityManager.flush();
+        entityManager.clear();
+        return 0;
+    }
+
+    private static void validate(Event receivedEvent) throws IllegalArgumentException {
+        if (receivedEvent == null || receivedEvent.getId() == null || receivedEvent.getParticipants() == null)
+            throw new IllegalArgumentException("Event, its id and its participants should not be null");
+        Map<UUID, Participant> participants = new HashMap<>();
+        for (Participant participant : receivedEvent.getParticipants()) {
+            if (participant == null || participant.getId() == null || participant.getMadeExpenses() == null)
+                throw new IllegalArgumentException("Participant and its id should not be null");
+            participants.put(participant.getId(), participant);
+        }
+        for (Participant participant : receivedEvent.getParticipants()) {
+            for (Expense expense : participant.getMadeExpenses())
+                validate(expense, participants);
+        }
+    }
+
+    private static void validate(Expense expense, Map<UUID, Participant> participants)
+            throws IllegalArgumentException {
+        if (expense == null || expense.getInvolveds() == null)
+            throw new IllegalArgumentException("Expense and its involveds should not be null");
+        for (Involved involved : expense.getInvolveds()) {
+            if (involved == null || involved.getParticipant() == null
+                    || !participants.containsKey(involved.getParticipant().getId()))
+                throw new IllegalArgumentException("Involved should reference a participant of the event");
+        }
+    }
+}
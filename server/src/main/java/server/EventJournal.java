@@ -0,0 +1,218 @@
+package server;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.Expense;
+import commons.Involved;
+import commons.Participant;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of the changes made to events kept in memory by the EventAggregateStore.
+ * Every change is written as one json line to the current segment file, which is only synced to disk
+ * when sync is called, so many changes share one fsync. The store rotates the journal before it writes
+ * the events to the database, and deletes the sealed segments once they are written.
+ * The journal directory is only created when the first change is appended.
+ */
+@Service
+public class EventJournal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final ObjectMapper objectMapper;
+
+    private FileChannel segment;
+    private long segmentNumber;
+    private boolean unsynced;
+
+    /**
+     * Constructor for EventJournal
+     * @param directory the directory the segment files are written to
+     * @param objectMapper the object mapper the changes are written with
+     */
+    @Autowired
+    public EventJournal(@Value("${splitty.persistence.journal.directory:./journal}") Path directory,
+                        ObjectMapper objectMapper) {
+        this.directory = directory;
+        // read-only properties of the entities, e.g. the amount owed, are written but cannot be read back
+        this.objectMapper = objectMapper.copy().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Appends a change to the current segment, opening a new segment if there is none.
+     * The change is durable after the next sync.
+     * @param entry the change
+     * @throws UncheckedIOException if the change could not be written
+     */
+    public synchronized void append(Entry entry) throws UncheckedIOException {
+        try {
+            byte[] line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+            if (segment == null)
+                openSegment();
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining())
+                segment.write(buffer);
+            unsynced = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Forces the changes appended since the last sync to disk
+     * @throws UncheckedIOException if the segment could not be synced
+     */
+    public synchronized void sync() throws UncheckedIOException {
+        if (segment == null || !unsynced)
+            return;
+        try {
+            segment.force(false);
+            unsynced = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Syncs and closes the current segment, the next change is appended to a new one
+     * @return the sealed segments, oldest first, including those sealed by earlier rotations or left by a crash
+     * @throws UncheckedIOException if the segment could not be synced or the directory not listed
+     */
+    public synchronized List<Path> rotate() throws UncheckedIOException {
+        try {
+            if (segment != null) {
+                sync();
+                segment.close();
+                segment = null;
+            }
+            return segments();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the changes of the given segments. A torn last line, left by a crash while it was written, is skipped.
+     * @param segments the segments to read, oldest first
+     * @return the changes in the order they were appended
+     * @throws UncheckedIOException if a segment could not be read or holds a line that cannot be parsed
+     */
+    public List<Entry> read(List<Path> segments) throws UncheckedIOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Path path : segments) {
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String line = reader.readLine();
+                while (line != null) {
+                    String next = reader.readLine();
+                    Entry entry = parse(line, next == null);
+                    if (entry != null)
+                        entries.add(entry);
+                    line = next;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return entries;
+    }
+
+    private Entry parse(String line, boolean last) throws IOException {
+        try {
+            return line.isBlank() ? null : objectMapper.readValue(line, Entry.class);
+        } catch (JsonProcessingException e) {
+            if (last)
+                return null;
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes segments whose changes were written to the database
+     * @param segments the segments to delete
+     * @throws UncheckedIOException if a segment could not be deleted
+     */
+    public void delete(List<Path> segments) throws UncheckedIOException {
+        try {
+            for (Path path : segments)
+                Files.deleteIfExists(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        if (!Files.isDirectory(directory))
+            return new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> segmentNumber(path) >= 0)
+                    .sorted(Comparator.comparingLong(EventJournal::segmentNumber))
+                    .toList();
+        }
+    }
+
+    private void openSegment() throws IOException {
+        Files.createDirectories(directory);
+        for (Path path : segments())
+            segmentNumber = Math.max(segmentNumber, segmentNumber(path));
+        segmentNumber++;
+        segment = FileChannel.open(directory.resolve(SEGMENT_PREFIX + segmentNumber + SEGMENT_SUFFIX),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX))
+            return -1;
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Kinds of changes in the journal
+     */
+    public enum Type {
+        PARTICIPANT_SAVED,
+        PARTICIPANT_DELETED,
+        EXPENSE_SAVED,
+        EXPENSE_DELETED,
+        INVOLVEDS_UPDATED
+    }
+
+    /**
+     * A change of an event, as it is written to the journal.
+     * Applying a change again, on top of a state that already contains it, has no further effect.
+     *
+     * @param type the kind of change
+     * @param invitationCode the invitation code of the changed event
+     * @param participant the saved participant, for PARTICIPANT_SAVED
+     * @param expense the saved expense with its involveds, for EXPENSE_SAVED
+     * @param involveds the updated involveds, for INVOLVEDS_UPDATED
+     * @param id the id of the deleted participant or expense, for PARTICIPANT_DELETED and EXPENSE_DELETED
+     */
+    public record Entry(Type type, UUID invitationCode, Participant participant, Expense expense,
+                        List<Involved> involveds, UUID id) {
+    }
+}
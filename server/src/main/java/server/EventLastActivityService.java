@@ -1,50 +1,135 @@
 package server;
 
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import server.database.EventRepository;
 import commons.Event;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Service for updating the last activity of an event
+ * Service for updating the last activity of an event.
+ * Activity is only recorded in memory and written to the database in the background,
+ * every flush interval and at shutdown. All activity of an event within one interval
+ * results in a single write and a single admin update.
  */
 @Service
 public class EventLastActivityService {
 
     private final EventRepository eventRepository;
     private final SimpMessagingTemplate template;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<UUID, LocalDateTime> pending;
+
+    private final AtomicLong recordedUpdates = new AtomicLong();
+    private final AtomicLong coalescedUpdates = new AtomicLong();
+    private final AtomicLong flushedEvents = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
 
     /**
      * Constructor for EventLastActivityService
      * @param eventRepository the event repository
      * @param template the messaging template
+     * @param transactionManager the transaction manager, every flush runs in its own transaction
+     * @param jdbcTemplate the JDBC template used to write all recorded activity in one batch
      */
     @Autowired
-    public EventLastActivityService(EventRepository eventRepository, SimpMessagingTemplate template) {
+    public EventLastActivityService(EventRepository eventRepository, SimpMessagingTemplate template,
+                                    PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate) {
         this.eventRepository = eventRepository;
         this.template = template;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.pending = new ConcurrentHashMap<>();
     }
 
     /**
-     * Updates the last activity of an event
+     * Records activity in an event, the last activity is written on the next flush
      * @param invitationCode the invitation code of the event
      */
     public void updateLastActivity(UUID invitationCode) {
-        Event tempEvent;
-        try {
-            tempEvent = eventRepository.getReferenceById(invitationCode);
-        } catch (Exception e) {
-            System.out.println("Event not found");
+        if (invitationCode == null)
             return;
+        recordedUpdates.incrementAndGet();
+        if (pending.put(invitationCode, LocalDateTime.now()) != null)
+            coalescedUpdates.incrementAndGet();
+    }
+
+    /**
+     * Writes the recorded activity of all events in a single batched update statement,
+     * every event gets its own last activity, and sends one admin update for every event that was changed.
+     * Runs every flush interval, set with splitty.last-activity.flush-interval in milliseconds.
+     */
+    @Scheduled(fixedDelayString = "${splitty.last-activity.flush-interval:1000}")
+    @PreDestroy
+    public void flush() {
+        if (pending.isEmpty())
+            return;
+        Map<UUID, LocalDateTime> drained = new HashMap<>();
+        for (UUID invitationCode : pending.keySet()) {
+            LocalDateTime lastActivity = pending.remove(invitationCode);
+            if (lastActivity != null)
+                drained.put(invitationCode, lastActivity);
         }
+        if (drained.isEmpty())
+            return;
+        List<Object[]> rows = new ArrayList<>(drained.size());
+        drained.forEach((invitationCode, lastActivity) ->
+                rows.add(new Object[] {lastActivity, invitationCode, lastActivity}));
 
-        tempEvent.setLastActivity(LocalDateTime.now());
-        eventRepository.save(tempEvent);
-        Event sentEvent = new Event(tempEvent.getId(), tempEvent.getTitle(), tempEvent.getCreationDate(),
-                tempEvent.getLastActivity());
-        template.convertAndSend("/topic/admin/event:update", sentEvent);
+        List<Event> events = transactionTemplate.execute(status -> {
+            jdbcTemplate.batchUpdate("UPDATE event SET last_activity = ? WHERE id = ? "
+                    + "AND (last_activity IS NULL OR last_activity < ?)", rows);
+            return eventRepository.findAllById(drained.keySet());
+        });
+        flushes.incrementAndGet();
+        if (events == null)
+            return;
+        for (Event event : events) {
+            flushedEvents.incrementAndGet();
+            template.convertAndSend("/topic/admin/event:update", new Event(event.getId(), event.getTitle(),
+                    event.getCreationDate(), event.getLastActivity()));
+        }
+    }
+
+    /**
+     * Getter for the number of times activity was recorded
+     * @return number of calls to updateLastActivity
+     */
+    public long getRecordedUpdates() {
+        return recordedUpdates.get();
+    }
+
+    /**
+     * Getter for the number of recorded activities that were merged with an earlier one of the same event
+     * @return number of writes that were saved by coalescing
+     */
+    public long getCoalescedUpdates() {
+        return coalescedUpdates.get();
+    }
+
+    /**
+     * Getter for the number of event rows written
+     * @return number of events updated over all flushes
+     */
+    public long getFlushedEvents() {
+        return flushedEvents.get();
+    }
+
+    /**
+     * Getter for the number of flushes that wrote to the database
+     * @return number of flushes
+     */
+    public long getFlushes() {
+        return flushes.get();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,98 @@
+package server;
+
+import commons.Event;
+import commons.EventChanges;
+import commons.Expense;
+import commons.ExpenseList;
+import commons.Involved;
+import commons.InvolvedList;
+import commons.Participant;
+import commons.ParticipantList;
+import commons.StatusEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import server.database.EventRepository;
+import server.database.ExpenseRepository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Service reading an event with its participants and expenses at once, so a client joining an event
+ * needs a single request instead of reading the event, the participants and the expenses one after another.
+ * The snapshot is read in one read-only repeatable read transaction, together with the sequence number
+ * of the last change it contains, so the client can tell which of the broadcast changes it still has to apply.
+ * Changes of the event wait to commit until the snapshot is read, see EventChangeLog.readConsistently.
+ */
+@Service
+public class EventSnapshotService {
+
+    private final EventRepository eventRepository;
+    private final ExpenseRepository expenseRepository;
+    private final EventChangeLog changeLog;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Constructor for EventSnapshotService
+     * @param eventRepository the event repository
+     * @param expenseRepository the expense repository
+     * @param changeLog the change log the sequence number of the snapshot is read from
+     * @param transactionManager the transaction manager, the snapshot is read in its own read-only transaction
+     */
+    @Autowired
+    public EventSnapshotService(EventRepository eventRepository, ExpenseRepository expenseRepository,
+                                EventChangeLog changeLog, PlatformTransactionManager transactionManager) {
+        this.eventRepository = eventRepository;
+        this.expenseRepository = expenseRepository;
+        this.changeLog = changeLog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Reads the snapshot of an event
+     * @param invitationCode the invitation code of the event
+     * @return a StatusEntity with the event, its participants, its expenses and the current change sequence number,
+     * or a not found StatusEntity if the event does not exist
+     */
+    public StatusEntity readSnapshot(UUID invitationCode) {
+        // No change of the event commits while the snapshot is read, so it contains exactly the changes
+        // up to the sequence number it is read with
+        return changeLog.readConsistently(invitationCode,
+                changes -> transactionTemplate.execute(status -> read(invitationCode, changes)));
+    }
+
+    private StatusEntity read(UUID invitationCode, EventChanges changes) {
+        Optional<Event> found = eventRepository.findById(invitationCode);
+        if (found.isEmpty())
+            return StatusEntity.notFound(true, "Event with provided Invitation code does not exist");
+
+        Event event = found.get();
+        Event sentEvent = new Event(event.getId(), event.getTitle(), event.getCreationDate(), event.getLastActivity());
+
+        ParticipantList participants = new ParticipantList();
+        for (Participant participant : event.getParticipants()) {
+            participants.add(new Participant(participant.getId(), participant.getFirstName(),
+                    participant.getLastName(), participant.getIban(), participant.getBic(), invitationCode));
+        }
+
+        ExpenseList expenses = new ExpenseList();
+        for (Expense expense : expenseRepository.findAllWithInvolvedsByInvitationCode(invitationCode)) {
+            InvolvedList involveds = new InvolvedList();
+            for (Involved involved : expense.getInvolveds()) {
+                involveds.add(new Involved(involved.getId(), involved.getIsSettled(), expense.getId(),
+                        involved.getParticipant().getId(), invitationCode));
+            }
+            Expense sentExpense = new Expense(expense.getId(), expense.getTitle(), expense.getAmount(),
+                    expense.getPaidBy().getId(), invitationCode, expense.getDate(), involveds);
+            sentExpense.setAmountOwed(sentExpense.getAmount() / involveds.size());
+            expenses.add(sentExpense);
+        }
+
+        return StatusEntity.ok(sentEvent, participants, expenses, changes);
+    }
+}
@@ -2,6 +2,8 @@ package server;
 
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.UUID;
 
 /**
@@ -29,6 +31,17 @@ public class PasswordService {
         return adminPassword;
     }
 
+    /**
+     * Checks a password against the admin password, in time independent of where they differ
+     *
+     * @param password the password to check, may be null
+     * @return true if the password is the admin password
+     */
+    public boolean isAdminPassword(String password) {
+        return password != null && MessageDigest.isEqual(adminPassword.getBytes(StandardCharsets.UTF_8),
+                password.getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * Prints a banner with the given password
      *
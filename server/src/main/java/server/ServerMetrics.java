@@ -0,0 +1,128 @@
+package server;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes the counters the services of the server keep as meters:
+ * the long-polling waiters, the entity lookup cache, the event aggregate store,
+ * the last activity writes and the pools of the STOMP channels.
+ * The values are read from the services when the metrics are scraped.
+ */
+@Component
+public class ServerMetrics implements MeterBinder {
+
+    private final UpdateWaiterRegistry waiterRegistry;
+    private final EntityLookupCache lookupCache;
+    private final EventAggregateStore aggregates;
+    private final EventLastActivityService lastActivityService;
+    private final ChannelExecutorStats executorStats;
+
+    /**
+     * Constructor for ServerMetrics
+     * @param waiterRegistry the registry of the long-polling waiters
+     * @param lookupCache the entity lookup cache
+     * @param aggregates the store of the events kept in memory
+     * @param lastActivityService the service writing the last activity of events
+     * @param executorStats the statistics of the executors of the STOMP channels
+     */
+    @Autowired
+    public ServerMetrics(UpdateWaiterRegistry waiterRegistry, EntityLookupCache lookupCache,
+                         EventAggregateStore aggregates, EventLastActivityService lastActivityService,
+                         ChannelExecutorStats executorStats) {
+        this.waiterRegistry = waiterRegistry;
+        this.lookupCache = lookupCache;
+        this.aggregates = aggregates;
+        this.lastActivityService = lastActivityService;
+        this.executorStats = executorStats;
+    }
+
+    /**
+     * Registers the meters
+     * @param registry the registry to register the meters in
+     */
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        bindWaiters(registry);
+        bindLookupCache(registry);
+        bindAggregates(registry);
+        bindLastActivity(registry);
+        bindExecutors(registry);
+    }
+
+    private void bindWaiters(MeterRegistry registry) {
+        gauge(registry, "splitty.updates.waiters", waiterRegistry, UpdateWaiterRegistry::getWaiterCount);
+        gauge(registry, "splitty.updates.clients", waiterRegistry, UpdateWaiterRegistry::getClientCount);
+        gauge(registry, "splitty.updates.watched.events", waiterRegistry,
+                UpdateWaiterRegistry::getWatchedEventCount);
+        counter(registry, "splitty.updates.rejected", waiterRegistry, UpdateWaiterRegistry::getRejectedCount);
+    }
+
+    private void bindLookupCache(MeterRegistry registry) {
+        counter(registry, "splitty.entity.cache.hits", lookupCache, cache -> cache.stats().hits());
+        counter(registry, "splitty.entity.cache.misses", lookupCache, cache -> cache.stats().misses());
+        counter(registry, "splitty.entity.cache.evictions", lookupCache, cache -> cache.stats().evictions());
+        counter(registry, "splitty.entity.cache.invalidations", lookupCache,
+                cache -> cache.stats().invalidations());
+        Gauge.builder("splitty.entity.cache.size", lookupCache, cache -> cache.stats().events())
+                .tag("entity", "event")
+                .register(registry);
+        Gauge.builder("splitty.entity.cache.size", lookupCache, cache -> cache.stats().participants())
+                .tag("entity", "participant")
+                .register(registry);
+    }
+
+    private void bindAggregates(MeterRegistry registry) {
+        gauge(registry, "splitty.persistence.events", aggregates, store -> store.stats().events());
+        counter(registry, "splitty.persistence.loads", aggregates, store -> store.stats().loads());
+        counter(registry, "splitty.persistence.evictions", aggregates, store -> store.stats().evictions());
+        counter(registry, "splitty.persistence.appended", aggregates, store -> store.stats().appended());
+        counter(registry, "splitty.persistence.compactions", aggregates, store -> store.stats().compactions());
+        counter(registry, "splitty.persistence.written", aggregates, store -> store.stats().written());
+    }
+
+    private void bindLastActivity(MeterRegistry registry) {
+        counter(registry, "splitty.last.activity.recorded", lastActivityService,
+                EventLastActivityService::getRecordedUpdates);
+        counter(registry, "splitty.last.activity.coalesced", lastActivityService,
+                EventLastActivityService::getCoalescedUpdates);
+        counter(registry, "splitty.last.activity.flushed.events", lastActivityService,
+                EventLastActivityService::getFlushedEvents);
+        counter(registry, "splitty.last.activity.flushes", lastActivityService,
+                EventLastActivityService::getFlushes);
+    }
+
+    private void bindExecutors(MeterRegistry registry) {
+        for (String channel : executorStats.getStats().keySet()) {
+            executorGauge(registry, "splitty.stomp.executor.threads", channel, ChannelExecutorStats.Stats::poolSize);
+            executorGauge(registry, "splitty.stomp.executor.active", channel, ChannelExecutorStats.Stats::activeCount);
+            executorGauge(registry, "splitty.stomp.executor.queued", channel, ChannelExecutorStats.Stats::queueSize);
+            FunctionCounter.builder("splitty.stomp.executor.completed", executorStats,
+                            stats -> stats.getStats().get(channel).completedTaskCount())
+                    .tag("channel", channel)
+                    .register(registry);
+        }
+    }
+
+    private void executorGauge(MeterRegistry registry, String name, String channel,
+                               ToDoubleFunction<ChannelExecutorStats.Stats> value) {
+        Gauge.builder(name, executorStats, stats -> value.applyAsDouble(stats.getStats().get(channel)))
+                .tag("channel", channel)
+                .register(registry);
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value) {
+        Gauge.builder(name, source, value).register(registry);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, T source, ToDoubleFunction<T> value) {
+        FunctionCounter.builder(name, source, value).register(registry);
+    }
+}
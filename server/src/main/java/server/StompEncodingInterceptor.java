@@ -0,0 +1,94 @@
+package server;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.SmileMessageConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.DefaultContentTypeResolver;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Channel interceptor answering every session in the encoding it sends its frames in.
+ * On the inbound channel it records which sessions send Smile frames, on the outbound channel
+ * it transcodes the JSON frames to those sessions to Smile. The frames of a broadcast share their payload,
+ * so the payload is transcoded once and the result is reused for the other subscribers.
+ * Sessions that send JSON, or nothing with a content type at all, are answered in JSON.
+ */
+public class StompEncodingInterceptor implements ChannelInterceptor {
+
+    private final ObjectMapper jsonMapper = new ObjectMapper();
+    private final ObjectMapper smileMapper = SmileMessageConverter.createObjectMapper();
+    private final DefaultContentTypeResolver contentTypeResolver = new DefaultContentTypeResolver();
+    private final Set<String> smileSessions = ConcurrentHashMap.newKeySet();
+    private final Map<byte[], byte[]> transcoded = Collections.synchronizedMap(new WeakHashMap<>());
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (sessionId == null)
+            return message;
+        if (type == SimpMessageType.DISCONNECT) {
+            smileSessions.remove(sessionId);
+            return message;
+        }
+        if (type != SimpMessageType.MESSAGE)
+            return message;
+        // Frames sent to a subscription are outbound, the frames sent by the client have no subscription
+        if (SimpMessageHeaderAccessor.getSubscriptionId(headers) != null)
+            return smileSessions.contains(sessionId) ? toSmile(message) : message;
+        recordEncoding(sessionId, contentTypeResolver.resolve(headers));
+        return message;
+    }
+
+    /**
+     * Checks whether a session is answered in Smile
+     * @param sessionId id of the session
+     * @return true if the last frame of the session with a content type was encoded in Smile
+     */
+    public boolean isSmileSession(String sessionId) {
+        return smileSessions.contains(sessionId);
+    }
+
+    private void recordEncoding(String sessionId, MimeType contentType) {
+        if (SmileMessageConverter.isSmile(contentType))
+            smileSessions.add(sessionId);
+        else if (contentType != null)
+            smileSessions.remove(sessionId);
+    }
+
+    private Message<?> toSmile(Message<?> message) {
+        MimeType contentType = contentTypeResolver.resolve(message.getHeaders());
+        if (!(message.getPayload() instanceof byte[] json) || json.length == 0 || contentType == null
+                || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType))
+            return message;
+        byte[] smile = transcoded.get(json);
+        if (smile == null) {
+            try {
+                smile = smileMapper.writeValueAsBytes(jsonMapper.readTree(json));
+            } catch (IOException e) {
+                // The JSON frame is still understood by the client
+                return message;
+            }
+            transcoded.put(json, smile);
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setContentType(SmileMessageConverter.SMILE);
+        return MessageBuilder.createMessage(smile, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,36 @@
+package server;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+
+/**
+ * Records the exceptions thrown by the @MessageMapping handlers in the StompMetrics.
+ * Spring catches these exceptions before they reach the channel interceptors,
+ * the exception is thrown again so it is still logged, and no answer is sent, as before.
+ */
+@ControllerAdvice
+public class StompExceptionMetrics {
+
+    private final StompMetrics stompMetrics;
+
+    /**
+     * Constructor for StompExceptionMetrics
+     * @param stompMetrics the metrics the exceptions are recorded in
+     */
+    @Autowired
+    public StompExceptionMetrics(StompMetrics stompMetrics) {
+        this.stompMetrics = stompMetrics;
+    }
+
+    /**
+     * Records the exception of a handler as its outcome
+     * @param exception the exception thrown by the handler
+     * @throws Exception the same exception
+     */
+    @MessageExceptionHandler
+    public void handleException(Exception exception) throws Exception {
+        stompMetrics.handlerFailed();
+        throw exception;
+    }
+}
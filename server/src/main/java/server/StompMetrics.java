@@ -0,0 +1,277 @@
+package server;
+
+import commons.StatusEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageMappingInfo;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Metrics of the STOMP traffic of this node, scraped from /actuator/prometheus:
+ * splitty.stomp.inbound times the @MessageMapping handlers by destination and outcome, the outcome being ok,
+ * bad_request or not_found as answered, or exception;
+ * splitty.stomp.published counts the messages sent to the broker by destination, one per convertAndSend;
+ * splitty.stomp.outbound counts the frames written to the sessions and their bytes by destination;
+ * splitty.stomp.sessions and splitty.stomp.subscriptions are the connected sessions and their subscriptions.
+ * Ids in destinations are replaced by {id}, so all events share the same meters.
+ * As interceptor of the inbound channel it times the handlers and tracks the sessions,
+ * the other channels and the converters get the interceptors and the converter it hands out.
+ */
+@Service
+public class StompMetrics implements ExecutorChannelInterceptor {
+
+    private static final String APPLICATION_PREFIX = "/app";
+    private static final Pattern ID = Pattern.compile(
+            "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+    // the user name, or session id, in /user/{name}/queue/... and the session suffix of resolved user queues
+    private static final Pattern USER_NAME = Pattern.compile("^/user/[^/]+(?=/queue/|/topic/)");
+    private static final Pattern USER_SUFFIX = Pattern.compile("-user[^/]*$");
+
+    private final MeterRegistry registry;
+    private final Map<String, Set<String>> subscriptions = new ConcurrentHashMap<>();
+    private final ThreadLocal<Handling> handling = new ThreadLocal<>();
+    private final ChannelInterceptor brokerInterceptor = new BrokerInterceptor();
+    private final ChannelInterceptor outboundInterceptor = new OutboundInterceptor();
+    private final MessageConverter answerConverter = new AnswerConverter();
+    private volatile Set<String> handledDestinations;
+
+    /**
+     * Constructor for StompMetrics
+     * @param registry the registry the meters are registered in
+     */
+    @Autowired
+    public StompMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        Gauge.builder("splitty.stomp.sessions", subscriptions, Map::size)
+                .description("Connected STOMP sessions")
+                .register(registry);
+        Gauge.builder("splitty.stomp.subscriptions", this, StompMetrics::getSubscriptionCount)
+                .description("Subscriptions of the connected STOMP sessions")
+                .register(registry);
+    }
+
+    /**
+     * Interceptor for the broker channel, counting the messages published to each destination
+     * @return the interceptor
+     */
+    public ChannelInterceptor getBrokerInterceptor() {
+        return brokerInterceptor;
+    }
+
+    /**
+     * Interceptor for the outbound channel, counting the frames and bytes written to the sessions.
+     * It should come after the interceptors changing the payload, so the bytes are those written.
+     * @return the interceptor
+     */
+    public ChannelInterceptor getOutboundInterceptor() {
+        return outboundInterceptor;
+    }
+
+    /**
+     * Converter to put in front of the other message converters. It converts nothing,
+     * it only records the status of the answers of the handlers as the outcome of the handling.
+     * @return the converter
+     */
+    public MessageConverter getAnswerConverter() {
+        return answerConverter;
+    }
+
+    /**
+     * Records that the handler running on the current thread failed with an exception
+     */
+    public void handlerFailed() {
+        Handling current = handling.get();
+        if (current != null)
+            current.outcome = "exception";
+    }
+
+    /**
+     * Counts the subscriptions of the connected sessions
+     * @return number of subscriptions
+     */
+    public int getSubscriptionCount() {
+        int count = 0;
+        for (Set<String> sessionSubscriptions : subscriptions.values())
+            count += sessionSubscriptions.size();
+        return count;
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        if (sessionId != null && type != null)
+            trackSession(type, sessionId, SimpMessageHeaderAccessor.getSubscriptionId(headers));
+        return message;
+    }
+
+    private void trackSession(SimpMessageType type, String sessionId, String subscriptionId) {
+        switch (type) {
+            case CONNECT -> subscriptions.putIfAbsent(sessionId, ConcurrentHashMap.newKeySet());
+            case SUBSCRIBE -> updateSubscription(sessionId, subscriptionId, true);
+            case UNSUBSCRIBE -> updateSubscription(sessionId, subscriptionId, false);
+            // sent by the client and again when the connection closes
+            case DISCONNECT -> subscriptions.remove(sessionId);
+            default -> {
+            }
+        }
+    }
+
+    private void updateSubscription(String sessionId, String subscriptionId, boolean subscribed) {
+        if (subscriptionId == null)
+            return;
+        // sessions that already disconnected are not added again
+        subscriptions.computeIfPresent(sessionId, (id, sessionSubscriptions) -> {
+            if (subscribed)
+                sessionSubscriptions.add(subscriptionId);
+            else
+                sessionSubscriptions.remove(subscriptionId);
+            return sessionSubscriptions;
+        });
+    }
+
+    @Override
+    public Message<?> beforeHandle(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                   @NonNull MessageHandler handler) {
+        if (handler instanceof SimpAnnotationMethodMessageHandler annotationHandler
+                && SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) == SimpMessageType.MESSAGE) {
+            String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+            handling.set(new Handling(handledDestination(annotationHandler, destination), System.nanoTime()));
+        }
+        return message;
+    }
+
+    @Override
+    public void afterMessageHandled(@NonNull Message<?> message, @NonNull MessageChannel channel,
+                                    @NonNull MessageHandler handler, Exception ex) {
+        if (!(handler instanceof SimpAnnotationMethodMessageHandler))
+            return;
+        Handling current = handling.get();
+        if (current == null)
+            return;
+        handling.remove();
+        Timer.builder("splitty.stomp.inbound")
+                .description("Time the @MessageMapping handlers take")
+                .tag("destination", current.destination)
+                .tag("outcome", ex != null ? "exception" : current.outcome)
+                .register(registry)
+                .record(System.nanoTime() - current.start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the destination if a handler is mapped to it, so destinations made up by clients
+     * cannot add meters
+     */
+    private String handledDestination(SimpAnnotationMethodMessageHandler handler, String destination) {
+        Set<String> destinations = handledDestinations;
+        if (destinations == null) {
+            destinations = new HashSet<>();
+            for (SimpMessageMappingInfo mapping : handler.getHandlerMethods().keySet()) {
+                for (String pattern : mapping.getDestinationConditions().getPatterns())
+                    destinations.add(APPLICATION_PREFIX + pattern);
+            }
+            handledDestinations = destinations;
+        }
+        return destinations.contains(destination) ? destination : "unmapped";
+    }
+
+    /**
+     * Replaces the ids and user names in a destination, e.g. /topic/{id}/expense:create
+     * @param destination the destination of a message
+     * @return the destination the message is counted for
+     */
+    public static String normalize(String destination) {
+        if (destination == null)
+            return "none";
+        String normalized = USER_NAME.matcher(destination).replaceFirst("/user");
+        normalized = USER_SUFFIX.matcher(normalized).replaceFirst("");
+        return ID.matcher(normalized).replaceAll("{id}");
+    }
+
+    private static final class Handling {
+        private final String destination;
+        private final long start;
+        private String outcome = "ok";
+
+        private Handling(String destination, long start) {
+            this.destination = destination;
+            this.start = start;
+        }
+    }
+
+    private final class BrokerInterceptor implements ChannelInterceptor {
+        @Override
+        public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+            MessageHeaders headers = message.getHeaders();
+            // messages to /user destinations are sent to the broker again once resolved to the sessions
+            if (SimpMessageHeaderAccessor.getMessageType(headers) == SimpMessageType.MESSAGE
+                    && !headers.containsKey(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION)) {
+                Counter.builder("splitty.stomp.published")
+                        .description("Messages sent to the broker")
+                        .tag("destination", normalize(SimpMessageHeaderAccessor.getDestination(headers)))
+                        .register(registry)
+                        .increment();
+            }
+            return message;
+        }
+    }
+
+    private final class OutboundInterceptor implements ChannelInterceptor {
+        @Override
+        public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+            MessageHeaders headers = message.getHeaders();
+            if (SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE)
+                return message;
+            Object original = headers.get(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+            String destination = original instanceof String originalDestination
+                    ? originalDestination : SimpMessageHeaderAccessor.getDestination(headers);
+            DistributionSummary.builder("splitty.stomp.outbound")
+                    .description("Frames written to the sessions")
+                    .baseUnit("bytes")
+                    .tag("destination", normalize(destination))
+                    .register(registry)
+                    .record(message.getPayload() instanceof byte[] payload ? payload.length : 0);
+            return message;
+        }
+    }
+
+    private final class AnswerConverter implements MessageConverter {
+        @Override
+        public Object fromMessage(@NonNull Message<?> message, @NonNull Class<?> targetClass) {
+            return null;
+        }
+
+        @Override
+        public Message<?> toMessage(@NonNull Object payload, MessageHeaders headers) {
+            Handling current = handling.get();
+            if (current != null && payload instanceof StatusEntity status && status.getStatusCode() != null
+                    && status.getStatusCode() != StatusEntity.StatusCode.OK)
+                current.outcome = status.getStatusCode().name().toLowerCase(Locale.ROOT);
+            return null;
+        }
+    }
+}
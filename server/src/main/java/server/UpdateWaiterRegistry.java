@@ -0,0 +1,248 @@
+package server;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of the long-polling requests waiting for updates of events on /events/updates.
+ * A waiter watches any number of invitation codes and is completed once, with every update
+ * of its codes that arrives within the batch delay after the first one.
+ * The number of waiters is capped per client and overall, requests over the cap
+ * are answered right away with 429 Too Many Requests. Clients are told apart by their address, so behind
+ * a proxy or load balancer server.forward-headers-strategy has to be set for the cap to apply per client.
+ */
+@Service
+public class UpdateWaiterRegistry {
+
+    private final long timeout;
+    private final int maxWaitersPerClient;
+    private final int maxWaiters;
+    private final long batchDelay;
+
+    private final Map<UUID, Set<Waiter>> waitersByCode = new ConcurrentHashMap<>();
+    private final Map<String, Integer> waitersByClient = new ConcurrentHashMap<>();
+    private final AtomicInteger waiterCount = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final ScheduledExecutorService batchExecutor;
+
+    /**
+     * Constructor for UpdateWaiterRegistry
+     * @param timeout time in milliseconds after which a waiter is answered with 408 Request Timeout
+     * @param maxWaitersPerClient maximum number of waiters of a single client at the same time
+     * @param maxWaiters maximum number of waiters at the same time
+     * @param batchDelay time in milliseconds a waiter keeps collecting updates after the first one,
+     *                   0 to answer right away
+     */
+    @Autowired
+    public UpdateWaiterRegistry(@Value("${splitty.updates.timeout:5000}") long timeout,
+                                @Value("${splitty.updates.max-waiters-per-client:8}") int maxWaitersPerClient,
+                                @Value("${splitty.updates.max-waiters:10000}") int maxWaiters,
+                                @Value("${splitty.updates.batch-delay:50}") long batchDelay) {
+        this.timeout = timeout;
+        this.maxWaitersPerClient = maxWaitersPerClient;
+        this.maxWaiters = maxWaiters;
+        this.batchDelay = batchDelay;
+        this.batchExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "update-waiters");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Registers a waiter for updates of the provided events
+     * @param client identifies the client, e.g. its address
+     * @param invitationCodes invitation codes of the watched events
+     * @return the result to return from the request, already completed if the client is over its cap
+     */
+    public DeferredResult<ResponseEntity<Map<UUID, String>>> register(String client,
+                                                                       Collection<UUID> invitationCodes) {
+        DeferredResult<ResponseEntity<Map<UUID, String>>> result = new DeferredResult<>(timeout);
+        if (!reserve(client)) {
+            result.setResult(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build());
+            return result;
+        }
+
+        Waiter waiter = new Waiter(client, Set.copyOf(invitationCodes), result);
+        // The waiter is added before its callbacks are registered, so a timeout or error always finds it to remove
+        for (UUID invitationCode : waiter.invitationCodes) {
+            waitersByCode.compute(invitationCode, (key, waiters) -> {
+                Set<Waiter> set = waiters == null ? ConcurrentHashMap.newKeySet() : waiters;
+                set.add(waiter);
+                return set;
+            });
+        }
+
+        result.onTimeout(() -> {
+            unregister(waiter);
+            result.setErrorResult(ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT).body("Request timed out."));
+        });
+        result.onError(error -> unregister(waiter));
+        result.onCompletion(() -> unregister(waiter));
+        return result;
+    }
+
+    /**
+     * Notifies the waiters of an event that it was updated
+     * @param invitationCode invitation code of the event
+     * @param title new title of the event, null if the event was deleted
+     */
+    public void eventUpdated(UUID invitationCode, String title) {
+        eventsUpdated(Collections.singletonMap(invitationCode, title));
+    }
+
+    /**
+     * Notifies the waiters of several events at once, every waiter is answered once with all of its updates
+     * @param updates new titles by invitation code, null for deleted events
+     */
+    public void eventsUpdated(Map<UUID, String> updates) {
+        // Every update is added before any waiter is completed, so a waiter gets all of its updates of this call
+        List<Waiter> updatedWaiters = new ArrayList<>();
+        for (Map.Entry<UUID, String> update : updates.entrySet()) {
+            Set<Waiter> waiters = waitersByCode.get(update.getKey());
+            if (waiters == null)
+                continue;
+            for (Waiter waiter : waiters) {
+                if (waiter.addUpdate(update.getKey(), update.getValue()))
+                    updatedWaiters.add(waiter);
+            }
+        }
+        updatedWaiters.forEach(this::scheduleCompletion);
+    }
+
+    private void scheduleCompletion(Waiter waiter) {
+        if (batchDelay <= 0) {
+            complete(waiter);
+            return;
+        }
+        batchExecutor.schedule(() -> complete(waiter), batchDelay, TimeUnit.MILLISECONDS);
+    }
+
+    private void complete(Waiter waiter) {
+        unregister(waiter);
+        waiter.result.setResult(ResponseEntity.ok(waiter.drainUpdates()));
+    }
+
+    private boolean reserve(String client) {
+        if (waiterCount.incrementAndGet() > maxWaiters) {
+            waiterCount.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+        boolean[] accepted = {false};
+        waitersByClient.compute(client, (key, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= maxWaitersPerClient)
+                return count;
+            accepted[0] = true;
+            return current + 1;
+        });
+        if (!accepted[0]) {
+            waiterCount.decrementAndGet();
+            rejectedCount.incrementAndGet();
+        }
+        return accepted[0];
+    }
+
+    private void unregister(Waiter waiter) {
+        if (!waiter.registered.compareAndSet(true, false))
+            return;
+        for (UUID invitationCode : waiter.invitationCodes) {
+            waitersByCode.computeIfPresent(invitationCode, (key, waiters) -> {
+                waiters.remove(waiter);
+                return waiters.isEmpty() ? null : waiters;
+            });
+        }
+        waitersByClient.computeIfPresent(waiter.client, (key, count) -> count <= 1 ? null : count - 1);
+        waiterCount.decrementAndGet();
+    }
+
+    /**
+     * Stops the thread that completes batched waiters
+     */
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+    }
+
+    /**
+     * Getter for the number of live waiters
+     * @return number of waiters waiting for an update
+     */
+    public int getWaiterCount() {
+        return waiterCount.get();
+    }
+
+    /**
+     * Getter for the number of watched events
+     * @return number of invitation codes with at least one waiter
+     */
+    public int getWatchedEventCount() {
+        return waitersByCode.size();
+    }
+
+    /**
+     * Getter for the number of clients with live waiters
+     * @return number of clients
+     */
+    public int getClientCount() {
+        return waitersByClient.size();
+    }
+
+    /**
+     * Getter for the number of requests rejected because of the caps
+     * @return number of rejected requests
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * A single long-polling request, identified by reference
+     */
+    private static final class Waiter {
+        private final String client;
+        private final Set<UUID> invitationCodes;
+        private final DeferredResult<ResponseEntity<Map<UUID, String>>> result;
+        private final AtomicBoolean registered = new AtomicBoolean(true);
+        private Map<UUID, String> updates;
+
+        private Waiter(String client, Set<UUID> invitationCodes,
+                       DeferredResult<ResponseEntity<Map<UUID, String>>> result) {
+            this.client = client;
+            this.invitationCodes = invitationCodes;
+            this.result = result;
+        }
+
+        /**
+         * @return true if this is the first update of the waiter
+         */
+        private synchronized boolean addUpdate(UUID invitationCode, String title) {
+            boolean first = updates == null;
+            if (first)
+                updates = new HashMap<>();
+            updates.put(invitationCode, title);
+            return first;
+        }
+
+        private synchronized Map<UUID, String> drainUpdates() {
+            Map<UUID, String> drained = updates == null ? new HashMap<>() : updates;
+            updates = new HashMap<>();
+            return drained;
+        }
+    }
+}
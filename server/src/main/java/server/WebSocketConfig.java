@@ -1,29 +1,88 @@
 package server;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.SmileMessageConverter;
+import commons.WireSchemaMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import java.util.List;
+
 /**
  * Configuration class for websocket. Defines prefixes for client-server websocket communication
  * and websocket endpoints.
+ * With splitty.broker.mode=relay, /topic and /queue are relayed through an external STOMP broker,
+ * so that several server nodes can serve the same events.
+ * Otherwise the in-memory simple broker is used, which only reaches clients of this node.
+ * Payloads are JSON, unless a client sends its frames in Smile, then it is answered in Smile as well.
+ * Answers are in the v1 wire schema, unless the client asks for the v2 schema, see StatusV2.
+ * The traffic on all three channels is recorded in the StompMetrics.
  */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final PasswordService passwordService;
+    private final String brokerMode;
+    private final String relayHost;
+    private final int relayPort;
+    private final String relayLogin;
+    private final String relayPasscode;
+    private final ObjectMapper objectMapper;
+    private final StompMetrics stompMetrics;
+    private final StompEncodingInterceptor encodingInterceptor = new StompEncodingInterceptor();
+    private final WireSchemaNegotiation schemaNegotiation = new WireSchemaNegotiation();
 
     /**
-     * Constructor accepting passwordService
+     * Constructor accepting passwordService and the broker settings
      *
      * @param passwordService passwordService
+     * @param brokerMode simple for the in-memory broker, relay for an external STOMP broker
+     * @param relayHost host of the external broker
+     * @param relayPort STOMP port of the external broker
+     * @param relayLogin login used for the connections to the external broker
+     * @param relayPasscode passcode used for the connections to the external broker
+     * @param objectMapper the ObjectMapper of the application, used for the answers in the v2 schema
+     * @param stompMetrics the metrics of the STOMP traffic
      */
-    public WebSocketConfig(PasswordService passwordService) {
+    public WebSocketConfig(PasswordService passwordService,
+                           @Value("${splitty.broker.mode:simple}") String brokerMode,
+                           @Value("${splitty.broker.relay.host:localhost}") String relayHost,
+                           @Value("${splitty.broker.relay.port:61613}") int relayPort,
+                           @Value("${splitty.broker.relay.login:guest}") String relayLogin,
+                           @Value("${splitty.broker.relay.passcode:guest}") String relayPasscode,
+                           ObjectMapper objectMapper,
+                           StompMetrics stompMetrics) {
         this.passwordService = passwordService;
+        this.brokerMode = brokerMode;
+        this.relayHost = relayHost;
+        this.relayPort = relayPort;
+        this.relayLogin = relayLogin;
+        this.relayPasscode = relayPasscode;
+        this.objectMapper = objectMapper;
+        this.stompMetrics = stompMetrics;
+    }
+
+    /**
+     * Starts an embedded STOMP broker for the relay to connect to, when no external broker is available.
+     * Only one node on a machine should enable it, the other nodes relay to the same port.
+     *
+     * @param port port of the embedded broker
+     * @return the embedded broker
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "splitty.broker.embedded.enabled", havingValue = "true")
+    public static EmbeddedStompBroker embeddedStompBroker(@Value("${splitty.broker.relay.port:61613}") int port) {
+        return new EmbeddedStompBroker(port);
     }
 
     /**
@@ -32,17 +91,61 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic", "/queue");
+        if ("relay".equals(brokerMode)) {
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+        }
         config.setApplicationDestinationPrefixes("/app");
+        config.configureBrokerChannel().interceptors(stompMetrics.getBrokerInterceptor());
     }
 
     /**
-     * Adds the AdminValidation channel interceptor
+     * Adds the interceptor recording the metrics, the AdminValidation channel interceptor
+     * and the interceptors recording the encoding and the wire schema of the sessions
      * @param registration registration for channel interceptors
      */
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
-        registration.interceptors(new AdminValidation(passwordService));
+        registration.interceptors(stompMetrics, new AdminValidation(passwordService), encodingInterceptor,
+                schemaNegotiation);
+    }
+
+    /**
+     * Adds the interceptor transcoding the frames to sessions that send Smile,
+     * followed by the interceptor recording the metrics of the frames as they are written
+     * @param registration registration for channel interceptors
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.interceptors(encodingInterceptor, stompMetrics.getOutboundInterceptor());
+    }
+
+    /**
+     * Adds the converter of the v2 wire schema in front of all other converters and the Smile converter,
+     * which only handles frames with the Smile content type.
+     * In front of them all comes the converter of the StompMetrics, recording the status of the answers.
+     * @param messageConverters the converters to use
+     * @return true, so the default converters, including JSON, are added as well
+     */
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        MappingJackson2MessageConverter jsonConverter = new MappingJackson2MessageConverter();
+        jsonConverter.setObjectMapper(objectMapper);
+        // the answers in the v1 schema are written by the JSON converter of the defaults
+        messageConverters.add(0, new WireSchemaMessageConverter(jsonConverter, schemaNegotiation::isV2));
+        // converts nothing, it only looks at the answers before they are converted
+        messageConverters.add(0, stompMetrics.getAnswerConverter());
+        messageConverters.add(new SmileMessageConverter());
+        return true;
     }
 
     /**
@@ -0,0 +1,54 @@
+package server;
+
+import commons.WireSchemaMessageConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Channel interceptor recording which sessions read the v2 wire schema. A session asks for it
+ * with a schema-version:2 header on its CONNECT frame, or on any later frame to change its schema.
+ * The answers to those sessions are then written in the v2 schema, broadcasts stay in the v1 schema.
+ */
+public class WireSchemaNegotiation implements ChannelInterceptor {
+
+    private final Set<String> v2Sessions = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (sessionId == null)
+            return message;
+        if (SimpMessageHeaderAccessor.getMessageType(headers) == SimpMessageType.DISCONNECT) {
+            v2Sessions.remove(sessionId);
+            return message;
+        }
+        String schema = NativeMessageHeaderAccessor.getFirstNativeHeader(WireSchemaMessageConverter.SCHEMA_HEADER,
+                headers);
+        if (WireSchemaMessageConverter.V2.equals(schema))
+            v2Sessions.add(sessionId);
+        else if (schema != null)
+            v2Sessions.remove(sessionId);
+        return message;
+    }
+
+    /**
+     * Checks whether a message is sent to a session reading the v2 schema
+     *
+     * @param headers headers of the message
+     * @return true if the message is an answer to a session that asked for the v2 schema
+     */
+    public boolean isV2(MessageHeaders headers) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        return sessionId != null && v2Sessions.contains(sessionId);
+    }
+}
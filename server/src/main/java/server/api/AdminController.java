@@ -1,21 +1,32 @@
 package server.api;
 import commons.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import server.AdminValidation;
+import server.BalanceService;
+import server.EntityLookupCache;
+import server.EventAggregateStore;
+import server.EventChangeLog;
+import server.EventDumpService;
+import server.EventImportService;
 import server.PasswordService;
 import server.database.EventRepository;
 
-import server.database.ExpenseRepository;
-import server.database.InvolvedRepository;
-import server.database.ParticipantRepository;
-
-import java.util.HashMap;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Handles the CRUD operations under all /admin endpoints.
@@ -24,86 +35,142 @@ import java.util.UUID;
 @Controller
 public class AdminController {
     private final EventRepository eventRepo;
-    private final ParticipantRepository participantRepo;
-    private final ExpenseRepository expenseRepo;
-    private final InvolvedRepository involvedRepo;
 
     private final SimpMessagingTemplate template;
 
     private final PasswordService passwordService;
 
+    private final BalanceService balanceService;
+
+    private final EventImportService eventImportService;
+
+    private final EventDumpService eventDumpService;
+
+    private final EventChangeLog changeLog;
+
+    private final EntityLookupCache lookupCache;
+
+    private final EventAggregateStore aggregates;
+
     /**
      * Constructor for the EventController.
      * Constructed automatically by Spring Boot.
      *
      * @param template                 SimpMessagingTemplate
      * @param eventRepo                The EventRepository provided automatically by JPA
-     * @param participantRepo
-     * @param expenseRepo
-     * @param involvedRepository
      * @param passwordService          The PasswordService provided by the server
+     * @param balanceService           The BalanceService provided by the server
+     * @param eventImportService       The EventImportService provided by the server
+     * @param eventDumpService         The EventDumpService provided by the server
+     * @param changeLog                The EventChangeLog provided by the server
+     * @param lookupCache              The EntityLookupCache provided by the server
+     * @param aggregates               The EventAggregateStore provided by the server
      */
     @Autowired
     public AdminController(SimpMessagingTemplate template, EventRepository eventRepo,
-                           ParticipantRepository participantRepo, ExpenseRepository expenseRepo,
-                           InvolvedRepository involvedRepository, PasswordService passwordService) {
+                           PasswordService passwordService, BalanceService balanceService,
+                           EventImportService eventImportService, EventDumpService eventDumpService,
+                           EventChangeLog changeLog, EntityLookupCache lookupCache,
+                           EventAggregateStore aggregates) {
         this.template = template;
         this.eventRepo = eventRepo;
-        this.participantRepo = participantRepo;
-        this.expenseRepo = expenseRepo;
-        this.involvedRepo = involvedRepository;
         this.passwordService = passwordService;
+        this.balanceService = balanceService;
+        this.eventImportService = eventImportService;
+        this.eventDumpService = eventDumpService;
+        this.changeLog = changeLog;
+        this.lookupCache = lookupCache;
+        this.aggregates = aggregates;
+    }
+
+    /**
+     * Handles the admin login websocket endpoint.
+     * The session is authenticated by AdminValidation before the message gets here,
+     * this only reports the result back to the client.
+     *
+     * @param headerAccessor headers of the message
+     * @return returns a StatusEntity<String>, OK if the session is now an admin session
+     */
+    @MessageMapping("/admin:login")
+    @SendToUser(value = "/queue/admin:login", broadcast = false)
+    public StatusEntity login(SimpMessageHeaderAccessor headerAccessor) {
+        if (!AdminValidation.isAdmin(headerAccessor))
+            return StatusEntity.badRequest(true, "Incorrect Password!");
+        return StatusEntity.ok("Logged in as admin");
     }
 
     /**
      * Handles read websocket endpoint for event
      *
      * @param receivedEvent requested event
-     * @param password contains the admin password, sent as a header
+     * @param headerAccessor headers of the message, the session has to be an admin session
      * @return returns a StatusEntity<Event> body contains Event if status code is OK
      * returns null in body otherwise
      */
     @MessageMapping("/admin/event:dump")
     @SendToUser(value = "/queue/admin/event:dump", broadcast = false)
-    public StatusEntity dumpEvent(Event receivedEvent, @Header(name = "passcode") String password) {
-        String adminPassword = passwordService.getAdminPassword();
-
-        if (!adminPassword.equals(password)) {
+    public StatusEntity dumpEvent(Event receivedEvent, SimpMessageHeaderAccessor headerAccessor) {
+        if (!AdminValidation.isAdmin(headerAccessor)) {
             return StatusEntity.badRequest(true, "Incorrect Password!");
         }
 
         if(receivedEvent == null)
             return StatusEntity.badRequest(true, "Event is null.");
-        if(!eventRepo.existsById(receivedEvent.getId()))
+        if(!lookupCache.eventExists(receivedEvent.getId()))
             return StatusEntity.notFound(true, "Event does not exist in the database.");
 
-        Event event = eventRepo.getReferenceById(receivedEvent.getId());
-
-        for (Participant participant : event.getParticipants()) {
-            for (Expense expense : participant.getMadeExpenses()) {
-                expense.getInvolveds();
-                for (Involved involved : expense.getInvolveds())
-                    involved.getParticipant();
-            }
-        }
+        aggregates.release(receivedEvent.getId());
+        return StatusEntity.ok(eventDumpService.readEvent(receivedEvent.getId()));
+    }
 
-        return StatusEntity.ok(event);
+    /**
+     * Streams the json dump of an event over http, written while it is read from the database.
+     * Unlike the event:dump websocket endpoint, the size of the dump is not limited by the size of a STOMP frame.
+     * The dump is gzip compressed if the client accepts it.
+     *
+     * @param invitationCode invitation code of the event to dump
+     * @param password contains the admin password, sent as a header
+     * @param acceptEncoding the Accept-Encoding header of the request
+     * @return 200 OK with the streamed dump, 401 Unauthorized if the password is incorrect
+     * or 404 Not Found if the event does not exist
+     */
+    @GetMapping(path = {"/admin/events/{invitationCode}/dump", "/admin/events/{invitationCode}/dump/"})
+    public ResponseEntity<StreamingResponseBody> streamEventDump(
+            @PathVariable("invitationCode") UUID invitationCode,
+            @RequestHeader(name = "passcode", required = false) String password,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (!passwordService.isAdminPassword(password))
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        if (!lookupCache.eventExists(invitationCode))
+            return ResponseEntity.notFound().build();
+
+        aggregates.release(invitationCode);
+        if (acceptEncoding == null || !acceptEncoding.contains("gzip"))
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(out -> eventDumpService.writeEvent(invitationCode, out));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(out -> {
+                    GZIPOutputStream gzip = new GZIPOutputStream(out);
+                    eventDumpService.writeEvent(invitationCode, gzip);
+                    gzip.finish();
+                });
     }
 
     /**
      * Handles read websocket endpoint for event
      *
      * @param receivedEvent The event to import
-     * @param password contains the admin password, sent as a header
+     * @param headerAccessor headers of the message, the session has to be an admin session
      * @return returns a StatusEntity<String> body containing "Success" if the operation was successful.
      * returns an error message if something went wrong.
      */
     @MessageMapping("/admin/event:import")
     @SendToUser(value = "/queue/reply", broadcast = false)
-    public StatusEntity importEvent(Event receivedEvent, @Header(name = "passcode") String password) {
-        String adminPassword = passwordService.getAdminPassword();
-
-        if (!adminPassword.equals(password)) {
+    public StatusEntity importEvent(Event receivedEvent, SimpMessageHeaderAccessor headerAccessor) {
+        if (!AdminValidation.isAdmin(headerAccessor)) {
             return StatusEntity.badRequest(true, "Incorrect Password!");
         }
 
@@ -112,10 +179,8 @@ public class AdminController {
         }
 
         boolean eventExists = eventRepo.existsById(receivedEvent.getId());
-        if (eventExists) {
-            Event currentEvent = eventRepo.getReferenceById(receivedEvent.getId());
-            participantRepo.deleteAll(currentEvent.getParticipants());
-        }
+        // the import replaces the rows of the event, changes kept in memory are written first and then dropped
+        aggregates.release(receivedEvent.getId());
         Event event = null;
 
         try {
@@ -123,6 +188,10 @@ public class AdminController {
         } catch (IllegalArgumentException e) {
             return StatusEntity.badRequest(true, "Request body contains null entity");
         }
+        // the import replaces the participants of an existing event
+        lookupCache.invalidateEvent(event.getId());
+        balanceService.evict(event.getId());
+        changeLog.forget(event.getId());
 
         if (!eventExists)
             template.convertAndSend("/topic/admin/event:create", event);
@@ -132,37 +201,13 @@ public class AdminController {
     }
 
     /**
-     * Saves provided imported Event to the database
+     * Saves provided imported Event to the database,
+     * replacing the participants, expenses and involveds of the event if it already exists
      *
      * @param receivedEvent received event to import
      * @return returns an event to send back to admin
      */
     public Event saveEvent(Event receivedEvent) throws IllegalArgumentException {
-        HashMap<UUID, Participant> savedParticipants = new HashMap<>();
-        Event event = new Event(receivedEvent.getId(), receivedEvent.getTitle(), receivedEvent.getCreationDate(),
-                receivedEvent.getLastActivity());
-        event = eventRepo.save(event);
-        for (Participant receivedParticipant : receivedEvent.getParticipants()) {
-            Participant participant = new Participant(event,
-                    receivedParticipant.getFirstName(), receivedParticipant.getLastName(),
-                    receivedParticipant.getIban(), receivedParticipant.getBic());
-            participant = participantRepo.save(participant);
-            savedParticipants.put(receivedParticipant.getId(), participant);
-        }
-        for (Participant receivedParticipant : receivedEvent.getParticipants()) {
-            for (Expense receivedExpense : receivedParticipant.getMadeExpenses()) {
-                Participant participant = savedParticipants.get(receivedParticipant.getId());
-                Expense expense = new Expense(participant, receivedExpense.getTitle(),
-                        receivedExpense.getAmount(), receivedExpense.getDate(), new InvolvedList());
-                expense = expenseRepo.save(expense);
-                for (Involved receivedInvolved : receivedExpense.getInvolveds()) {
-                    Participant involvedParticipant =
-                            savedParticipants.get(receivedInvolved.getParticipant().getId());
-                    Involved involved = new Involved(receivedInvolved.getIsSettled(), expense, involvedParticipant);
-                    involvedRepo.save(involved);
-                }
-            }
-        }
-        return event;
+        return eventImportService.importEvent(receivedEvent);
     }
 }
@@ -0,0 +1,52 @@
+package server.api;
+
+import commons.EventBalances;
+import commons.StatusEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
+import server.BalanceService;
+import server.EntityLookupCache;
+
+import java.util.UUID;
+
+/**
+ * Class that represents the balance controller.
+ * Serves the initial balances of an event, later changes are pushed on /topic/{invitationCode}/balances.
+ */
+@Transactional
+@Controller
+public class BalanceController {
+    private final EntityLookupCache lookupCache;
+    private final BalanceService balanceService;
+
+    /**
+     * Constructor for the BalanceController
+     * @param lookupCache EntityLookupCache
+     * @param balanceService BalanceService
+     */
+    @Autowired
+    public BalanceController(EntityLookupCache lookupCache, BalanceService balanceService) {
+        this.lookupCache = lookupCache;
+        this.balanceService = balanceService;
+    }
+
+    /**
+     * Handles read balances websocket endpoint
+     *
+     * @param invitationCode invitationCode of the Event
+     * @return StatusEntity containing the balances and settle-up transfers of the Event in body
+     */
+    @MessageMapping("/balances:read")
+    @SendToUser(value = "/queue/balances:read", broadcast = false)
+    public StatusEntity readBalances(UUID invitationCode) {
+        if (invitationCode == null)
+            return StatusEntity.badRequest(true, (EventBalances) null);
+        if (!lookupCache.eventExists(invitationCode))
+            return StatusEntity.notFound(true, (EventBalances) null);
+
+        return StatusEntity.ok(balanceService.getBalances(invitationCode));
+    }
+}
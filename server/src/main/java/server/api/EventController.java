@@ -1,26 +1,38 @@
 package server.api;
 import com.fasterxml.jackson.annotation.JsonView;
+import jakarta.servlet.http.HttpServletRequest;
+import commons.EventChanges;
 import commons.EventList;
+import commons.EventPage;
 import commons.StatusEntity;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
-import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import commons.Event;
 import org.springframework.web.context.request.async.DeferredResult;
+import server.AdminValidation;
+import server.BalanceService;
+import server.EntityLookupCache;
+import server.EventAggregateStore;
+import server.EventChangeLog;
 import server.EventLastActivityService;
-import server.PasswordService;
+import server.EventSnapshotService;
+import server.UpdateWaiterRegistry;
 import server.database.EventRepository;
+import server.database.EventTitle;
 
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 import commons.Views;
 
@@ -31,31 +43,53 @@ import commons.Views;
 @Transactional
 @Controller
 public class EventController {
+    private static final int TITLE_QUERY_CHUNK_SIZE = 1000;
+
     private final EventRepository repo;
-    private final Map<UUID, List<DeferredResult<ResponseEntity<Map<UUID, String>>>>> deferredResults;
+    private final UpdateWaiterRegistry updateWaiterRegistry;
 
     private final SimpMessagingTemplate template;
 
-    private final PasswordService passwordService;
-
     private final EventLastActivityService eventLastActivityService;
 
+    private final BalanceService balanceService;
+
+    private final EventChangeLog changeLog;
+
+    private final EventSnapshotService snapshotService;
+
+    private final EntityLookupCache lookupCache;
+
+    private final EventAggregateStore aggregates;
+
     /**
      * Constructor for the EventController.
      * Constructed automatically by Spring Boot.
      * @param template SimpMessagingTemplate
      * @param repo The EventRepository provided automatically by JPA
-     * @param passwordService The PasswordService provided by the server
      * @param eventLastActivityService The EventLastActivityService provided by the server
+     * @param balanceService The BalanceService provided by the server
+     * @param updateWaiterRegistry The UpdateWaiterRegistry provided by the server
+     * @param changeLog The EventChangeLog provided by the server
+     * @param snapshotService The EventSnapshotService provided by the server
+     * @param lookupCache The EntityLookupCache provided by the server
+     * @param aggregates The EventAggregateStore provided by the server
      */
     @Autowired
-    public EventController(SimpMessagingTemplate template, EventRepository repo, PasswordService passwordService,
-                           EventLastActivityService eventLastActivityService) {
+    public EventController(SimpMessagingTemplate template, EventRepository repo,
+                           EventLastActivityService eventLastActivityService, BalanceService balanceService,
+                           UpdateWaiterRegistry updateWaiterRegistry, EventChangeLog changeLog,
+                           EventSnapshotService snapshotService, EntityLookupCache lookupCache,
+                           EventAggregateStore aggregates) {
         this.template = template;
         this.repo = repo;
-        this.passwordService = passwordService;
-        this.deferredResults = new ConcurrentHashMap<>();
+        this.updateWaiterRegistry = updateWaiterRegistry;
         this.eventLastActivityService = eventLastActivityService;
+        this.balanceService = balanceService;
+        this.changeLog = changeLog;
+        this.snapshotService = snapshotService;
+        this.lookupCache = lookupCache;
+        this.aggregates = aggregates;
     }
 
 
@@ -87,6 +121,7 @@ public class EventController {
         LocalDateTime now = LocalDateTime.now();
         Event event = new Event(id, title, now, now);
         event = repo.save(event);
+        lookupCache.invalidateEvent(id);
         template.convertAndSend("/topic/admin/event:create", event);
         return ResponseEntity.ok(event);
     }
@@ -97,7 +132,7 @@ public class EventController {
      * @param query The query parameter provided by the client.
      * @param codes The List of invitationCodes provided by the client from their config.json
      * @return Returns a 200 OK status code and a List of partial Event objects containing existing invitationCodes
-     * and appropriate titles.
+     * and appropriate titles, read with one query per TITLE_QUERY_CHUNK_SIZE codes.
      * Returns a 400 Bad Request status code when no codes were provided.
      */
     @JsonView(Views.UpdateInvitationsCodes.class)
@@ -110,10 +145,19 @@ public class EventController {
         if (codes.length == 0) {
             return ResponseEntity.ok(new ArrayList<>());
         }
+        Map<UUID, String> titles = new HashMap<>();
+        List<UUID> distinctCodes = List.copyOf(new LinkedHashSet<>(Arrays.asList(codes)));
+        for (int start = 0; start < distinctCodes.size(); start += TITLE_QUERY_CHUNK_SIZE) {
+            List<UUID> chunk = distinctCodes.subList(start,
+                    Math.min(start + TITLE_QUERY_CHUNK_SIZE, distinctCodes.size()));
+            for (EventTitle eventTitle : repo.findTitlesByIdIn(chunk))
+                titles.put(eventTitle.getId(), eventTitle.getTitle());
+        }
+
         List<Event> updatedEvents = new ArrayList<>();
         for (var code : codes) {
-            Optional<Event> event = repo.findById(code);
-            event.ifPresent(updatedEvents::add);
+            if (titles.containsKey(code))
+                updatedEvents.add(new Event(code, titles.get(code), null, null));
         }
 
         if(updatedEvents.size() != codes.length)
@@ -139,7 +183,7 @@ public class EventController {
         if (isNullOrEmpty(receivedEvent.getTitle()))
             return StatusEntity.badRequest(true, "Event title should not be empty");
 
-        if(!repo.existsById(receivedEvent.getId()))
+        if(!lookupCache.eventExists(receivedEvent.getId()))
             return StatusEntity.notFound(true, "Event not found");
 
         Event event = repo.getReferenceById(receivedEvent.getId());
@@ -150,7 +194,7 @@ public class EventController {
         eventUpdated(receivedEvent.getId(), receivedEvent.getTitle());
 
         Event sentEvent = new Event(event.getId(), event.getTitle(), event.getCreationDate(), event.getLastActivity());
-        template.convertAndSend("/topic/" + sentEvent.getId() + "/event:update", sentEvent);
+        changeLog.publish(sentEvent.getId(), "event:update", sentEvent);
         return StatusEntity.ok("Event was successfully updated");
     }
 
@@ -167,7 +211,7 @@ public class EventController {
     {
         if(invitationCode == null)
             return StatusEntity.badRequest(true, "Invitation code should not be null");
-        if(!repo.existsById(invitationCode))
+        if(!lookupCache.eventExists(invitationCode))
             return StatusEntity.notFound(true, "Event with provided Invitation code does not exist");
 
         Event event = repo.getReferenceById(invitationCode);
@@ -176,64 +220,129 @@ public class EventController {
         return StatusEntity.ok(sentEvent);
     }
 
+    /**
+     * Handles the snapshot websocket endpoint, used by clients joining an event to read it in one round-trip
+     *
+     * @param invitationCode invitationCode of the requested event
+     * @return returns a StatusEntity with the Event, its participants, its expenses and the sequence number
+     * of the last change they contain if status code is OK, returns null in body otherwise
+     */
+    @MessageMapping("/event:snapshot")
+    @SendToUser(value = "/queue/event:snapshot", broadcast = false)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StatusEntity readSnapshot(UUID invitationCode)
+    {
+        if(invitationCode == null)
+            return StatusEntity.badRequest(true, "Invitation code should not be null");
+
+        if (aggregates.isEnabled())
+            return aggregates.readSnapshot(invitationCode);
+        return snapshotService.readSnapshot(invitationCode);
+    }
+
+    /**
+     * Handles the changes websocket endpoint, used by clients to catch up after missing broadcasts,
+     * e.g. when they reconnect or rejoin an event
+     *
+     * @param request invitation code of the event, with the epoch and the last sequence number seen by the client
+     * @return returns a StatusEntity<EventChanges> with every later change,
+     * or with snapshotRequired set if the client has to read the whole event again
+     */
+    @MessageMapping("/event:changes")
+    @SendToUser(value = "/queue/event:changes", broadcast = false)
+    public StatusEntity readChanges(EventChanges request)
+    {
+        if(request == null || request.getInvitationCode() == null)
+            return StatusEntity.badRequest(true, "Invitation code should not be null");
+        if(!lookupCache.eventExists(request.getInvitationCode()))
+            return StatusEntity.notFound(true, "Event with provided Invitation code does not exist");
+
+        return StatusEntity.ok(changeLog.changesSince(request.getInvitationCode(), request.getEpoch(),
+                request.getSequence()));
+    }
+
     /**
      * Handles delete websocket endpoint for event
      * @param receivedEvent Event that we want to delete
-     * @param password The password provided by the client.
+     * @param headerAccessor headers of the message, the session has to be an admin session
      * @return StatusEntity<String> body contains description of success/failure
      */
     @MessageMapping("/admin/event:delete")
     @SendToUser(value = "/queue/reply", broadcast = false)
-    public StatusEntity deleteEvent(Event receivedEvent, @Header(name = "passcode") String password)
+    public StatusEntity deleteEvent(Event receivedEvent, SimpMessageHeaderAccessor headerAccessor)
     {
-        String adminPassword = passwordService.getAdminPassword();
-
-        if (!adminPassword.equals(password)) {
+        if (!AdminValidation.isAdmin(headerAccessor)) {
             return StatusEntity.badRequest(true, "Incorrect Password!");
         }
 
         if(receivedEvent == null)
             return StatusEntity.badRequest(true, "Event should not be null");
 
-        if(!repo.existsById(receivedEvent.getId()))
+        if(!lookupCache.eventExists(receivedEvent.getId()))
         {
             return StatusEntity.notFound(true, "Event not found");
         }
 
+        aggregates.release(receivedEvent.getId());
         Event event = repo.getReferenceById(receivedEvent.getId());
         repo.delete(event);
+        lookupCache.invalidateEvent(event.getId());
+        balanceService.evict(event.getId());
 
         eventUpdated(event.getId(), null);
 
         Event sentEvent = new Event(event.getId(), event.getTitle(), event.getCreationDate(), event.getLastActivity());
-        template.convertAndSend("/topic/" + sentEvent.getId() + "/event:delete", sentEvent);
+        changeLog.publish(sentEvent.getId(), "event:delete", sentEvent);
+        changeLog.forget(sentEvent.getId());
         template.convertAndSend("/topic/admin/event:delete", sentEvent);
         return StatusEntity.ok("Event was successfully deleted");
     }
 
 
     /**
-     * Handles the read websocket endpoint for all events
-     * @param password The password provided by the client.
-     * @return Returns a StatusEntity with a List of all Events.
+     * Handles the read websocket endpoint for a page of the events listed on the admin panel.
+     * The events are filtered and sorted by the database, the answer is sent to /queue/admin/events:read,
+     * with the request telling whether there are more pages.
+     * @param request filters, sort, number and size of the page
+     * @param headerAccessor headers of the message, the session has to be an admin session
+     * @return Returns a StatusEntity with the events of the page and the request of the page.
      */
-    @MessageMapping("/admin/events:read")
+    @MessageMapping("/admin/events:page")
     @SendToUser(value = "/queue/admin/events:read", broadcast = false)
-    public StatusEntity readAllEvents(String password) {
-        String adminPassword = passwordService.getAdminPassword();
-
-        if (!adminPassword.equals(password)) {
+    @Transactional(readOnly = true)
+    public StatusEntity readEventPage(EventPage request, SimpMessageHeaderAccessor headerAccessor) {
+        if (!AdminValidation.isAdmin(headerAccessor)) {
             return StatusEntity.badRequest(true, "Incorrect Password!");
         }
+        if (request == null || request.getSize() <= 0 || request.getNumber() < 0)
+            return StatusEntity.badRequest(true, "Page size should be positive and page number not negative");
 
-        List<Event> events = repo.findAll();
+        int size = Math.min(request.getSize(), EventPage.MAX_SIZE);
+        Slice<Event> page = repo.findPage(titlePattern(request.getTitlePrefix()),
+                request.getCreatedFrom(), request.getCreatedTo(), request.getActiveFrom(), request.getActiveTo(),
+                PageRequest.of(request.getNumber(), size, sortOf(request)));
         EventList eventList = new EventList();
-        for (Event event : events) {
-            Event clientEvent = new Event(event.getId(), event.getTitle(),
-                    event.getCreationDate(), event.getLastActivity());
-            eventList.add(clientEvent);
-        }
-        return StatusEntity.ok(eventList);
+        eventList.addAll(page.getContent());
+        return StatusEntity.ok(eventList, new EventPage(request.getTitlePrefix(), request.getCreatedFrom(),
+                request.getCreatedTo(), request.getActiveFrom(), request.getActiveTo(), request.getSort(),
+                request.isDescending(), request.getNumber(), size, !page.hasNext()));
+    }
+
+    private static String titlePattern(String titlePrefix) {
+        if (titlePrefix == null || titlePrefix.isEmpty())
+            return null;
+        return titlePrefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    private static Sort sortOf(EventPage request) {
+        String property = switch (request.getSort() == null ? EventPage.Sort.LAST_ACTIVITY : request.getSort()) {
+            case TITLE -> "title";
+            case CREATION_DATE -> "creationDate";
+            case LAST_ACTIVITY -> "lastActivity";
+        };
+        Sort.Direction direction = request.isDescending() ? Sort.Direction.DESC : Sort.Direction.ASC;
+        // the invitation code breaks ties, so events with the same value stay on the same page
+        return Sort.by(direction, property).and(Sort.by(direction, "id"));
     }
 
 
@@ -269,11 +378,15 @@ public class EventController {
      */
     @DeleteMapping(path = "/events/{invitationCode}")
     public ResponseEntity<Void> deleteEvent(@PathVariable("invitationCode") UUID invitationCode) {
-        if (!repo.existsById(invitationCode)) {
+        if (!lookupCache.eventExists(invitationCode)) {
             return ResponseEntity.badRequest().build();
         }
 
+        aggregates.release(invitationCode);
         repo.deleteById(invitationCode);
+        lookupCache.invalidateEvent(invitationCode);
+        balanceService.evict(invitationCode);
+        changeLog.forget(invitationCode);
 
         eventUpdated(invitationCode, null);
 
@@ -284,50 +397,28 @@ public class EventController {
      * Handles the GET: /updates endpoint
      * @param query The query parameter provided by the client.
      * @param invitationCodes The List of invitationCodes provided by the client from their config.json
+     * @param request The http request, used to identify the client by its address,
+     *                which is the forwarded address if server.forward-headers-strategy is set
      * @return Returns a DeferredResult with a 200 OK status code and a Map of updated Events.
-     * Returns a 400 Bad Request status code when no invitationCodes were provided.
+     * Returns a 400 Bad Request status code when no invitationCodes were provided
+     * and a 429 Too Many Requests status code when the client already has too many requests waiting.
      */
     @GetMapping(path = {"/events/updates", "/events/updates/"})
     public DeferredResult<ResponseEntity<Map<UUID, String>>> getUpdatedEvents(@RequestParam("query") String query,
                                                                               @RequestParam("invitationCodes")
-                                                                              List<UUID> invitationCodes) {
+                                                                              List<UUID> invitationCodes,
+                                                                              HttpServletRequest request) {
         if (invitationCodes == null || !"updates".equals(query)) {
             DeferredResult<ResponseEntity<Map<UUID, String>>> badRequestResult = new DeferredResult<>();
             badRequestResult.setResult(ResponseEntity.badRequest().build());
             return badRequestResult;
         }
 
-        DeferredResult<ResponseEntity<Map<UUID, String>>> deferredResult = new DeferredResult<>(5000L);
-
-        deferredResult.onTimeout(() -> {
-            deferredResult.setErrorResult(ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT).body("Request timed out."));
-        });
-
-        deferredResult.onCompletion(() -> {
-            for (UUID invitationCode : invitationCodes) {
-                deferredResults.remove(invitationCode, deferredResult);
-            }
-        });
-
-        for (UUID invitationCode : invitationCodes) {
-            deferredResults.computeIfAbsent(invitationCode, key -> new ArrayList<>()).add(deferredResult);
-        }
-
-        return deferredResult;
+        return updateWaiterRegistry.register(request.getRemoteAddr(), invitationCodes);
     }
 
     private void eventUpdated(UUID invitationCode, String updatedTitle) {
-        List<DeferredResult<ResponseEntity<Map<UUID, String>>>> results = deferredResults.get(invitationCode);
-        if (results != null) {
-            Iterator<DeferredResult<ResponseEntity<Map<UUID, String>>>> iterator = results.iterator();
-            while (iterator.hasNext()) {
-                DeferredResult<ResponseEntity<Map<UUID, String>>> deferredResult = iterator.next();
-                Map<UUID, String> updatedEvent = new HashMap<>();
-                updatedEvent.put(invitationCode, updatedTitle);
-                deferredResult.setResult(ResponseEntity.ok(updatedEvent));
-                iterator.remove();
-            }
-        }
+        updateWaiterRegistry.eventUpdated(invitationCode, updatedTitle);
     }
 
 }
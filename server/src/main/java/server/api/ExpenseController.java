@@ -2,15 +2,17 @@ package server.api;
 
 import commons.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
+import server.BalanceService;
+import server.EntityLookupCache;
+import server.EventAggregateStore;
+import server.EventChangeLog;
 import server.EventLastActivityService;
-import server.database.EventRepository;
 import server.database.ExpenseRepository;
-import server.database.InvolvedRepository;
 import server.database.ParticipantRepository;
 
 import java.util.*;
@@ -22,36 +24,40 @@ import java.util.stream.Collectors;
 @Transactional
 @Controller
 public class ExpenseController {
-    private final EventRepository eventRepository;
     private final ExpenseRepository expenseRepository;
     private final ParticipantRepository participantRepository;
-    private final InvolvedRepository involvedRepository;
-    private final SimpMessagingTemplate template;
+    private final EventChangeLog changeLog;
 
     private final EventLastActivityService eventLastActivityService;
+    private final BalanceService balanceService;
+    private final EntityLookupCache lookupCache;
+    private final EventAggregateStore aggregates;
 
     /**
      * Constructor
-     * @param eventRepository event repository
      * @param expenseRepository expense repository
      * @param participantRepository participant repository
-     * @param involvedRepository involved repository
-     * @param template SimpMessagingTemplate
+     * @param changeLog EventChangeLog
      * @param eventLastActivityService EventLastActivityService
+     * @param balanceService BalanceService
+     * @param lookupCache EntityLookupCache
+     * @param aggregates EventAggregateStore
      */
     @Autowired
-    public ExpenseController(EventRepository eventRepository,
-                             ExpenseRepository expenseRepository,
+    public ExpenseController(ExpenseRepository expenseRepository,
                              ParticipantRepository participantRepository,
-                             InvolvedRepository involvedRepository,
-                             SimpMessagingTemplate template,
-                             EventLastActivityService eventLastActivityService) {
-        this.eventRepository = eventRepository;
+                             EventChangeLog changeLog,
+                             EventLastActivityService eventLastActivityService,
+                             BalanceService balanceService,
+                             EntityLookupCache lookupCache,
+                             EventAggregateStore aggregates) {
         this.expenseRepository = expenseRepository;
         this.participantRepository = participantRepository;
-        this.involvedRepository = involvedRepository;
-        this.template = template;
+        this.changeLog = changeLog;
         this.eventLastActivityService = eventLastActivityService;
+        this.balanceService = balanceService;
+        this.lookupCache = lookupCache;
+        this.aggregates = aggregates;
     }
 
     private static boolean isNullOrEmpty(String str) {
@@ -59,7 +65,35 @@ public class ExpenseController {
     }
 
     /**
-     * Evaluates whether the received Expense object has all the correct field values
+     * Finds which of the given participants do not exist or do not belong to the given event.
+     * Uses at most a single query, however many participants are given, and none if they are all cached.
+     *
+     * @param invitationCode invitationCode of the Event the participants should belong to
+     * @param participantIds ids of the participants
+     * @return ids of the participants that were not found in the Event
+     */
+    public Set<UUID> findMissingParticipants(UUID invitationCode, Collection<UUID> participantIds) {
+        if (aggregates.isEnabled())
+            return aggregates.participantsMissingFrom(invitationCode, participantIds);
+        return lookupCache.participantsMissingFrom(invitationCode, participantIds);
+    }
+
+    private static Set<UUID> participantIdsOf(Expense receivedExpense) {
+        Set<UUID> participantIds = new HashSet<>();
+        participantIds.add(receivedExpense.getPaidById());
+        if (receivedExpense.getInvolveds() != null) {
+            receivedExpense.getInvolveds().stream()
+                    .filter(Objects::nonNull)
+                    .map(Involved::getParticipantId)
+                    .filter(Objects::nonNull)
+                    .forEach(participantIds::add);
+        }
+        return participantIds;
+    }
+
+    /**
+     * Evaluates whether the received Expense object has all the correct field values.
+     * The payer and all involved participants are checked against the Event in one query.
      *
      * @param receivedExpense received Expense object
      * @return Returns a statusEntity with an error message, if it is a bad request
@@ -74,16 +108,18 @@ public class ExpenseController {
             return StatusEntity.badRequest(true, "Amount should be positive");
         if (receivedExpense.getPaidById() == null)
             return StatusEntity.badRequest(true, "Id of participant who paid should be provided");
-        if (!participantRepository.existsById(receivedExpense.getPaidById()))
-            return StatusEntity.notFound(true, "Provided participant who paid for the expense does not exist");
         if (receivedExpense.getInvitationCode() == null)
             return StatusEntity.badRequest(true, "InvitationCode of event should be provided");
+        Set<UUID> missingParticipants = findMissingParticipants(receivedExpense.getInvitationCode(),
+                participantIdsOf(receivedExpense));
+        if (missingParticipants.contains(receivedExpense.getPaidById()))
+            return StatusEntity.notFound(true, "Provided participant who paid for the expense does not exist");
         if (receivedExpense.getDate() == null)
             return StatusEntity.badRequest(true, "Date should be provided");
-        return isInvolvedBadRequest(receivedExpense);
+        return isInvolvedBadRequest(receivedExpense, missingParticipants);
     }
 
-    private StatusEntity isInvolvedBadRequest(Expense receivedExpense) {
+    private StatusEntity isInvolvedBadRequest(Expense receivedExpense, Set<UUID> missingParticipants) {
         if (receivedExpense.getInvolveds() == null || receivedExpense.getInvolveds().isEmpty())
             return StatusEntity.badRequest(true, "Expense should involve a participant");
         Set<UUID> participantSet = new HashSet<>(
@@ -91,14 +127,14 @@ public class ExpenseController {
         );
         if(participantSet.size() != receivedExpense.getInvolveds().size())
             return StatusEntity.badRequest(true, "Expense cannot involve duplicates of participants");
-        var participantsFound = participantSet.stream().filter(participantRepository::existsById).toList();
-        if(participantsFound.size() != participantSet.size())
+        if(participantSet.stream().anyMatch(missingParticipants::contains))
             return StatusEntity.notFound(true, "Involved participant not found");
         return StatusEntity.ok((String) null);
     }
 
     /**
-     * Evaluates whether the received existing Expense object has the correct field values
+     * Evaluates whether the received existing Expense object has the correct field values.
+     * The involved participants are validated by isExpenseBadRequest.
      *
      * @param receivedExpense received Expense object
      * @return Returns a statusEntity with an error message, if it is a bad request
@@ -107,9 +143,12 @@ public class ExpenseController {
     public StatusEntity isExistingExpenseBadRequest(Expense receivedExpense) {
         if(receivedExpense.getId() == null)
             return StatusEntity.badRequest(true, "Expense ID should be provided");
-        if(!expenseRepository.existsById(receivedExpense.getId()))
+        boolean exists = aggregates.isEnabled()
+                ? aggregates.hasExpense(receivedExpense.getInvitationCode(), receivedExpense.getId())
+                : expenseRepository.existsById(receivedExpense.getId());
+        if(!exists)
             return StatusEntity.notFound(true, "Expense with provided ID does not exist");
-        return isInvolvedBadRequest(receivedExpense);
+        return StatusEntity.ok((String) null);
     }
 
     /**
@@ -125,12 +164,17 @@ public class ExpenseController {
         StatusEntity badRequest = isExpenseBadRequest(receivedExpense);
         if (badRequest.isUnsolvable())
             return badRequest;
+        if (aggregates.isEnabled())
+            return expenseSavedInMemory(aggregates.createExpense(receivedExpense), "expense:create",
+                    "Expense was successfully created");
 
         Participant paidBy = participantRepository.getReferenceById(receivedExpense.getPaidById());
 
-        Expense expense = new Expense(paidBy, receivedExpense.getTitle(),
-                (double) Math.round(receivedExpense.getAmount() * 100) /100,
-                receivedExpense.getDate(), receivedExpense.getInvolveds());
+        // the payer was validated, so it is only referenced: reading its event from it would load it
+        Expense expense = new Expense(null, receivedExpense.getTitle(),
+                (double) Math.round(receivedExpense.getAmount() * 100) /100, paidBy.getId(),
+                receivedExpense.getInvitationCode(), receivedExpense.getDate(), receivedExpense.getInvolveds());
+        expense.setPaidBy(paidBy);
 
         //hibernate and jackson behave funky when used together
         for (Involved involved : receivedExpense.getInvolveds()) {
@@ -152,8 +196,8 @@ public class ExpenseController {
                 receivedExpense.getInvitationCode(), expense.getDate(), involveds);
         sentExpense.setAmountOwed(expense.getAmount() / sentExpense.getInvolveds().size());
 
-        template.convertAndSend("/topic/" + sentExpense.getInvitationCode() + "/expense:create",
-                sentExpense);
+        changeLog.publish(sentExpense.getInvitationCode(), "expense:create", sentExpense);
+        balanceService.expenseSaved(sentExpense.getInvitationCode(), sentExpense);
 
         return StatusEntity.ok("Expense was successfully created");
     }
@@ -170,32 +214,88 @@ public class ExpenseController {
     {
         if(invitationCode == null)
             return StatusEntity.badRequest(true, (ExpenseList) null);
-        if(!eventRepository.existsById(invitationCode))
+        if(!lookupCache.eventExists(invitationCode))
             return StatusEntity.notFound(true, (ExpenseList) null);
+        if (aggregates.isEnabled()) {
+            ExpenseList expenses = aggregates.readExpenses(invitationCode);
+            return expenses == null ? StatusEntity.notFound(true, (ExpenseList) null) : StatusEntity.ok(expenses);
+        }
 
-        Event event = eventRepository.getReferenceById(invitationCode);
-        List<Participant> participants = event.getParticipants();
         ExpenseList expenses = new ExpenseList();
+        for (Expense expense : expenseRepository.findAllWithInvolvedsByInvitationCode(invitationCode))
+            expenses.add(toSentExpense(expense, invitationCode));
 
-        for (Participant participant : participants) {
-            List<Expense> participantExpenses = participant.getMadeExpenses();
-            for (Expense expense : participantExpenses) {
-                List<Involved> involveds = new InvolvedList();
-                for(Involved involved : expense.getInvolveds())
-                {
-                    Involved thisInvolved = new Involved(involved.getId(), involved.getIsSettled(),
-                            expense.getId(), involved.getParticipant().getId(), invitationCode);
-                    involveds.add(thisInvolved);
-                }
-                Expense sentExpense = new Expense(expense.getId(), expense.getTitle(), expense.getAmount()
-                        , participant.getId(), invitationCode, expense.getDate(), involveds);
-                sentExpense.setAmountOwed(sentExpense.getAmount()/sentExpense.getInvolveds().size());
-
-                expenses.add(sentExpense);
-            }
+        return StatusEntity.ok(expenses);
+    }
+
+    /**
+     * Handles read expense page websocket endpoint. The pages are read in (date, id) order,
+     * each page after the date and id of the last expense of the previous page.
+     *
+     * @param request invitationCode of parent Event, the date and id of the last expense read, and the page size
+     * @return StatusEntity containing the expenses of the page and the cursor of its last expense
+     */
+    @MessageMapping("/expenses:page")
+    @SendToUser(value = "/queue/expenses:page", broadcast = false)
+    public StatusEntity readExpensePage(ExpensePage request)
+    {
+        if(request == null || request.getInvitationCode() == null || request.getSize() <= 0)
+            return StatusEntity.badRequest(true, (ExpenseList) null);
+        UUID invitationCode = request.getInvitationCode();
+        if(!lookupCache.eventExists(invitationCode))
+            return StatusEntity.notFound(true, (ExpenseList) null);
+
+        int size = Math.min(request.getSize(), ExpensePage.MAX_SIZE);
+        // one more expense than the page holds tells whether there is a next page
+        ExpenseList expenses = aggregates.isEnabled()
+                ? readExpensePageFromMemory(request, size + 1)
+                : readExpensePageFromDatabase(request, size + 1);
+        if (expenses == null)
+            return StatusEntity.notFound(true, (ExpenseList) null);
+        boolean last = expenses.size() <= size;
+        if (!last)
+            expenses.removeLast();
+        if (expenses.isEmpty())
+            return StatusEntity.ok(expenses, new ExpensePage(invitationCode, request.getAfterDate(),
+                    request.getAfterId(), size, true));
+        Expense lastExpense = expenses.getLast();
+        return StatusEntity.ok(expenses, new ExpensePage(invitationCode, lastExpense.getDate(), lastExpense.getId(),
+                size, last));
+    }
+
+    private ExpenseList readExpensePageFromMemory(ExpensePage request, int limit) {
+        if (request.isFirst())
+            return aggregates.readExpensesAfter(request.getInvitationCode(), null, null, limit);
+        return aggregates.readExpensesAfter(request.getInvitationCode(), request.getAfterDate(),
+                request.getAfterId(), limit);
+    }
+
+    private ExpenseList readExpensePageFromDatabase(ExpensePage request, int limit) {
+        UUID invitationCode = request.getInvitationCode();
+        List<UUID> ids = request.isFirst()
+                ? expenseRepository.findFirstPageIdsByInvitationCode(invitationCode, Limit.of(limit))
+                : expenseRepository.findPageIdsByInvitationCode(invitationCode, request.getAfterDate(),
+                        request.getAfterId(), Limit.of(limit));
+        ExpenseList expenses = new ExpenseList();
+        if (!ids.isEmpty()) {
+            for (Expense expense : expenseRepository.findAllWithInvolvedsByIdIn(ids))
+                expenses.add(toSentExpense(expense, invitationCode));
         }
+        return expenses;
+    }
 
-        return StatusEntity.ok(expenses);
+    private static Expense toSentExpense(Expense expense, UUID invitationCode) {
+        List<Involved> involveds = new InvolvedList();
+        for(Involved involved : expense.getInvolveds())
+        {
+            Involved thisInvolved = new Involved(involved.getId(), involved.getIsSettled(),
+                    expense.getId(), involved.getParticipant().getId(), invitationCode);
+            involveds.add(thisInvolved);
+        }
+        Expense sentExpense = new Expense(expense.getId(), expense.getTitle(), expense.getAmount()
+                , expense.getPaidBy().getId(), invitationCode, expense.getDate(), involveds);
+        sentExpense.setAmountOwed(sentExpense.getAmount()/sentExpense.getInvolveds().size());
+        return sentExpense;
     }
 
     /**
@@ -214,6 +314,9 @@ public class ExpenseController {
         badRequest = isExistingExpenseBadRequest(receivedExpense);
         if (badRequest.isUnsolvable())
             return badRequest;
+        if (aggregates.isEnabled())
+            return expenseSavedInMemory(aggregates.updateExpense(receivedExpense), "expense:update",
+                    "Expense was successfully updated");
 
         Expense expense = expenseRepository.getReferenceById(receivedExpense.getId());
 
@@ -267,7 +370,8 @@ public class ExpenseController {
                 expense.getDate(), involveds);
         sentExpense.setAmountOwed(newAmountOwed);
 
-        template.convertAndSend("/topic/" + sentExpense.getInvitationCode() + "/expense:update", sentExpense);
+        changeLog.publish(sentExpense.getInvitationCode(), "expense:update", sentExpense);
+        balanceService.expenseSaved(sentExpense.getInvitationCode(), sentExpense);
         return StatusEntity.ok("Expense was successfully updated");
     }
 
@@ -288,13 +392,26 @@ public class ExpenseController {
         if (badRequest.isUnsolvable())
             return badRequest;
 
-
-        Expense expense = expenseRepository.getReferenceById(receivedExpense.getId());
+        if (aggregates.isEnabled()) {
+            if (!aggregates.deleteExpense(receivedExpense.getInvitationCode(), receivedExpense.getId()))
+                return StatusEntity.notFound(true, "Expense with provided ID does not exist");
+        } else {
+            Expense expense = expenseRepository.getReferenceById(receivedExpense.getId());
+            expenseRepository.delete(expense);
+        }
         eventLastActivityService.updateLastActivity(receivedExpense.getInvitationCode());
-        expenseRepository.delete(expense);
 
-        template.convertAndSend("/topic/" + receivedExpense.getInvitationCode() + "/expense:delete",
-                receivedExpense);
+        changeLog.publish(receivedExpense.getInvitationCode(), "expense:delete", receivedExpense);
+        balanceService.expenseDeleted(receivedExpense.getInvitationCode(), receivedExpense.getId());
         return StatusEntity.ok("Expense was successfully deleted");
     }
+
+    private StatusEntity expenseSavedInMemory(Expense sentExpense, String type, String message) {
+        if (sentExpense == null)
+            return StatusEntity.notFound(true, "Expense with provided ID does not exist");
+        eventLastActivityService.updateLastActivity(sentExpense.getInvitationCode());
+        changeLog.publish(sentExpense.getInvitationCode(), type, sentExpense);
+        balanceService.expenseSaved(sentExpense.getInvitationCode(), sentExpense);
+        return StatusEntity.ok(message);
+    }
 }
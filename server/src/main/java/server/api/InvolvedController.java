@@ -2,15 +2,21 @@ package server.api;
 
 import commons.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
+import server.BalanceService;
+import server.EntityLookupCache;
+import server.EventAggregateStore;
+import server.EventChangeLog;
 import server.EventLastActivityService;
 import server.database.InvolvedRepository;
+import server.database.UnsettledInvolved;
 
 import java.util.List;
+import java.util.UUID;
 
 
 /**
@@ -20,23 +26,35 @@ import java.util.List;
 @Controller
 public class  InvolvedController {
     private final InvolvedRepository involvedRepository;
-    private final SimpMessagingTemplate template;
+    private final EventChangeLog changeLog;
 
     private final EventLastActivityService eventLastActivityService;
+    private final BalanceService balanceService;
+    private final EntityLookupCache lookupCache;
+    private final EventAggregateStore aggregates;
 
     /**
      * Constructor for the InvolvedController
      * @param involvedRepository involved repository
-     * @param template SimpMessagingTemplate
+     * @param changeLog EventChangeLog
      * @param eventLastActivityService EventLastActivityService
+     * @param balanceService BalanceService
+     * @param lookupCache EntityLookupCache
+     * @param aggregates EventAggregateStore
      */
     @Autowired
     public InvolvedController(InvolvedRepository involvedRepository,
-                              SimpMessagingTemplate template,
-                              EventLastActivityService eventLastActivityService) {
+                              EventChangeLog changeLog,
+                              EventLastActivityService eventLastActivityService,
+                              BalanceService balanceService,
+                              EntityLookupCache lookupCache,
+                              EventAggregateStore aggregates) {
         this.involvedRepository = involvedRepository;
-        this.template = template;
+        this.changeLog = changeLog;
         this.eventLastActivityService = eventLastActivityService;
+        this.balanceService = balanceService;
+        this.lookupCache = lookupCache;
+        this.aggregates = aggregates;
     }
 
     /**
@@ -56,6 +74,9 @@ public class  InvolvedController {
             return StatusEntity.badRequest(true, "List of involved is empty");
         }
 
+        if (aggregates.isEnabled())
+            return updateInvolvedsInMemory(receivedInvolveds);
+
         for (Involved inv : receivedInvolveds) {
             if (inv == null) {
                 return StatusEntity.badRequest(true, "Involved object is null in the request body");
@@ -69,14 +90,114 @@ public class  InvolvedController {
             Involved involved = involvedRepository.getReferenceById(inv.getId());
             involved.setIsSettled(inv.getIsSettled());
             involved = involvedRepository.save(involved);
-            eventLastActivityService.updateLastActivity(inv.getInvitationCode());
             Involved sentInvolved = new Involved(involved.getId(),
                     involved.getIsSettled(), involved.getExpense().getId(),
                     involved.getParticipant().getId(), inv.getInvitationCode());
             toSend.add(sentInvolved);
         }
-        template.convertAndSend("/topic/" + toSend.getFirst().getInvitationCode()+ "/involved:update", toSend);
+        eventLastActivityService.updateLastActivity(toSend.getFirst().getInvitationCode());
+        changeLog.publish(toSend.getFirst().getInvitationCode(), "involved:update", toSend);
+        balanceService.involvedsUpdated(toSend.getFirst().getInvitationCode(), toSend);
+
+        return StatusEntity.ok("Successfully updated settling of debts");
+    }
+
+    private StatusEntity updateInvolvedsInMemory(List<Involved> receivedInvolveds) {
+        if (receivedInvolveds.contains(null))
+            return StatusEntity.badRequest(true, "Involved object is null in the request body");
+        InvolvedList toSend = aggregates.updateInvolveds(receivedInvolveds.getFirst().getInvitationCode(),
+                receivedInvolveds);
+        if (toSend == null)
+            return StatusEntity.notFound(true, "One of the involved object not found in database");
+        eventLastActivityService.updateLastActivity(toSend.getFirst().getInvitationCode());
+        changeLog.publish(toSend.getFirst().getInvitationCode(), "involved:update", toSend);
+        balanceService.involvedsUpdated(toSend.getFirst().getInvitationCode(), toSend);
+        return StatusEntity.ok("Successfully updated settling of debts");
+    }
+
+    /**
+     * Evaluates whether the received SettleRequest selects all debts of an event, all debts of an expense
+     * or all debts one participant owes to another one
+     *
+     * @param request received SettleRequest
+     * @return Returns a statusEntity with an error message, if it is a bad request
+     * Returns an OK status with null body otherwise
+     */
+    public StatusEntity isSettleBadRequest(SettleRequest request) {
+        if (request == null || request.getInvitationCode() == null)
+            return StatusEntity.badRequest(true, "InvitationCode of event should be provided");
+        if (request.getFromId() == null && request.getToId() == null)
+            return StatusEntity.ok((String) null);
+        if (request.getExpenseId() != null)
+            return StatusEntity.badRequest(true, "Debts can be settled in an expense or between participants, "
+                    + "not both");
+        if (request.getFromId() == null || request.getToId() == null)
+            return StatusEntity.badRequest(true, "Both participants should be provided");
+        if (request.getFromId().equals(request.getToId()))
+            return StatusEntity.badRequest(true, "A participant cannot owe debts to themselves");
+        return StatusEntity.ok((String) null);
+    }
 
+    /**
+     * Handles settle websocket endpoint: settles all debts of an event, all debts of an expense
+     * or all debts one participant owes to another one, with a single update however many there are.
+     * The settled involveds are broadcast as a single involved:update.
+     * @param request SettleRequest received from client
+     * @return StatusEntity with the result of the operation
+     * @throws ConcurrencyFailureException if the debts changed while they were settled, which rolls the change back
+     */
+    @MessageMapping("/involved:settle")
+    @SendToUser(value = "/queue/reply", broadcast = false)
+    public StatusEntity settleInvolveds(SettleRequest request) throws ConcurrencyFailureException {
+        StatusEntity badRequest = isSettleBadRequest(request);
+        if (badRequest.isUnsolvable())
+            return badRequest;
+
+        InvolvedList settled = aggregates.isEnabled()
+                ? aggregates.settleInvolveds(request)
+                : settleInvolvedsInDatabase(request);
+        if (settled == null)
+            return StatusEntity.notFound(true, "Event not found");
+        if (settled.isEmpty())
+            return StatusEntity.ok("There were no debts to settle");
+
+        UUID invitationCode = request.getInvitationCode();
+        eventLastActivityService.updateLastActivity(invitationCode);
+        changeLog.publish(invitationCode, "involved:update", settled);
+        balanceService.involvedsUpdated(invitationCode, settled);
         return StatusEntity.ok("Successfully updated settling of debts");
     }
-}
\ No newline at end of file
+
+    private InvolvedList settleInvolvedsInDatabase(SettleRequest request) {
+        UUID invitationCode = request.getInvitationCode();
+        if (!lookupCache.eventExists(invitationCode))
+            return null;
+
+        // The debts are read for the broadcast, then settled with an update using the same predicate
+        List<UnsettledInvolved> unsettled;
+        int updated;
+        if (request.getExpenseId() != null) {
+            unsettled = involvedRepository.findUnsettledByExpenseId(invitationCode, request.getExpenseId());
+            updated = unsettled.isEmpty() ? 0
+                    : involvedRepository.settleAllByExpenseId(invitationCode, request.getExpenseId());
+        } else if (request.getFromId() != null) {
+            unsettled = involvedRepository.findUnsettledBetween(invitationCode, request.getFromId(),
+                    request.getToId());
+            updated = unsettled.isEmpty() ? 0
+                    : involvedRepository.settleAllBetween(invitationCode, request.getFromId(), request.getToId());
+        } else {
+            unsettled = involvedRepository.findUnsettledByInvitationCode(invitationCode);
+            updated = unsettled.isEmpty() ? 0 : involvedRepository.settleAllByInvitationCode(invitationCode);
+        }
+        // A debt added or settled by another handler in between would be left out of the broadcast
+        if (updated != unsettled.size())
+            throw new ConcurrencyFailureException("The debts of event " + invitationCode
+                    + " changed while they were settled");
+
+        InvolvedList settled = new InvolvedList();
+        for (UnsettledInvolved involved : unsettled)
+            settled.add(new Involved(involved.getId(), true, involved.getExpenseId(), involved.getParticipantId(),
+                    invitationCode));
+        return settled;
+    }
+}
@@ -3,16 +3,19 @@ package server.api;
 import commons.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
+import server.BalanceService;
+import server.EventAggregateStore;
+import server.EventChangeLog;
+import server.EntityLookupCache;
 import server.EventLastActivityService;
 import server.database.EventRepository;
 import server.database.ExpenseRepository;
+import server.database.InvolvedRepository;
 import server.database.ParticipantRepository;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 
@@ -24,28 +27,43 @@ import java.util.UUID;
 public class ParticipantController {
     private final ParticipantRepository participantRepository;
     private final ExpenseRepository expenseRepository;
+    private final InvolvedRepository involvedRepository;
     private final EventRepository eventRepository;
-    private final SimpMessagingTemplate template;
+    private final EventChangeLog changeLog;
 
     private final EventLastActivityService eventLastActivityService;
+    private final BalanceService balanceService;
+    private final EntityLookupCache lookupCache;
+    private final EventAggregateStore aggregates;
 
     /**
      * Constructor
      * @param participantRepository participant repository
      * @param eventRepository event repository
-     * @param template SimpMessagingTemplate
+     * @param changeLog EventChangeLog
      * @param expenseRepository expenseRepository
+     * @param involvedRepository involvedRepository
      * @param eventLastActivityService EventLastActivityService
+     * @param balanceService BalanceService
+     * @param lookupCache EntityLookupCache
+     * @param aggregates EventAggregateStore
      */
     @Autowired
     public ParticipantController(ParticipantRepository participantRepository, EventRepository eventRepository,
-                                 SimpMessagingTemplate template, ExpenseRepository expenseRepository,
-                                 EventLastActivityService eventLastActivityService) {
+                                 EventChangeLog changeLog, ExpenseRepository expenseRepository,
+                                 InvolvedRepository involvedRepository,
+                                 EventLastActivityService eventLastActivityService,
+                                 BalanceService balanceService, EntityLookupCache lookupCache,
+                                 EventAggregateStore aggregates) {
         this.participantRepository = participantRepository;
         this.eventRepository = eventRepository;
         this.expenseRepository = expenseRepository;
-        this.template = template;
+        this.involvedRepository = involvedRepository;
+        this.changeLog = changeLog;
         this.eventLastActivityService = eventLastActivityService;
+        this.balanceService = balanceService;
+        this.lookupCache = lookupCache;
+        this.aggregates = aggregates;
     }
 
     private static boolean isNullOrEmpty(String str) {
@@ -85,7 +103,10 @@ public class ParticipantController {
     public StatusEntity isExistingParticipantBadRequest(Participant receivedParticipant) {
         if(receivedParticipant.getId() == null)
             return StatusEntity.badRequest(true, "Id of the participant should be provided");
-        if(!participantRepository.existsById(receivedParticipant.getId()))
+        boolean exists = aggregates.isEnabled()
+                ? aggregates.hasParticipant(receivedParticipant.getEventId(), receivedParticipant.getId())
+                : lookupCache.participantExists(receivedParticipant.getId());
+        if(!exists)
         {
             return StatusEntity.notFound(true, "Participant not found");
         }
@@ -105,9 +126,18 @@ public class ParticipantController {
         if(isBadRequest.getStatusCode() != StatusEntity.StatusCode.OK)
             return isBadRequest;
 
-        if(!eventRepository.existsById(receivedParticipant.getEventId()))
+        if(!lookupCache.eventExists(receivedParticipant.getEventId()))
             return StatusEntity.notFound(false, "Provided participant has an invalid invitation code");
 
+        if (aggregates.isEnabled()) {
+            Participant sentParticipant = aggregates.createParticipant(receivedParticipant);
+            if (sentParticipant == null)
+                return StatusEntity.notFound(false, "Provided participant has an invalid invitation code");
+            eventLastActivityService.updateLastActivity(sentParticipant.getEventId());
+            changeLog.publish(sentParticipant.getEventId(), "participant:create", sentParticipant);
+            return StatusEntity.ok("Participant was successfully created");
+        }
+
         Event event = eventRepository.getReferenceById(receivedParticipant.getEventId());
         Participant participant = new Participant(
                 event,
@@ -118,13 +148,13 @@ public class ParticipantController {
         );
         eventLastActivityService.updateLastActivity(event.getId());
         participant = participantRepository.save(participant);
+        lookupCache.invalidateParticipant(participant.getId());
 
 
         Participant sentParticipant = new Participant(participant.getId(), participant.getFirstName(),
                 participant.getLastName(), participant.getIban(), participant.getBic(),
                 receivedParticipant.getEventId());
-        template.convertAndSend("/topic/" + sentParticipant.getEventId() + "/participant:create",
-                sentParticipant);
+        changeLog.publish(sentParticipant.getEventId(), "participant:create", sentParticipant);
         return StatusEntity.ok("Participant was successfully created");
     }
 
@@ -138,8 +168,13 @@ public class ParticipantController {
     @SendToUser(value = "/queue/participants:read", broadcast = false)
     public StatusEntity readParticipants(UUID invitationCode)
     {
-        if(!eventRepository.existsById(invitationCode))
+        if(!lookupCache.eventExists(invitationCode))
             return StatusEntity.notFound(true, (ParticipantList) null);
+        if (aggregates.isEnabled()) {
+            ParticipantList sentParticipants = aggregates.readParticipants(invitationCode);
+            return sentParticipants == null ? StatusEntity.notFound(true, (ParticipantList) null)
+                    : StatusEntity.ok(sentParticipants);
+        }
 
         Event event = eventRepository.getReferenceById(invitationCode);
         List<Participant> participants = event.getParticipants();
@@ -172,6 +207,15 @@ public class ParticipantController {
         if (isExistingBadRequest.getStatusCode() != StatusEntity.StatusCode.OK)
             return isExistingBadRequest;
 
+        if (aggregates.isEnabled()) {
+            Participant sentParticipant = aggregates.updateParticipant(receivedParticipant);
+            if (sentParticipant == null)
+                return StatusEntity.notFound(true, "Participant not found");
+            eventLastActivityService.updateLastActivity(sentParticipant.getEventId());
+            changeLog.publish(sentParticipant.getEventId(), "participant:update", sentParticipant);
+            return StatusEntity.ok("Participant was successfully updated");
+        }
+
         Participant participant = participantRepository.getReferenceById(receivedParticipant.getId());
         participant.setFirstName(receivedParticipant.getFirstName());
         participant.setLastName(receivedParticipant.getLastName());
@@ -185,8 +229,7 @@ public class ParticipantController {
         Participant sentParticipant = new Participant(participant.getId(), participant.getFirstName(),
                 participant.getLastName(), participant.getIban(), participant.getBic(),
                 receivedParticipant.getEventId());
-        template.convertAndSend("/topic/" + sentParticipant.getEventId() + "/participant:update",
-                sentParticipant);
+        changeLog.publish(sentParticipant.getEventId(), "participant:update", sentParticipant);
         return StatusEntity.ok("Participant was successfully updated");
     }
 
@@ -202,25 +245,38 @@ public class ParticipantController {
         var isExistingBadRequest = isExistingParticipantBadRequest(receivedParticipant);
         if (isExistingBadRequest.getStatusCode() != StatusEntity.StatusCode.OK)
             return isExistingBadRequest;
+        if (aggregates.isEnabled())
+            return deleteParticipantInMemory(receivedParticipant);
 
         Participant participant = participantRepository.getReferenceById(receivedParticipant.getId());
-
-        List<Expense> expenses = new ArrayList<>();
-        for (Involved involved : participant.getInvolvedIn()) {
-            Expense expense = involved.getExpense();
-            if (expense.getInvolveds().size() == 1)
-                expenses.add(expense);
-        }
-
-        eventLastActivityService.updateLastActivity(receivedParticipant.getEventId());
-        participantRepository.delete(participant);
-        expenseRepository.deleteAll(expenses);
-
         Participant sentParticipant = new Participant(participant.getId(), participant.getFirstName(),
                 participant.getLastName(), participant.getIban(), participant.getBic(),
                 receivedParticipant.getEventId());
-        template.convertAndSend("/topic/" + sentParticipant.getEventId() + "/participant:delete",
-                sentParticipant);
+
+        // bulk deletes instead of cascading the removal entity by entity, so the number of statements
+        // does not depend on the number of expenses the participant paid for or is involved in
+        List<UUID> expensesOnlyInvolving = expenseRepository.findIdsOnlyInvolving(participant.getId());
+        eventLastActivityService.updateLastActivity(receivedParticipant.getEventId());
+        involvedRepository.deleteAllOfParticipant(participant.getId());
+        expenseRepository.deleteAllPaidBy(participant.getId());
+        if (!expensesOnlyInvolving.isEmpty())
+            expenseRepository.deleteAllByIdInBatch(expensesOnlyInvolving);
+        participantRepository.deleteAllByIdInBatch(List.of(participant.getId()));
+        lookupCache.invalidateParticipant(receivedParticipant.getId());
+
+        changeLog.publish(sentParticipant.getEventId(), "participant:delete", sentParticipant);
+        balanceService.reload(sentParticipant.getEventId());
+        return StatusEntity.ok("Participant was successfully deleted");
+    }
+
+    private StatusEntity deleteParticipantInMemory(Participant receivedParticipant) {
+        Participant sentParticipant = aggregates.deleteParticipant(receivedParticipant.getEventId(),
+                receivedParticipant.getId());
+        if (sentParticipant == null)
+            return StatusEntity.notFound(true, "Participant not found");
+        eventLastActivityService.updateLastActivity(sentParticipant.getEventId());
+        changeLog.publish(sentParticipant.getEventId(), "participant:delete", sentParticipant);
+        balanceService.reload(sentParticipant.getEventId());
         return StatusEntity.ok("Participant was successfully deleted");
     }
 }
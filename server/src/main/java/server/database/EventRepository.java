@@ -1,9 +1,16 @@
 package server.database;
 
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import commons.Event;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -12,6 +19,36 @@ import java.util.UUID;
  * Can be expanded by adding methods for handling custom queries on the database.
  */
 public interface EventRepository extends JpaRepository<Event, UUID> {
-}
 
+    /**
+     * Reads the invitation code and title of the given events in a single statement
+     * @param ids invitation codes of the events
+     * @return titles of the events that exist, in no particular order
+     */
+    @Query("SELECT e.id AS id, e.title AS title FROM Event e WHERE e.id IN :ids")
+    List<EventTitle> findTitlesByIdIn(@Param("ids") Collection<UUID> ids);
 
+    /**
+     * Reads a page of the events listed on the admin panel, without their participants.
+     * Null filters match every event, the date ranges include both ends.
+     * The sort of the pageable is applied, the page is read without counting all matching events.
+     * @param titlePattern LIKE pattern the titles start with, escaped with a backslash, null for all titles
+     * @param createdFrom earliest creation date, null for no bound
+     * @param createdTo latest creation date, null for no bound
+     * @param activeFrom earliest last activity, null for no bound
+     * @param activeTo latest last activity, null for no bound
+     * @param pageable number, size and sort of the page
+     * @return the events of the page
+     */
+    @Query("SELECT new commons.Event(e.id, e.title, e.creationDate, e.lastActivity) FROM Event e "
+            + "WHERE (:titlePattern IS NULL OR e.title LIKE :titlePattern ESCAPE '\\') "
+            + "AND (:createdFrom IS NULL OR e.creationDate >= :createdFrom) "
+            + "AND (:createdTo IS NULL OR e.creationDate <= :createdTo) "
+            + "AND (:activeFrom IS NULL OR e.lastActivity >= :activeFrom) "
+            + "AND (:activeTo IS NULL OR e.lastActivity <= :activeTo)")
+    Slice<Event> findPage(@Param("titlePattern") String titlePattern,
+                          @Param("createdFrom") LocalDateTime createdFrom,
+                          @Param("createdTo") LocalDateTime createdTo,
+                          @Param("activeFrom") LocalDateTime activeFrom,
+                          @Param("activeTo") LocalDateTime activeTo, Pageable pageable);
+}
@@ -0,0 +1,21 @@
+package server.database;
+
+import java.util.UUID;
+
+/**
+ * Projection of an Event with only its invitation code and title,
+ * as needed by the recently accessed events on the start screen.
+ */
+public interface EventTitle {
+    /**
+     * Getter for the invitation code of the Event
+     * @return invitation code of the Event
+     */
+    UUID getId();
+
+    /**
+     * Getter for the title of the Event
+     * @return title of the Event
+     */
+    String getTitle();
+}
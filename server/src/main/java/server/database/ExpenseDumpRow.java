@@ -0,0 +1,58 @@
+package server.database;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Projection of a single Involved of an Expense as written in an event dump.
+ * An expense without involveds is read as a single row with null involved fields.
+ */
+public interface ExpenseDumpRow {
+    /**
+     * Getter for the id of the expense
+     * @return id of the expense
+     */
+    UUID getExpenseId();
+
+    /**
+     * Getter for the id of the participant who paid the expense
+     * @return id of the participant who paid the expense
+     */
+    UUID getPaidById();
+
+    /**
+     * Getter for the title of the expense
+     * @return title of the expense
+     */
+    String getTitle();
+
+    /**
+     * Getter for the amount of the expense
+     * @return amount of the expense
+     */
+    double getAmount();
+
+    /**
+     * Getter for the date of the expense
+     * @return date of the expense
+     */
+    LocalDate getDate();
+
+    /**
+     * Getter for the id of the involved
+     * @return id of the involved, null if the expense has no involveds
+     */
+    UUID getInvolvedId();
+
+    /**
+     * Getter for the id of the involved participant
+     * @return id of the involved participant, null if the expense has no involveds
+     */
+    UUID getParticipantId();
+
+    /**
+     * Getter for whether the involved participant settled their debt
+     * @return whether the involved participant settled their debt, null if the expense has no involveds
+     */
+    Boolean getSettled();
+}
@@ -1,9 +1,20 @@
 package server.database;
 
 import commons.Expense;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Interface for the ExpenseRepository.
@@ -11,4 +22,100 @@ import java.util.UUID;
  * Can be expanded by adding methods for handling custom queries on the database.
  */
 public interface ExpenseRepository extends JpaRepository<Expense, UUID> {
+
+    /**
+     * Reads all expenses of an event together with their payer, involveds and involved participants
+     * in a single statement, instead of walking the lazy Event -> Participant -> Expense -> Involved graph.
+     * The returned entities are read-only.
+     * @param invitationCode invitationCode of the Event
+     * @return expenses of the Event ordered by date and id
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT DISTINCT e FROM Expense e JOIN FETCH e.paidBy p "
+            + "JOIN FETCH e.involveds i JOIN FETCH i.participant "
+            + "WHERE p.event.id = :invitationCode ORDER BY e.date, e.id")
+    List<Expense> findAllWithInvolvedsByInvitationCode(@Param("invitationCode") UUID invitationCode);
+
+    /**
+     * Reads the ids of the first expenses of an event in (date, id) order, for the first page of expenses.
+     * @param invitationCode invitationCode of the Event
+     * @param limit the maximum number of ids
+     * @return ids of the first expenses of the Event
+     */
+    @Query("SELECT e.id FROM Expense e WHERE e.paidBy.event.id = :invitationCode ORDER BY e.date, e.id")
+    List<UUID> findFirstPageIdsByInvitationCode(@Param("invitationCode") UUID invitationCode, Limit limit);
+
+    /**
+     * Reads the ids of the expenses of an event following an expense in (date, id) order,
+     * for the pages after the first. The position is given by the date and id of the expense,
+     * so it stays valid when expenses before it are added or deleted.
+     * @param invitationCode invitationCode of the Event
+     * @param afterDate date of the last expense of the previous page
+     * @param afterId id of the last expense of the previous page
+     * @param limit the maximum number of ids
+     * @return ids of the expenses after the given one
+     */
+    @Query("SELECT e.id FROM Expense e WHERE e.paidBy.event.id = :invitationCode "
+            + "AND (e.date > :afterDate OR (e.date = :afterDate AND e.id > :afterId)) ORDER BY e.date, e.id")
+    List<UUID> findPageIdsByInvitationCode(@Param("invitationCode") UUID invitationCode,
+                                           @Param("afterDate") LocalDate afterDate,
+                                           @Param("afterId") UUID afterId, Limit limit);
+
+    /**
+     * Reads expenses together with their payer, involveds and involved participants in a single statement.
+     * The ids are read first, as a limit on a query fetching a collection is applied in memory.
+     * The returned entities are read-only.
+     * @param ids ids of the expenses
+     * @return the expenses ordered by date and id
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT DISTINCT e FROM Expense e JOIN FETCH e.paidBy "
+            + "JOIN FETCH e.involveds i JOIN FETCH i.participant "
+            + "WHERE e.id IN :ids ORDER BY e.date, e.id")
+    List<Expense> findAllWithInvolvedsByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Deletes every Expense of an event in a single statement, bypassing the persistence context.
+     * The involveds of the expenses have to be deleted first.
+     * @param invitationCode invitationCode of the Event
+     * @return number of deleted rows
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Expense e WHERE e.paidBy.id IN "
+            + "(SELECT p.id FROM Participant p WHERE p.event.id = :invitationCode)")
+    int deleteAllByInvitationCode(@Param("invitationCode") UUID invitationCode);
+
+    /**
+     * Reads the ids of the expenses a participant is the only one involved in, in a single statement.
+     * These expenses are left without involveds when the participant is deleted.
+     * @param participantId id of the Participant
+     * @return ids of the expenses only involving the Participant
+     */
+    @Query("SELECT e.id FROM Expense e JOIN e.involveds i "
+            + "WHERE i.participant.id = :participantId AND SIZE(e.involveds) = 1")
+    List<UUID> findIdsOnlyInvolving(@Param("participantId") UUID participantId);
+
+    /**
+     * Deletes every Expense a participant paid for in a single statement, bypassing the persistence context.
+     * The involveds of the expenses have to be deleted first.
+     * @param participantId id of the Participant
+     * @return number of deleted rows
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Expense e WHERE e.paidBy.id = :participantId")
+    int deleteAllPaidBy(@Param("participantId") UUID participantId);
+
+    /**
+     * Streams every Involved of an event together with the fields of its Expense, for writing an event dump.
+     * Rows are ordered by payer and expense, so the rows of an expense and the expenses of a payer are adjacent.
+     * Has to be consumed and closed inside a transaction.
+     * @param invitationCode invitationCode of the Event
+     * @return stream of dump rows, one per Involved
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT e.id AS expenseId, e.paidBy.id AS paidById, e.title AS title, e.amount AS amount, "
+            + "e.date AS date, i.id AS involvedId, i.participant.id AS participantId, i.isSettled AS settled "
+            + "FROM Expense e LEFT JOIN e.involveds i WHERE e.paidBy.event.id = :invitationCode "
+            + "ORDER BY e.paidBy.id, e.id")
+    Stream<ExpenseDumpRow> streamDumpRowsByInvitationCode(@Param("invitationCode") UUID invitationCode);
 }
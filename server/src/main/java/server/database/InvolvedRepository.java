@@ -3,7 +3,11 @@ package server.database;
 
 import commons.Involved;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -12,6 +16,108 @@ import java.util.UUID;
  * Can be expanded by adding methods for handling custom queries on the database.
  */
 public interface InvolvedRepository extends JpaRepository<Involved, UUID> {
-}
 
+    /**
+     * Reads every Involved of an event together with the amount and payer of its Expense in a single query
+     * @param invitationCode invitationCode of the Event
+     * @return flat list of shares, one per Involved
+     */
+    @Query("SELECT e.id AS expenseId, e.amount AS amount, e.paidBy.id AS paidById, "
+            + "i.participant.id AS participantId, i.isSettled AS settled "
+            + "FROM Involved i JOIN i.expense e WHERE e.paidBy.event.id = :invitationCode")
+    List<InvolvedShare> findSharesByInvitationCode(@Param("invitationCode") UUID invitationCode);
+
+    /**
+     * Deletes every Involved of an event in a single statement, bypassing the persistence context
+     * @param invitationCode invitationCode of the Event
+     * @return number of deleted rows
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Involved i WHERE i.expense.id IN "
+            + "(SELECT e.id FROM Expense e WHERE e.paidBy.event.id = :invitationCode)")
+    int deleteAllByInvitationCode(@Param("invitationCode") UUID invitationCode);
+
+    /**
+     * Deletes every Involved of a participant and every Involved of the expenses the participant paid for,
+     * in a single statement, bypassing the persistence context
+     * @param participantId id of the Participant
+     * @return number of deleted rows
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Involved i WHERE i.participant.id = :participantId OR i.expense.id IN "
+            + "(SELECT e.id FROM Expense e WHERE e.paidBy.id = :participantId)")
+    int deleteAllOfParticipant(@Param("participantId") UUID participantId);
+
+    /**
+     * Reads the involveds of an event that are not settled yet, in a single statement
+     * @param invitationCode invitationCode of the Event
+     * @return the unsettled involveds
+     */
+    @Query("SELECT i.id AS id, e.id AS expenseId, i.participant.id AS participantId "
+            + "FROM Involved i JOIN i.expense e WHERE e.paidBy.event.id = :invitationCode AND i.isSettled = false")
+    List<UnsettledInvolved> findUnsettledByInvitationCode(@Param("invitationCode") UUID invitationCode);
+
+    /**
+     * Reads the involveds of an expense of an event that are not settled yet, in a single statement
+     * @param invitationCode invitationCode of the Event
+     * @param expenseId id of the Expense
+     * @return the unsettled involveds, none if the expense is not in the event
+     */
+    @Query("SELECT i.id AS id, e.id AS expenseId, i.participant.id AS participantId "
+            + "FROM Involved i JOIN i.expense e WHERE e.paidBy.event.id = :invitationCode AND e.id = :expenseId "
+            + "AND i.isSettled = false")
+    List<UnsettledInvolved> findUnsettledByExpenseId(@Param("invitationCode") UUID invitationCode,
+                                                     @Param("expenseId") UUID expenseId);
 
+    /**
+     * Reads the unsettled debts one participant of an event owes to another one, i.e. the unsettled involveds
+     * of the first participant in the expenses the second one paid for, in a single statement
+     * @param invitationCode invitationCode of the Event
+     * @param fromId id of the Participant who owes the debts
+     * @param toId id of the Participant who paid the expenses
+     * @return the unsettled involveds
+     */
+    @Query("SELECT i.id AS id, e.id AS expenseId, i.participant.id AS participantId "
+            + "FROM Involved i JOIN i.expense e WHERE e.paidBy.event.id = :invitationCode "
+            + "AND i.participant.id = :fromId AND e.paidBy.id = :toId AND i.isSettled = false")
+    List<UnsettledInvolved> findUnsettledBetween(@Param("invitationCode") UUID invitationCode,
+                                                 @Param("fromId") UUID fromId, @Param("toId") UUID toId);
+
+    /**
+     * Settles the involveds of an event that are not settled yet, in a single statement with the predicate
+     * of findUnsettledByInvitationCode, bypassing the persistence context
+     * @param invitationCode invitationCode of the Event
+     * @return number of settled involveds
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Involved i SET i.isSettled = true WHERE i.isSettled = false AND i.expense.id IN "
+            + "(SELECT e.id FROM Expense e WHERE e.paidBy.event.id = :invitationCode)")
+    int settleAllByInvitationCode(@Param("invitationCode") UUID invitationCode);
+
+    /**
+     * Settles the involveds of an expense of an event that are not settled yet, in a single statement with the
+     * predicate of findUnsettledByExpenseId, bypassing the persistence context
+     * @param invitationCode invitationCode of the Event
+     * @param expenseId id of the Expense
+     * @return number of settled involveds, none if the expense is not in the event
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Involved i SET i.isSettled = true WHERE i.isSettled = false AND i.expense.id IN "
+            + "(SELECT e.id FROM Expense e WHERE e.paidBy.event.id = :invitationCode AND e.id = :expenseId)")
+    int settleAllByExpenseId(@Param("invitationCode") UUID invitationCode, @Param("expenseId") UUID expenseId);
+
+    /**
+     * Settles the debts one participant of an event owes to another one that are not settled yet, in a single
+     * statement with the predicate of findUnsettledBetween, bypassing the persistence context
+     * @param invitationCode invitationCode of the Event
+     * @param fromId id of the Participant who owes the debts
+     * @param toId id of the Participant who paid the expenses
+     * @return number of settled involveds
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Involved i SET i.isSettled = true WHERE i.isSettled = false AND i.participant.id = :fromId "
+            + "AND i.expense.id IN (SELECT e.id FROM Expense e WHERE e.paidBy.event.id = :invitationCode "
+            + "AND e.paidBy.id = :toId)")
+    int settleAllBetween(@Param("invitationCode") UUID invitationCode, @Param("fromId") UUID fromId,
+                         @Param("toId") UUID toId);
+}
@@ -0,0 +1,39 @@
+package server.database;
+
+import java.util.UUID;
+
+/**
+ * Flat projection of a single Involved row together with the fields of its Expense
+ * that are needed to compute the balances of an event.
+ */
+public interface InvolvedShare {
+    /**
+     * Getter for the id of the Expense
+     * @return id of the Expense
+     */
+    UUID getExpenseId();
+
+    /**
+     * Getter for the amount of the Expense
+     * @return amount of the Expense
+     */
+    double getAmount();
+
+    /**
+     * Getter for the id of the Participant who paid for the Expense
+     * @return id of the Participant who paid
+     */
+    UUID getPaidById();
+
+    /**
+     * Getter for the id of the involved Participant
+     * @return id of the involved Participant
+     */
+    UUID getParticipantId();
+
+    /**
+     * Getter for whether the involved Participant has settled their debt
+     * @return true if the debt is settled
+     */
+    boolean getSettled();
+}
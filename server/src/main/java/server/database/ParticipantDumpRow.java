@@ -0,0 +1,38 @@
+package server.database;
+
+import java.util.UUID;
+
+/**
+ * Projection of a Participant as written in an event dump, without its associations
+ */
+public interface ParticipantDumpRow {
+    /**
+     * Getter for the id of the participant
+     * @return id of the participant
+     */
+    UUID getId();
+
+    /**
+     * Getter for the first name of the participant
+     * @return first name of the participant
+     */
+    String getFirstName();
+
+    /**
+     * Getter for the last name of the participant
+     * @return last name of the participant
+     */
+    String getLastName();
+
+    /**
+     * Getter for the iban of the participant
+     * @return iban of the participant
+     */
+    String getIban();
+
+    /**
+     * Getter for the bic of the participant
+     * @return bic of the participant
+     */
+    String getBic();
+}
@@ -1,13 +1,68 @@
 package server.database;
 
 import commons.Participant;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 /**
  * Interface that represents the participant repository
  */
 public interface ParticipantRepository extends JpaRepository<Participant, UUID> {
 
+    /**
+     * Finds which of the given participants exist and belong to the given event, in a single statement
+     * @param invitationCode invitationCode of the Event
+     * @param ids ids of the participants to look for
+     * @return ids of the participants that exist in the Event
+     */
+    @Query("SELECT p.id FROM Participant p WHERE p.event.id = :invitationCode AND p.id IN :ids")
+    List<UUID> findIdsInEvent(@Param("invitationCode") UUID invitationCode, @Param("ids") Collection<UUID> ids);
+
+    /**
+     * Reads the invitation code of the event a participant belongs to, without loading the participant
+     * @param id id of the participant
+     * @return invitationCode of the Event, empty if the participant does not exist
+     */
+    @Query("SELECT p.event.id FROM Participant p WHERE p.id = :id")
+    Optional<UUID> findEventIdById(@Param("id") UUID id);
+
+    /**
+     * Reads the participants of an event together with the expenses they paid for in a single statement
+     * @param invitationCode invitationCode of the Event
+     * @return participants of the Event
+     */
+    @Query("SELECT DISTINCT p FROM Participant p LEFT JOIN FETCH p.madeExpenses WHERE p.event.id = :invitationCode")
+    List<Participant> findAllWithMadeExpensesByInvitationCode(@Param("invitationCode") UUID invitationCode);
+
+    /**
+     * Deletes every Participant of an event in a single statement, bypassing the persistence context.
+     * The expenses and involveds of the event have to be deleted first.
+     * @param invitationCode invitationCode of the Event
+     * @return number of deleted rows
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("DELETE FROM Participant p WHERE p.event.id = :invitationCode")
+    int deleteAllByInvitationCode(@Param("invitationCode") UUID invitationCode);
+
+    /**
+     * Streams the participants of an event without their associations, for writing an event dump.
+     * Has to be consumed and closed inside a transaction.
+     * @param invitationCode invitationCode of the Event
+     * @return stream of participants ordered by id
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p.id AS id, p.firstName AS firstName, p.lastName AS lastName, p.iban AS iban, p.bic AS bic "
+            + "FROM Participant p WHERE p.event.id = :invitationCode ORDER BY p.id")
+    Stream<ParticipantDumpRow> streamDumpRowsByInvitationCode(@Param("invitationCode") UUID invitationCode);
 }
@@ -0,0 +1,26 @@
+package server.database;
+
+import java.util.UUID;
+
+/**
+ * Projection of an Involved that is not settled yet, with the ids needed to broadcast it once it is settled.
+ */
+public interface UnsettledInvolved {
+    /**
+     * Getter for the id of the Involved
+     * @return id of the Involved
+     */
+    UUID getId();
+
+    /**
+     * Getter for the id of the Expense
+     * @return id of the Expense
+     */
+    UUID getExpenseId();
+
+    /**
+     * Getter for the id of the involved Participant
+     * @return id of the involved Participant
+     */
+    UUID getParticipantId();
+}
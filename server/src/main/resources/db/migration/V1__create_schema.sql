@@ -0,0 +1,42 @@
+-- Tables of the Event, Participant, Expense and Involved entities,
+-- as Hibernate created them with ddl-auto=update before migrations were introduced.
+-- Databases created that way are baselined at this version.
+
+CREATE TABLE event (
+    id UUID NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    creation_date TIMESTAMP(6),
+    last_activity TIMESTAMP(6),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE participant (
+    id UUID NOT NULL,
+    first_name VARCHAR(255),
+    last_name VARCHAR(255),
+    iban VARCHAR(255),
+    bic VARCHAR(255),
+    event_id UUID,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_participant_event FOREIGN KEY (event_id) REFERENCES event (id)
+);
+
+CREATE TABLE expense (
+    id UUID NOT NULL,
+    title VARCHAR(255) NOT NULL,
+    amount FLOAT(53) NOT NULL,
+    date DATE,
+    participant_id UUID,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_expense_participant FOREIGN KEY (participant_id) REFERENCES participant (id)
+);
+
+CREATE TABLE involved (
+    id UUID NOT NULL,
+    is_settled BOOLEAN NOT NULL,
+    expense_id UUID,
+    participant_id UUID,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_involved_expense FOREIGN KEY (expense_id) REFERENCES expense (id),
+    CONSTRAINT fk_involved_participant FOREIGN KEY (participant_id) REFERENCES participant (id)
+);
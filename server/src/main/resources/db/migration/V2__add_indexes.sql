@@ -0,0 +1,16 @@
+-- Indexes on the columns the queries filter, join and sort on.
+-- IF NOT EXISTS because ddl-auto=update already created the indexes declared on Event in baselined databases.
+
+-- admin event listing: title prefix filter and last activity sort
+CREATE INDEX IF NOT EXISTS idx_event_title ON event (title);
+CREATE INDEX IF NOT EXISTS idx_event_last_activity ON event (last_activity);
+
+-- participants of an event
+CREATE INDEX idx_participant_event ON participant (event_id);
+
+-- expenses paid by the participants of an event, read in (date, id) order
+CREATE INDEX idx_expense_participant_date ON expense (participant_id, date, id);
+
+-- a participant is involved in an expense at most once, the constraint also serves lookups by expense
+ALTER TABLE involved ADD CONSTRAINT uk_involved_expense_participant UNIQUE (expense_id, participant_id);
+CREATE INDEX idx_involved_participant ON involved (participant_id);
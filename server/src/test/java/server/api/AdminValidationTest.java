@@ -0,0 +1,118 @@
+package server.api;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import server.AdminPrincipal;
+import server.AdminValidation;
+import server.PasswordService;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class AdminValidationTest {
+
+    private PasswordService passwordService;
+    private AdminValidation sut;
+    private MessageChannel channel;
+    private Map<String, Object> sessionAttributes;
+
+    @BeforeEach
+    public void setup() {
+        passwordService = new PasswordService();
+        sut = new AdminValidation(passwordService);
+        channel = mock(MessageChannel.class);
+        sessionAttributes = new HashMap<>();
+    }
+
+    private Message<byte[]> frame(StompCommand command, String destination, String passcode) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.create(command);
+        if (destination != null)
+            headerAccessor.setDestination(destination);
+        if (passcode != null)
+            headerAccessor.setNativeHeader("passcode", passcode);
+        headerAccessor.setSessionAttributes(sessionAttributes);
+        return MessageBuilder.createMessage(new byte[0], headerAccessor.getMessageHeaders());
+    }
+
+    @Test
+    public void testConnectWithPasscodeAuthenticates() {
+        sut.preSend(frame(StompCommand.CONNECT, null, passwordService.getAdminPassword()), channel);
+
+        assertInstanceOf(AdminPrincipal.class, sessionAttributes.get(AdminValidation.ADMIN_ATTRIBUTE));
+    }
+
+    @Test
+    public void testConnectWithoutPasscodeIsNotAdmin() {
+        sut.preSend(frame(StompCommand.CONNECT, null, null), channel);
+
+        assertFalse(sessionAttributes.containsKey(AdminValidation.ADMIN_ATTRIBUTE));
+    }
+
+    @Test
+    public void testLoginFrameAuthenticates() {
+        sut.preSend(frame(StompCommand.SEND, AdminValidation.LOGIN_DESTINATION,
+                passwordService.getAdminPassword()), channel);
+
+        assertTrue(sessionAttributes.containsKey(AdminValidation.ADMIN_ATTRIBUTE));
+        sut.preSend(frame(StompCommand.SUBSCRIBE, "/topic/admin/event:create", null), channel);
+    }
+
+    @Test
+    public void testLoginWithWrongPasscode() {
+        Message<byte[]> login = frame(StompCommand.SEND, AdminValidation.LOGIN_DESTINATION, "wrong");
+
+        assertSame(login, sut.preSend(login, channel));
+        assertFalse(sessionAttributes.containsKey(AdminValidation.ADMIN_ATTRIBUTE));
+    }
+
+    @Test
+    public void testAdminSubscribeWithoutLoginIsRejected() {
+        Message<byte[]> subscribe = frame(StompCommand.SUBSCRIBE, "/topic/admin/event:create", "wrong");
+
+        assertThrows(MessagingException.class, () -> sut.preSend(subscribe, channel));
+    }
+
+    @Test
+    public void testAdminSubscribeWithPasscodeAuthenticates() {
+        sut.preSend(frame(StompCommand.SUBSCRIBE, "/topic/admin/event:create",
+                passwordService.getAdminPassword()), channel);
+
+        assertTrue(sessionAttributes.containsKey(AdminValidation.ADMIN_ATTRIBUTE));
+    }
+
+    @Test
+    public void testAdminSendWithoutLoginIsPassedOn() {
+        Message<byte[]> send = frame(StompCommand.SEND, "/app/admin/events:page", null);
+
+        assertSame(send, sut.preSend(send, channel));
+        assertFalse(sessionAttributes.containsKey(AdminValidation.ADMIN_ATTRIBUTE));
+    }
+
+    @Test
+    public void testLogout() {
+        sut.preSend(frame(StompCommand.CONNECT, null, passwordService.getAdminPassword()), channel);
+        sut.preSend(frame(StompCommand.SEND, AdminValidation.LOGOUT_DESTINATION, null), channel);
+
+        assertFalse(sessionAttributes.containsKey(AdminValidation.ADMIN_ATTRIBUTE));
+        Message<byte[]> subscribe = frame(StompCommand.SUBSCRIBE, "/topic/admin/event:create", null);
+        assertThrows(MessagingException.class, () -> sut.preSend(subscribe, channel));
+    }
+
+    @Test
+    public void testOtherFramesArePassedOn() {
+        Message<byte[]> subscribe = frame(StompCommand.SUBSCRIBE, "/topic/event/expense:create", null);
+        Message<byte[]> send = frame(StompCommand.SEND, "/app/expense:create", null);
+
+        assertSame(subscribe, sut.preSend(subscribe, channel));
+        assertSame(send, sut.preSend(send, channel));
+    }
+}
@@ -0,0 +1,196 @@
+package server.api;
+
+import commons.EventBalances;
+import commons.Expense;
+import commons.Involved;
+import commons.InvolvedList;
+import commons.Transfer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import server.BalanceService;
+import server.EventAggregateStore;
+import server.database.InvolvedRepository;
+import server.database.InvolvedShare;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class BalanceServiceTest {
+
+    private InvolvedRepository involvedRepository;
+    private SimpMessagingTemplate template;
+    private BalanceService balanceService;
+
+    private UUID invitationCode;
+    private UUID alice;
+    private UUID bob;
+    private UUID carol;
+
+    @BeforeEach
+    public void setup() {
+        involvedRepository = mock(InvolvedRepository.class);
+        template = mock(SimpMessagingTemplate.class);
+        balanceService = new BalanceService(involvedRepository, template, mock(EventAggregateStore.class), 1000);
+        invitationCode = UUID.randomUUID();
+        alice = UUID.randomUUID();
+        bob = UUID.randomUUID();
+        carol = UUID.randomUUID();
+        when(involvedRepository.findSharesByInvitationCode(invitationCode)).thenReturn(List.of());
+    }
+
+    private Expense expense(UUID id, UUID paidBy, double amount, UUID... involvedIds) {
+        List<Involved> involveds = new InvolvedList();
+        for (UUID participantId : involvedIds)
+            involveds.add(new Involved(UUID.randomUUID(), false, id, participantId, invitationCode));
+        return new Expense(id, "expense", amount, paidBy, invitationCode, LocalDate.now(), involveds);
+    }
+
+    private static InvolvedShare share(UUID expenseId, double amount, UUID paidById, UUID participantId,
+                                       boolean settled) {
+        return new InvolvedShare() {
+            public UUID getExpenseId() {
+                return expenseId;
+            }
+            public double getAmount() {
+                return amount;
+            }
+            public UUID getPaidById() {
+                return paidById;
+            }
+            public UUID getParticipantId() {
+                return participantId;
+            }
+            public boolean getSettled() {
+                return settled;
+            }
+        };
+    }
+
+    @Test
+    public void testExpenseSavedSplitsAmount() {
+        Expense expense = expense(UUID.randomUUID(), alice, 30, alice, bob, carol);
+
+        balanceService.expenseSaved(invitationCode, expense);
+
+        EventBalances balances = balanceService.getBalances(invitationCode);
+        assertEquals(20.0, balances.getBalance(alice));
+        assertEquals(-10.0, balances.getBalance(bob));
+        assertEquals(-10.0, balances.getBalance(carol));
+        assertEquals(2, balances.getTransfers().size());
+        assertTrue(balances.getTransfers().contains(new Transfer(bob, alice, 10.0)));
+        assertTrue(balances.getTransfers().contains(new Transfer(carol, alice, 10.0)));
+
+        ArgumentCaptor<EventBalances> captor = ArgumentCaptor.forClass(EventBalances.class);
+        verify(template).convertAndSend(eq("/topic/" + invitationCode + "/balances"), captor.capture());
+        assertEquals(balances, captor.getValue());
+    }
+
+    @Test
+    public void testExpenseUpdatedReplacesOldShare() {
+        UUID expenseId = UUID.randomUUID();
+        balanceService.expenseSaved(invitationCode, expense(expenseId, alice, 30, alice, bob, carol));
+        balanceService.expenseSaved(invitationCode, expense(expenseId, bob, 10, alice));
+
+        EventBalances balances = balanceService.getBalances(invitationCode);
+        assertEquals(-10.0, balances.getBalance(alice));
+        assertEquals(10.0, balances.getBalance(bob));
+        assertEquals(0.0, balances.getBalance(carol));
+        assertEquals(List.of(new Transfer(alice, bob, 10.0)), balances.getTransfers());
+    }
+
+    @Test
+    public void testSettlingAndDeleting() {
+        UUID expenseId = UUID.randomUUID();
+        Expense expense = expense(expenseId, alice, 20, alice, bob);
+        balanceService.expenseSaved(invitationCode, expense);
+
+        Involved bobsDebt = expense.getInvolveds().getLast();
+        bobsDebt.setIsSettled(true);
+        balanceService.involvedsUpdated(invitationCode, List.of(bobsDebt));
+        assertTrue(balanceService.getBalances(invitationCode).getBalances().isEmpty());
+
+        bobsDebt.setIsSettled(false);
+        balanceService.involvedsUpdated(invitationCode, List.of(bobsDebt));
+        assertEquals(-10.0, balanceService.getBalances(invitationCode).getBalance(bob));
+
+        balanceService.expenseDeleted(invitationCode, expenseId);
+        EventBalances balances = balanceService.getBalances(invitationCode);
+        assertTrue(balances.getBalances().isEmpty());
+        assertTrue(balances.getTransfers().isEmpty());
+    }
+
+    @Test
+    public void testBalancesLoadedOnceFromRepository() {
+        UUID expenseId = UUID.randomUUID();
+        when(involvedRepository.findSharesByInvitationCode(invitationCode)).thenReturn(List.of(
+                share(expenseId, 12, alice, bob, false),
+                share(expenseId, 12, alice, carol, true)));
+
+        assertEquals(6.0, balanceService.getBalances(invitationCode).getBalance(alice));
+        balanceService.expenseSaved(invitationCode, expense(UUID.randomUUID(), carol, 4, bob));
+        EventBalances balances = balanceService.getBalances(invitationCode);
+
+        assertEquals(6.0, balances.getBalance(alice));
+        assertEquals(-10.0, balances.getBalance(bob));
+        assertEquals(4.0, balances.getBalance(carol));
+        verify(involvedRepository, times(1)).findSharesByInvitationCode(invitationCode);
+    }
+
+    @Test
+    public void testEvictForcesReload() {
+        balanceService.getBalances(invitationCode);
+        balanceService.evict(invitationCode);
+        balanceService.getBalances(invitationCode);
+
+        verify(involvedRepository, times(2)).findSharesByInvitationCode(invitationCode);
+    }
+
+    @Test
+    public void testChangesAppliedOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            balanceService.expenseSaved(invitationCode, expense(UUID.randomUUID(), alice, 20, alice, bob));
+            assertTrue(balanceService.getBalances(invitationCode).getBalances().isEmpty());
+            verify(template, never()).convertAndSend(eq("/topic/" + invitationCode + "/balances"),
+                    any(EventBalances.class));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(-10.0, balanceService.getBalances(invitationCode).getBalance(bob));
+    }
+
+    @Test
+    public void testRolledBackChangesNotApplied() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            balanceService.expenseSaved(invitationCode, expense(UUID.randomUUID(), alice, 20, alice, bob));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertTrue(balanceService.getBalances(invitationCode).getBalances().isEmpty());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEventsEvicted() {
+        balanceService = new BalanceService(involvedRepository, template, mock(EventAggregateStore.class), 1);
+        UUID otherCode = UUID.randomUUID();
+        when(involvedRepository.findSharesByInvitationCode(otherCode)).thenReturn(List.of());
+
+        balanceService.getBalances(invitationCode);
+        balanceService.getBalances(otherCode);
+        balanceService.getBalances(invitationCode);
+
+        verify(involvedRepository, times(2)).findSharesByInvitationCode(invitationCode);
+    }
+}
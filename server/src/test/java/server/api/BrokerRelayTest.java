@@ -0,0 +1,108 @@
+package server.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import server.EmbeddedStompBroker;
+import server.Main;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs two server nodes relaying through one embedded broker,
+ * and checks that broadcasts of one node reach the subscribers of the other.
+ */
+public class BrokerRelayTest {
+
+    private EmbeddedStompBroker broker;
+    private ConfigurableApplicationContext first;
+    private ConfigurableApplicationContext second;
+
+    private ConfigurableApplicationContext startNode(String name) {
+        // command line arguments, unlike default properties, override application.properties
+        return new SpringApplicationBuilder(Main.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+                "--splitty.broker.mode=relay",
+                "--splitty.broker.relay.port=" + broker.getPort());
+    }
+
+    @BeforeEach
+    public void setup() throws IOException {
+        broker = new EmbeddedStompBroker(0);
+        broker.start();
+        first = startNode("relay-first");
+        second = startNode("relay-second");
+    }
+
+    @AfterEach
+    public void teardown() {
+        second.close();
+        first.close();
+        broker.stop();
+    }
+
+    private StompSession connect(ConfigurableApplicationContext node) throws Exception {
+        int port = ((ServletWebServerApplicationContext) node).getWebServer().getPort();
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setMessageConverter(new StringMessageConverter());
+        return client.connectAsync("ws://localhost:" + port + "/v1", new StompSessionHandlerAdapter() { })
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    private static BlockingQueue<String> subscribe(StompSession session, String destination) {
+        BlockingQueue<String> received = new LinkedBlockingQueue<>();
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return String.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((String) payload);
+            }
+        });
+        return received;
+    }
+
+    @Test
+    public void testBroadcastReachesSubscribersOfEveryNode() throws Exception {
+        String destination = "/topic/" + UUID.randomUUID() + "/expense:create";
+        BlockingQueue<String> onFirst = subscribe(connect(first), destination);
+        BlockingQueue<String> onSecond = subscribe(connect(second), destination);
+        SimpMessagingTemplate template = second.getBean(SimpMessagingTemplate.class);
+
+        // subscriptions reach the broker asynchronously, so keep sending until both nodes received a message
+        String onFirstMessage = null;
+        String onSecondMessage = null;
+        for (int attempt = 0; attempt < 50 && (onFirstMessage == null || onSecondMessage == null); attempt++) {
+            template.convertAndSend(destination, "expense");
+            if (onFirstMessage == null)
+                onFirstMessage = onFirst.poll(200, TimeUnit.MILLISECONDS);
+            if (onSecondMessage == null)
+                onSecondMessage = onSecond.poll(200, TimeUnit.MILLISECONDS);
+        }
+
+        assertEquals("expense", onFirstMessage);
+        assertEquals("expense", onSecondMessage);
+    }
+}
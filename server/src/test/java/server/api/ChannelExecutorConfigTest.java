@@ -0,0 +1,124 @@
+package server.api;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import server.ChannelExecutorConfig;
+import server.ChannelExecutorStats;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChannelExecutorConfigTest {
+
+    @Test
+    public void testExecutorIsReadFromProperties() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("splitty.stomp.inbound.core-pool-size", "3")
+                .withProperty("splitty.stomp.inbound.max-pool-size", "5")
+                .withProperty("splitty.stomp.inbound.queue-capacity", "100");
+
+        ThreadPoolTaskExecutor executor = new ChannelExecutorConfig(environment).createExecutor("inbound");
+
+        assertEquals(3, executor.getCorePoolSize());
+        assertEquals(5, executor.getMaxPoolSize());
+        assertEquals(100, executor.getQueueCapacity());
+    }
+
+    @Test
+    public void testMaxPoolSizeIsAtLeastCorePoolSize() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("splitty.stomp.outbound.core-pool-size", "8")
+                .withProperty("splitty.stomp.outbound.max-pool-size", "2");
+
+        ThreadPoolTaskExecutor executor = new ChannelExecutorConfig(environment).createExecutor("outbound");
+
+        assertEquals(8, executor.getMaxPoolSize());
+    }
+
+    @Test
+    public void testVirtualThreads() throws Exception {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("splitty.stomp.inbound.concurrency-limit", "16");
+        try (SimpleAsyncTaskExecutor executor = new ChannelExecutorConfig(environment)
+                .createVirtualThreadExecutor("inbound")) {
+            Future<String> name = executor.submit(() -> Thread.currentThread().isVirtual()
+                    ? Thread.currentThread().getName() : "platform");
+            assertTrue(name.get(5, TimeUnit.SECONDS).startsWith("stomp-inbound-"));
+            assertEquals(16, executor.getConcurrencyLimit());
+        }
+    }
+
+    @Test
+    public void testPoolsReplacedWithVirtualThreads() {
+        BeanPostProcessor processor = ChannelExecutorConfig.virtualThreadChannelExecutors(new MockEnvironment()
+                .withProperty("splitty.stomp.virtual-threads", "true"));
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+
+        assertInstanceOf(SimpleAsyncTaskExecutor.class,
+                processor.postProcessBeforeInitialization(pool, "clientInboundChannelExecutor"));
+        assertInstanceOf(SimpleAsyncTaskExecutor.class,
+                processor.postProcessBeforeInitialization(pool, "brokerChannelExecutor"));
+        assertSame(pool, processor.postProcessBeforeInitialization(pool, "taskScheduler"));
+    }
+
+    @Test
+    public void testPoolsKeptWithPlatformThreads() {
+        BeanPostProcessor processor = ChannelExecutorConfig.virtualThreadChannelExecutors(new MockEnvironment());
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+
+        assertSame(pool, processor.postProcessBeforeInitialization(pool, "clientInboundChannelExecutor"));
+    }
+
+    @Test
+    public void testPlatformThreadsByDefault() throws Exception {
+        ThreadPoolTaskExecutor executor = new ChannelExecutorConfig(new MockEnvironment()).createExecutor("inbound");
+        executor.initialize();
+        try {
+            Future<String> name = executor.submit(() -> Thread.currentThread().isVirtual()
+                    ? "virtual" : Thread.currentThread().getName());
+            assertTrue(name.get(5, TimeUnit.SECONDS).startsWith("stomp-inbound-"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testStats() throws Exception {
+        ChannelExecutorConfig config = new ChannelExecutorConfig(new MockEnvironment()
+                .withProperty("splitty.stomp.inbound.core-pool-size", "1")
+                .withProperty("splitty.stomp.inbound.max-pool-size", "1"));
+        ThreadPoolTaskExecutor inbound = config.createExecutor("inbound");
+        ThreadPoolTaskExecutor outbound = config.createExecutor("outbound");
+        inbound.initialize();
+        outbound.initialize();
+        ChannelExecutorStats stats = new ChannelExecutorStats(inbound, outbound, config.createExecutor("broker"));
+        CountDownLatch blocked = new CountDownLatch(1);
+        try {
+            inbound.execute(() -> {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            inbound.execute(() -> { });
+
+            Map<String, ChannelExecutorStats.Stats> snapshot = stats.getStats();
+            assertEquals(1, snapshot.get("inbound").poolSize());
+            assertEquals(1, snapshot.get("inbound").queueSize());
+            assertEquals(0, snapshot.get("outbound").poolSize());
+            assertEquals(0, snapshot.get("broker").poolSize());
+        } finally {
+            blocked.countDown();
+            inbound.shutdown();
+            outbound.shutdown();
+        }
+    }
+}
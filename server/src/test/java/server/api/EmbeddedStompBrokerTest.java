@@ -0,0 +1,105 @@
+package server.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import server.EmbeddedStompBroker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmbeddedStompBrokerTest {
+
+    private EmbeddedStompBroker broker;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        broker = new EmbeddedStompBroker(0);
+        broker.start();
+    }
+
+    @AfterEach
+    public void teardown() {
+        broker.stop();
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), broker.getPort());
+        socket.setSoTimeout(5000);
+        write(socket, "CONNECT\naccept-version:1.2\nhost:localhost\n\n");
+        assertTrue(readFrame(socket).startsWith("CONNECTED\n"));
+        return socket;
+    }
+
+    private static void write(Socket socket, String frame) throws IOException {
+        socket.getOutputStream().write((frame + "\0").getBytes(StandardCharsets.UTF_8));
+        socket.getOutputStream().flush();
+    }
+
+    private static String readFrame(Socket socket) throws IOException {
+        InputStream in = socket.getInputStream();
+        ByteArrayOutputStream frame = new ByteArrayOutputStream();
+        int next = in.read();
+        while (next > 0) {
+            frame.write(next);
+            next = in.read();
+        }
+        return frame.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testSendIsDeliveredToAllSubscribers() throws IOException {
+        try (Socket first = connect(); Socket second = connect(); Socket sender = connect()) {
+            write(first, "SUBSCRIBE\nid:sub-1\ndestination:/topic/event/expense:create\nreceipt:r1\n\n");
+            assertTrue(readFrame(first).contains("receipt-id:r1"));
+            write(second, "SUBSCRIBE\nid:sub-2\ndestination:/topic/event/expense:create\nreceipt:r2\n\n");
+            assertTrue(readFrame(second).contains("receipt-id:r2"));
+
+            write(sender, "SEND\ndestination:/topic/event/expense:create\ncontent-type:text/plain\n"
+                    + "content-length:5\n\nhello");
+
+            String received = readFrame(first);
+            assertTrue(received.startsWith("MESSAGE\n"));
+            assertTrue(received.contains("subscription:sub-1"));
+            assertTrue(received.contains("destination:/topic/event/expense:create"));
+            assertTrue(received.endsWith("\n\nhello"));
+            assertTrue(readFrame(second).contains("subscription:sub-2"));
+        }
+    }
+
+    @Test
+    public void testUnsubscribedConnectionReceivesNothing() throws IOException {
+        try (Socket subscriber = connect(); Socket sender = connect()) {
+            write(subscriber, "SUBSCRIBE\nid:sub-1\ndestination:/topic/a\n\n");
+            write(subscriber, "UNSUBSCRIBE\nid:sub-1\n\n");
+            write(subscriber, "SUBSCRIBE\nid:sub-2\ndestination:/topic/b\nreceipt:r\n\n");
+            assertTrue(readFrame(subscriber).contains("receipt-id:r"));
+
+            write(sender, "SEND\ndestination:/topic/a\n\nfirst");
+            write(sender, "SEND\ndestination:/topic/b\n\nsecond");
+
+            String received = readFrame(subscriber);
+            assertTrue(received.contains("subscription:sub-2"));
+            assertTrue(received.endsWith("second"));
+        }
+    }
+
+    @Test
+    public void testClosedConnectionsAreForgotten() throws IOException, InterruptedException {
+        Socket socket = connect();
+        assertEquals(1, broker.getConnectionCount());
+        write(socket, "DISCONNECT\nreceipt:bye\n\n");
+        assertTrue(readFrame(socket).contains("receipt-id:bye"));
+        socket.close();
+
+        for (int i = 0; i < 50 && broker.getConnectionCount() > 0; i++)
+            Thread.sleep(20);
+        assertEquals(0, broker.getConnectionCount());
+    }
+}
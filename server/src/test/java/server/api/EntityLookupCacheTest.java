@@ -0,0 +1,137 @@
+package server.api;
+
+import commons.Event;
+import commons.Participant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import server.EntityLookupCache;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EntityLookupCacheTest {
+    private TestEventRepository eventRepository;
+    private TestParticipantRepository participantRepository;
+    private AtomicLong now;
+    private EntityLookupCache cache;
+
+    @BeforeEach
+    public void setup() {
+        eventRepository = new TestEventRepository();
+        participantRepository = new TestParticipantRepository();
+        now = new AtomicLong();
+        cache = new EntityLookupCache(eventRepository, participantRepository, 2, 1000, now::get);
+    }
+
+    @Test
+    public void repeatedLookupsAreAnsweredFromTheCache() {
+        Event event = eventRepository.save(new Event("event"));
+        UUID unknown = UUID.randomUUID();
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(cache.eventExists(event.getId()));
+            assertFalse(cache.eventExists(unknown));
+        }
+
+        assertEquals(List.of("save", "existsById", "existsById"), eventRepository.calledMethods);
+        EntityLookupCache.Stats stats = cache.stats();
+        assertEquals(8, stats.hits());
+        assertEquals(2, stats.misses());
+        assertEquals(2, stats.events());
+    }
+
+    @Test
+    public void entriesExpire() {
+        Event event = eventRepository.save(new Event("event"));
+        cache.eventExists(event.getId());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        cache.eventExists(event.getId());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        cache.eventExists(event.getId());
+
+        assertEquals(List.of("save", "existsById", "existsById"), eventRepository.calledMethods);
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvicted() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        cache.eventExists(first);
+        cache.eventExists(second);
+        cache.eventExists(first);
+        cache.eventExists(third);
+        eventRepository.calledMethods.clear();
+
+        cache.eventExists(first);
+        cache.eventExists(second);
+
+        assertEquals(List.of("existsById"), eventRepository.calledMethods);
+        assertEquals(2, cache.stats().evictions());
+    }
+
+    @Test
+    public void invalidatedEventIsReadAgain() {
+        UUID invitationCode = UUID.randomUUID();
+        assertFalse(cache.eventExists(invitationCode));
+        eventRepository.events.add(new Event(invitationCode, "created", null, null));
+        assertFalse(cache.eventExists(invitationCode));
+
+        cache.invalidateEvent(invitationCode);
+
+        assertEquals(1, cache.stats().invalidations());
+        assertTrue(cache.eventExists(invitationCode));
+    }
+
+    @Test
+    public void invalidatedEventInvalidatesItsParticipants() {
+        UUID invitationCode = UUID.randomUUID();
+        Participant participant = participantRepository.save(new Participant(UUID.randomUUID(), "first", "last",
+                null, null, invitationCode));
+        assertEquals(Optional.of(invitationCode), cache.participantEvent(participant.getId()));
+
+        cache.invalidateEvent(invitationCode);
+        participantRepository.calledMethods.clear();
+
+        assertTrue(cache.participantExists(participant.getId()));
+        assertEquals(List.of("findEventIdById"), participantRepository.calledMethods);
+    }
+
+    @Test
+    public void participantsFoundInEventAreCached() {
+        UUID invitationCode = UUID.randomUUID();
+        Participant participant = participantRepository.save(new Participant(UUID.randomUUID(), "first", "last",
+                null, null, invitationCode));
+        UUID unknown = UUID.randomUUID();
+
+        assertEquals(Set.of(unknown), cache.participantsMissingFrom(invitationCode,
+                List.of(participant.getId(), unknown)));
+        assertEquals(Set.of(participant.getId()), cache.participantsMissingFrom(UUID.randomUUID(),
+                List.of(participant.getId())));
+
+        assertEquals(List.of("save", "findIdsInEvent"), participantRepository.calledMethods);
+    }
+
+    @Test
+    public void invalidatedParticipantIsReadAgain() {
+        Participant participant = participantRepository.save(new Participant(UUID.randomUUID(), "first", "last",
+                null, null, UUID.randomUUID()));
+        assertTrue(cache.participantExists(participant.getId()));
+
+        cache.invalidateParticipant(participant.getId());
+        participantRepository.calledMethods.clear();
+
+        assertTrue(cache.participantExists(participant.getId()));
+        assertEquals(List.of("findEventIdById"), participantRepository.calledMethods);
+    }
+}
@@ -0,0 +1,346 @@
+package server.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.Event;
+import commons.Expense;
+import commons.ExpenseList;
+import commons.Involved;
+import commons.InvolvedList;
+import commons.Participant;
+import commons.ParticipantList;
+import commons.SettleRequest;
+import commons.StatusEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import server.EventAggregateStore;
+import server.EventAggregateWriter;
+import server.EventChangeLog;
+import server.EventJournal;
+import server.EventSnapshotService;
+import server.database.EventRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class EventAggregateStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    private UUID invitationCode;
+    private EventSnapshotService snapshotService;
+    private EventRepository eventRepository;
+    private EventChangeLog changeLog;
+    private EventAggregateWriter writer;
+    private EventAggregateStore store;
+
+    @BeforeEach
+    public void setup() {
+        invitationCode = UUID.randomUUID();
+        snapshotService = mock(EventSnapshotService.class);
+        when(snapshotService.readSnapshot(any())).thenReturn(StatusEntity.notFound(true, "not found"));
+        when(snapshotService.readSnapshot(invitationCode)).thenReturn(StatusEntity.ok(
+                new Event(invitationCode, "event", null, null), new ParticipantList(), new ExpenseList(), null));
+        eventRepository = mock(EventRepository.class);
+        when(eventRepository.findById(invitationCode)).thenReturn(Optional.of(
+                new Event(invitationCode, "event", null, null)));
+        changeLog = new EventChangeLog(mock(SimpMessagingTemplate.class), 256, 1000);
+        writer = mock(EventAggregateWriter.class);
+        when(writer.write(eq(invitationCode), any())).thenReturn(true);
+        store = store(600000);
+    }
+
+    private EventAggregateStore store(long idleTimeout) {
+        return new EventAggregateStore("journal", snapshotService, eventRepository, changeLog, journal(), writer,
+                idleTimeout, "simple");
+    }
+
+    private EventJournal journal() {
+        return new EventJournal(directory, new ObjectMapper().findAndRegisterModules());
+    }
+
+    private Participant participant(String firstName) {
+        return store.createParticipant(new Participant(null, firstName, "last", null, null, invitationCode));
+    }
+
+    private Expense expense(double amount, Participant paidBy, Participant... involved) {
+        InvolvedList involveds = new InvolvedList();
+        for (Participant participant : involved)
+            involveds.add(new Involved(null, false, null, participant.getId(), invitationCode));
+        return new Expense(null, "expense", amount, paidBy.getId(), invitationCode, LocalDate.of(2024, 1, 1),
+                involveds);
+    }
+
+    @Test
+    public void changesAreReadFromMemoryUntilCompacted() {
+        Participant first = participant("first");
+        Participant second = participant("second");
+        Expense expense = store.createExpense(expense(10, first, first, second));
+
+        assertEquals(List.of(first, second), store.readParticipants(invitationCode));
+        assertEquals(List.of(expense), store.readExpenses(invitationCode));
+        assertEquals(5, store.readExpenses(invitationCode).getFirst().getAmountOwed());
+        verify(snapshotService, times(1)).readSnapshot(invitationCode);
+        verify(writer, never()).write(any(), any());
+        assertEquals(3, store.stats().appended());
+    }
+
+    @Test
+    public void compactionWritesChangedEventsOnceAndDeletesTheJournal() throws Exception {
+        Participant participant = participant("first");
+
+        store.compact();
+        store.compact();
+
+        verify(writer, times(1)).write(invitationCode, new EventAggregateWriter.Changes(List.of(participant),
+                List.of(), List.of(), List.of(), List.of()));
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void compactionWritesOnlyTheRowsChangedSinceTheLastOne() {
+        Participant first = participant("first");
+        Participant second = participant("second");
+        Expense kept = store.createExpense(expense(10, first, first, second));
+        Expense deleted = store.createExpense(expense(20, first, first));
+        store.compact();
+
+        Involved involved = kept.getInvolveds().getLast();
+        store.updateInvolveds(invitationCode, List.of(new Involved(involved.getId(), true, kept.getId(),
+                second.getId(), invitationCode)));
+        store.deleteExpense(invitationCode, deleted.getId());
+        Participant renamed = store.updateParticipant(new Participant(second.getId(), "renamed", "last", null, null,
+                invitationCode));
+        store.compact();
+
+        verify(writer).write(invitationCode, new EventAggregateWriter.Changes(List.of(renamed), List.of(),
+                List.of(), List.of(deleted.getId()), List.of(new Involved(involved.getId(), true, kept.getId(),
+                        second.getId(), invitationCode))));
+    }
+
+    @Test
+    public void failedWritesAreRetriedWithTheLaterChanges() {
+        Participant first = participant("first");
+        when(writer.write(eq(invitationCode), any())).thenThrow(new IllegalStateException("database down"))
+                .thenReturn(true);
+        assertThrows(IllegalStateException.class, store::compact);
+
+        Participant second = participant("second");
+        store.compact();
+
+        ArgumentCaptor<EventAggregateWriter.Changes> changes =
+                ArgumentCaptor.forClass(EventAggregateWriter.Changes.class);
+        verify(writer, times(2)).write(eq(invitationCode), changes.capture());
+        assertEquals(Set.of(first, second), Set.copyOf(changes.getValue().savedParticipants()));
+    }
+
+    @Test
+    public void journalIsReplayedAfterACrash() {
+        Participant first = participant("first");
+        Participant second = participant("second");
+        store.createExpense(expense(10, first, first, second));
+        store.deleteParticipant(invitationCode, second.getId());
+        store.sync();
+
+        EventAggregateStore recovered = store(600000);
+        recovered.recover();
+
+        ArgumentCaptor<EventAggregateWriter.Changes> changes =
+                ArgumentCaptor.forClass(EventAggregateWriter.Changes.class);
+        verify(writer).write(eq(invitationCode), changes.capture());
+        assertEquals(List.of(first), changes.getValue().savedParticipants());
+        assertEquals(List.of(second.getId()), changes.getValue().deletedParticipants());
+        List<Expense> expenses = changes.getValue().savedExpenses();
+        assertEquals(1, expenses.size());
+        assertEquals(List.of(first.getId()), expenses.getFirst().getInvolveds().stream()
+                .map(Involved::getParticipantId).toList());
+    }
+
+    @Test
+    public void tornLastLineIsSkipped() throws Exception {
+        participant("first");
+        store.sync();
+        EventJournal journal = journal();
+        List<Path> segments = journal.rotate();
+        Files.writeString(segments.getLast(), "{\"type\":\"PARTI", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        List<EventJournal.Entry> entries = journal.read(segments);
+
+        assertEquals(1, entries.size());
+        assertEquals(EventJournal.Type.PARTICIPANT_SAVED, entries.getFirst().type());
+    }
+
+    @Test
+    public void updatedExpenseKeepsInvolvedsAndUnsettlesThemWhenTheAmountOwedChanges() {
+        Participant first = participant("first");
+        Participant second = participant("second");
+        Expense expense = store.createExpense(expense(10, first, first, second));
+        Involved involved = expense.getInvolveds().getFirst();
+        store.updateInvolveds(invitationCode, List.of(new Involved(involved.getId(), true, expense.getId(),
+                involved.getParticipantId(), invitationCode)));
+
+        Expense renamed = expense(10, first, first, second);
+        renamed = new Expense(expense.getId(), "renamed", 10, first.getId(), invitationCode, expense.getDate(),
+                renamed.getInvolveds());
+        Expense updated = store.updateExpense(renamed);
+        assertEquals(expense.getInvolveds().stream().map(Involved::getId).toList(),
+                updated.getInvolveds().stream().map(Involved::getId).toList());
+        assertTrue(updated.getInvolveds().getFirst().getIsSettled());
+
+        Expense doubled = new Expense(expense.getId(), "renamed", 20, first.getId(), invitationCode,
+                expense.getDate(), renamed.getInvolveds());
+        updated = store.updateExpense(doubled);
+        assertFalse(updated.getInvolveds().getFirst().getIsSettled());
+        assertEquals(10, updated.getAmountOwed());
+    }
+
+    @Test
+    public void settlingSelectsTheUnsettledDebtsOfTheEventAnExpenseOrTwoParticipants() {
+        Participant first = participant("first");
+        Participant second = participant("second");
+        Participant third = participant("third");
+        store.createExpense(expense(30, first, first, second, third));
+        Expense paidBySecond = store.createExpense(expense(20, second, first, second));
+
+        InvolvedList settled = store.settleInvolveds(SettleRequest.between(invitationCode, third.getId(),
+                first.getId()));
+        assertEquals(1, settled.size());
+        assertEquals(third.getId(), settled.getFirst().getParticipantId());
+        assertTrue(settled.getFirst().getIsSettled());
+
+        assertEquals(2, store.settleInvolveds(SettleRequest.expense(invitationCode, paidBySecond.getId())).size());
+        // only the two debts in the expense of the first participant that are left are settled
+        assertEquals(2, store.settleInvolveds(SettleRequest.event(invitationCode)).size());
+        assertTrue(store.readExpenses(invitationCode).stream()
+                .flatMap(expense -> expense.getInvolveds().stream())
+                .allMatch(Involved::getIsSettled));
+        assertTrue(store.settleInvolveds(SettleRequest.event(invitationCode)).isEmpty());
+    }
+
+    @Test
+    public void unknownEntitiesAreNotFound() {
+        Participant participant = participant("first");
+        UUID unknown = UUID.randomUUID();
+
+        assertTrue(store.hasParticipant(invitationCode, participant.getId()));
+        assertFalse(store.hasParticipant(invitationCode, unknown));
+        assertNull(store.deleteParticipant(invitationCode, unknown));
+        assertFalse(store.deleteExpense(invitationCode, unknown));
+        assertNull(store.readParticipants(UUID.randomUUID()));
+    }
+
+    @Test
+    public void snapshotsWaitForChangesInMemoryUntilTheyAreNumbered() throws InterruptedException {
+        CountDownLatch changed = new CountDownLatch(1);
+        Thread handler = new Thread(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                changeLog.publish(invitationCode, "participant:create", participant("first"));
+                changed.countDown();
+                // changed in memory, but not committed and numbered yet
+                Thread.sleep(200);
+                List<TransactionSynchronization> synchronizations =
+                        TransactionSynchronizationManager.getSynchronizations();
+                synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+                synchronizations.forEach(TransactionSynchronization::afterCommit);
+                synchronizations.forEach(synchronization ->
+                        synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+        handler.start();
+        changed.await();
+
+        StatusEntity snapshot = store.readSnapshot(invitationCode);
+        assertEquals(1, snapshot.getParticipantList().size());
+        assertEquals(1, snapshot.getChanges().getSequence());
+        handler.join();
+    }
+
+    @Test
+    public void changesAreAppliedOnlyOnceTheirTransactionCommits() {
+        Participant first = participant("first");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            Participant second = participant("second");
+            assertEquals(List.of(first), store.readParticipants(invitationCode));
+            assertEquals(1, store.stats().appended());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(List.of(first, second), store.readParticipants(invitationCode));
+            assertEquals(2, store.stats().appended());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void rolledBackChangesAreNotApplied() {
+        Participant first = participant("first");
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            store.deleteParticipant(invitationCode, first.getId());
+            TransactionSynchronizationManager.getSynchronizations().forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of(first), store.readParticipants(invitationCode));
+        assertEquals(1, store.stats().appended());
+    }
+
+    @Test
+    public void journalModeCannotBeCombinedWithTheRelay() {
+        assertThrows(IllegalStateException.class, () -> new EventAggregateStore("journal", snapshotService,
+                eventRepository, changeLog, journal(), writer, 600000, "relay"));
+    }
+
+    @Test
+    public void idleEventsAreEvictedOnlyOnceWritten() {
+        store = store(0);
+        participant("first");
+
+        store.evictIdle();
+        assertEquals(1, store.stats().events());
+
+        store.compact();
+        store.evictIdle();
+        assertEquals(0, store.stats().events());
+        assertEquals(1, store.stats().evictions());
+
+        store.readParticipants(invitationCode);
+        verify(snapshotService, times(2)).readSnapshot(invitationCode);
+    }
+}
@@ -0,0 +1,132 @@
+package server.api;
+
+import commons.Event;
+import commons.Expense;
+import commons.Involved;
+import commons.InvolvedList;
+import commons.Participant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import server.EventAggregateWriter;
+import server.database.EventRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The writer runs in transactions of its own, so the test does not run in one and removes its rows afterwards
+ */
+@DataJpaTest
+@Import(EventAggregateWriter.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class EventAggregateWriterTest {
+
+    @Autowired
+    private EventAggregateWriter writer;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UUID invitationCode;
+    private Participant first;
+    private Participant second;
+    private Expense expense;
+
+    @BeforeEach
+    public void setup() {
+        LocalDateTime now = LocalDateTime.now();
+        invitationCode = eventRepository.save(new Event(UUID.randomUUID(), "event", now, now)).getId();
+        first = new Participant(UUID.randomUUID(), "first", "last", null, null, invitationCode);
+        second = new Participant(UUID.randomUUID(), "second", "last", null, null, invitationCode);
+        expense = expense(first, second);
+        assertTrue(writer.write(invitationCode, changes(List.of(first, second), List.of(), List.of(expense),
+                List.of(), List.of())));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        jdbcTemplate.update("DELETE FROM involved");
+        jdbcTemplate.update("DELETE FROM expense");
+        jdbcTemplate.update("DELETE FROM participant");
+        eventRepository.deleteAll();
+    }
+
+    private Expense expense(Participant... involved) {
+        UUID expenseId = UUID.randomUUID();
+        InvolvedList involveds = new InvolvedList();
+        for (Participant participant : involved)
+            involveds.add(new Involved(UUID.randomUUID(), false, expenseId, participant.getId(), invitationCode));
+        return new Expense(expenseId, "expense", 10, first.getId(), invitationCode, LocalDate.of(2024, 1, 1),
+                involveds);
+    }
+
+    private static EventAggregateWriter.Changes changes(List<Participant> savedParticipants,
+                                                        List<UUID> deletedParticipants, List<Expense> savedExpenses,
+                                                        List<UUID> deletedExpenses, List<Involved> updatedInvolveds) {
+        return new EventAggregateWriter.Changes(savedParticipants, deletedParticipants, savedExpenses,
+                deletedExpenses, updatedInvolveds);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    @Test
+    public void newRowsAreInserted() {
+        assertEquals(2, count("participant"));
+        assertEquals(1, count("expense"));
+        assertEquals(2, count("involved"));
+    }
+
+    @Test
+    public void savedRowsAreUpdatedInPlace() {
+        Participant renamed = new Participant(second.getId(), "renamed", "last", null, null, invitationCode);
+        Involved involved = expense.getInvolveds().getFirst();
+
+        writer.write(invitationCode, changes(List.of(renamed), List.of(), List.of(), List.of(),
+                List.of(new Involved(involved.getId(), true, expense.getId(), first.getId(), invitationCode))));
+
+        assertEquals("renamed", jdbcTemplate.queryForObject("SELECT first_name FROM participant WHERE id = ?",
+                String.class, second.getId()));
+        assertTrue(jdbcTemplate.queryForObject("SELECT is_settled FROM involved WHERE id = ?", Boolean.class,
+                involved.getId()));
+        assertEquals(2, count("participant"));
+        assertEquals(2, count("involved"));
+    }
+
+    @Test
+    public void deletedRowsAreDeletedWithTheInvolvedsOfChangedExpenses() {
+        Expense withoutSecond = new Expense(expense.getId(), "expense", 10, first.getId(), invitationCode,
+                expense.getDate(), new InvolvedList());
+        withoutSecond.getInvolveds().add(expense.getInvolveds().getFirst());
+
+        writer.write(invitationCode, changes(List.of(), List.of(second.getId()), List.of(withoutSecond), List.of(),
+                List.of()));
+        assertEquals(1, count("participant"));
+        assertEquals(1, count("involved"));
+
+        writer.write(invitationCode, changes(List.of(), List.of(), List.of(), List.of(expense.getId()), List.of()));
+        assertEquals(0, count("expense"));
+        assertEquals(0, count("involved"));
+    }
+
+    @Test
+    public void deletedEventsAreNotWritten() {
+        assertFalse(writer.write(UUID.randomUUID(), changes(List.of(), List.of(), List.of(), List.of(),
+                List.of())));
+    }
+}
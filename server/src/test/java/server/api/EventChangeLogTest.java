@@ -0,0 +1,234 @@
+package server.api;
+
+import commons.Event;
+import commons.EventChange;
+import commons.EventChanges;
+import commons.Expense;
+import commons.InvolvedList;
+import commons.Participant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import server.EventChangeLog;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class EventChangeLogTest {
+
+    private SimpMessagingTemplate template;
+    private EventChangeLog changeLog;
+    private UUID invitationCode;
+
+    @BeforeEach
+    public void setup() {
+        template = mock(SimpMessagingTemplate.class);
+        changeLog = new EventChangeLog(template, 3, 2);
+        invitationCode = UUID.randomUUID();
+    }
+
+    private Participant participant(String name) {
+        return new Participant(UUID.randomUUID(), name, "last", "iban", "bic", invitationCode);
+    }
+
+    private UUID epoch() {
+        return changeLog.changesSince(invitationCode, null, 0).getEpoch();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPublishBroadcastsWithSequenceHeaders() {
+        Participant participant = participant("first");
+        changeLog.publish(invitationCode, "participant:create", participant);
+        changeLog.publish(invitationCode, "participant:update", participant);
+
+        ArgumentCaptor<Map<String, Object>> headers = ArgumentCaptor.forClass(Map.class);
+        verify(template).convertAndSend(eq("/topic/" + invitationCode + "/participant:create"), eq(participant),
+                headers.capture());
+        assertEquals("1", headers.getValue().get(EventChangeLog.SEQUENCE_HEADER));
+        assertEquals(epoch().toString(), headers.getValue().get(EventChangeLog.EPOCH_HEADER));
+        verify(template).convertAndSend(eq("/topic/" + invitationCode + "/participant:update"), eq(participant),
+                headers.capture());
+        assertEquals("2", headers.getValue().get(EventChangeLog.SEQUENCE_HEADER));
+    }
+
+    @Test
+    public void testChangesSince() {
+        Participant participant = participant("first");
+        Expense expense = new Expense(UUID.randomUUID(), "lunch", 10, participant.getId(), invitationCode,
+                LocalDate.now(), List.of());
+        changeLog.publish(invitationCode, "participant:create", participant);
+        changeLog.publish(invitationCode, "expense:create", expense);
+        changeLog.publish(invitationCode, "involved:update", new InvolvedList());
+
+        EventChanges changes = changeLog.changesSince(invitationCode, epoch(), 1);
+
+        assertFalse(changes.isSnapshotRequired());
+        assertEquals(3, changes.getSequence());
+        assertEquals(List.of(2L, 3L), changes.getChanges().stream().map(EventChange::getSequence).toList());
+        assertEquals(expense, changes.getChanges().getFirst().getExpense());
+        assertEquals("involved:update", changes.getChanges().get(1).getType());
+    }
+
+    @Test
+    public void testUpToDate() {
+        changeLog.publish(invitationCode, "participant:create", participant("first"));
+
+        EventChanges changes = changeLog.changesSince(invitationCode, epoch(), 1);
+
+        assertFalse(changes.isSnapshotRequired());
+        assertTrue(changes.getChanges().isEmpty());
+    }
+
+    @Test
+    public void testAgedOutChangesRequireSnapshot() {
+        for (int i = 0; i < 5; i++)
+            changeLog.publish(invitationCode, "participant:update", participant("p" + i));
+
+        assertTrue(changeLog.changesSince(invitationCode, epoch(), 1).isSnapshotRequired());
+        EventChanges changes = changeLog.changesSince(invitationCode, epoch(), 2);
+        assertFalse(changes.isSnapshotRequired());
+        assertEquals(3, changes.getChanges().size());
+    }
+
+    @Test
+    public void testUnknownEpochRequiresSnapshot() {
+        changeLog.publish(invitationCode, "participant:create", participant("first"));
+
+        EventChanges changes = changeLog.changesSince(invitationCode, UUID.randomUUID(), 0);
+
+        assertTrue(changes.isSnapshotRequired());
+        assertEquals(1, changes.getSequence());
+        assertEquals(epoch(), changes.getEpoch());
+    }
+
+    @Test
+    public void testSequenceAheadRequiresSnapshot() {
+        changeLog.publish(invitationCode, "participant:create", participant("first"));
+
+        assertTrue(changeLog.changesSince(invitationCode, epoch(), 7).isSnapshotRequired());
+    }
+
+    @Test
+    public void testForgetStartsNewEpoch() {
+        changeLog.publish(invitationCode, "event:update", new Event("title"));
+        UUID before = epoch();
+
+        changeLog.forget(invitationCode);
+
+        EventChanges changes = changeLog.changesSince(invitationCode, before, 1);
+        assertTrue(changes.isSnapshotRequired());
+        assertNotEquals(before, changes.getEpoch());
+        assertEquals(0, changes.getSequence());
+    }
+
+    @Test
+    public void testLeastRecentlyChangedEventIsEvicted() {
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        changeLog.publish(invitationCode, "participant:create", participant("first"));
+        UUID before = epoch();
+        changeLog.publish(second, "participant:create", participant("second"));
+        changeLog.publish(third, "participant:create", participant("third"));
+
+        assertTrue(changeLog.changesSince(invitationCode, before, 1).isSnapshotRequired());
+    }
+
+    @Test
+    public void testCurrent() {
+        changeLog.publish(invitationCode, "participant:create", participant("first"));
+
+        EventChanges current = changeLog.current(invitationCode);
+
+        assertFalse(current.isSnapshotRequired());
+        assertEquals(epoch(), current.getEpoch());
+        assertEquals(1, current.getSequence());
+        assertTrue(current.getChanges().isEmpty());
+    }
+
+    @Test
+    public void testPublishWaitsForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            changeLog.publish(invitationCode, "participant:create", participant("first"));
+            verifyNoInteractions(template);
+            assertEquals(0, changeLog.current(invitationCode).getSequence());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(template).convertAndSend(eq("/topic/" + invitationCode + "/participant:create"), any(Object.class),
+                anyMap());
+        assertEquals(1, changeLog.current(invitationCode).getSequence());
+    }
+
+    private Thread commitInBackground(CountDownLatch committing, long numberAfterMillis) {
+        Thread writer = new Thread(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                changeLog.publish(invitationCode, "participant:create", participant("first"));
+                List<TransactionSynchronization> synchronizations =
+                        TransactionSynchronizationManager.getSynchronizations();
+                synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+                committing.countDown();
+                // committed, but not numbered yet
+                Thread.sleep(numberAfterMillis);
+                synchronizations.forEach(TransactionSynchronization::afterCommit);
+                synchronizations.forEach(synchronization ->
+                        synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+        writer.start();
+        return writer;
+    }
+
+    @Test
+    public void testReadConsistentlyWaitsForCommittedChanges() throws InterruptedException {
+        CountDownLatch committing = new CountDownLatch(1);
+        Thread writer = commitInBackground(committing, 200);
+        committing.await();
+
+        assertEquals(1, changeLog.readConsistently(invitationCode, EventChanges::getSequence));
+        writer.join();
+    }
+
+    @Test
+    public void testChangesDoNotCommitWhileReadConsistently() throws InterruptedException {
+        CountDownLatch committing = new CountDownLatch(1);
+        long sequence = changeLog.readConsistently(invitationCode, changes -> {
+            commitInBackground(committing, 0);
+            try {
+                assertFalse(committing.await(200, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return changes.getSequence();
+        });
+
+        assertEquals(0, sequence);
+        assertTrue(committing.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testUnsupportedPayload() {
+        assertThrows(IllegalArgumentException.class,
+                () -> changeLog.publish(invitationCode, "balances", "not a change"));
+    }
+}
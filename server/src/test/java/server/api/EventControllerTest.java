@@ -4,20 +4,40 @@ package server.api;
 import static commons.StatusEntity.ok;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.springframework.http.HttpStatus.*;
 
 
 import commons.Event;
+import commons.EventChanges;
 import commons.EventList;
+import commons.EventPage;
+import commons.ExpenseList;
+import commons.ParticipantList;
 import commons.StatusEntity;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import server.AdminPrincipal;
+import server.AdminValidation;
+import server.BalanceService;
+import server.EntityLookupCache;
+import server.EventAggregateStore;
+import server.EventChangeLog;
 import server.EventLastActivityService;
-import server.PasswordService;
+import server.EventSnapshotService;
+import server.UpdateWaiterRegistry;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
 
@@ -26,8 +46,7 @@ public class EventControllerTest {
     private TestEventRepository eventRepo;
     private SimpMessagingTemplate messagingTemplate;
     private EventController sut;
-
-    private PasswordService passwordService;
+    private EventSnapshotService snapshotService;
 
     private EventLastActivityService eventLastActivityService;
 
@@ -36,9 +55,24 @@ public class EventControllerTest {
     void setUp() {
         messagingTemplate = mock(SimpMessagingTemplate.class);
         eventRepo = new TestEventRepository();
-        passwordService = new PasswordService();
-        eventLastActivityService = new EventLastActivityService(eventRepo, messagingTemplate);
-        sut = new EventController(messagingTemplate, eventRepo, passwordService, eventLastActivityService);
+        snapshotService = mock(EventSnapshotService.class);
+        eventLastActivityService = new EventLastActivityService(eventRepo, messagingTemplate,
+                mock(PlatformTransactionManager.class),
+                mock(JdbcTemplate.class));
+        sut = new EventController(messagingTemplate, eventRepo, eventLastActivityService,
+                mock(BalanceService.class), new UpdateWaiterRegistry(5000, 8, 10000, 0),
+                new EventChangeLog(messagingTemplate, 256, 1000), snapshotService,
+                new EntityLookupCache(eventRepo, new TestParticipantRepository(), 1000, 60000),
+                mock(EventAggregateStore.class));
+    }
+
+    private static SimpMessageHeaderAccessor session(boolean admin) {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create();
+        headerAccessor.setSessionAttributes(new HashMap<>());
+        if (admin)
+            headerAccessor.getSessionAttributes()
+                    .put(AdminValidation.ADMIN_ATTRIBUTE, new AdminPrincipal(Instant.now()));
+        return headerAccessor;
     }
 
     @Test
@@ -69,6 +103,33 @@ public class EventControllerTest {
         assertEquals(expected, received);
     }
 
+    @Test
+    public void checkUpdatedEventsSingleQuery() {
+        Event event = eventRepo.save(new Event("Trap1"));
+        UUID missing = UUID.randomUUID();
+        eventRepo.calledMethods.clear();
+
+        var actual = sut.updateRecentlyAccessedEvents("titles", new UUID[]{missing, event.getId()});
+
+        assertEquals(206, actual.getStatusCode().value());
+        assertEquals(1, actual.getBody().size());
+        assertEquals(event.getId(), actual.getBody().getFirst().getId());
+        assertEquals("Trap1", actual.getBody().getFirst().getTitle());
+        assertEquals(List.of("findTitlesByIdIn"), eventRepo.calledMethods);
+    }
+
+    @Test
+    public void checkUpdatedEventsChunked() {
+        UUID[] codes = new UUID[1500];
+        for (int i = 0; i < codes.length; i++)
+            codes[i] = UUID.randomUUID();
+        eventRepo.calledMethods.clear();
+
+        sut.updateRecentlyAccessedEvents("titles", codes);
+
+        assertEquals(List.of("findTitlesByIdIn", "findTitlesByIdIn"), eventRepo.calledMethods);
+    }
+
     // POST: /events
 
     @Test
@@ -106,7 +167,7 @@ public class EventControllerTest {
         assertEquals(ok("Event was successfully updated"), sut.updateEvent(receivedEvent));
 
         Event sentEvent = new Event(event.getId(), "foo", event.getCreationDate(), event.getLastActivity());
-        verify(messagingTemplate).convertAndSend("/topic/" + sentEvent.getId() + "/event:update", sentEvent);
+        verify(messagingTemplate).convertAndSend(eq("/topic/" + sentEvent.getId() + "/event:update"), eq(sentEvent), anyMap());
 
         assertTrue(eventRepo.existsById(receivedEvent.getId()));
         var repoEvent = eventRepo.getReferenceById(receivedEvent.getId());
@@ -151,9 +212,9 @@ public class EventControllerTest {
         Event receivedEvent = new Event(event.getId(), event.getTitle(), event.getCreationDate(),
                 event.getLastActivity());
 
-        assertEquals(ok("Event was successfully deleted"), sut.deleteEvent(receivedEvent, passwordService.getAdminPassword()));
+        assertEquals(ok("Event was successfully deleted"), sut.deleteEvent(receivedEvent, session(true)));
 
-        verify(messagingTemplate).convertAndSend("/topic/"+event.getId()+"/event:delete", receivedEvent);
+        verify(messagingTemplate).convertAndSend(eq("/topic/"+event.getId()+"/event:delete"), eq(receivedEvent), anyMap());
         assertFalse(eventRepo.existsById(receivedEvent.getId()));
     }
 
@@ -161,7 +222,7 @@ public class EventControllerTest {
     void checkDeleteEventNotFound() {
         Event event = new Event(UUID.randomUUID(), "foo", null, null);
 
-        assertEquals(StatusEntity.notFound(true, "Event not found"), sut.deleteEvent(event, passwordService.getAdminPassword()));
+        assertEquals(StatusEntity.notFound(true, "Event not found"), sut.deleteEvent(event, session(true)));
 
         assertFalse(eventRepo.existsById(event.getId()));
     }
@@ -170,7 +231,7 @@ public class EventControllerTest {
     void checkDeleteEventNull() {
         Event event = null;
 
-        assertEquals(StatusEntity.badRequest(true, "Event should not be null"), sut.deleteEvent(event, passwordService.getAdminPassword()));
+        assertEquals(StatusEntity.badRequest(true, "Event should not be null"), sut.deleteEvent(event, session(true)));
     }
 
     @Test
@@ -182,7 +243,7 @@ public class EventControllerTest {
 
         Event receivedEvent = new Event(event.getId(), event.getTitle(), event.getCreationDate(),
                 event.getLastActivity());
-        StatusEntity result = sut.deleteEvent(receivedEvent, "incorrectPassword");
+        StatusEntity result = sut.deleteEvent(receivedEvent, session(false));
 
         assertEquals(StatusEntity.badRequest(true, "Incorrect Password!"), result);
         assertTrue(eventRepo.existsById(receivedEvent.getId()));
@@ -200,6 +261,41 @@ public class EventControllerTest {
         assertEquals(ok(receivedEvent), sut.readEvent(receivedEvent.getId()));
     }
 
+    @Test
+    void checkReadChanges() {
+        Event event = eventRepo.save(new Event("event"));
+        sut.updateEvent(new Event(event.getId(), "renamed", event.getCreationDate(), event.getLastActivity()));
+        EventChanges current = sut.readChanges(new EventChanges(event.getId(), null, 0, false, List.of()))
+                .getChanges();
+        assertTrue(current.isSnapshotRequired());
+        assertEquals(1, current.getSequence());
+
+        EventChanges changes = sut.readChanges(new EventChanges(event.getId(), current.getEpoch(), 0, false,
+                List.of())).getChanges();
+
+        assertFalse(changes.isSnapshotRequired());
+        assertEquals(1, changes.getChanges().size());
+        assertEquals("renamed", changes.getChanges().getFirst().getEvent().getTitle());
+    }
+
+    @Test
+    void checkReadChangesNotFound() {
+        assertEquals(StatusEntity.notFound(true, "Event with provided Invitation code does not exist"),
+                sut.readChanges(new EventChanges(UUID.randomUUID(), null, 0, false, List.of())));
+        assertEquals(StatusEntity.badRequest(true, "Invitation code should not be null"), sut.readChanges(null));
+    }
+
+    @Test
+    void checkReadSnapshot() {
+        UUID uuid = UUID.randomUUID();
+        StatusEntity snapshot = StatusEntity.ok(new Event("event"), new ParticipantList(), new ExpenseList(),
+                new EventChanges(uuid, UUID.randomUUID(), 3, false, List.of()));
+        when(snapshotService.readSnapshot(uuid)).thenReturn(snapshot);
+
+        assertEquals(snapshot, sut.readSnapshot(uuid));
+        assertEquals(StatusEntity.badRequest(true, "Invitation code should not be null"), sut.readSnapshot(null));
+    }
+
     @Test
     void checkReadEventCodeNotProvided() {
         assertEquals(StatusEntity.badRequest(true, "Invitation code should not be null"), sut.readEvent(null));
@@ -214,7 +310,7 @@ public class EventControllerTest {
     }
 
     @Test
-    void checkReadAllEvents() {
+    void checkReadEventPageWithAllEvents() {
         Event event1 = new Event("event1");
         Event event2 = new Event("event2");
 
@@ -224,7 +320,9 @@ public class EventControllerTest {
         event1 = eventRepo.save(event1);
         event2 = eventRepo.save(event2);
 
-        StatusEntity received = sut.readAllEvents(passwordService.getAdminPassword());
+        EventPage request = new EventPage(null, null, null, null, null, EventPage.Sort.TITLE, false, 0,
+                EventPage.MAX_SIZE, false);
+        StatusEntity received = sut.readEventPage(request, session(true));
 
         assertNotNull(received);
         EventList receivedEvents = received.getEventList();
@@ -245,7 +343,7 @@ public class EventControllerTest {
     }
 
     @Test
-    void checkReadAllEventsNonAdmin() {
+    void checkReadEventPageNonAdmin() {
         Event event1 = new Event("event1");
         Event event2 = new Event("event2");
 
@@ -258,10 +356,53 @@ public class EventControllerTest {
         events.addAll(eventList);
 
         StatusEntity expected = StatusEntity.badRequest(true, "Incorrect Password!");
-        StatusEntity received = sut.readAllEvents("wrongPassword");
+        EventPage request = new EventPage(null, null, null, null, null, EventPage.Sort.TITLE, false, 0,
+                EventPage.MAX_SIZE, false);
+        StatusEntity received = sut.readEventPage(request, session(false));
 
         assertEquals(expected, received);
     }
-}
 
+    @Test
+    void checkReadEventPage() {
+        LocalDateTime now = LocalDateTime.now();
+        eventRepo.save(new Event(null, "trip b", now, now.minusDays(1)));
+        eventRepo.save(new Event(null, "trip a", now, now));
+        eventRepo.save(new Event(null, "dinner", now, now));
+
+        EventPage request = new EventPage("trip", null, null, null, null, EventPage.Sort.TITLE, false, 0, 1, false);
+        StatusEntity first = sut.readEventPage(request, session(true));
+        StatusEntity second = sut.readEventPage(request.withNumber(1), session(true));
+
+        assertEquals(StatusEntity.StatusCode.OK, first.getStatusCode());
+        assertEquals(List.of("trip a"), first.getEventList().stream().map(Event::getTitle).toList());
+        assertFalse(first.getEventPage().isLast());
+        assertEquals(List.of("trip b"), second.getEventList().stream().map(Event::getTitle).toList());
+        assertTrue(second.getEventPage().isLast());
+        assertTrue(eventRepo.calledMethods.contains("findPage"));
+        assertFalse(eventRepo.calledMethods.contains("findAll"));
+    }
 
+    @Test
+    void checkReadEventPageActivityRange() {
+        LocalDateTime now = LocalDateTime.now();
+        eventRepo.save(new Event(null, "old", now.minusDays(10), now.minusDays(10)));
+        eventRepo.save(new Event(null, "recent", now.minusDays(10), now));
+
+        EventPage request = new EventPage(null, null, null, now.minusDays(1), null, null, true, 0, 10, false);
+        StatusEntity received = sut.readEventPage(request, session(true));
+
+        assertEquals(List.of("recent"), received.getEventList().stream().map(Event::getTitle).toList());
+        assertTrue(received.getEventPage().isLast());
+    }
+
+    @Test
+    void checkReadEventPageInvalid() {
+        EventPage request = new EventPage(null, null, null, null, null, null, false, 0, 0, false);
+
+        assertEquals(StatusEntity.badRequest(true, "Page size should be positive and page number not negative"),
+                sut.readEventPage(request, session(true)));
+        assertEquals(StatusEntity.badRequest(true, "Incorrect Password!"),
+                sut.readEventPage(request.withNumber(0), session(false)));
+    }
+}
@@ -0,0 +1,89 @@
+package server.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.Event;
+import commons.Expense;
+import commons.Involved;
+import commons.Participant;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import server.EventDumpService;
+import server.EventImportService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({EventDumpService.class, EventImportService.class})
+public class EventDumpServiceTest {
+
+    @Autowired
+    private EventDumpService eventDumpService;
+    @Autowired
+    private EventImportService eventImportService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Event dump(UUID invitationCode) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        eventDumpService.writeEvent(invitationCode, out);
+        return objectMapper.readValue(out.toByteArray(), Event.class);
+    }
+
+    @Test
+    public void testDumpContainsWholeEvent() throws IOException {
+        UUID id = UUID.randomUUID();
+        Event received = EventImportServiceTest.receivedEvent(id, "trip", 3, 4);
+        received.getParticipants().add(new Participant(UUID.randomUUID(), "no", "expenses", null, null, id));
+        eventImportService.importEvent(received);
+
+        Event dumped = dump(id);
+
+        assertEquals(id, dumped.getId());
+        assertEquals("trip", dumped.getTitle());
+        assertEquals(4, dumped.getParticipants().size());
+        int expenses = 0;
+        for (Participant participant : dumped.getParticipants()) {
+            for (Expense expense : participant.getMadeExpenses()) {
+                expenses++;
+                assertEquals(10, expense.getAmount());
+                assertEquals(3, expense.getInvolveds().size());
+                for (Involved involved : expense.getInvolveds()) {
+                    assertTrue(dumped.getParticipants().stream()
+                            .anyMatch(p -> p.getId().equals(involved.getParticipant().getId())));
+                    assertEquals(involved.getParticipant().getId().equals(participant.getId()),
+                            involved.getIsSettled());
+                }
+            }
+        }
+        assertEquals(12, expenses);
+    }
+
+    @Test
+    public void testDumpCanBeImportedAgain() throws IOException {
+        UUID id = UUID.randomUUID();
+        eventImportService.importEvent(EventImportServiceTest.receivedEvent(id, "trip", 2, 3));
+
+        eventImportService.importEvent(dump(id));
+        Event dumped = dump(id);
+
+        assertEquals(2, dumped.getParticipants().size());
+        for (Participant participant : dumped.getParticipants())
+            assertEquals(3, participant.getMadeExpenses().size());
+    }
+
+    @Test
+    public void testDumpOfMissingEvent() {
+        assertThrows(NoSuchElementException.class,
+                () -> eventDumpService.writeEvent(UUID.randomUUID(), new ByteArrayOutputStream()));
+    }
+}
@@ -0,0 +1,65 @@
+package server.api;
+
+import commons.Event;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import server.EventImportService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures the throughput of importing a large event.
+ * Excluded from the regular test run, run it with ./gradlew :server:benchmark
+ * and set the size of the event with -Dbenchmark.import.expenses and -Dbenchmark.import.participants.
+ * Every run appends its result to build/benchmarks/event-import.json.
+ */
+@Tag("benchmark")
+@DataJpaTest
+@Import(EventImportService.class)
+public class EventImportBenchmark {
+
+    @Autowired
+    private EventImportService eventImportService;
+
+    /**
+     * Imports an event with the configured number of participants and expenses and records the rows per second
+     * @throws IOException if the result cannot be written
+     */
+    @Test
+    public void importLargeEvent() throws IOException {
+        int participants = Integer.getInteger("benchmark.import.participants", 10);
+        int expenses = Integer.getInteger("benchmark.import.expenses", 100_000);
+        Event event = EventImportServiceTest.receivedEvent(UUID.randomUUID(), "benchmark", participants,
+                expenses / participants);
+        long rows = 1 + participants + (long) (expenses / participants) * participants * (1 + participants);
+
+        // warm up Hibernate and the JIT on a small event first
+        eventImportService.importEvent(EventImportServiceTest.receivedEvent(UUID.randomUUID(), "warmup", 5, 100));
+
+        long start = System.nanoTime();
+        Event saved = eventImportService.importEvent(event);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        assertEquals(event.getId(), saved.getId());
+
+        String result = String.format(Locale.ROOT,
+                "{\"benchmark\":\"eventImport\",\"time\":\"%s\",\"participants\":%d,\"expenses\":%d,"
+                        + "\"rows\":%d,\"seconds\":%.3f,\"rowsPerSecond\":%.0f}",
+                LocalDateTime.now(), participants, expenses, rows, seconds, rows / seconds);
+        System.out.println(result);
+        Path file = Path.of("build", "benchmarks", "event-import.json");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, result + System.lineSeparator(),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,115 @@
+package server.api;
+
+import commons.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import server.EventImportService;
+import server.database.EventRepository;
+import server.database.ExpenseRepository;
+import server.database.InvolvedRepository;
+import server.database.ParticipantRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.jdbc.batch_size=7")
+@Import(EventImportService.class)
+public class EventImportServiceTest {
+
+    @Autowired
+    private EventImportService eventImportService;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private ParticipantRepository participantRepository;
+    @Autowired
+    private ExpenseRepository expenseRepository;
+    @Autowired
+    private InvolvedRepository involvedRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    static Event receivedEvent(UUID id, String title, int participantCount, int expensesPerParticipant) {
+        LocalDateTime now = LocalDateTime.now();
+        Event event = new Event(id, title, now, now);
+        for (int i = 0; i < participantCount; i++)
+            event.getParticipants().add(new Participant(UUID.randomUUID(), "first" + i, "last" + i,
+                    "iban" + i, "bic" + i, id));
+        for (Participant participant : event.getParticipants()) {
+            for (int i = 0; i < expensesPerParticipant; i++) {
+                Expense expense = new Expense(participant, "expense" + i, 10, LocalDate.now(), new InvolvedList());
+                for (Participant involved : event.getParticipants())
+                    expense.getInvolveds().add(new Involved(involved == participant, expense, involved));
+                participant.addExpense(expense);
+            }
+        }
+        return event;
+    }
+
+    @Test
+    public void testImportNewEvent() {
+        UUID id = UUID.randomUUID();
+
+        Event saved = eventImportService.importEvent(receivedEvent(id, "trip", 4, 5));
+
+        assertEquals(id, saved.getId());
+        assertEquals("trip", saved.getTitle());
+        Event event = eventRepository.findById(id).orElseThrow();
+        assertEquals(4, event.getParticipants().size());
+        for (Participant participant : event.getParticipants()) {
+            assertEquals(5, participant.getMadeExpenses().size());
+            for (Expense expense : participant.getMadeExpenses()) {
+                assertEquals(4, expense.getInvolveds().size());
+                for (Involved involved : expense.getInvolveds()) {
+                    assertEquals(id, involved.getParticipant().getEvent().getId());
+                    assertEquals(involved.getParticipant().equals(participant), involved.getIsSettled());
+                }
+            }
+        }
+        assertEquals(80, involvedRepository.findSharesByInvitationCode(id).size());
+    }
+
+    @Test
+    public void testImportReplacesExistingEvent() {
+        UUID id = UUID.randomUUID();
+        UUID otherId = UUID.randomUUID();
+        eventImportService.importEvent(receivedEvent(id, "old", 3, 3));
+        eventImportService.importEvent(receivedEvent(otherId, "other", 2, 1));
+
+        eventImportService.importEvent(receivedEvent(id, "new", 2, 2));
+        entityManager.clear();
+
+        assertEquals("new", eventRepository.findById(id).orElseThrow().getTitle());
+        assertEquals(2, eventRepository.findById(id).orElseThrow().getParticipants().size());
+        assertEquals(4, expenseRepository.findAllWithInvolvedsByInvitationCode(id).size());
+        assertEquals(8, involvedRepository.findSharesByInvitationCode(id).size());
+        assertEquals(2, expenseRepository.findAllWithInvolvedsByInvitationCode(otherId).size());
+        assertEquals(4, participantRepository.count());
+    }
+
+    @Test
+    public void testImportRejectsUnknownInvolvedParticipant() {
+        UUID id = UUID.randomUUID();
+        Event event = receivedEvent(id, "trip", 2, 1);
+        Expense expense = event.getParticipants().getFirst().getMadeExpenses().getFirst();
+        expense.getInvolveds().add(new Involved(false, expense,
+                new Participant(UUID.randomUUID(), "stranger", "", null, null, id)));
+
+        assertThrows(IllegalArgumentException.class, () -> eventImportService.importEvent(event));
+        assertFalse(eventRepository.existsById(id));
+    }
+
+    @Test
+    public void testImportRejectsNullExpenses() {
+        Event event = receivedEvent(UUID.randomUUID(), "trip", 2, 1);
+        event.getParticipants().getFirst().getMadeExpenses().add(null);
+
+        assertThrows(IllegalArgumentException.class, () -> eventImportService.importEvent(event));
+    }
+}
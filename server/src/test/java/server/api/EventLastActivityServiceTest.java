@@ -6,14 +6,23 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
 import server.EventLastActivityService;
 import server.database.EventRepository;
 import commons.Event;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class EventLastActivityServiceTest {
@@ -24,6 +33,12 @@ public class EventLastActivityServiceTest {
     @Mock
     private SimpMessagingTemplate template;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
     @InjectMocks
     private EventLastActivityService eventLastActivityService;
 
@@ -32,19 +47,32 @@ public class EventLastActivityServiceTest {
         MockitoAnnotations.openMocks(this);
     }
 
+    @SuppressWarnings("unchecked")
+    private Map<UUID, LocalDateTime> captureUpdatedRows() {
+        ArgumentCaptor<List<Object[]>> rowsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), rowsCaptor.capture());
+        Map<UUID, LocalDateTime> rows = new HashMap<>();
+        for (Object[] row : rowsCaptor.getValue()) {
+            assertEquals(row[0], row[2]);
+            rows.put((UUID) row[1], (LocalDateTime) row[0]);
+        }
+        return rows;
+    }
+
     @Test
     public void testUpdateLastActivityEventFound() {
         UUID invitationCode = UUID.randomUUID();
-        Event event = new Event("Title");
-        when(eventRepository.getReferenceById(invitationCode)).thenReturn(event);
+        Event event = new Event(invitationCode, "Title", LocalDateTime.now(), LocalDateTime.now());
+        when(eventRepository.findAllById(any())).thenReturn(List.of(event));
 
         eventLastActivityService.updateLastActivity(invitationCode);
+        verifyNoInteractions(eventRepository, jdbcTemplate, template);
+        eventLastActivityService.flush();
 
         ArgumentCaptor<String> destinationCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<Event> eventCaptor = ArgumentCaptor.forClass(Event.class);
 
-        verify(eventRepository, times(1)).getReferenceById(invitationCode);
-        verify(eventRepository, times(1)).save(event);
+        assertEquals(Set.of(invitationCode), captureUpdatedRows().keySet());
         verify(template, times(1)).convertAndSend(destinationCaptor.capture(),
                 eventCaptor.capture());
         assertEquals("/topic/admin/event:update", destinationCaptor.getValue());
@@ -56,12 +84,70 @@ public class EventLastActivityServiceTest {
     @Test
     public void testUpdateLastActivityEventNotFound() {
         UUID invitationCode = UUID.randomUUID();
-        when(eventRepository.getReferenceById(invitationCode)).thenThrow(new RuntimeException());
+        when(eventRepository.findAllById(any())).thenReturn(List.of());
 
         eventLastActivityService.updateLastActivity(invitationCode);
+        eventLastActivityService.flush();
 
-        verify(eventRepository, times(1)).getReferenceById(invitationCode);
-        verify(eventRepository, times(0)).save(any(Event.class));
         verify(template, times(0)).convertAndSend(anyString(), any(Event.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUpdatesAreCoalesced() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(eventRepository.findAllById(any())).thenReturn(List.of(
+                new Event(first, "first", LocalDateTime.now(), LocalDateTime.now()),
+                new Event(second, "second", LocalDateTime.now(), LocalDateTime.now())));
+
+        for (int i = 0; i < 50; i++)
+            eventLastActivityService.updateLastActivity(first);
+        eventLastActivityService.updateLastActivity(second);
+        eventLastActivityService.flush();
+
+        assertEquals(Set.of(first, second), captureUpdatedRows().keySet());
+        verify(template, times(2)).convertAndSend(eq("/topic/admin/event:update"), any(Event.class));
+        assertEquals(51, eventLastActivityService.getRecordedUpdates());
+        assertEquals(49, eventLastActivityService.getCoalescedUpdates());
+        assertEquals(2, eventLastActivityService.getFlushedEvents());
+        assertEquals(1, eventLastActivityService.getFlushes());
+    }
+
+    @Test
+    public void testFlushWithoutActivityDoesNothing() {
+        eventLastActivityService.flush();
+
+        verifyNoInteractions(eventRepository, jdbcTemplate, template);
+        assertEquals(0, eventLastActivityService.getFlushes());
+    }
+
+    @Test
+    public void testEveryFlushStartsNewWindow() {
+        UUID invitationCode = UUID.randomUUID();
+        when(eventRepository.findAllById(any())).thenReturn(List.of(
+                new Event(invitationCode, "Title", LocalDateTime.now(), LocalDateTime.now())));
+
+        eventLastActivityService.updateLastActivity(invitationCode);
+        eventLastActivityService.flush();
+        eventLastActivityService.updateLastActivity(invitationCode);
+        eventLastActivityService.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        verify(template, times(2)).convertAndSend(eq("/topic/admin/event:update"), any(Event.class));
+        assertEquals(0, eventLastActivityService.getCoalescedUpdates());
+    }
+
+    @Test
+    public void testEveryEventGetsItsOwnLastActivity() throws InterruptedException {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        eventLastActivityService.updateLastActivity(first);
+        Thread.sleep(5);
+        eventLastActivityService.updateLastActivity(second);
+        eventLastActivityService.flush();
+
+        Map<UUID, LocalDateTime> rows = captureUpdatedRows();
+        assertTrue(rows.get(first).isBefore(rows.get(second)));
+    }
+}
@@ -0,0 +1,112 @@
+package server.api;
+
+import commons.Event;
+import commons.EventPage;
+import commons.StatusEntity;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import server.AdminPrincipal;
+import server.AdminValidation;
+import server.BalanceService;
+import server.EntityLookupCache;
+import server.EventAggregateStore;
+import server.EventChangeLog;
+import server.EventLastActivityService;
+import server.EventSnapshotService;
+import server.UpdateWaiterRegistry;
+import server.database.EventRepository;
+import server.database.ParticipantRepository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+public class EventPageQueryTest {
+
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private EventController eventController;
+    private SimpMessageHeaderAccessor admin;
+    private LocalDateTime now;
+
+    @BeforeEach
+    public void setup() {
+        SimpMessagingTemplate template = mock(SimpMessagingTemplate.class);
+        eventController = new EventController(template, eventRepository,
+                new EventLastActivityService(eventRepository, template, mock(PlatformTransactionManager.class),
+                        mock(JdbcTemplate.class)),
+                mock(BalanceService.class), new UpdateWaiterRegistry(5000, 8, 10000, 0),
+                new EventChangeLog(template, 256, 1000), mock(EventSnapshotService.class),
+                new EntityLookupCache(eventRepository, mock(ParticipantRepository.class), 1000, 60000),
+                mock(EventAggregateStore.class));
+        admin = SimpMessageHeaderAccessor.create();
+        admin.setSessionAttributes(new HashMap<>());
+        admin.getSessionAttributes().put(AdminValidation.ADMIN_ATTRIBUTE, new AdminPrincipal(Instant.now()));
+
+        now = LocalDateTime.now().withNano(0);
+        save("trip to Rome", now.minusDays(30), now.minusDays(2));
+        save("trip to Oslo", now.minusDays(20), now.minusDays(1));
+        save("trip_100%", now.minusDays(10), now);
+        save("dinner", now.minusDays(5), now.minusDays(3));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private void save(String title, LocalDateTime creationDate, LocalDateTime lastActivity) {
+        eventRepository.save(new Event(UUID.randomUUID(), title, creationDate, lastActivity));
+    }
+
+    private List<String> titles(EventPage request) {
+        StatusEntity status = eventController.readEventPage(request, admin);
+        assertEquals(StatusEntity.StatusCode.OK, status.getStatusCode());
+        return status.getEventList().stream().map(Event::getTitle).toList();
+    }
+
+    @Test
+    public void titlePrefixIsMatchedLiterally() {
+        assertEquals(List.of("trip to Oslo", "trip to Rome", "trip_100%"), titles(new EventPage("trip",
+                null, null, null, null, EventPage.Sort.TITLE, false, 0, 10, false)));
+        assertEquals(List.of("trip_100%"), titles(new EventPage("trip_",
+                null, null, null, null, EventPage.Sort.TITLE, false, 0, 10, false)));
+    }
+
+    @Test
+    public void dateRangesIncludeBothEnds() {
+        assertEquals(List.of("trip_100%", "trip to Oslo"), titles(new EventPage(null, null, null,
+                now.minusDays(1), now, EventPage.Sort.LAST_ACTIVITY, true, 0, 10, false)));
+        assertEquals(List.of("trip to Oslo", "trip_100%"), titles(new EventPage(null, now.minusDays(20),
+                now.minusDays(10), null, null, EventPage.Sort.CREATION_DATE, false, 0, 10, false)));
+    }
+
+    @Test
+    public void pagesCoverAllEventsOnce() {
+        EventPage request = new EventPage(null, null, null, null, null, EventPage.Sort.LAST_ACTIVITY, false, 0, 3,
+                false);
+        StatusEntity first = eventController.readEventPage(request, admin);
+        StatusEntity second = eventController.readEventPage(request.withNumber(1), admin);
+
+        assertEquals(List.of("dinner", "trip to Rome", "trip to Oslo"),
+                first.getEventList().stream().map(Event::getTitle).toList());
+        assertFalse(first.getEventPage().isLast());
+        assertEquals(List.of("trip_100%"), second.getEventList().stream().map(Event::getTitle).toList());
+        assertTrue(second.getEventPage().isLast());
+    }
+}
@@ -0,0 +1,68 @@
+package server.api;
+
+import commons.Expense;
+import commons.StatusEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import server.EventChangeLog;
+import server.EventImportService;
+import server.EventSnapshotService;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import({EventSnapshotService.class, EventImportService.class, EventChangeLog.class})
+public class EventSnapshotServiceTest {
+
+    @Autowired
+    private EventSnapshotService eventSnapshotService;
+    @Autowired
+    private EventImportService eventImportService;
+    @Autowired
+    private EventChangeLog changeLog;
+    @MockBean
+    private SimpMessagingTemplate template;
+
+    @Test
+    public void testSnapshotContainsWholeEvent() {
+        UUID id = UUID.randomUUID();
+        eventImportService.importEvent(EventImportServiceTest.receivedEvent(id, "trip", 3, 2));
+
+        StatusEntity snapshot = eventSnapshotService.readSnapshot(id);
+
+        assertEquals(StatusEntity.StatusCode.OK, snapshot.getStatusCode());
+        assertEquals(id, snapshot.getEvent().getId());
+        assertEquals("trip", snapshot.getEvent().getTitle());
+        assertEquals(3, snapshot.getParticipantList().size());
+        assertEquals(6, snapshot.getExpenseList().size());
+        for (Expense expense : snapshot.getExpenseList()) {
+            assertEquals(id, expense.getInvitationCode());
+            assertEquals(3, expense.getInvolveds().size());
+            assertEquals(10.0 / 3, expense.getAmountOwed());
+        }
+    }
+
+    @Test
+    public void testSnapshotContainsChangeSequence() {
+        UUID id = UUID.randomUUID();
+        eventImportService.importEvent(EventImportServiceTest.receivedEvent(id, "trip", 1, 0));
+
+        StatusEntity snapshot = eventSnapshotService.readSnapshot(id);
+
+        assertEquals(changeLog.current(id), snapshot.getChanges());
+        assertNotNull(snapshot.getChanges().getEpoch());
+        assertFalse(snapshot.getChanges().isSnapshotRequired());
+    }
+
+    @Test
+    public void testSnapshotOfMissingEvent() {
+        assertEquals(StatusEntity.notFound(true, "Event with provided Invitation code does not exist"),
+                eventSnapshotService.readSnapshot(UUID.randomUUID()));
+    }
+}
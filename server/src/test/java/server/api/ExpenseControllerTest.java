@@ -6,17 +6,24 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import server.BalanceService;
+import server.EntityLookupCache;
+import server.EventAggregateStore;
+import server.EventChangeLog;
 import server.EventLastActivityService;
 import server.database.EventRepository;
 import server.database.ExpenseRepository;
-import server.database.InvolvedRepository;
 import server.database.ParticipantRepository;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -27,7 +34,6 @@ public class ExpenseControllerTest {
     private EventRepository eventRepository;
     private ParticipantRepository participantRepository;
     private ExpenseController expenseController;
-    private InvolvedRepository involvedRepository;
     private SimpMessagingTemplate messagingTemplate;
     private EventLastActivityService eventLastActivityService;
 
@@ -37,11 +43,15 @@ public class ExpenseControllerTest {
         expenseRepository = new TestExpenseRepository();
         eventRepository = new TestEventRepository();
         participantRepository = new TestParticipantRepository();
-        involvedRepository = new TestInvolvedRepository();
         messagingTemplate = mock(SimpMessagingTemplate.class);
-        eventLastActivityService = new EventLastActivityService(eventRepository, messagingTemplate);
-        expenseController = new ExpenseController(eventRepository, expenseRepository,
-                participantRepository, involvedRepository, messagingTemplate, eventLastActivityService);
+        eventLastActivityService = new EventLastActivityService(eventRepository, messagingTemplate,
+                mock(PlatformTransactionManager.class),
+                mock(JdbcTemplate.class));
+        expenseController = new ExpenseController(expenseRepository,
+                participantRepository, new EventChangeLog(messagingTemplate, 256, 1000),
+                eventLastActivityService, mock(BalanceService.class),
+                new EntityLookupCache(eventRepository, participantRepository, 1000, 60000),
+                mock(EventAggregateStore.class));
     }
 
     private static void setId(Expense toSet, UUID newId) throws IllegalAccessException {
@@ -74,7 +84,7 @@ public class ExpenseControllerTest {
 
         ArgumentCaptor<Expense> expenseArgumentCaptor = ArgumentCaptor.forClass(Expense.class);
         verify(messagingTemplate).convertAndSend(eq("/topic/" + expense.getInvitationCode() + "/expense:create"),
-                expenseArgumentCaptor.capture());
+                expenseArgumentCaptor.capture(), anyMap());
         Expense sentExpense = expenseArgumentCaptor.getValue();
         assertEquals(expense.getTitle(), sentExpense.getTitle());
         assertEquals(expense.getAmount(), sentExpense.getAmount());
@@ -216,6 +226,56 @@ public class ExpenseControllerTest {
                 expenseController.isExpenseBadRequest(expense));
     }
 
+    @Test
+    void ExpenseInvolvedParticipantFromOtherEvent() {
+        Participant sentParticipant = participantRepository.save(new Participant(UUID.randomUUID(), "name",
+                "surname", null, null, UUID.randomUUID()));
+        Participant otherEventParticipant = participantRepository.save(new Participant(UUID.randomUUID(), "name",
+                "surname", null, null, UUID.randomUUID()));
+        Expense expense = new Expense(sentParticipant, "expense", 69, LocalDate.now(), null);
+        expense.setInvolveds(List.of(new Involved(false, expense, sentParticipant),
+                new Involved(false, expense, otherEventParticipant)));
+
+        assertEquals(StatusEntity.notFound(true, "Involved participant not found"),
+                expenseController.isExpenseBadRequest(expense));
+    }
+
+    @Test
+    void findMissingParticipantsReturnsExactIds() {
+        UUID invitationCode = UUID.randomUUID();
+        Participant participant = participantRepository.save(new Participant(UUID.randomUUID(), "name",
+                "surname", null, null, invitationCode));
+        UUID unknown = UUID.randomUUID();
+
+        assertEquals(Set.of(unknown),
+                expenseController.findMissingParticipants(invitationCode, List.of(participant.getId(), unknown)));
+        assertEquals(Set.of(participant.getId()),
+                expenseController.findMissingParticipants(UUID.randomUUID(), List.of(participant.getId())));
+    }
+
+    @Test
+    void largeSplitValidatedWithSingleQuery() {
+        UUID invitationCode = UUID.randomUUID();
+        TestParticipantRepository repository = (TestParticipantRepository) participantRepository;
+        Participant paidBy = repository.save(new Participant(UUID.randomUUID(), "name", "surname",
+                null, null, invitationCode));
+        Expense expense = new Expense(paidBy, "expense", 200, LocalDate.now(), new InvolvedList());
+        for (int i = 0; i < 200; i++) {
+            Participant participant = repository.save(new Participant(UUID.randomUUID(), "name" + i,
+                    "surname", null, null, invitationCode));
+            expense.getInvolveds().add(new Involved(false, expense, participant));
+        }
+        repository.calledMethods.clear();
+
+        assertEquals(StatusEntity.ok((String) null), expenseController.isExpenseBadRequest(expense));
+        assertEquals(List.of("findIdsInEvent"), repository.calledMethods);
+
+        // the participants found are cached, validating the expense again does not query them
+        repository.calledMethods.clear();
+        assertEquals(StatusEntity.ok((String) null), expenseController.isExpenseBadRequest(expense));
+        assertEquals(List.of(), repository.calledMethods);
+    }
+
     @Test
     void ExpenseDuplicateParticipantInvolveds() {
         Participant sentParticipant = new Participant(UUID.randomUUID(), "name", "surname",
@@ -280,7 +340,7 @@ public class ExpenseControllerTest {
 
         ArgumentCaptor<Expense> expenseArgumentCaptor = ArgumentCaptor.forClass(Expense.class);
         verify(messagingTemplate).convertAndSend(eq("/topic/" + expense.getInvitationCode() + "/expense:update"),
-                expenseArgumentCaptor.capture());
+                expenseArgumentCaptor.capture(), anyMap());
         Expense sentExpense = expenseArgumentCaptor.getValue();
         assertEquals(expense.getTitle(), sentExpense.getTitle());
         assertEquals(expense.getAmount(), sentExpense.getAmount());
@@ -317,7 +377,7 @@ public class ExpenseControllerTest {
 
         ArgumentCaptor<Expense> expenseArgumentCaptor = ArgumentCaptor.forClass(Expense.class);
         verify(messagingTemplate).convertAndSend(eq("/topic/" + expense.getInvitationCode() + "/expense:update"),
-                expenseArgumentCaptor.capture());
+                expenseArgumentCaptor.capture(), anyMap());
         Expense sentExpense = expenseArgumentCaptor.getValue();
         assertEquals(expense.getTitle(), sentExpense.getTitle());
         assertEquals(expense.getAmount(), sentExpense.getAmount());
@@ -374,7 +434,7 @@ public class ExpenseControllerTest {
 
         ArgumentCaptor<Expense> expenseArgumentCaptor = ArgumentCaptor.forClass(Expense.class);
         verify(messagingTemplate).convertAndSend(eq("/topic/" + expense.getInvitationCode() + "/expense:delete"),
-                expenseArgumentCaptor.capture());
+                expenseArgumentCaptor.capture(), anyMap());
         Expense sentExpense = expenseArgumentCaptor.getValue();
         assertEquals(expense.getId(), sentExpense.getId());
         assertEquals(expense.getAmount(), sentExpense.getAmount());
@@ -0,0 +1,149 @@
+package server.api;
+
+import commons.*;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import server.BalanceService;
+import server.EntityLookupCache;
+import server.EventAggregateStore;
+import server.EventChangeLog;
+import server.EventLastActivityService;
+import server.database.EventRepository;
+import server.database.ExpenseRepository;
+import server.database.ParticipantRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class ExpenseReadStatementCountTest {
+
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private ParticipantRepository participantRepository;
+    @Autowired
+    private ExpenseRepository expenseRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private ExpenseController expenseController;
+
+    @BeforeEach
+    public void setup() {
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        SimpMessagingTemplate template = mock(SimpMessagingTemplate.class);
+        expenseController = new ExpenseController(expenseRepository, participantRepository,
+                new EventChangeLog(template, 256, 1000),
+                new EventLastActivityService(eventRepository, template, mock(PlatformTransactionManager.class),
+                        mock(JdbcTemplate.class)),
+                mock(BalanceService.class),
+                new EntityLookupCache(eventRepository, participantRepository, 1000, 60000),
+                mock(EventAggregateStore.class));
+    }
+
+    private UUID seedEvent(int participantCount, int expensesPerParticipant) {
+        LocalDateTime now = LocalDateTime.now();
+        Event event = eventRepository.save(new Event(UUID.randomUUID(), "event", now, now));
+        List<Participant> participants = new ArrayList<>();
+        for (int i = 0; i < participantCount; i++)
+            participants.add(participantRepository.save(new Participant(event, "first" + i, "last" + i,
+                    null, null)));
+        for (Participant participant : participants) {
+            for (int i = 0; i < expensesPerParticipant; i++) {
+                Expense expense = new Expense(participant, "expense" + i, 10, LocalDate.now(), new InvolvedList());
+                for (Participant involved : participants)
+                    expense.getInvolveds().add(new Involved(false, expense, involved));
+                expenseRepository.save(expense);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return event.getId();
+    }
+
+    private long statementsForRead(UUID invitationCode, int expectedExpenses) {
+        statistics.clear();
+        StatusEntity status = expenseController.readExpenses(invitationCode);
+        assertEquals(StatusEntity.StatusCode.OK, status.getStatusCode());
+        assertEquals(expectedExpenses, status.getExpenseList().size());
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    public void statementCountDoesNotGrowWithEvent() {
+        long small = statementsForRead(seedEvent(2, 1), 2);
+        long large = statementsForRead(seedEvent(20, 10), 200);
+
+        assertEquals(small, large);
+        assertTrue(large <= 2);
+    }
+
+    @Test
+    public void readExpensesKeepsInvolvedsAndPayer() {
+        UUID invitationCode = seedEvent(3, 1);
+
+        ExpenseList expenses = expenseController.readExpenses(invitationCode).getExpenseList();
+
+        for (Expense expense : expenses) {
+            assertEquals(invitationCode, expense.getInvitationCode());
+            assertEquals(3, expense.getInvolveds().size());
+            assertEquals(10.0 / 3, expense.getAmountOwed());
+            assertTrue(expense.getInvolveds().stream().anyMatch(involved ->
+                    involved.getParticipantId().equals(expense.getPaidById())));
+        }
+    }
+
+    @Test
+    public void expensePagesCoverEventOnce() {
+        UUID invitationCode = seedEvent(4, 5);
+        List<UUID> read = new ArrayList<>();
+        ExpensePage page = new ExpensePage(invitationCode, null, null, 7, false);
+        int pages = 0;
+        do {
+            statistics.clear();
+            StatusEntity status = expenseController.readExpensePage(page);
+            assertEquals(StatusEntity.StatusCode.OK, status.getStatusCode());
+            assertTrue(statistics.getPrepareStatementCount() <= 3);
+            for (Expense expense : status.getExpenseList()) {
+                assertEquals(4, expense.getInvolveds().size());
+                read.add(expense.getId());
+            }
+            page = status.getPage();
+            pages++;
+        } while (!page.isLast());
+
+        assertEquals(3, pages);
+        assertEquals(20, read.size());
+        assertEquals(20, read.stream().distinct().count());
+    }
+
+    @Test
+    public void expensePageAfterLastExpenseIsEmpty() {
+        UUID invitationCode = seedEvent(2, 1);
+        ExpensePage first = expenseController.readExpensePage(new ExpensePage(invitationCode, null, null, 2, false))
+                .getPage();
+
+        StatusEntity status = expenseController.readExpensePage(first);
+
+        assertTrue(first.isLast());
+        assertTrue(status.getExpenseList().isEmpty());
+        assertTrue(status.getPage().isLast());
+    }
+}
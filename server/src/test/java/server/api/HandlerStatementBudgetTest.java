@@ -0,0 +1,226 @@
+package server.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.*;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import server.AdminPrincipal;
+import server.AdminValidation;
+import server.BalanceService;
+import server.EntityLookupCache;
+import server.EventAggregateStore;
+import server.EventChangeLog;
+import server.EventDumpService;
+import server.EventImportService;
+import server.EventLastActivityService;
+import server.PasswordService;
+import server.database.EventRepository;
+import server.database.ExpenseRepository;
+import server.database.InvolvedRepository;
+import server.database.ParticipantRepository;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Every handler is run on a small and on a large event and has to run the same number of statements on both,
+ * within its budget. A handler that starts to run a statement per participant, expense or involved fails here.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class HandlerStatementBudgetTest {
+
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private ParticipantRepository participantRepository;
+    @Autowired
+    private ExpenseRepository expenseRepository;
+    @Autowired
+    private InvolvedRepository involvedRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private StatementBudget budget;
+    private ExpenseController expenseController;
+    private ParticipantController participantController;
+    private InvolvedController involvedController;
+    private AdminController adminController;
+    private SeededEvent small;
+    private SeededEvent large;
+
+    @BeforeEach
+    public void setup() {
+        budget = new StatementBudget(entityManager);
+        SimpMessagingTemplate template = mock(SimpMessagingTemplate.class);
+        EventChangeLog changeLog = new EventChangeLog(template, 256, 1000);
+        EventLastActivityService lastActivityService = new EventLastActivityService(eventRepository, template,
+                mock(PlatformTransactionManager.class),
+                mock(JdbcTemplate.class));
+        EntityLookupCache lookupCache = new EntityLookupCache(eventRepository, participantRepository, 1000, 60000);
+        BalanceService balanceService = mock(BalanceService.class);
+        EventAggregateStore aggregates = mock(EventAggregateStore.class);
+
+        expenseController = new ExpenseController(expenseRepository, participantRepository, changeLog,
+                lastActivityService, balanceService, lookupCache, aggregates);
+        involvedController = new InvolvedController(involvedRepository, changeLog, lastActivityService,
+                balanceService, lookupCache, aggregates);
+        participantController = new ParticipantController(participantRepository, eventRepository, changeLog,
+                expenseRepository, involvedRepository, lastActivityService, balanceService, lookupCache, aggregates);
+        adminController = new AdminController(template, eventRepository, mock(PasswordService.class),
+                balanceService, mock(EventImportService.class),
+                new EventDumpService(eventRepository, participantRepository, expenseRepository, new ObjectMapper(),
+                        mock(PlatformTransactionManager.class)),
+                changeLog, lookupCache, aggregates);
+
+        small = seedEvent(2, 1);
+        large = seedEvent(20, 10);
+    }
+
+    private SeededEvent seedEvent(int participantCount, int expensesPerParticipant) {
+        LocalDateTime now = LocalDateTime.now();
+        Event event = eventRepository.save(new Event(UUID.randomUUID(), "event", now, now));
+        List<Participant> participants = new ArrayList<>();
+        for (int i = 0; i < participantCount; i++)
+            participants.add(participantRepository.save(new Participant(event, "first" + i, "last" + i,
+                    null, null)));
+        List<Expense> expenses = new ArrayList<>();
+        for (Participant participant : participants) {
+            for (int i = 0; i < expensesPerParticipant; i++) {
+                Expense expense = new Expense(participant, "expense" + i, 10, LocalDate.now(), new InvolvedList());
+                for (Participant involved : participants)
+                    expense.getInvolveds().add(new Involved(false, expense, involved));
+                expenses.add(expenseRepository.save(expense));
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return new SeededEvent(event.getId(), participants, expenses);
+    }
+
+    private static Expense createdExpense(SeededEvent event) {
+        Expense expense = new Expense(event.participants().get(0), "created", 30, LocalDate.now(),
+                new InvolvedList());
+        for (Participant participant : event.participants())
+            expense.getInvolveds().add(new Involved(false, expense, participant));
+        return expense;
+    }
+
+    private static Expense updatedExpense(SeededEvent event) {
+        Expense expense = event.expenses().get(0);
+        List<Involved> involveds = new InvolvedList();
+        // the last participant is no longer involved
+        for (Participant participant : event.participants().subList(0, event.participants().size() - 1))
+            involveds.add(new Involved(null, false, expense.getId(), participant.getId(), event.invitationCode()));
+        return new Expense(expense.getId(), "updated", 40, expense.getPaidById(), event.invitationCode(),
+                LocalDate.now(), involveds);
+    }
+
+    private static SimpMessageHeaderAccessor adminHeaders() {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create();
+        headerAccessor.setSessionAttributes(new HashMap<>());
+        headerAccessor.getSessionAttributes().put(AdminValidation.ADMIN_ATTRIBUTE, new AdminPrincipal(Instant.now()));
+        return headerAccessor;
+    }
+
+    private StatusEntity dump(SeededEvent event) {
+        return adminController.dumpEvent(new Event(event.invitationCode(), "event", null, null), adminHeaders());
+    }
+
+    @Test
+    public void readExpensesStaysWithinBudget() {
+        budget.assertWithin("readExpenses", 2,
+                () -> expenseController.readExpenses(small.invitationCode()),
+                () -> expenseController.readExpenses(large.invitationCode()));
+    }
+
+    @Test
+    public void readParticipantsStaysWithinBudget() {
+        budget.assertWithin("readParticipants", 3,
+                () -> participantController.readParticipants(small.invitationCode()),
+                () -> participantController.readParticipants(large.invitationCode()));
+    }
+
+    @Test
+    public void createExpenseStaysWithinBudget() {
+        budget.assertWithin("createExpense", 3,
+                () -> expenseController.createExpense(createdExpense(small)),
+                () -> expenseController.createExpense(createdExpense(large)));
+    }
+
+    @Test
+    public void updateExpenseStaysWithinBudget() {
+        budget.assertWithin("updateExpense", 6,
+                () -> expenseController.updateExpense(updatedExpense(small)),
+                () -> expenseController.updateExpense(updatedExpense(large)));
+    }
+
+    @Test
+    public void deleteParticipantStaysWithinBudget() {
+        budget.assertWithin("deleteParticipant", 6,
+                () -> participantController.deleteParticipant(small.participants().get(0)),
+                () -> participantController.deleteParticipant(large.participants().get(0)));
+    }
+
+    @Test
+    public void dumpEventStaysWithinBudget() {
+        budget.assertWithin("dumpEvent", 5, () -> dump(small), () -> dump(large));
+    }
+
+    @Test
+    public void settleInvolvedsStaysWithinBudget() {
+        budget.assertWithin("settleInvolveds", 3,
+                () -> involvedController.settleInvolveds(SettleRequest.event(small.invitationCode())),
+                () -> involvedController.settleInvolveds(SettleRequest.event(large.invitationCode())));
+    }
+
+    @Test
+    public void deleteParticipantDeletesTheirExpensesAndInvolveds() {
+        Participant deleted = large.participants().get(0);
+
+        participantController.deleteParticipant(deleted);
+        entityManager.flush();
+        entityManager.clear();
+
+        // the small event keeps its 2 participants, 2 expenses and 4 involveds
+        assertEquals(2 + 19, participantRepository.count());
+        assertEquals(2 + 190, expenseRepository.count());
+        assertEquals(4 + 190 * 19, involvedRepository.count());
+    }
+
+    @Test
+    public void dumpEventReadsTheWholeEvent() {
+        Event event = dump(large).getEvent();
+        // lazy associations that were not read would fail now
+        entityManager.clear();
+
+        assertEquals(20, event.getParticipants().size());
+        int expenses = 0;
+        for (Participant participant : event.getParticipants()) {
+            for (Expense expense : participant.getMadeExpenses()) {
+                assertEquals(20, expense.getInvolveds().size());
+                expense.getInvolveds().forEach(involved -> assertNotNull(involved.getParticipant().getFirstName()));
+                expenses++;
+            }
+        }
+        assertEquals(200, expenses);
+    }
+
+    private record SeededEvent(UUID invitationCode, List<Participant> participants, List<Expense> expenses) {
+    }
+}
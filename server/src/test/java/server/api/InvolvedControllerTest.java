@@ -8,9 +8,14 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.dao.ConcurrencyFailureException;
+import server.BalanceService;
+import server.EntityLookupCache;
+import server.EventAggregateStore;
+import server.EventChangeLog;
 import server.EventLastActivityService;
 import server.database.InvolvedRepository;
+import server.database.UnsettledInvolved;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -20,6 +25,7 @@ import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 public class InvolvedControllerTest {
@@ -31,11 +37,20 @@ public class InvolvedControllerTest {
     private InvolvedRepository involvedRepository;
 
     @Mock
-    private SimpMessagingTemplate template;
+    private EventChangeLog changeLog;
 
     @Mock
     private EventLastActivityService eventLastActivityService;
 
+    @Mock
+    private BalanceService balanceService;
+
+    @Mock
+    private EntityLookupCache lookupCache;
+
+    @Mock
+    private EventAggregateStore aggregates;
+
     @Mock
     private TestParticipantRepository participantRepository;
 
@@ -86,8 +101,7 @@ public class InvolvedControllerTest {
         verify(involvedRepository, times(1)).getReferenceById(involved.getId());
         verify(involvedRepository, times(1)).save(involved);
         verify(eventLastActivityService, times(1)).updateLastActivity(participant.getEventId());
-        verify(template, times(1)).convertAndSend("/topic/" + involved.getInvitationCode() + "/involved:update", involvedList);
-        verify(template, times(1)).convertAndSend(eq("/topic/" + involved.getInvitationCode() + "/involved:update"), captor.capture());
+        verify(changeLog, times(1)).publish(eq(involved.getInvitationCode()), eq("involved:update"), captor.capture());
 
 
         assertEquals(involvedList, captor.getValue());
@@ -138,4 +152,97 @@ public class InvolvedControllerTest {
 
         assertEquals(expected, result);
     }
+
+    private static UnsettledInvolved unsettled(UUID expenseId, UUID participantId) {
+        UnsettledInvolved involved = mock(UnsettledInvolved.class);
+        UUID id = UUID.randomUUID();
+        when(involved.getId()).thenReturn(id);
+        when(involved.getExpenseId()).thenReturn(expenseId);
+        when(involved.getParticipantId()).thenReturn(participantId);
+        return involved;
+    }
+
+    @Test
+    public void testSettleInvolveds_Event() {
+        UUID eventId = UUID.randomUUID();
+        UUID expenseId = UUID.randomUUID();
+        List<UnsettledInvolved> unsettled = List.of(unsettled(expenseId, UUID.randomUUID()),
+                unsettled(expenseId, UUID.randomUUID()));
+        when(lookupCache.eventExists(eventId)).thenReturn(true);
+        when(involvedRepository.findUnsettledByInvitationCode(eventId)).thenReturn(unsettled);
+        when(involvedRepository.settleAllByInvitationCode(eventId)).thenReturn(2);
+
+        StatusEntity result = involvedController.settleInvolveds(SettleRequest.event(eventId));
+
+        InvolvedList expected = new InvolvedList();
+        for (UnsettledInvolved involved : unsettled)
+            expected.add(new Involved(involved.getId(), true, expenseId, involved.getParticipantId(), eventId));
+        verify(involvedRepository, times(1)).settleAllByInvitationCode(eventId);
+        verify(eventLastActivityService, times(1)).updateLastActivity(eventId);
+        verify(changeLog, times(1)).publish(eventId, "involved:update", expected);
+        verify(balanceService, times(1)).involvedsUpdated(eventId, expected);
+        assertEquals(StatusEntity.ok("Successfully updated settling of debts"), result);
+    }
+
+    @Test
+    public void testSettleInvolveds_BetweenParticipants() {
+        UUID eventId = UUID.randomUUID();
+        UUID fromId = UUID.randomUUID();
+        UUID toId = UUID.randomUUID();
+        List<UnsettledInvolved> unsettled = List.of(unsettled(UUID.randomUUID(), fromId));
+        when(lookupCache.eventExists(eventId)).thenReturn(true);
+        when(involvedRepository.findUnsettledBetween(eventId, fromId, toId)).thenReturn(unsettled);
+        when(involvedRepository.settleAllBetween(eventId, fromId, toId)).thenReturn(1);
+
+        involvedController.settleInvolveds(SettleRequest.between(eventId, fromId, toId));
+
+        verify(involvedRepository, times(1)).settleAllBetween(eventId, fromId, toId);
+        verify(involvedRepository, never()).findUnsettledByInvitationCode(any(UUID.class));
+        verify(changeLog, times(1)).publish(eq(eventId), eq("involved:update"), any(InvolvedList.class));
+    }
+
+    @Test
+    public void testSettleInvolveds_NothingToSettle() {
+        UUID eventId = UUID.randomUUID();
+        UUID expenseId = UUID.randomUUID();
+        when(lookupCache.eventExists(eventId)).thenReturn(true);
+        when(involvedRepository.findUnsettledByExpenseId(eventId, expenseId)).thenReturn(List.of());
+
+        StatusEntity result = involvedController.settleInvolveds(SettleRequest.expense(eventId, expenseId));
+
+        verify(involvedRepository, never()).settleAllByExpenseId(any(UUID.class), any(UUID.class));
+        verify(eventLastActivityService, never()).updateLastActivity(any(UUID.class));
+        verify(changeLog, never()).publish(any(UUID.class), anyString(), any());
+        assertEquals(StatusEntity.ok("There were no debts to settle"), result);
+    }
+
+    @Test
+    public void testSettleInvolveds_BadRequest() {
+        UUID eventId = UUID.randomUUID();
+        UUID participantId = UUID.randomUUID();
+
+        assertEquals(StatusEntity.badRequest(true, "InvitationCode of event should be provided"),
+                involvedController.settleInvolveds(SettleRequest.event(null)));
+        assertEquals(StatusEntity.badRequest(true, "Both participants should be provided"),
+                involvedController.settleInvolveds(SettleRequest.between(eventId, participantId, null)));
+        assertEquals(StatusEntity.badRequest(true, "A participant cannot owe debts to themselves"),
+                involvedController.settleInvolveds(SettleRequest.between(eventId, participantId, participantId)));
+        assertEquals(StatusEntity.notFound(true, "Event not found"),
+                involvedController.settleInvolveds(SettleRequest.event(eventId)));
+        verify(involvedRepository, never()).settleAllByInvitationCode(any(UUID.class));
+    }
+
+    @Test
+    public void testSettleInvolveds_DebtsChangedMeanwhile() {
+        UUID eventId = UUID.randomUUID();
+        UUID expenseId = UUID.randomUUID();
+        List<UnsettledInvolved> unsettled = List.of(unsettled(expenseId, UUID.randomUUID()));
+        when(lookupCache.eventExists(eventId)).thenReturn(true);
+        when(involvedRepository.findUnsettledByExpenseId(eventId, expenseId)).thenReturn(unsettled);
+        when(involvedRepository.settleAllByExpenseId(eventId, expenseId)).thenReturn(2);
+
+        assertThrows(ConcurrencyFailureException.class,
+                () -> involvedController.settleInvolveds(SettleRequest.expense(eventId, expenseId)));
+        verify(changeLog, never()).publish(any(UUID.class), anyString(), any());
+    }
 }
@@ -6,6 +6,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import server.BalanceService;
+import server.EntityLookupCache;
+import server.EventAggregateStore;
+import server.EventChangeLog;
 import server.EventLastActivityService;
 import server.database.EventRepository;
 import server.database.ExpenseRepository;
@@ -14,6 +20,7 @@ import server.database.ParticipantRepository;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -33,9 +40,14 @@ public class ParticipantControllerTest {
         eventRepository = new TestEventRepository();
         expenseRepository = new TestExpenseRepository();
         messagingTemplate = mock(SimpMessagingTemplate.class);
-        eventLastActivityService = new EventLastActivityService(eventRepository, messagingTemplate);
-        participantController = new ParticipantController(participantRepository, eventRepository, messagingTemplate,
-                expenseRepository, eventLastActivityService);
+        eventLastActivityService = new EventLastActivityService(eventRepository, messagingTemplate,
+                mock(PlatformTransactionManager.class),
+                mock(JdbcTemplate.class));
+        participantController = new ParticipantController(participantRepository, eventRepository,
+                new EventChangeLog(messagingTemplate, 256, 1000), expenseRepository, new TestInvolvedRepository(),
+                eventLastActivityService,
+                mock(BalanceService.class), new EntityLookupCache(eventRepository, participantRepository, 1000, 60000),
+                mock(EventAggregateStore.class));
     }
 
     @Test
@@ -51,7 +63,7 @@ public class ParticipantControllerTest {
 
         ArgumentCaptor<Participant> argumentCaptor = ArgumentCaptor.forClass(Participant.class);
         verify(messagingTemplate).convertAndSend(eq("/topic/"+participant.getEventId()+"/participant:create"),
-                argumentCaptor.capture());
+                argumentCaptor.capture(), anyMap());
         Participant capturedParticipant = argumentCaptor.getValue();
         assertEquals(participant.getEventId(), capturedParticipant.getEventId());
         assertEquals(participant.getFirstName(), capturedParticipant.getFirstName());
@@ -120,7 +132,7 @@ public class ParticipantControllerTest {
 
         ArgumentCaptor<Participant> argumentCaptor = ArgumentCaptor.forClass(Participant.class);
         verify(messagingTemplate).convertAndSend(eq("/topic/"+participant.getEventId()+"/participant:update"),
-                argumentCaptor.capture());
+                argumentCaptor.capture(), anyMap());
         Participant capturedParticipant = argumentCaptor.getValue();
         assertEquals(participant.getEventId(), capturedParticipant.getEventId());
         assertEquals(participant.getId(), capturedParticipant.getId());
@@ -165,10 +177,11 @@ public class ParticipantControllerTest {
 
         assertEquals(StatusEntity.ok("Participant was successfully deleted"),
                 participantController.deleteParticipant(participant));
+        assertFalse(participantRepository.existsById(participant.getId()));
 
         ArgumentCaptor<Participant> argumentCaptor = ArgumentCaptor.forClass(Participant.class);
         verify(messagingTemplate).convertAndSend(eq("/topic/"+participant.getEventId()+"/participant:delete"),
-                argumentCaptor.capture());
+                argumentCaptor.capture(), anyMap());
         Participant capturedParticipant = argumentCaptor.getValue();
         assertEquals(participant.getEventId(), capturedParticipant.getEventId());
         assertEquals(participant.getId(), capturedParticipant.getId());
@@ -0,0 +1,77 @@
+package server.api;
+
+import commons.Event;
+import commons.Expense;
+import commons.Involved;
+import commons.InvolvedList;
+import commons.Participant;
+import jakarta.persistence.EntityManager;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import server.database.EventRepository;
+import server.database.ExpenseRepository;
+import server.database.InvolvedRepository;
+import server.database.ParticipantRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+public class SchemaMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private ParticipantRepository participantRepository;
+    @Autowired
+    private ExpenseRepository expenseRepository;
+    @Autowired
+    private InvolvedRepository involvedRepository;
+
+    @Test
+    public void allMigrationsAreApplied() {
+        assertEquals(0, flyway.info().pending().length);
+        assertEquals("2", flyway.info().current().getVersion().getVersion());
+    }
+
+    @Test
+    public void indexesAreCreated() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT LOWER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES WHERE TABLE_SCHEMA = 'PUBLIC'",
+                String.class);
+
+        for (String index : List.of("idx_event_title", "idx_event_last_activity", "idx_participant_event",
+                "idx_expense_participant_date", "idx_involved_participant"))
+            assertTrue(indexes.contains(index), index);
+    }
+
+    @Test
+    public void participantIsInvolvedInExpenseOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        Event event = eventRepository.save(new Event(UUID.randomUUID(), "event", now, now));
+        Participant participant = participantRepository.save(new Participant(event, "first", "last", null, null));
+        Expense expense = expenseRepository.save(new Expense(participant, "expense", 10, LocalDate.now(),
+                new InvolvedList()));
+        involvedRepository.save(new Involved(false, expense, participant));
+        entityManager.flush();
+
+        involvedRepository.save(new Involved(false, expense, participant));
+        assertThrows(DataIntegrityViolationException.class, () -> involvedRepository.flush());
+    }
+}
@@ -0,0 +1,55 @@
+package server.api;
+
+import commons.StatusEntity;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the SQL statements a handler runs, with the statistics of Hibernate, which have to be enabled
+ * with spring.jpa.properties.hibernate.generate_statistics=true.
+ * The persistence context is flushed and cleared before the handler runs, so nothing seeded is read from it,
+ * and flushed after it, so the writes of the handler are counted as well.
+ */
+class StatementBudget {
+
+    private final EntityManager entityManager;
+    private final Statistics statistics;
+
+    StatementBudget(EntityManager entityManager) {
+        this.entityManager = entityManager;
+        this.statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Runs a handler, checks it answered OK and counts the statements it ran
+     */
+    long count(Supplier<StatusEntity> handler) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        StatusEntity status = handler.get();
+        entityManager.flush();
+        assertEquals(StatusEntity.StatusCode.OK, status.getStatusCode(), status.getMessage());
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Asserts that a handler runs the same number of statements on a small and on a large event,
+     * so it does not run a statement per row, and that this number is within the budget
+     */
+    void assertWithin(String handlerName, long budget, Supplier<StatusEntity> onSmallEvent,
+                      Supplier<StatusEntity> onLargeEvent) {
+        long small = count(onSmallEvent);
+        long large = count(onLargeEvent);
+
+        assertEquals(small, large, handlerName + " runs " + small + " statements on a small event but "
+                + large + " on a large one");
+        assertTrue(large <= budget, handlerName + " runs " + large + " statements, the budget is " + budget);
+    }
+}
@@ -0,0 +1,116 @@
+package server.api;
+
+import commons.Expense;
+import commons.ExpenseList;
+import commons.Involved;
+import commons.InvolvedList;
+import commons.SmileMessageConverter;
+import commons.StatusEntity;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the size of the frames and the time to encode and decode them in JSON and in Smile,
+ * for the expenses:read answer of a large event.
+ * Excluded from the regular test run, run it with ./gradlew :server:benchmark
+ * and set the size of the event with -Dbenchmark.codec.expenses and -Dbenchmark.codec.participants.
+ * Every run appends its result to build/benchmarks/stomp-codec.json.
+ */
+@Tag("benchmark")
+public class StompCodecBenchmark {
+
+    private static final int ITERATIONS = 20;
+
+    /**
+     * Encodes and decodes the expenses of an event of the configured size in JSON and in Smile
+     * and records the frame sizes and times
+     * @throws IOException if the result cannot be written
+     */
+    @Test
+    public void encodeLargeEvent() throws IOException {
+        int participants = Integer.getInteger("benchmark.codec.participants", 20);
+        int expenses = Integer.getInteger("benchmark.codec.expenses", 10_000);
+        StatusEntity status = StatusEntity.ok(expenseList(participants, expenses));
+
+        MappingJackson2MessageConverter jsonConverter = new MappingJackson2MessageConverter();
+        jsonConverter.getObjectMapper().findAndRegisterModules();
+        String json = measure("json", jsonConverter, MimeTypeUtils.APPLICATION_JSON, status);
+        String smile = measure("smile", new SmileMessageConverter(), SmileMessageConverter.SMILE, status);
+
+        String result = String.format(Locale.ROOT,
+                "{\"benchmark\":\"stompCodec\",\"time\":\"%s\",\"participants\":%d,\"expenses\":%d,%s,%s}",
+                LocalDateTime.now(), participants, expenses, json, smile);
+        System.out.println(result);
+        Path file = Path.of("build", "benchmarks", "stomp-codec.json");
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, result + System.lineSeparator(),
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static String measure(String name, AbstractMessageConverter converter, MimeType contentType,
+                                  StatusEntity status) {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create();
+        headerAccessor.setContentType(contentType);
+        MessageHeaders headers = headerAccessor.getMessageHeaders();
+
+        // warm up the JIT and the serializers of the converter first
+        Message<?> message = converter.toMessage(status, headers);
+        StatusEntity decoded = (StatusEntity) converter.fromMessage(message, StatusEntity.class);
+        assertEquals(status.getExpenseList().size(), decoded.getExpenseList().size());
+
+        long start = System.nanoTime();
+        for (int iteration = 0; iteration < ITERATIONS; iteration++)
+            message = converter.toMessage(status, headers);
+        double encodeMillis = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int iteration = 0; iteration < ITERATIONS; iteration++)
+            converter.fromMessage(message, StatusEntity.class);
+        double decodeMillis = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+
+        return String.format(Locale.ROOT, "\"%s\":{\"bytes\":%d,\"encodeMillis\":%.3f,\"decodeMillis\":%.3f}",
+                name, ((byte[]) message.getPayload()).length, encodeMillis, decodeMillis);
+    }
+
+    private static ExpenseList expenseList(int participants, int expenses) {
+        UUID invitationCode = UUID.randomUUID();
+        List<UUID> participantIds = new ArrayList<>();
+        for (int participant = 0; participant < participants; participant++)
+            participantIds.add(UUID.randomUUID());
+
+        ExpenseList expenseList = new ExpenseList();
+        for (int index = 0; index < expenses; index++) {
+            UUID expenseId = UUID.randomUUID();
+            InvolvedList involveds = new InvolvedList();
+            for (UUID participantId : participantIds)
+                involveds.add(new Involved(UUID.randomUUID(), index % 3 == 0, expenseId, participantId,
+                        invitationCode));
+            Expense expense = new Expense(expenseId, "Expense " + index, 10 + index % 100,
+                    participantIds.get(index % participants), invitationCode,
+                    LocalDate.of(2024, 1, 1).plusDays(index % 365), involveds);
+            expense.setAmountOwed(expense.getAmount() / participants);
+            expenseList.add(expense);
+        }
+        return expenseList;
+    }
+}
@@ -0,0 +1,136 @@
+package server.api;
+
+import commons.Participant;
+import commons.ParticipantList;
+import commons.SmileMessageConverter;
+import commons.StatusEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import server.StompEncodingInterceptor;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class StompEncodingInterceptorTest {
+
+    private StompEncodingInterceptor sut;
+    private MessageChannel channel;
+    private MappingJackson2MessageConverter jsonConverter;
+    private SmileMessageConverter smileConverter;
+    private StatusEntity status;
+
+    @BeforeEach
+    public void setup() {
+        sut = new StompEncodingInterceptor();
+        channel = mock(MessageChannel.class);
+        jsonConverter = new MappingJackson2MessageConverter();
+        jsonConverter.getObjectMapper().findAndRegisterModules();
+        smileConverter = new SmileMessageConverter();
+        UUID invitationCode = UUID.randomUUID();
+        ParticipantList participants = new ParticipantList();
+        participants.add(new Participant(UUID.randomUUID(), "Ana", "Smith", "NL91ABNA0417164300", "ABNANL2A",
+                invitationCode));
+        participants.add(new Participant(UUID.randomUUID(), "Bob", "Smith", null, null, invitationCode));
+        status = StatusEntity.ok(participants);
+    }
+
+    private Message<byte[]> send(String sessionId, MimeType contentType) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.create(StompCommand.SEND);
+        headerAccessor.setDestination("/app/participants:read");
+        headerAccessor.setSessionId(sessionId);
+        if (contentType != null)
+            headerAccessor.setContentType(contentType);
+        return MessageBuilder.createMessage(new byte[0], headerAccessor.getMessageHeaders());
+    }
+
+    private Message<?> broadcast(String sessionId, byte[] payload) {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headerAccessor.setDestination("/topic/participants");
+        headerAccessor.setSessionId(sessionId);
+        headerAccessor.setSubscriptionId("0");
+        headerAccessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
+    }
+
+    private byte[] json() {
+        return (byte[]) jsonConverter.toMessage(status, null).getPayload();
+    }
+
+    @Test
+    public void testSmileSessionIsAnsweredInSmile() {
+        sut.preSend(send("a", SmileMessageConverter.SMILE), channel);
+
+        Message<?> sent = sut.preSend(broadcast("a", json()), channel);
+
+        assertTrue(sut.isSmileSession("a"));
+        assertTrue(SmileMessageConverter.isSmile((MimeType) sent.getHeaders().get(MessageHeaders.CONTENT_TYPE)));
+        assertEquals(status, smileConverter.fromMessage(sent, StatusEntity.class));
+    }
+
+    @Test
+    public void testJsonSessionIsAnsweredInJson() {
+        sut.preSend(send("a", MimeTypeUtils.APPLICATION_JSON), channel);
+        Message<?> message = broadcast("a", json());
+
+        assertSame(message, sut.preSend(message, channel));
+        assertFalse(sut.isSmileSession("a"));
+    }
+
+    @Test
+    public void testFrameWithoutContentTypeKeepsEncoding() {
+        sut.preSend(send("a", SmileMessageConverter.SMILE), channel);
+        sut.preSend(send("a", null), channel);
+
+        assertTrue(sut.isSmileSession("a"));
+        sut.preSend(send("a", MimeTypeUtils.APPLICATION_JSON), channel);
+        assertFalse(sut.isSmileSession("a"));
+    }
+
+    @Test
+    public void testBroadcastIsTranscodedOnce() {
+        sut.preSend(send("a", SmileMessageConverter.SMILE), channel);
+        sut.preSend(send("b", SmileMessageConverter.SMILE), channel);
+        byte[] payload = json();
+
+        Message<?> first = sut.preSend(broadcast("a", payload), channel);
+        Message<?> second = sut.preSend(broadcast("b", payload), channel);
+
+        assertSame(first.getPayload(), second.getPayload());
+        assertTrue(((byte[]) first.getPayload()).length < payload.length);
+    }
+
+    @Test
+    public void testDisconnectForgetsSession() {
+        sut.preSend(send("a", SmileMessageConverter.SMILE), channel);
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        headerAccessor.setSessionId("a");
+        sut.preSend(MessageBuilder.createMessage(new byte[0], headerAccessor.getMessageHeaders()), channel);
+
+        assertFalse(sut.isSmileSession("a"));
+    }
+
+    @Test
+    public void testSmileConverterOnlyHandlesSmile() {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create();
+        headerAccessor.setContentType(SmileMessageConverter.SMILE);
+        Message<?> smile = smileConverter.toMessage(status, headerAccessor.getMessageHeaders());
+
+        assertNotNull(smile);
+        assertEquals(status, smileConverter.fromMessage(smile, StatusEntity.class));
+        assertNull(smileConverter.toMessage(status, null));
+        assertNull(smileConverter.fromMessage(broadcast("a", json()), StatusEntity.class));
+    }
+}
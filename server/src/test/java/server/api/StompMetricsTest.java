@@ -0,0 +1,142 @@
+package server.api;
+
+import commons.StatusEntity;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.handler.DestinationPatternsMessageCondition;
+import org.springframework.messaging.handler.HandlerMethod;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageMappingInfo;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessageTypeMessageCondition;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.support.MessageBuilder;
+import server.StompMetrics;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StompMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private StompMetrics sut;
+    private MessageChannel channel;
+    private SimpAnnotationMethodMessageHandler handler;
+
+    @BeforeEach
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        sut = new StompMetrics(registry);
+        channel = mock(MessageChannel.class);
+        handler = mock(SimpAnnotationMethodMessageHandler.class);
+        SimpMessageMappingInfo mapping = new SimpMessageMappingInfo(SimpMessageTypeMessageCondition.MESSAGE,
+                new DestinationPatternsMessageCondition("/expense:create"));
+        when(handler.getHandlerMethods()).thenReturn(Map.of(mapping, mock(HandlerMethod.class)));
+    }
+
+    private Message<byte[]> message(SimpMessageType type, String sessionId, String destination,
+                                    String subscriptionId, byte[] payload) {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(type);
+        headerAccessor.setSessionId(sessionId);
+        headerAccessor.setDestination(destination);
+        headerAccessor.setSubscriptionId(subscriptionId);
+        return MessageBuilder.createMessage(payload, headerAccessor.getMessageHeaders());
+    }
+
+    private void handle(String destination, Object answer) {
+        Message<byte[]> message = message(SimpMessageType.MESSAGE, "session", destination, null, new byte[0]);
+        sut.beforeHandle(message, channel, handler);
+        if (answer != null)
+            assertNull(sut.getAnswerConverter().toMessage(answer, null));
+        sut.afterMessageHandled(message, channel, handler, null);
+    }
+
+    private long count(String destination, String outcome) {
+        Timer timer = registry.find("splitty.stomp.inbound").tags("destination", destination, "outcome", outcome)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    @Test
+    public void handlersAreTimedByDestinationAndOutcome() {
+        handle("/app/expense:create", StatusEntity.ok("created"));
+        handle("/app/expense:create", StatusEntity.notFound(true, "missing"));
+        handle("/app/unknown", null);
+
+        assertEquals(1, count("/app/expense:create", "ok"));
+        assertEquals(1, count("/app/expense:create", "not_found"));
+        assertEquals(1, count("unmapped", "ok"));
+    }
+
+    @Test
+    public void handlerExceptionsAreRecorded() {
+        Message<byte[]> message = message(SimpMessageType.MESSAGE, "session", "/app/expense:create", null,
+                new byte[0]);
+        sut.beforeHandle(message, channel, handler);
+        sut.handlerFailed();
+        sut.afterMessageHandled(message, channel, handler, null);
+
+        assertEquals(1, count("/app/expense:create", "exception"));
+    }
+
+    @Test
+    public void sessionsAndSubscriptionsAreTracked() {
+        sut.preSend(message(SimpMessageType.CONNECT, "first", null, null, new byte[0]), channel);
+        sut.preSend(message(SimpMessageType.CONNECT, "second", null, null, new byte[0]), channel);
+        sut.preSend(message(SimpMessageType.SUBSCRIBE, "first", "/topic/a", "sub-0", new byte[0]), channel);
+        sut.preSend(message(SimpMessageType.SUBSCRIBE, "first", "/topic/b", "sub-1", new byte[0]), channel);
+        sut.preSend(message(SimpMessageType.SUBSCRIBE, "second", "/topic/a", "sub-0", new byte[0]), channel);
+        sut.preSend(message(SimpMessageType.UNSUBSCRIBE, "first", null, "sub-1", new byte[0]), channel);
+        sut.preSend(message(SimpMessageType.DISCONNECT, "second", null, null, new byte[0]), channel);
+        sut.preSend(message(SimpMessageType.DISCONNECT, "second", null, null, new byte[0]), channel);
+
+        assertEquals(1, registry.get("splitty.stomp.sessions").gauge().value());
+        assertEquals(1, registry.get("splitty.stomp.subscriptions").gauge().value());
+    }
+
+    @Test
+    public void outboundFramesAreCountedWithTheirBytesByNormalizedDestination() {
+        UUID invitationCode = UUID.randomUUID();
+        sut.getOutboundInterceptor().preSend(message(SimpMessageType.MESSAGE, "first",
+                "/topic/" + invitationCode + "/expense:create", "sub-0", new byte[10]), channel);
+        sut.getOutboundInterceptor().preSend(message(SimpMessageType.MESSAGE, "second",
+                "/topic/" + UUID.randomUUID() + "/expense:create", "sub-0", new byte[20]), channel);
+
+        DistributionSummary summary = registry.get("splitty.stomp.outbound")
+                .tag("destination", "/topic/{id}/expense:create").summary();
+        assertEquals(2, summary.count());
+        assertEquals(30, summary.totalAmount());
+    }
+
+    @Test
+    public void resolvedUserMessagesArePublishedOnce() {
+        sut.getBrokerInterceptor().preSend(message(SimpMessageType.MESSAGE, "first",
+                "/user/first/queue/expenses:read", null, new byte[0]), channel);
+        SimpMessageHeaderAccessor resolved = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        resolved.setDestination("/queue/expenses:read-userfirst");
+        resolved.setHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION, "/user/queue/expenses:read");
+        sut.getBrokerInterceptor().preSend(MessageBuilder.createMessage(new byte[0],
+                resolved.getMessageHeaders()), channel);
+
+        assertEquals(1, registry.get("splitty.stomp.published")
+                .tag("destination", "/user/queue/expenses:read").counter().count());
+    }
+
+    @Test
+    public void destinationsAreNormalized() {
+        assertEquals("/topic/{id}/balances", StompMetrics.normalize("/topic/" + UUID.randomUUID() + "/balances"));
+        assertEquals("/user/queue/expenses:read", StompMetrics.normalize("/user/someone/queue/expenses:read"));
+        assertEquals("/queue/expenses:read", StompMetrics.normalize("/queue/expenses:read-user1a2b3c"));
+        assertEquals("/topic/admin/event:create", StompMetrics.normalize("/topic/admin/event:create"));
+    }
+}
@@ -2,19 +2,24 @@ package server.api;
 
 
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.function.Function;
 
 import commons.Event;
+import commons.EventPage;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.springframework.data.domain.Example;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
 
 //import commons.Event;
 import server.database.EventRepository;
+import server.database.EventTitle;
 
 /**
  * Event repository implementation for testing purposes
@@ -206,4 +211,44 @@ public class TestEventRepository implements EventRepository {
     public Page<Event> findAll(Pageable pageable) {
         return null;
     }
+
+    @Override
+    public List<EventTitle> findTitlesByIdIn(Collection<UUID> ids) {
+        call("findTitlesByIdIn");
+        return events.stream()
+                .filter(event -> ids.contains(event.getId()))
+                .map(event -> (EventTitle) new EventTitle() {
+                    public UUID getId() {
+                        return event.getId();
+                    }
+                    public String getTitle() {
+                        return event.getTitle();
+                    }
+                })
+                .toList();
+    }
+
+    @Override
+    public Slice<Event> findPage(String titlePattern, LocalDateTime createdFrom, LocalDateTime createdTo,
+                                 LocalDateTime activeFrom, LocalDateTime activeTo, Pageable pageable) {
+        call("findPage");
+        String prefix = titlePattern == null ? null : titlePattern.substring(0, titlePattern.length() - 1)
+                .replace("\\%", "%").replace("\\_", "_").replace("\\\\", "\\");
+        EventPage filter = new EventPage(prefix, createdFrom, createdTo, activeFrom, activeTo, null, false, 0, 0,
+                false);
+        Comparator<Event> order = Comparator.comparing(Event::getId);
+        for (Sort.Order sortOrder : pageable.getSort().toList().reversed()) {
+            Comparator<Event> byProperty = switch (sortOrder.getProperty()) {
+                case "title" -> Comparator.comparing(Event::getTitle);
+                case "creationDate" -> Comparator.comparing(Event::getCreationDate);
+                case "lastActivity" -> Comparator.comparing(Event::getLastActivity);
+                default -> Comparator.comparing(Event::getId);
+            };
+            order = (sortOrder.isDescending() ? byProperty.reversed() : byProperty).thenComparing(order);
+        }
+        List<Event> matching = events.stream().filter(filter::matches).sorted(order).toList();
+        int from = (int) Math.min(pageable.getOffset(), matching.size());
+        int to = Math.min(from + pageable.getPageSize(), matching.size());
+        return new SliceImpl<>(matching.subList(from, to), pageable, to < matching.size());
+    }
 }
@@ -3,17 +3,24 @@ package server.api;
 import commons.Expense;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.query.FluentQuery;
 import server.database.ExpenseRepository;
+import server.database.ExpenseDumpRow;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Expense repository test stub for testing purposes
@@ -216,4 +223,107 @@ public class TestExpenseRepository implements ExpenseRepository {
     public Page<Expense> findAll(Pageable pageable) {
         return null;
     }
+
+    @Override
+    public List<Expense> findAllWithInvolvedsByInvitationCode(UUID invitationCode) {
+        call("findAllWithInvolvedsByInvitationCode");
+        return expenses.stream()
+                .filter(expense -> Objects.equals(expense.getInvitationCode(), invitationCode))
+                .toList();
+    }
+
+    @Override
+    public List<UUID> findFirstPageIdsByInvitationCode(UUID invitationCode, Limit limit) {
+        call("findFirstPageIdsByInvitationCode");
+        return sortedByDateAndId(invitationCode)
+                .limit(limit.max())
+                .map(Expense::getId)
+                .toList();
+    }
+
+    @Override
+    public List<UUID> findPageIdsByInvitationCode(UUID invitationCode, LocalDate afterDate, UUID afterId,
+                                                  Limit limit) {
+        call("findPageIdsByInvitationCode");
+        return sortedByDateAndId(invitationCode)
+                .filter(expense -> expense.getDate().isAfter(afterDate)
+                        || expense.getDate().equals(afterDate) && expense.getId().compareTo(afterId) > 0)
+                .limit(limit.max())
+                .map(Expense::getId)
+                .toList();
+    }
+
+    private Stream<Expense> sortedByDateAndId(UUID invitationCode) {
+        return expenses.stream()
+                .filter(expense -> Objects.equals(expense.getInvitationCode(), invitationCode))
+                .sorted(Comparator.comparing(Expense::getDate).thenComparing(Expense::getId));
+    }
+
+    @Override
+    public List<Expense> findAllWithInvolvedsByIdIn(Collection<UUID> ids) {
+        call("findAllWithInvolvedsByIdIn");
+        return expenses.stream()
+                .filter(expense -> ids.contains(expense.getId()))
+                .sorted(Comparator.comparing(Expense::getDate).thenComparing(Expense::getId))
+                .toList();
+    }
+
+    @Override
+    public int deleteAllByInvitationCode(UUID invitationCode) {
+        call("deleteAllByInvitationCode");
+        int size = expenses.size();
+        expenses.removeIf(expense -> Objects.equals(expense.getInvitationCode(), invitationCode));
+        return size - expenses.size();
+    }
+
+    @Override
+    public Stream<ExpenseDumpRow> streamDumpRowsByInvitationCode(UUID invitationCode) {
+        call("streamDumpRowsByInvitationCode");
+        return expenses.stream()
+                .filter(expense -> Objects.equals(expense.getInvitationCode(), invitationCode))
+                .flatMap(expense -> expense.getInvolveds().stream().map(involved -> new ExpenseDumpRow() {
+                    public UUID getExpenseId() {
+                        return expense.getId();
+                    }
+                    public UUID getPaidById() {
+                        return expense.getPaidById();
+                    }
+                    public String getTitle() {
+                        return expense.getTitle();
+                    }
+                    public double getAmount() {
+                        return expense.getAmount();
+                    }
+                    public LocalDate getDate() {
+                        return expense.getDate();
+                    }
+                    public UUID getInvolvedId() {
+                        return involved.getId();
+                    }
+                    public UUID getParticipantId() {
+                        return involved.getParticipantId();
+                    }
+                    public Boolean getSettled() {
+                        return involved.getIsSettled();
+                    }
+                }));
+    }
+
+    @Override
+    public List<UUID> findIdsOnlyInvolving(UUID participantId) {
+        call("findIdsOnlyInvolving");
+        return expenses.stream()
+                .filter(expense -> expense.getInvolveds() != null && expense.getInvolveds().size() == 1)
+                .filter(expense -> Objects.equals(expense.getInvolveds().get(0).getParticipantId(), participantId))
+                .map(Expense::getId)
+                .toList();
+    }
+
+    @Override
+    public int deleteAllPaidBy(UUID participantId) {
+        call("deleteAllPaidBy");
+        int size = expenses.size();
+        expenses.removeIf(expense -> Objects.equals(expense.getPaidById(), participantId));
+        return size - expenses.size();
+    }
 }
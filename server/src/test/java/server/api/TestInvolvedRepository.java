@@ -9,9 +9,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
 import server.database.InvolvedRepository;
+import server.database.InvolvedShare;
+import server.database.UnsettledInvolved;
 
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Involved repository implementation for testing purposes
@@ -211,4 +214,118 @@ public class TestInvolvedRepository implements InvolvedRepository {
     public Page<Involved> findAll(Pageable pageable) {
         return null;
     }
+
+    @Override
+    public List<InvolvedShare> findSharesByInvitationCode(UUID invitationCode) {
+        call("findSharesByInvitationCode");
+        List<InvolvedShare> shares = new ArrayList<>();
+        for (var involved : involveds) {
+            if (!Objects.equals(involved.getInvitationCode(), invitationCode))
+                continue;
+            var expense = involved.getExpense();
+            shares.add(new InvolvedShare() {
+                public UUID getExpenseId() {
+                    return expense.getId();
+                }
+                public double getAmount() {
+                    return expense.getAmount();
+                }
+                public UUID getPaidById() {
+                    return expense.getPaidById();
+                }
+                public UUID getParticipantId() {
+                    return involved.getParticipantId();
+                }
+                public boolean getSettled() {
+                    return involved.getIsSettled();
+                }
+            });
+        }
+        return shares;
+    }
+
+    @Override
+    public int deleteAllByInvitationCode(UUID invitationCode) {
+        call("deleteAllByInvitationCode");
+        int size = involveds.size();
+        involveds.removeIf(involved -> Objects.equals(involved.getInvitationCode(), invitationCode));
+        return size - involveds.size();
+    }
+
+    @Override
+    public int deleteAllOfParticipant(UUID participantId) {
+        call("deleteAllOfParticipant");
+        int size = involveds.size();
+        involveds.removeIf(involved -> Objects.equals(involved.getParticipantId(), participantId));
+        return size - involveds.size();
+    }
+
+    private List<UnsettledInvolved> unsettled(UUID invitationCode, Predicate<Involved> filter) {
+        return involveds.stream()
+                .filter(involved -> !involved.getIsSettled())
+                .filter(involved -> Objects.equals(involved.getInvitationCode(), invitationCode))
+                .filter(filter)
+                .map(involved -> (UnsettledInvolved) new UnsettledInvolved() {
+                    public UUID getId() {
+                        return involved.getId();
+                    }
+                    public UUID getExpenseId() {
+                        return involved.getExpenseId();
+                    }
+                    public UUID getParticipantId() {
+                        return involved.getParticipantId();
+                    }
+                })
+                .toList();
+    }
+
+    @Override
+    public List<UnsettledInvolved> findUnsettledByInvitationCode(UUID invitationCode) {
+        call("findUnsettledByInvitationCode");
+        return unsettled(invitationCode, involved -> true);
+    }
+
+    @Override
+    public List<UnsettledInvolved> findUnsettledByExpenseId(UUID invitationCode, UUID expenseId) {
+        call("findUnsettledByExpenseId");
+        return unsettled(invitationCode, involved -> Objects.equals(involved.getExpenseId(), expenseId));
+    }
+
+    @Override
+    public List<UnsettledInvolved> findUnsettledBetween(UUID invitationCode, UUID fromId, UUID toId) {
+        call("findUnsettledBetween");
+        return unsettled(invitationCode, involved -> Objects.equals(involved.getParticipantId(), fromId)
+                && involved.getExpense() != null && Objects.equals(involved.getExpense().getPaidById(), toId));
+    }
+
+    private int settle(UUID invitationCode, Predicate<Involved> filter) {
+        int settled = 0;
+        for (Involved involved : involveds) {
+            if (!involved.getIsSettled() && Objects.equals(involved.getInvitationCode(), invitationCode)
+                    && filter.test(involved)) {
+                involved.setIsSettled(true);
+                settled++;
+            }
+        }
+        return settled;
+    }
+
+    @Override
+    public int settleAllByInvitationCode(UUID invitationCode) {
+        call("settleAllByInvitationCode");
+        return settle(invitationCode, involved -> true);
+    }
+
+    @Override
+    public int settleAllByExpenseId(UUID invitationCode, UUID expenseId) {
+        call("settleAllByExpenseId");
+        return settle(invitationCode, involved -> Objects.equals(involved.getExpenseId(), expenseId));
+    }
+
+    @Override
+    public int settleAllBetween(UUID invitationCode, UUID fromId, UUID toId) {
+        call("settleAllBetween");
+        return settle(invitationCode, involved -> Objects.equals(involved.getParticipantId(), fromId)
+                && involved.getExpense() != null && Objects.equals(involved.getExpense().getPaidById(), toId));
+    }
 }
@@ -1,10 +1,13 @@
 package server.api;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import commons.Participant;
 import org.apache.commons.lang3.reflect.FieldUtils;
@@ -15,6 +18,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
 
 import server.database.ParticipantRepository;
+import server.database.ParticipantDumpRow;
 
 /**
  * Participant repository implementation for testing purposes
@@ -75,7 +79,8 @@ public class TestParticipantRepository implements ParticipantRepository {
 
     @Override
     public void deleteAllByIdInBatch(Iterable<UUID> ids) {
-
+        call("deleteAllByIdInBatch");
+        ids.forEach(id -> participants.removeIf(participant -> participant.getId().equals(id)));
     }
 
     @Override
@@ -198,4 +203,60 @@ public class TestParticipantRepository implements ParticipantRepository {
     public <S extends Participant, R> R findBy(Example<S> example, Function<FetchableFluentQuery<S>, R> queryFunction) {
         return null;
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<UUID> findIdsInEvent(UUID invitationCode, Collection<UUID> ids) {
+        call("findIdsInEvent");
+        return participants.stream()
+                .filter(participant -> ids.contains(participant.getId()))
+                .filter(participant -> Objects.equals(participant.getEventId(), invitationCode))
+                .map(Participant::getId)
+                .toList();
+    }
+
+    @Override
+    public Optional<UUID> findEventIdById(UUID id) {
+        call("findEventIdById");
+        return find(id).map(Participant::getEventId);
+    }
+
+    @Override
+    public int deleteAllByInvitationCode(UUID invitationCode) {
+        call("deleteAllByInvitationCode");
+        int size = participants.size();
+        participants.removeIf(participant -> Objects.equals(participant.getEventId(), invitationCode));
+        return size - participants.size();
+    }
+
+    @Override
+    public Stream<ParticipantDumpRow> streamDumpRowsByInvitationCode(UUID invitationCode) {
+        call("streamDumpRowsByInvitationCode");
+        return participants.stream()
+                .filter(participant -> Objects.equals(participant.getEventId(), invitationCode))
+                .map(participant -> new ParticipantDumpRow() {
+                    public UUID getId() {
+                        return participant.getId();
+                    }
+                    public String getFirstName() {
+                        return participant.getFirstName();
+                    }
+                    public String getLastName() {
+                        return participant.getLastName();
+                    }
+                    public String getIban() {
+                        return participant.getIban();
+                    }
+                    public String getBic() {
+                        return participant.getBic();
+                    }
+                });
+    }
+
+    @Override
+    public List<Participant> findAllWithMadeExpensesByInvitationCode(UUID invitationCode) {
+        call("findAllWithMadeExpensesByInvitationCode");
+        return participants.stream()
+                .filter(participant -> Objects.equals(participant.getEventId(), invitationCode))
+                .toList();
+    }
+}
@@ -0,0 +1,130 @@
+package server.api;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+import server.UpdateWaiterRegistry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UpdateWaiterRegistryTest {
+
+    private UpdateWaiterRegistry registry;
+
+    @AfterEach
+    public void shutdown() {
+        registry.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<UUID, String> body(DeferredResult<ResponseEntity<Map<UUID, String>>> result) {
+        ResponseEntity<Map<UUID, String>> response = (ResponseEntity<Map<UUID, String>>) result.getResult();
+        assertNotNull(response);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+
+    @Test
+    public void testWaiterCompletedAndRemovedOnUpdate() {
+        registry = new UpdateWaiterRegistry(5000, 8, 100, 0);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        var result = registry.register("client", List.of(first, second));
+        assertEquals(1, registry.getWaiterCount());
+        assertEquals(2, registry.getWatchedEventCount());
+        assertFalse(result.hasResult());
+
+        registry.eventUpdated(second, "new title");
+
+        assertEquals(Map.of(second, "new title"), body(result));
+        assertEquals(0, registry.getWaiterCount());
+        assertEquals(0, registry.getWatchedEventCount());
+        assertEquals(0, registry.getClientCount());
+    }
+
+    @Test
+    public void testDeletedEventIsSentWithoutTitle() {
+        registry = new UpdateWaiterRegistry(5000, 8, 100, 0);
+        UUID invitationCode = UUID.randomUUID();
+
+        var result = registry.register("client", List.of(invitationCode));
+        registry.eventUpdated(invitationCode, null);
+
+        Map<UUID, String> body = body(result);
+        assertTrue(body.containsKey(invitationCode));
+        assertNull(body.get(invitationCode));
+    }
+
+    @Test
+    public void testUpdatesOfManyCodesAreBatched() {
+        registry = new UpdateWaiterRegistry(5000, 8, 100, 0);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID unwatched = UUID.randomUUID();
+
+        var result = registry.register("client", List.of(first, second));
+        var other = registry.register("other", List.of(second));
+        registry.eventsUpdated(Map.of(first, "a", second, "b", unwatched, "c"));
+
+        assertEquals(Map.of(first, "a", second, "b"), body(result));
+        assertEquals(Map.of(second, "b"), body(other));
+        assertEquals(0, registry.getWaiterCount());
+    }
+
+    @Test
+    public void testUpdatesWithinBatchDelayAreSentTogether() throws InterruptedException {
+        registry = new UpdateWaiterRegistry(5000, 8, 100, 100);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        var result = registry.register("client", List.of(first, second));
+        registry.eventUpdated(first, "a");
+        registry.eventUpdated(second, "b");
+        assertFalse(result.hasResult());
+
+        for (int i = 0; i < 50 && !result.hasResult(); i++)
+            Thread.sleep(20);
+        assertEquals(Map.of(first, "a", second, "b"), body(result));
+    }
+
+    @Test
+    public void testWaitersAreCappedPerClient() {
+        registry = new UpdateWaiterRegistry(5000, 2, 100, 0);
+        UUID invitationCode = UUID.randomUUID();
+
+        registry.register("client", List.of(invitationCode));
+        registry.register("client", List.of(invitationCode));
+        var rejected = registry.register("client", List.of(invitationCode));
+        var otherClient = registry.register("other", List.of(invitationCode));
+
+        assertEquals(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build(), rejected.getResult());
+        assertFalse(otherClient.hasResult());
+        assertEquals(3, registry.getWaiterCount());
+        assertEquals(2, registry.getClientCount());
+        assertEquals(1, registry.getRejectedCount());
+    }
+
+    @Test
+    public void testWaitersAreCappedOverall() {
+        registry = new UpdateWaiterRegistry(5000, 8, 2, 0);
+        UUID invitationCode = UUID.randomUUID();
+
+        registry.register("a", List.of(invitationCode));
+        registry.register("b", List.of(invitationCode));
+        var rejected = registry.register("c", List.of(invitationCode));
+
+        assertEquals(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build(), rejected.getResult());
+        assertEquals(2, registry.getWaiterCount());
+
+        registry.eventUpdated(invitationCode, "title");
+        assertEquals(0, registry.getWaiterCount());
+        assertFalse(registry.register("c", List.of(invitationCode)).hasResult());
+    }
+}
@@ -0,0 +1,115 @@
+package server.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import commons.Expense;
+import commons.ExpenseList;
+import commons.Involved;
+import commons.InvolvedList;
+import commons.StatusEntity;
+import commons.WireSchemaMessageConverter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import server.WireSchemaNegotiation;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class WireSchemaNegotiationTest {
+
+    private WireSchemaNegotiation negotiation;
+    private MessageChannel channel;
+    private MappingJackson2MessageConverter jsonConverter;
+    private WireSchemaMessageConverter serverConverter;
+    private WireSchemaMessageConverter clientConverter;
+    private StatusEntity status;
+
+    @BeforeEach
+    public void setup() {
+        negotiation = new WireSchemaNegotiation();
+        channel = mock(MessageChannel.class);
+        jsonConverter = new MappingJackson2MessageConverter();
+        jsonConverter.setObjectMapper(new ObjectMapper().findAndRegisterModules());
+        serverConverter = new WireSchemaMessageConverter(jsonConverter, negotiation::isV2);
+        clientConverter = new WireSchemaMessageConverter(jsonConverter);
+
+        UUID invitationCode = UUID.randomUUID();
+        UUID participantId = UUID.randomUUID();
+        ExpenseList expenses = new ExpenseList();
+        for (int i = 0; i < 10; i++) {
+            UUID expenseId = UUID.randomUUID();
+            InvolvedList involveds = new InvolvedList();
+            involveds.add(new Involved(UUID.randomUUID(), false, expenseId, participantId, invitationCode));
+            Expense expense = new Expense(expenseId, "Expense " + i, 10, participantId, invitationCode,
+                    LocalDate.of(2024, 1, 1), involveds);
+            expense.setAmountOwed(10);
+            expenses.add(expense);
+        }
+        status = StatusEntity.ok(expenses);
+    }
+
+    private void connect(String sessionId, String schema) {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        headerAccessor.setSessionId(sessionId);
+        if (schema != null)
+            headerAccessor.setNativeHeader(WireSchemaMessageConverter.SCHEMA_HEADER, schema);
+        negotiation.preSend(MessageBuilder.createMessage(new byte[0], headerAccessor.getMessageHeaders()), channel);
+    }
+
+    private MessageHeaders answerTo(String sessionId) {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create();
+        if (sessionId != null)
+            headerAccessor.setSessionId(sessionId);
+        return headerAccessor.getMessageHeaders();
+    }
+
+    @Test
+    public void testV2SessionIsAnsweredInV2() {
+        connect("a", WireSchemaMessageConverter.V2);
+
+        Message<?> message = serverConverter.toMessage(status, answerTo("a"));
+
+        assertNotNull(message);
+        assertTrue(WireSchemaMessageConverter.isV2(message.getHeaders()));
+        assertEquals(status, clientConverter.fromMessage(message, StatusEntity.class));
+        byte[] v1 = (byte[]) jsonConverter.toMessage(status, null).getPayload();
+        assertTrue(((byte[]) message.getPayload()).length < v1.length);
+    }
+
+    @Test
+    public void testV1SessionIsLeftToTheOtherConverters() {
+        connect("a", null);
+        connect("b", "1");
+
+        assertNull(serverConverter.toMessage(status, answerTo("a")));
+        assertNull(serverConverter.toMessage(status, answerTo("b")));
+        assertNull(serverConverter.toMessage(status, answerTo(null)));
+    }
+
+    @Test
+    public void testV1FrameIsLeftToTheOtherConverters() {
+        Message<?> message = jsonConverter.toMessage(status, null);
+
+        assertNull(clientConverter.fromMessage(message, StatusEntity.class));
+    }
+
+    @Test
+    public void testDisconnectForgetsSession() {
+        connect("a", WireSchemaMessageConverter.V2);
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        headerAccessor.setSessionId("a");
+        negotiation.preSend(MessageBuilder.createMessage(new byte[0], headerAccessor.getMessageHeaders()), channel);
+
+        assertFalse(negotiation.isV2(answerTo("a")));
+    }
+}